@@ -0,0 +1,39 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.annotation.RetryOnOptimisticLock;
+import com.example.bankcards.util.retry.OptimisticLockRetryInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+@Configuration
+public class RetryConfig {
+
+    /**
+     * Порядок: снаружи @PreAuthorize (права проверяем один раз), но внутри — @Transactional,
+     * чтобы каждая попытка открывала новую транзакцию и перечитывала актуальную версию строки.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor optimisticLockRetryAdvisor(
+            @Value("${app.cards.retry.max-attempts:3}") int maxAttempts,
+            @Value("${app.cards.retry.base-backoff:10ms}") Duration baseBackoff,
+            @Value("${app.cards.retry.max-backoff:200ms}") Duration maxBackoff,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(RetryOnOptimisticLock.class),
+                new OptimisticLockRetryInterceptor(maxAttempts, baseBackoff, maxBackoff, meterRegistry));
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 100);
+        return advisor;
+    }
+}
@@ -3,8 +3,10 @@ package com.example.bankcards.config;
 import com.example.bankcards.exception.CustomAccessDeniedHandler;
 import com.example.bankcards.exception.CustomAuthenticationEntryPoint;
 import com.example.bankcards.security.OwnerDetailsService;
+import jakarta.servlet.DispatcherType;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -38,17 +40,21 @@ public class SecurityConfig {
         this.customAuthenticationEntryPoint = customAuthenticationEntryPoint;
     }
 
+    /**
+     * Хэши с меньшей стоимостью пересчитываются при следующем входе клиента
+     * ({@link OwnerDetailsService#updatePassword}), поэтому стоимость можно поднять без сброса паролей.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
-    public AuthenticationManager authenticationManager(HttpSecurity http) throws Exception {
+    public AuthenticationManager authenticationManager(HttpSecurity http, PasswordEncoder passwordEncoder) throws Exception {
         AuthenticationManagerBuilder authBuilder = http.getSharedObject(AuthenticationManagerBuilder.class);
         authBuilder
                 .userDetailsService(ownerDetailsService)
-                .passwordEncoder(passwordEncoder());
+                .passwordEncoder(passwordEncoder);
         return authBuilder.build();
     }
 
@@ -60,20 +66,29 @@ public class SecurityConfig {
                 .sessionManagement(sm -> sm.sessionCreationPolicy(
                         SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // асинхронная отправка SSE (/cards/stream) идёт вне JWT-фильтра; доступ проверен при подписке
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/swagger-ui/**",
                                 "/v3/api-docs/**",
                                 "/swagger-resources/**",
                                 "/swagger-ui.html"
                         ).permitAll()
-                        .requestMatchers("/owner/registration", "/owner/login").permitAll()
-                        .requestMatchers("/owner/personal-account", "/owner/update-my-data", "/cards",
-                                "/cards/{id}", "/cards/{id}/deposit", "/cards/{id}/withdraw")
+                        .requestMatchers("/owner/registration", "/owner/login", "/owner/refresh").permitAll()
+                        .requestMatchers("/owner/personal-account", "/owner/update-my-data", "/owner/logout",
+                                "/owner/logout-all", "/cards", "/cards/stream", "/cards/{id}", "/cards/{id}/deposit",
+                                "/cards/{id}/withdraw", "/cards/{id}/holds", "/cards/{id}/holds/{holdId}/capture",
+                                "/cards/{id}/holds/{holdId}/release", "/cards/scheduled-transfers",
+                                "/cards/scheduled-transfers/{id}")
                         .hasAnyAuthority("USER", "ADMIN")
                         .requestMatchers("/admin/promote").hasAuthority("USER")
                         .requestMatchers("/admin/all-customers", "/admin/block-customer/{id}",
-                                "/admin/unblock-customer/{id}", "/admin/update-customer/{id}", "/admin/cards",
-                                "/admin/cards/{id}/block", "/admin/cards/{id}/unblock").hasAuthority("ADMIN")
+                                "/admin/unblock-customer/{id}", "/admin/revoke-tokens/{id}",
+                                "/admin/update-customer/{id}", "/admin/cards",
+                                "/admin/cards/{id}/block", "/admin/cards/{id}/unblock",
+                                "/admin/cards/{id}/balance-slots", "/admin/cards/{id}/transactions",
+                                "/admin/cards/{id}/limits", "/admin/customer-limits/{id}",
+                                "/admin/fx-rates").hasAuthority("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
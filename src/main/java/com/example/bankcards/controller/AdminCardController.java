@@ -3,6 +3,8 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.CardAdminFilter;
 import com.example.bankcards.dto.CardCreateRequestDTO;
 import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.dto.CardTransactionPageDTO;
+import com.example.bankcards.dto.SpendingLimitRequestDTO;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.service.AdminService;
 import com.example.bankcards.service.CardService;
@@ -43,6 +45,30 @@ public class AdminCardController {
         return adminService.adminUnblockCard(id);
     }
 
+    /**
+     * Полосатый баланс для горячих карт: slots = 0 выключает режим, 1..64 — число полос.
+     */
+    @PatchMapping("/{id}/balance-slots")
+    public CardResponseDTO setBalanceSlots(@PathVariable Long id, @RequestParam int slots) {
+        return adminService.adminSetBalanceSlots(id, slots);
+    }
+
+    /**
+     * Собственные лимиты расходов карты (сутки/месяц); пустое поле — без лимита.
+     */
+    @PutMapping("/{id}/limits")
+    public CardResponseDTO setLimits(@PathVariable Long id, @RequestBody @Valid SpendingLimitRequestDTO dto) {
+        return adminService.adminSetCardLimits(id, dto);
+    }
+
+    /**
+     * Сброс к лимитам по умолчанию.
+     */
+    @DeleteMapping("/{id}/limits")
+    public CardResponseDTO clearLimits(@PathVariable Long id) {
+        return adminService.adminClearCardLimits(id);
+    }
+
     @GetMapping
     public Page<CardResponseDTO> findAll(
             @RequestParam(required = false) Long ownerId,
@@ -55,6 +81,16 @@ public class AdminCardController {
         return adminService.findCards(filter, pageable);
     }
 
+    /**
+     * История движений по карте (keyset-пагинация по курсору after, без COUNT).
+     */
+    @GetMapping("/{id}/transactions")
+    public CardTransactionPageDTO transactions(@PathVariable Long id,
+                                               @RequestParam(required = false) String after,
+                                               @RequestParam(defaultValue = "50") int limit) {
+        return cardService.adminGetCardTransactions(id, after, limit);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCard(@PathVariable Long id) {
         adminService.adminDeleteCard(id);
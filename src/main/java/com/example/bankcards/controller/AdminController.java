@@ -3,6 +3,7 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.CodeRequestDTO;
 import com.example.bankcards.dto.OwnerAdminUpdateDTO;
 import com.example.bankcards.dto.OwnerResponseDTO;
+import com.example.bankcards.dto.SpendingLimitRequestDTO;
 import com.example.bankcards.exception.ValidationException;
 import com.example.bankcards.security.OwnerDetails;
 import com.example.bankcards.service.AdminService;
@@ -65,6 +66,12 @@ public class AdminController {
         return ResponseEntity.ok("Customer's account with id " + ownerId + " is unlocked.");
     }
 
+    @PatchMapping("/revoke-tokens/{id}")
+    public ResponseEntity<String> revokeCustomerTokens(@PathVariable("id") Long ownerId) {
+        adminService.revokeCustomerTokens(ownerId);
+        return ResponseEntity.ok("All tokens of customer with id " + ownerId + " are revoked.");
+    }
+
     @PatchMapping("/update-customer/{id}")
     public ResponseEntity<OwnerResponseDTO> updateCustomerDataAsAdmin(
             @PathVariable("id") Long ownerId,
@@ -78,4 +85,14 @@ public class AdminController {
         OwnerResponseDTO response = adminService.updateCustomerDataByAdmin(ownerId, dto);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Лимиты расходов на все карты владельца; пустое поле — без лимита.
+     */
+    @PutMapping("/customer-limits/{id}")
+    public ResponseEntity<Void> setCustomerLimits(@PathVariable("id") Long ownerId,
+                                                  @RequestBody @Valid SpendingLimitRequestDTO dto) {
+        adminService.adminSetOwnerLimits(ownerId, dto);
+        return ResponseEntity.noContent().build();
+    }
 }
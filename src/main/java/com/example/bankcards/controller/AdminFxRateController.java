@@ -0,0 +1,38 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.FxRateBulkRequestDTO;
+import com.example.bankcards.dto.FxRateDTO;
+import com.example.bankcards.service.FxRateService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/fx-rates")
+public class AdminFxRateController {
+
+    private final FxRateService fxRateService;
+
+    public AdminFxRateController(FxRateService fxRateService) {
+        this.fxRateService = fxRateService;
+    }
+
+    /**
+     * Пакетная загрузка курсов; переводы начинают считаться по ним сразу после коммита.
+     */
+    @PostMapping
+    public ResponseEntity<List<FxRateDTO>> load(@RequestBody @Valid FxRateBulkRequestDTO dto) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(fxRateService.load(dto.getRates()));
+    }
+
+    /**
+     * Курсы, по которым сейчас считаются переводы, включая запланированные.
+     */
+    @GetMapping
+    public List<FxRateDTO> current() {
+        return fxRateService.currentRates();
+    }
+}
@@ -1,12 +1,27 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BatchTransferRequestDTO;
+import com.example.bankcards.dto.BatchTransferResponseDTO;
+import com.example.bankcards.dto.CardHoldDTO;
 import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.dto.CardTransactionPageDTO;
 import com.example.bankcards.dto.DepositRequestDTO;
+import com.example.bankcards.dto.HoldRequestDTO;
+import com.example.bankcards.dto.ScheduledTransferDTO;
+import com.example.bankcards.dto.ScheduledTransferRequestDTO;
+import com.example.bankcards.dto.TransferOperationDTO;
 import com.example.bankcards.dto.TransferRequestDTO;
 import com.example.bankcards.dto.TransferResponseDTO;
 import com.example.bankcards.dto.ErrorResponseDTO;
 import com.example.bankcards.security.OwnerDetails;
+import com.example.bankcards.service.CardHoldService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.CardStreamService;
+import com.example.bankcards.service.DepositCoalescer;
+import com.example.bankcards.service.IdempotencyService;
+import com.example.bankcards.service.ScheduledTransferService;
+import com.example.bankcards.service.StatementService;
+import com.example.bankcards.service.TransferPipeline;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,21 +29,56 @@ import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.UUID;
 
 @Tag(name = "Cards", description = "Операции с картами текущего пользователя")
 @RestController
 @RequestMapping("/cards")
 public class CardController {
 
+    private static final String IDEMPOTENCY_HEADER = "Idempotency-Key";
+
     private final CardService cardService;
-    public CardController(CardService cardService) { this.cardService = cardService; }
+    private final IdempotencyService idempotencyService;
+    private final TransferPipeline transferPipeline;
+    private final DepositCoalescer depositCoalescer;
+    private final StatementService statementService;
+    private final CardHoldService cardHoldService;
+    private final ScheduledTransferService scheduledTransferService;
+    private final CardStreamService cardStreamService;
+
+    public CardController(CardService cardService, IdempotencyService idempotencyService,
+                          TransferPipeline transferPipeline, DepositCoalescer depositCoalescer,
+                          StatementService statementService, CardHoldService cardHoldService,
+                          ScheduledTransferService scheduledTransferService, CardStreamService cardStreamService) {
+        this.cardService = cardService;
+        this.idempotencyService = idempotencyService;
+        this.transferPipeline = transferPipeline;
+        this.depositCoalescer = depositCoalescer;
+        this.statementService = statementService;
+        this.cardHoldService = cardHoldService;
+        this.scheduledTransferService = scheduledTransferService;
+        this.cardStreamService = cardStreamService;
+    }
 
     @Operation(
             summary = "Список моих карт",
@@ -51,6 +101,28 @@ public class CardController {
         return cardService.getMyCards(ownerDetails.getId(), pageable);
     }
 
+    @Operation(
+            summary = "Живой поток изменений моих карт",
+            description = "Server-Sent Events: событие card (CardUpdateDTO) на каждое закоммиченное изменение баланса, "
+                    + "холда или статуса карты. При переподключении заголовок Last-Event-ID досылает пропущенные события; "
+                    + "если их уже нет в буфере — приходит событие reset, и список карт нужно перечитать через GET /cards.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Поток открыт",
+                            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)),
+                    @ApiResponse(responseCode = "401", description = "Неавторизован",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "429", description = "Открыто слишком много потоков",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class)))
+            }
+    )
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMyCards(
+            @AuthenticationPrincipal @Parameter(hidden = true) OwnerDetails me,
+            @Parameter(description = "id последнего полученного события")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return cardStreamService.subscribe(me.getId(), lastEventId);
+    }
+
     @Operation(
             summary = "Получить мою карту по ID",
             description = "Возвращает карту по идентификатору, если она принадлежит текущему пользователю.",
@@ -74,6 +146,60 @@ public class CardController {
         return cardService.getMyCardById(me.getId(), id);
     }
 
+    @Operation(
+            summary = "История движений по моей карте",
+            description = "Проводки по карте, новые сверху. Keyset-пагинация: для следующей страницы передайте nextCursor из ответа в параметр after. Общее количество не возвращается.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Страница истории",
+                            content = @Content(schema = @Schema(implementation = CardTransactionPageDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Неверный курсор или limit вне 1..200",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "401", description = "Неавторизован",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "404", description = "Карта не найдена или не принадлежит пользователю",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class)))
+            }
+    )
+    @GetMapping("/{id}/transactions")
+    public CardTransactionPageDTO getMyCardTransactions(
+            @AuthenticationPrincipal @Parameter(hidden = true) OwnerDetails me,
+            @Parameter(description = "ID карты", example = "7") @PathVariable Long id,
+            @Parameter(description = "Курсор из nextCursor предыдущей страницы") @RequestParam(required = false) String after,
+            @Parameter(description = "Размер страницы, 1..200") @RequestParam(defaultValue = "50") int limit) {
+        return cardService.getMyCardTransactions(me.getId(), id, after, limit);
+    }
+
+    @Operation(
+            summary = "Месячная выписка по моей карте",
+            description = "Отдаёт заранее сгенерированный файл выписки (CSV или JSON Lines) за указанный месяц. " +
+                    "Выписки формируются ночным заданием в начале следующего месяца; база данных при скачивании не запрашивается.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Файл выписки"),
+                    @ApiResponse(responseCode = "400", description = "Неверный период (ожидается yyyy-MM) или формат",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "401", description = "Неавторизован",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "404", description = "Выписка ещё не сформирована или карта не принадлежит пользователю",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class)))
+            }
+    )
+    @GetMapping("/{id}/statements/{period}")
+    public ResponseEntity<Resource> getMyCardStatement(
+            @AuthenticationPrincipal @Parameter(hidden = true) OwnerDetails me,
+            @Parameter(description = "ID карты", example = "7") @PathVariable Long id,
+            @Parameter(description = "Месяц выписки", example = "2025-01") @PathVariable String period,
+            @Parameter(description = "csv или jsonl") @RequestParam(defaultValue = StatementService.CSV) String format) {
+        Path file = statementService.getStatement(me.getId(), id, period, format);
+        MediaType type = StatementService.CSV.equals(format)
+                ? MediaType.parseMediaType("text/csv")
+                : MediaType.parseMediaType("application/x-ndjson");
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("card-" + id + "-" + period + "." + format).build().toString())
+                .body(new FileSystemResource(file));
+    }
+
     @Operation(
             summary = "Пополнить мою карту",
             description = "Пополняет баланс карты, если карта принадлежит текущему пользователю и не заблокирована.",
@@ -93,6 +219,8 @@ public class CardController {
                     @ApiResponse(responseCode = "404", description = "Карта не найдена или не принадлежит пользователю",
                             content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
                     @ApiResponse(responseCode = "409", description = "Карта заблокирована",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "422", description = "Idempotency-Key уже использован с другим запросом",
                             content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class)))
             }
     )
@@ -100,9 +228,13 @@ public class CardController {
     public CardResponseDTO depositMyCard(
             @AuthenticationPrincipal @Parameter(hidden = true) OwnerDetails me,
             @Parameter(description = "ID карты", example = "7") @PathVariable Long id,
+            @Parameter(description = "Ключ идемпотентности: повтор с тем же ключом вернёт сохранённый ответ")
+            @RequestHeader(value = IDEMPOTENCY_HEADER, required = false) String idempotencyKey,
             @RequestBody @Valid DepositRequestDTO dto
     ) {
-        return cardService.depositMyCard(me.getId(), id, dto.getAmount());
+        return idempotencyService.execute(me.getId(), idempotencyKey,
+                "deposit:" + id + ":" + dto.getAmount().stripTrailingZeros().toPlainString(), CardResponseDTO.class,
+                () -> depositCoalescer.deposit(me.getId(), id, dto.getAmount()));
     }
 
     @Operation(
@@ -123,6 +255,8 @@ public class CardController {
                     @ApiResponse(responseCode = "404", description = "Карта не найдена или не принадлежит пользователю",
                             content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
                     @ApiResponse(responseCode = "409", description = "Недостаточно средств или карта заблокирована",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "422", description = "Idempotency-Key уже использован с другим запросом",
                             content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class)))
             }
     )
@@ -130,9 +264,95 @@ public class CardController {
     public CardResponseDTO withdrawMyCard(
             @AuthenticationPrincipal @Parameter(hidden = true) OwnerDetails me,
             @Parameter(description = "ID карты", example = "7") @PathVariable Long id,
+            @Parameter(description = "Ключ идемпотентности: повтор с тем же ключом вернёт сохранённый ответ")
+            @RequestHeader(value = IDEMPOTENCY_HEADER, required = false) String idempotencyKey,
             @RequestBody @Valid DepositRequestDTO dto
     ) {
-        return cardService.withdrawMyCard(me.getId(), id, dto.getAmount());
+        return idempotencyService.execute(me.getId(), idempotencyKey,
+                "withdraw:" + id + ":" + dto.getAmount().stripTrailingZeros().toPlainString(), CardResponseDTO.class,
+                () -> cardService.withdrawMyCard(me.getId(), id, dto.getAmount()));
+    }
+
+    @Operation(
+            summary = "Захолдировать сумму на моей карте",
+            description = "Резервирует сумму без списания: баланс не меняется, доступный остаток уменьшается. " +
+                    "Холд действует до capture, release или истечения срока (ttl, по умолчанию app.cards.holds.default-ttl).",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = HoldRequestDTO.class),
+                            examples = @ExampleObject(value = "{\"amount\":25.00,\"ttl\":\"PT72H\"}"))
+            ),
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Холд создан",
+                            content = @Content(schema = @Schema(implementation = CardHoldDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Невалидная сумма или срок",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "401", description = "Неавторизован",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "404", description = "Карта не найдена или не принадлежит пользователю",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "409", description = "Недостаточно доступных средств или карта заблокирована",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "422", description = "Idempotency-Key уже использован с другим запросом",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class)))
+            }
+    )
+    @PostMapping("/{id}/holds")
+    public ResponseEntity<CardHoldDTO> holdOnMyCard(
+            @AuthenticationPrincipal @Parameter(hidden = true) OwnerDetails me,
+            @Parameter(description = "ID карты", example = "7") @PathVariable Long id,
+            @Parameter(description = "Ключ идемпотентности: повтор с тем же ключом вернёт сохранённый ответ")
+            @RequestHeader(value = IDEMPOTENCY_HEADER, required = false) String idempotencyKey,
+            @RequestBody @Valid HoldRequestDTO dto) {
+        CardHoldDTO hold = idempotencyService.execute(me.getId(), idempotencyKey,
+                "hold:" + id + ":" + dto.getAmount().stripTrailingZeros().toPlainString() + ":" + dto.getTtl(),
+                CardHoldDTO.class,
+                () -> cardHoldService.hold(me.getId(), id, dto.getAmount(), dto.getTtl()));
+        return ResponseEntity.status(HttpStatus.CREATED).body(hold);
+    }
+
+    @Operation(
+            summary = "Списать холд",
+            description = "Списывает захолдированную сумму с баланса карты. Холд должен быть активным и не просроченным.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Холд списан",
+                            content = @Content(schema = @Schema(implementation = CardHoldDTO.class))),
+                    @ApiResponse(responseCode = "401", description = "Неавторизован",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "404", description = "Холд не найден или карта не принадлежит пользователю",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "409", description = "Холд уже закрыт или истёк, карта заблокирована, превышен лимит расходов",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class)))
+            }
+    )
+    @PostMapping("/{id}/holds/{holdId}/capture")
+    public CardHoldDTO captureHold(
+            @AuthenticationPrincipal @Parameter(hidden = true) OwnerDetails me,
+            @Parameter(description = "ID карты", example = "7") @PathVariable Long id,
+            @Parameter(description = "ID холда", example = "42") @PathVariable Long holdId) {
+        return cardHoldService.capture(me.getId(), id, holdId);
+    }
+
+    @Operation(
+            summary = "Отпустить холд",
+            description = "Отменяет активный холд: сумма снова доступна, баланс не меняется.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Холд отпущен",
+                            content = @Content(schema = @Schema(implementation = CardHoldDTO.class))),
+                    @ApiResponse(responseCode = "401", description = "Неавторизован",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "404", description = "Холд не найден или карта не принадлежит пользователю",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "409", description = "Холд уже закрыт",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class)))
+            }
+    )
+    @PostMapping("/{id}/holds/{holdId}/release")
+    public CardHoldDTO releaseHold(
+            @AuthenticationPrincipal @Parameter(hidden = true) OwnerDetails me,
+            @Parameter(description = "ID карты", example = "7") @PathVariable Long id,
+            @Parameter(description = "ID холда", example = "42") @PathVariable Long holdId) {
+        return cardHoldService.release(me.getId(), id, holdId);
     }
 
     @Operation(
@@ -146,6 +366,8 @@ public class CardController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Перевод выполнен",
                             content = @Content(schema = @Schema(implementation = TransferResponseDTO.class))),
+                    @ApiResponse(responseCode = "202", description = "Перевод поставлен в очередь (асинхронный режим), статус — /cards/operations/{id}",
+                            content = @Content(schema = @Schema(implementation = TransferOperationDTO.class))),
                     @ApiResponse(responseCode = "400", description = "Невалидные данные (amount <= 0 или одинаковые карты)",
                             content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
                     @ApiResponse(responseCode = "401", description = "Неавторизован",
@@ -153,13 +375,136 @@ public class CardController {
                     @ApiResponse(responseCode = "404", description = "Одна из карт не найдена или не принадлежит пользователю",
                             content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
                     @ApiResponse(responseCode = "409", description = "Недостаточно средств / карта заблокирована / валюты не совпадают",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "422", description = "Idempotency-Key уже использован с другим запросом",
                             content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class)))
             }
     )
     @PostMapping("/transfer")
-    public TransferResponseDTO transferBetweenMyCards(
+    public ResponseEntity<?> transferBetweenMyCards(
             @AuthenticationPrincipal @Parameter(hidden = true) OwnerDetails me,
+            @Parameter(description = "Ключ идемпотентности: повтор с тем же ключом вернёт сохранённый ответ")
+            @RequestHeader(value = IDEMPOTENCY_HEADER, required = false) String idempotencyKey,
             @RequestBody @Valid TransferRequestDTO dto) {
-        return cardService.transferBetweenMyCards(me.getId(), dto.getFromCardId(), dto.getToCardId(), dto.getAmount());
+        String fingerprint = dto.getFromCardId() + ":" + dto.getToCardId() + ":" + dto.getAmount().stripTrailingZeros().toPlainString();
+        if (transferPipeline.isEnabled()) {
+            TransferOperationDTO operation = idempotencyService.execute(me.getId(), idempotencyKey,
+                    "transfer-async:" + fingerprint, TransferOperationDTO.class,
+                    () -> transferPipeline.submit(me.getId(), dto.getFromCardId(), dto.getToCardId(), dto.getAmount()));
+            return ResponseEntity.accepted()
+                    .location(URI.create("/cards/operations/" + operation.getId()))
+                    .body(operation);
+        }
+        return ResponseEntity.ok(idempotencyService.execute(me.getId(), idempotencyKey,
+                "transfer:" + fingerprint, TransferResponseDTO.class,
+                () -> cardService.transferBetweenMyCards(me.getId(), dto.getFromCardId(), dto.getToCardId(), dto.getAmount())));
+    }
+
+    @Operation(
+            summary = "Статус асинхронного перевода",
+            description = "Возвращает состояние операции, поставленной в очередь через /cards/transfer (режим app.cards.transfer.async.enabled).",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Операция найдена",
+                            content = @Content(schema = @Schema(implementation = TransferOperationDTO.class))),
+                    @ApiResponse(responseCode = "401", description = "Неавторизован",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "404", description = "Операция не найдена, устарела или принадлежит другому пользователю",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class)))
+            }
+    )
+    @GetMapping("/operations/{id}")
+    public TransferOperationDTO getOperation(
+            @AuthenticationPrincipal @Parameter(hidden = true) OwnerDetails me,
+            @Parameter(description = "ID операции") @PathVariable UUID id) {
+        return transferPipeline.find(me.getId(), id)
+                .orElseThrow(() -> new EntityNotFoundException("Operation not found"));
+    }
+
+    @Operation(
+            summary = "Пакет переводов между моими картами",
+            description = "Выполняет до N переводов (app.cards.transfer-batch.max-size) в одной транзакции с теми же правилами, что и одиночный перевод. " +
+                    "ALL_OR_NOTHING: при любом отклонённом переводе не применяется ни один. BEST_EFFORT: применяются все допустимые. " +
+                    "Результат по каждому элементу возвращается в поле results.",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = BatchTransferRequestDTO.class),
+                            examples = @ExampleObject(value = "{\"mode\":\"BEST_EFFORT\",\"transfers\":[{\"fromCardId\":7,\"toCardId\":9,\"amount\":40},{\"fromCardId\":9,\"toCardId\":11,\"amount\":15}]}"))
+            ),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Пакет обработан, статусы элементов — в results",
+                            content = @Content(schema = @Schema(implementation = BatchTransferResponseDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Пустой пакет, слишком много переводов или ошибки валидации",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "401", description = "Неавторизован",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class)))
+            }
+    )
+    @PostMapping("/transfer/batch")
+    public BatchTransferResponseDTO transferBatchBetweenMyCards(
+            @AuthenticationPrincipal @Parameter(hidden = true) OwnerDetails me,
+            @RequestBody @Valid BatchTransferRequestDTO dto) {
+        return cardService.transferBatchBetweenMyCards(me.getId(), dto.getTransfers(), dto.getMode());
+    }
+
+    @Operation(
+            summary = "Запланировать перевод между моими картами",
+            description = "Разовый (ONCE) или повторяющийся (DAILY, WEEKLY, MONTHLY) перевод. Каждый запуск проходит те же " +
+                    "проверки, что и /cards/transfer; отказ запуска записывается в lastError, повторяющееся расписание при этом остаётся активным.",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = ScheduledTransferRequestDTO.class),
+                            examples = @ExampleObject(value = "{\"fromCardId\":7,\"toCardId\":9,\"amount\":40,\"firstRunAt\":\"2025-02-01T09:00:00\",\"recurrence\":\"MONTHLY\"}"))
+            ),
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Расписание создано",
+                            content = @Content(schema = @Schema(implementation = ScheduledTransferDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Невалидная сумма, одинаковые карты или firstRunAt в прошлом",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "401", description = "Неавторизован",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "404", description = "Одна из карт не найдена или не принадлежит пользователю",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "409", description = "Превышено число активных расписаний",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class)))
+            }
+    )
+    @PostMapping("/scheduled-transfers")
+    public ResponseEntity<ScheduledTransferDTO> scheduleTransfer(
+            @AuthenticationPrincipal @Parameter(hidden = true) OwnerDetails me,
+            @RequestBody @Valid ScheduledTransferRequestDTO dto) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(scheduledTransferService.create(me.getId(), dto));
+    }
+
+    @Operation(
+            summary = "Мои запланированные переводы",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Страница расписаний"),
+                    @ApiResponse(responseCode = "401", description = "Неавторизован",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class)))
+            }
+    )
+    @GetMapping("/scheduled-transfers")
+    public Page<ScheduledTransferDTO> getMyScheduledTransfers(
+            @AuthenticationPrincipal @Parameter(hidden = true) OwnerDetails me,
+            @PageableDefault(size = 20, sort = "id", direction = Sort.Direction.DESC) Pageable pageable) {
+        return scheduledTransferService.getMine(me.getId(), pageable);
+    }
+
+    @Operation(
+            summary = "Отменить запланированный перевод",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "Расписание отменено"),
+                    @ApiResponse(responseCode = "401", description = "Неавторизован",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class))),
+                    @ApiResponse(responseCode = "404", description = "Активное расписание не найдено или принадлежит другому пользователю",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDTO.class)))
+            }
+    )
+    @DeleteMapping("/scheduled-transfers/{id}")
+    public ResponseEntity<Void> cancelScheduledTransfer(
+            @AuthenticationPrincipal @Parameter(hidden = true) OwnerDetails me,
+            @Parameter(description = "ID расписания") @PathVariable Long id) {
+        scheduledTransferService.cancel(me.getId(), id);
+        return ResponseEntity.noContent().build();
     }
 }
@@ -3,44 +3,54 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.*;
 import com.example.bankcards.exception.ValidationException;
 import com.example.bankcards.security.JWTUtil;
+import com.example.bankcards.security.LoginExecutor;
 import com.example.bankcards.security.OwnerDetails;
 import com.example.bankcards.security.OwnerDetailsService;
 import com.example.bankcards.service.OwnerService;
+import com.example.bankcards.service.RefreshTokenService;
+import com.example.bankcards.service.TokenRevocationService;
 import com.example.bankcards.util.validator.OwnerValidator;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/owner")
 public class OwnerController {
     private final JWTUtil jwtUtil;
-    private final AuthenticationManager authenticationManager;
+    private final LoginExecutor loginExecutor;
     private final OwnerDetailsService ownerDetailsService;
     private final Logger logger = LoggerFactory.getLogger(OwnerController.class);
     private final OwnerService ownerService;
     private final OwnerValidator ownerValidator;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
 
-    public OwnerController(JWTUtil jwtUtil, AuthenticationManager authenticationManager, OwnerDetailsService ownerDetailsService, OwnerService ownerService, OwnerValidator ownerValidator) {
+    public OwnerController(JWTUtil jwtUtil, LoginExecutor loginExecutor, OwnerDetailsService ownerDetailsService, OwnerService ownerService, OwnerValidator ownerValidator,
+                           TokenRevocationService tokenRevocationService, RefreshTokenService refreshTokenService) {
         this.jwtUtil = jwtUtil;
-        this.authenticationManager = authenticationManager;
+        this.loginExecutor = loginExecutor;
         this.ownerDetailsService = ownerDetailsService;
         this.ownerService = ownerService;
         this.ownerValidator = ownerValidator;
+        this.tokenRevocationService = tokenRevocationService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @PostMapping("/registration")
@@ -63,7 +73,7 @@ public class OwnerController {
     public ResponseEntity<?> performAuthentication(@RequestBody LoginRequestDTO loginRequest, HttpServletResponse response) {
         try {
             logger.debug(">>> Received login request: {}", loginRequest.getEmail());
-            Authentication authentication = authenticationManager
+            Authentication authentication = loginExecutor
                     .authenticate(new UsernamePasswordAuthenticationToken(loginRequest.getEmail(),
                             loginRequest.getPassword()));
 
@@ -75,8 +85,10 @@ public class OwnerController {
                     .orElse("ROLE_USER");
 
             String accessToken = jwtUtil.generateAccessToken(ownerDetails.getId(), ownerDetails.getUsername(), role);
+            String refreshToken = refreshTokenService.issue(ownerDetails.getId());
 
-            return ResponseEntity.ok(new JWTResponse(accessToken, ownerDetails.getId(), ownerDetails.getUsername()));
+            return ResponseEntity.ok(new JWTResponse(accessToken, ownerDetails.getId(), ownerDetails.getUsername(),
+                    refreshToken));
         } catch (BadCredentialsException e) {
             ErrorResponseDTO error = new ErrorResponseDTO();
             error.setStatus(401);
@@ -90,6 +102,15 @@ public class OwnerController {
             error.setMessage("Your account is deactivated. Would you like to restore it?");
             error.setPath("/owner/login");
             return ResponseEntity.status(org.springframework.http.HttpStatus.LOCKED).body(error);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Login rejected, password verification is overloaded: {}", e.getMessage());
+            ErrorResponseDTO error = new ErrorResponseDTO();
+            error.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            error.setMessage("Too many login attempts, please retry later");
+            error.setPath("/owner/login");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, loginExecutor.getRetryAfter().toSeconds())))
+                    .body(error);
         }
     }
 
@@ -113,4 +134,35 @@ public class OwnerController {
         SecurityContextHolder.clearContext();
         return ResponseEntity.ok("Profile updated. Please re-login to continue.");
     }
+
+    /**
+     * Новая пара токенов по refresh-токену — без пароля и BCrypt.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<JWTResponse> refresh(@RequestBody RefreshRequestDTO request) {
+        return ResponseEntity.ok(refreshTokenService.rotate(request.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<String> logout(@AuthenticationPrincipal OwnerDetails me,
+                                         @RequestBody(required = false) RefreshRequestDTO request) {
+        if (request != null) {
+            refreshTokenService.revoke(request.getRefreshToken());
+        }
+        if (me.getTokenId() != null) {
+            tokenRevocationService.revoke(me.getId(), me.getTokenId(), me.getTokenExpiresAt());
+        } else {
+            // токен выпущен до появления jti — отдельно его не отозвать
+            tokenRevocationService.revokeAll(me.getId());
+        }
+        SecurityContextHolder.clearContext();
+        return ResponseEntity.ok("You have been logged out.");
+    }
+
+    @PostMapping("/logout-all")
+    public ResponseEntity<String> logoutEverywhere(@AuthenticationPrincipal OwnerDetails me) {
+        tokenRevocationService.revokeAll(me.getId());
+        SecurityContextHolder.clearContext();
+        return ResponseEntity.ok("All your sessions have been closed. Please log in again.");
+    }
 }
@@ -0,0 +1,73 @@
+package com.example.bankcards.dto;
+
+import java.math.BigDecimal;
+
+public class BatchTransferItemResultDTO {
+    private int index;
+    private Long fromCardId;
+    private Long toCardId;
+    private BigDecimal amount;
+    private BatchTransferItemStatus status;
+    /** HTTP-код, с которым был бы отклонён одиночный перевод; null для применённых. */
+    private Integer errorStatus;
+    private String message;
+
+    public BatchTransferItemResultDTO() {
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Long getFromCardId() {
+        return fromCardId;
+    }
+
+    public void setFromCardId(Long fromCardId) {
+        this.fromCardId = fromCardId;
+    }
+
+    public Long getToCardId() {
+        return toCardId;
+    }
+
+    public void setToCardId(Long toCardId) {
+        this.toCardId = toCardId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public BatchTransferItemStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(BatchTransferItemStatus status) {
+        this.status = status;
+    }
+
+    public Integer getErrorStatus() {
+        return errorStatus;
+    }
+
+    public void setErrorStatus(Integer errorStatus) {
+        this.errorStatus = errorStatus;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.dto;
+
+public enum BatchTransferItemStatus {
+    APPLIED,
+    REJECTED,
+    /** Перевод допустим, но не применён: в режиме ALL_OR_NOTHING отклонён другой элемент пакета. */
+    NOT_APPLIED
+}
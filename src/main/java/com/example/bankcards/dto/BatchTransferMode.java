@@ -0,0 +1,11 @@
+package com.example.bankcards.dto;
+
+/**
+ * Режим пакетного перевода.
+ */
+public enum BatchTransferMode {
+    /** Хотя бы один отклонённый перевод — не применяется ни один. */
+    ALL_OR_NOTHING,
+    /** Применяются все допустимые переводы, отклонённые пропускаются. */
+    BEST_EFFORT
+}
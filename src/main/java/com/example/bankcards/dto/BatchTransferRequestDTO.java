@@ -0,0 +1,41 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * Пакет переводов между картами одного владельца.
+ * Используется в endpoint `/cards/transfer/batch`.
+ */
+@Schema(description = "Пакет переводов между картами одного клиента, выполняется в одной транзакции")
+public class BatchTransferRequestDTO {
+
+    @Schema(description = "Режим применения пакета", example = "ALL_OR_NOTHING", defaultValue = "ALL_OR_NOTHING")
+    private BatchTransferMode mode = BatchTransferMode.ALL_OR_NOTHING;
+
+    @Schema(description = "Переводы в порядке применения", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotEmpty(message = "transfers must not be empty")
+    private List<@Valid TransferRequestDTO> transfers;
+
+    public BatchTransferRequestDTO() {
+    }
+
+    public BatchTransferMode getMode() {
+        return mode;
+    }
+
+    public void setMode(BatchTransferMode mode) {
+        this.mode = mode;
+    }
+
+    public List<TransferRequestDTO> getTransfers() {
+        return transfers;
+    }
+
+    public void setTransfers(List<TransferRequestDTO> transfers) {
+        this.transfers = transfers;
+    }
+}
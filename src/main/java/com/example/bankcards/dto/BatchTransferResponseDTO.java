@@ -0,0 +1,55 @@
+package com.example.bankcards.dto;
+
+import java.util.List;
+
+public class BatchTransferResponseDTO {
+    private BatchTransferMode mode;
+    private int applied;
+    private int rejected;
+    private List<BatchTransferItemResultDTO> results;
+    /** Итоговое состояние всех карт, затронутых пакетом. */
+    private List<CardResponseDTO> cards;
+
+    public BatchTransferResponseDTO() {
+    }
+
+    public BatchTransferMode getMode() {
+        return mode;
+    }
+
+    public void setMode(BatchTransferMode mode) {
+        this.mode = mode;
+    }
+
+    public int getApplied() {
+        return applied;
+    }
+
+    public void setApplied(int applied) {
+        this.applied = applied;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<BatchTransferItemResultDTO> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchTransferItemResultDTO> results) {
+        this.results = results;
+    }
+
+    public List<CardResponseDTO> getCards() {
+        return cards;
+    }
+
+    public void setCards(List<CardResponseDTO> cards) {
+        this.cards = cards;
+    }
+}
@@ -20,10 +20,27 @@ public class CardResponseDTO {
 
     private CardStatus status;
 
+    /** Учётный баланс, включая захолдированные суммы. */
     private BigDecimal balance;
 
+    /** Сумма активных холдов. */
+    private BigDecimal heldAmount;
+
+    /** Доступно к списанию: balance - heldAmount. */
+    private BigDecimal availableBalance;
+
     private Currency currency;
 
+    /** Действующий лимит расходов на сутки; null — без лимита. */
+    private BigDecimal dailyLimit;
+
+    private BigDecimal monthlyLimit;
+
+    /** Списания и исходящие переводы за текущие сутки. */
+    private BigDecimal spentToday;
+
+    private BigDecimal spentThisMonth;
+
     public CardResponseDTO() {
     }
 
@@ -67,6 +84,22 @@ public class CardResponseDTO {
         this.balance = balance;
     }
 
+    public BigDecimal getHeldAmount() {
+        return heldAmount;
+    }
+
+    public void setHeldAmount(BigDecimal heldAmount) {
+        this.heldAmount = heldAmount;
+    }
+
+    public BigDecimal getAvailableBalance() {
+        return availableBalance;
+    }
+
+    public void setAvailableBalance(BigDecimal availableBalance) {
+        this.availableBalance = availableBalance;
+    }
+
     public Currency getCurrency() {
         return currency;
     }
@@ -75,6 +108,38 @@ public class CardResponseDTO {
         this.currency = currency;
     }
 
+    public BigDecimal getDailyLimit() {
+        return dailyLimit;
+    }
+
+    public void setDailyLimit(BigDecimal dailyLimit) {
+        this.dailyLimit = dailyLimit;
+    }
+
+    public BigDecimal getMonthlyLimit() {
+        return monthlyLimit;
+    }
+
+    public void setMonthlyLimit(BigDecimal monthlyLimit) {
+        this.monthlyLimit = monthlyLimit;
+    }
+
+    public BigDecimal getSpentToday() {
+        return spentToday;
+    }
+
+    public void setSpentToday(BigDecimal spentToday) {
+        this.spentToday = spentToday;
+    }
+
+    public BigDecimal getSpentThisMonth() {
+        return spentThisMonth;
+    }
+
+    public void setSpentThisMonth(BigDecimal spentThisMonth) {
+        this.spentThisMonth = spentThisMonth;
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,91 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.LedgerEntryType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Движение по карте (проводка журнала).
+ */
+public class CardTransactionDTO {
+    private Long id;
+    /** Общий для обеих ног перевода. */
+    private UUID operationId;
+    private LedgerEntryType type;
+    /** Со знаком: списания отрицательные. */
+    private BigDecimal amount;
+    private BigDecimal balanceAfter;
+    private Long counterpartyCardId;
+    /** Курс перевода между валютами; null — без пересчёта. */
+    private BigDecimal fxRate;
+    private LocalDateTime createdAt;
+
+    public CardTransactionDTO() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public UUID getOperationId() {
+        return operationId;
+    }
+
+    public void setOperationId(UUID operationId) {
+        this.operationId = operationId;
+    }
+
+    public LedgerEntryType getType() {
+        return type;
+    }
+
+    public void setType(LedgerEntryType type) {
+        this.type = type;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public BigDecimal getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public void setBalanceAfter(BigDecimal balanceAfter) {
+        this.balanceAfter = balanceAfter;
+    }
+
+    public Long getCounterpartyCardId() {
+        return counterpartyCardId;
+    }
+
+    public void setCounterpartyCardId(Long counterpartyCardId) {
+        this.counterpartyCardId = counterpartyCardId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public BigDecimal getFxRate() {
+        return fxRate;
+    }
+
+    public void setFxRate(BigDecimal fxRate) {
+        this.fxRate = fxRate;
+    }
+}
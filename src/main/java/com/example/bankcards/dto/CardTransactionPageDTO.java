@@ -0,0 +1,37 @@
+package com.example.bankcards.dto;
+
+import java.util.List;
+
+/**
+ * Страница истории по карте (новые сверху). Общего количества нет намеренно: keyset-пагинация
+ * не делает COUNT, следующая страница запрашивается по {@code nextCursor}.
+ */
+public class CardTransactionPageDTO {
+    private List<CardTransactionDTO> items;
+    /** Непрозрачный курсор для параметра {@code after}; null — это последняя страница. */
+    private String nextCursor;
+
+    public CardTransactionPageDTO() {
+    }
+
+    public CardTransactionPageDTO(List<CardTransactionDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<CardTransactionDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CardTransactionDTO> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Currency;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Состояние карты после изменения — событие потока GET /cards/stream. Поля совпадают с {@link CardResponseDTO}:
+ * клиент заменяет ими карту из списка, не перечитывая его.
+ */
+public class CardUpdateDTO {
+    private Long cardId;
+    private CardStatus status;
+    /** Учётный баланс, включая захолдированные суммы. */
+    private BigDecimal balance;
+    private BigDecimal heldAmount;
+    private BigDecimal availableBalance;
+    private Currency currency;
+    private LocalDateTime changedAt;
+    /**
+     * Версия строки карты после изменения. Клиент, как и сервер, отбрасывает обновление с версией меньше
+     * уже полученной: после коммита события доставляются не обязательно в порядке коммитов.
+     */
+    private Long version;
+
+    public CardUpdateDTO() {
+    }
+
+    public Long getCardId() {
+        return cardId;
+    }
+
+    public void setCardId(Long cardId) {
+        this.cardId = cardId;
+    }
+
+    public CardStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(CardStatus status) {
+        this.status = status;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public BigDecimal getHeldAmount() {
+        return heldAmount;
+    }
+
+    public void setHeldAmount(BigDecimal heldAmount) {
+        this.heldAmount = heldAmount;
+    }
+
+    public BigDecimal getAvailableBalance() {
+        return availableBalance;
+    }
+
+    public void setAvailableBalance(BigDecimal availableBalance) {
+        this.availableBalance = availableBalance;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
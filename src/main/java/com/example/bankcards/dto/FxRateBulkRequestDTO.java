@@ -0,0 +1,31 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Пакетная загрузка курсов (`/admin/fx-rates`), одной транзакцией.
+ */
+@Schema(description = "Курсы валют для загрузки одной транзакцией")
+public class FxRateBulkRequestDTO {
+
+    @Schema(description = "Курсы пар", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotEmpty(message = "rates must not be empty")
+    @Size(max = 1000, message = "rates must contain at most 1000 items")
+    private List<@Valid FxRateRequestDTO> rates;
+
+    public FxRateBulkRequestDTO() {
+    }
+
+    public List<FxRateRequestDTO> getRates() {
+        return rates;
+    }
+
+    public void setRates(List<FxRateRequestDTO> rates) {
+        this.rates = rates;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.Currency;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Загруженный курс пары.
+ */
+public class FxRateDTO {
+    private Long id;
+    private Currency baseCurrency;
+    private Currency quoteCurrency;
+    private BigDecimal rate;
+    private LocalDateTime effectiveFrom;
+
+    public FxRateDTO() {
+    }
+
+    public FxRateDTO(Long id, Currency baseCurrency, Currency quoteCurrency, BigDecimal rate,
+                     LocalDateTime effectiveFrom) {
+        this.id = id;
+        this.baseCurrency = baseCurrency;
+        this.quoteCurrency = quoteCurrency;
+        this.rate = rate;
+        this.effectiveFrom = effectiveFrom;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Currency getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public void setBaseCurrency(Currency baseCurrency) {
+        this.baseCurrency = baseCurrency;
+    }
+
+    public Currency getQuoteCurrency() {
+        return quoteCurrency;
+    }
+
+    public void setQuoteCurrency(Currency quoteCurrency) {
+        this.quoteCurrency = quoteCurrency;
+    }
+
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    public void setRate(BigDecimal rate) {
+        this.rate = rate;
+    }
+
+    public LocalDateTime getEffectiveFrom() {
+        return effectiveFrom;
+    }
+
+    public void setEffectiveFrom(LocalDateTime effectiveFrom) {
+        this.effectiveFrom = effectiveFrom;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.Currency;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Курс пары. Момент начала не указан — курс действует сразу после загрузки.
+ */
+public class FxRateRequestDTO {
+    @Schema(description = "Валюта, которую продаём", example = "USD", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "baseCurrency is required")
+    private Currency baseCurrency;
+
+    @Schema(description = "Валюта, которую получаем", example = "EUR", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "quoteCurrency is required")
+    private Currency quoteCurrency;
+
+    @Schema(description = "Единиц quoteCurrency за одну единицу baseCurrency", example = "0.92150000",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "rate is required")
+    @Positive(message = "rate must be positive")
+    @Digits(integer = 11, fraction = 8)
+    private BigDecimal rate;
+
+    @Schema(description = "С какого момента действует (время сервера)", example = "2025-02-01T00:00:00")
+    private LocalDateTime effectiveFrom;
+
+    public Currency getBaseCurrency() { return baseCurrency; }
+    public void setBaseCurrency(Currency baseCurrency) { this.baseCurrency = baseCurrency; }
+
+    public Currency getQuoteCurrency() { return quoteCurrency; }
+    public void setQuoteCurrency(Currency quoteCurrency) { this.quoteCurrency = quoteCurrency; }
+
+    public BigDecimal getRate() { return rate; }
+    public void setRate(BigDecimal rate) { this.rate = rate; }
+
+    public LocalDateTime getEffectiveFrom() { return effectiveFrom; }
+    public void setEffectiveFrom(LocalDateTime effectiveFrom) { this.effectiveFrom = effectiveFrom; }
+}
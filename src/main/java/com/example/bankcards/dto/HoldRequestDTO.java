@@ -0,0 +1,26 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Новый холд. Срок не указан — берётся app.cards.holds.default-ttl.
+ */
+public class HoldRequestDTO {
+    @NotNull
+    @Positive
+    private BigDecimal amount;
+
+    @Schema(description = "Срок жизни холда, ISO-8601", example = "PT72H")
+    private Duration ttl;
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public Duration getTtl() { return ttl; }
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+}
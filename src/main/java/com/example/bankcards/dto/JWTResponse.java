@@ -7,12 +7,19 @@ public class JWTResponse {
 
     private String email;
 
+    private String refreshToken;
+
     public JWTResponse(String accessToken, Long id, String email) {
         this.accessToken = accessToken;
         this.id = id;
         this.email = email;
     }
 
+    public JWTResponse(String accessToken, Long id, String email, String refreshToken) {
+        this(accessToken, id, email);
+        this.refreshToken = refreshToken;
+    }
+
     public JWTResponse() {
     }
 
@@ -39,4 +46,12 @@ public class JWTResponse {
     public void setEmail(String email) {
         this.email = email;
     }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
 }
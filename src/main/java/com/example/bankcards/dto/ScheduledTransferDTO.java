@@ -0,0 +1,114 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.ScheduleRecurrence;
+import com.example.bankcards.entity.ScheduleStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class ScheduledTransferDTO {
+    private Long id;
+    private Long fromCardId;
+    private Long toCardId;
+    private BigDecimal amount;
+    private ScheduleRecurrence recurrence;
+    private ScheduleStatus status;
+    private LocalDateTime firstRunAt;
+    /** Ближайший запуск; для завершённого разового перевода — время, когда он был выполнен. */
+    private LocalDateTime nextRunAt;
+    private LocalDateTime lastRunAt;
+    /** Причина отказа последнего запуска; null — последний запуск прошёл. */
+    private String lastError;
+    private int runCount;
+
+    public ScheduledTransferDTO() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getFromCardId() {
+        return fromCardId;
+    }
+
+    public void setFromCardId(Long fromCardId) {
+        this.fromCardId = fromCardId;
+    }
+
+    public Long getToCardId() {
+        return toCardId;
+    }
+
+    public void setToCardId(Long toCardId) {
+        this.toCardId = toCardId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public ScheduleRecurrence getRecurrence() {
+        return recurrence;
+    }
+
+    public void setRecurrence(ScheduleRecurrence recurrence) {
+        this.recurrence = recurrence;
+    }
+
+    public ScheduleStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ScheduleStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getFirstRunAt() {
+        return firstRunAt;
+    }
+
+    public void setFirstRunAt(LocalDateTime firstRunAt) {
+        this.firstRunAt = firstRunAt;
+    }
+
+    public LocalDateTime getNextRunAt() {
+        return nextRunAt;
+    }
+
+    public void setNextRunAt(LocalDateTime nextRunAt) {
+        this.nextRunAt = nextRunAt;
+    }
+
+    public LocalDateTime getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public void setLastRunAt(LocalDateTime lastRunAt) {
+        this.lastRunAt = lastRunAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public int getRunCount() {
+        return runCount;
+    }
+
+    public void setRunCount(int runCount) {
+        this.runCount = runCount;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.ScheduleRecurrence;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Запланированный перевод между своими картами (`/cards/scheduled-transfers`).
+ */
+@Schema(description = "Разовый или повторяющийся перевод между картами одного клиента")
+public class ScheduledTransferRequestDTO {
+
+    @Schema(description = "Сумма каждого перевода", example = "150.00", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "amount is required")
+    @Positive(message = "amount must be positive")
+    private BigDecimal amount;
+
+    @Schema(description = "ID карты списания", example = "7", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "fromCardId is required")
+    private Long fromCardId;
+
+    @Schema(description = "ID карты зачисления", example = "9", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "toCardId is required")
+    private Long toCardId;
+
+    @Schema(description = "Первый запуск (время сервера); повторы отсчитываются от него", example = "2025-02-01T09:00:00",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "firstRunAt is required")
+    private LocalDateTime firstRunAt;
+
+    @Schema(description = "ONCE, DAILY, WEEKLY или MONTHLY", example = "MONTHLY", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "recurrence is required")
+    private ScheduleRecurrence recurrence;
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public Long getFromCardId() { return fromCardId; }
+    public void setFromCardId(Long fromCardId) { this.fromCardId = fromCardId; }
+
+    public Long getToCardId() { return toCardId; }
+    public void setToCardId(Long toCardId) { this.toCardId = toCardId; }
+
+    public LocalDateTime getFirstRunAt() { return firstRunAt; }
+    public void setFirstRunAt(LocalDateTime firstRunAt) { this.firstRunAt = firstRunAt; }
+
+    public ScheduleRecurrence getRecurrence() { return recurrence; }
+    public void setRecurrence(ScheduleRecurrence recurrence) { this.recurrence = recurrence; }
+}
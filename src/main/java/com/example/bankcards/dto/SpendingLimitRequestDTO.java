@@ -0,0 +1,28 @@
+package com.example.bankcards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.math.BigDecimal;
+
+/**
+ * Собственные лимиты расходов (списания и исходящие переводы). Пустое поле — без лимита на это окно.
+ */
+public class SpendingLimitRequestDTO {
+    @Schema(description = "Лимит на календарные сутки", example = "1000.00")
+    @PositiveOrZero
+    @Digits(integer = 17, fraction = 2)
+    private BigDecimal dailyLimit;
+
+    @Schema(description = "Лимит на календарный месяц", example = "20000.00")
+    @PositiveOrZero
+    @Digits(integer = 17, fraction = 2)
+    private BigDecimal monthlyLimit;
+
+    public BigDecimal getDailyLimit() { return dailyLimit; }
+    public void setDailyLimit(BigDecimal dailyLimit) { this.dailyLimit = dailyLimit; }
+
+    public BigDecimal getMonthlyLimit() { return monthlyLimit; }
+    public void setMonthlyLimit(BigDecimal monthlyLimit) { this.monthlyLimit = monthlyLimit; }
+}
@@ -0,0 +1,78 @@
+package com.example.bankcards.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Состояние асинхронного перевода (`/cards/transfer` в режиме очереди, `/cards/operations/{id}`).
+ */
+public class TransferOperationDTO {
+    private UUID id;
+    private TransferOperationStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    /** Итоговые карты; заполнено для COMPLETED. */
+    private TransferResponseDTO result;
+    /** HTTP-код, с которым был бы отклонён синхронный перевод; заполнено для REJECTED. */
+    private Integer errorStatus;
+    private String message;
+
+    public TransferOperationDTO() {
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public TransferOperationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TransferOperationStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public TransferResponseDTO getResult() {
+        return result;
+    }
+
+    public void setResult(TransferResponseDTO result) {
+        this.result = result;
+    }
+
+    public Integer getErrorStatus() {
+        return errorStatus;
+    }
+
+    public void setErrorStatus(Integer errorStatus) {
+        this.errorStatus = errorStatus;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
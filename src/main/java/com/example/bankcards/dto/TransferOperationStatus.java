@@ -0,0 +1,8 @@
+package com.example.bankcards.dto;
+
+public enum TransferOperationStatus {
+    /** В очереди воркера или в незакоммиченной группе. */
+    PENDING,
+    COMPLETED,
+    REJECTED
+}
@@ -1,8 +1,14 @@
 package com.example.bankcards.dto;
 
+import java.math.BigDecimal;
+
 public class TransferResponseDTO {
     private CardResponseDTO from;
     private CardResponseDTO to;
+    /** Зачислено на карту получателя, в её валюте. */
+    private BigDecimal creditedAmount;
+    /** Применённый курс; null — перевод в одной валюте. */
+    private BigDecimal fxRate;
 
     public TransferResponseDTO() {
     }
@@ -22,5 +28,20 @@ public class TransferResponseDTO {
     public void setTo(CardResponseDTO to) {
         this.to = to;
     }
-}
 
+    public BigDecimal getCreditedAmount() {
+        return creditedAmount;
+    }
+
+    public void setCreditedAmount(BigDecimal creditedAmount) {
+        this.creditedAmount = creditedAmount;
+    }
+
+    public BigDecimal getFxRate() {
+        return fxRate;
+    }
+
+    public void setFxRate(BigDecimal fxRate) {
+        this.fxRate = fxRate;
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.bankcards.entity;
 
+import com.example.bankcards.util.MinorUnitsAttributeConverter;
 import com.example.bankcards.util.PanAttributeConverter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Objects;
 
 @Entity
@@ -40,8 +42,18 @@ public class Card {
     @Column(nullable = false, length = 16)
     private CardStatus status;
 
+    /** Минорные единицы; в БД — NUMERIC(19,2). См. {@link #getBalanceMoney()}. */
+    @Convert(converter = MinorUnitsAttributeConverter.class)
     @Column(nullable = false, precision = 19, scale = 2)
-    private BigDecimal balance = BigDecimal.ZERO;
+    private long balance;
+
+    /**
+     * Сумма активных холдов, минорные единицы. Доступно к списанию {@code balance - held}, см. {@link #getAvailableMoney()}.
+     * Меняется только атомарными UPDATE в {@link com.example.bankcards.repository.CardRepository}.
+     */
+    @Convert(converter = MinorUnitsAttributeConverter.class)
+    @Column(name = "held_amount", nullable = false, precision = 19, scale = 2)
+    private long held;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 3)
@@ -53,6 +65,24 @@ public class Card {
     @Column(name = "updated_at", insertable = false, updatable = false)
     private LocalDateTime updatedAt;
 
+    /**
+     * {@link #createdAt} в миллисекундах эпохи, -1 — время создания ещё не прочитано из БД. Считается один раз
+     * при загрузке: проверки антифрода на каждом списании берут возраст карты без перевода дат.
+     */
+    @Transient
+    private long createdAtMillis = -1;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    /**
+     * 0 — обычная карта. N > 0 — пополнения раскладываются по N строкам card_balance_slot,
+     * а {@link #balance} хранит только консолидированную часть.
+     */
+    @Column(name = "balance_slots", nullable = false)
+    private short balanceSlots;
+
     public Card() {
     }
 
@@ -105,11 +135,49 @@ public class Card {
     }
 
     public BigDecimal getBalance() {
-        return balance;
+        return Money.toDecimal(balance);
     }
 
+    /**
+     * @throws ArithmeticException если у суммы больше двух знаков после запятой
+     */
     public void setBalance(BigDecimal balance) {
-        this.balance = balance;
+        this.balance = Money.toMinorUnits(balance);
+    }
+
+    public Money getBalanceMoney() {
+        return Money.ofMinor(balance, currency);
+    }
+
+    /** Консолидированный баланс в минорных единицах — без выделения BigDecimal или Money. */
+    public long getBalanceMinorUnits() {
+        return balance;
+    }
+
+    public void setBalanceMoney(Money balance) {
+        if (balance.getCurrency() != currency) {
+            throw new IllegalArgumentException("Currency mismatch: card " + currency + ", amount " + balance.getCurrency());
+        }
+        this.balance = balance.getMinorUnits();
+    }
+
+    public BigDecimal getHeldAmount() {
+        return Money.toDecimal(held);
+    }
+
+    public void setHeldAmount(BigDecimal heldAmount) {
+        this.held = Money.toMinorUnits(heldAmount);
+    }
+
+    public long getHeldMinorUnits() {
+        return held;
+    }
+
+    /**
+     * Консолидированный баланс за вычетом холдов. У полосатой карты без слияния полос — оценка снизу.
+     */
+    public Money getAvailableMoney() {
+        return Money.ofMinor(balance - held, currency);
     }
 
     public Currency getCurrency() {
@@ -126,6 +194,17 @@ public class Card {
 
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
+        onLoad();
+    }
+
+    @JsonIgnore
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    @PostLoad
+    void onLoad() {
+        createdAtMillis = createdAt == null ? -1 : createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 
     public LocalDateTime getUpdatedAt() {
@@ -144,6 +223,26 @@ public class Card {
         this.owner = owner;
     }
 
+    public short getBalanceSlots() {
+        return balanceSlots;
+    }
+
+    public void setBalanceSlots(short balanceSlots) {
+        this.balanceSlots = balanceSlots;
+    }
+
+    public boolean isStriped() {
+        return balanceSlots > 0;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -190,7 +289,8 @@ public class Card {
                 ", ownerId=" + (owner != null ? owner.getId() : null) +
                 ", status=" + status +
                 ", currency=" + currency +
-                ", balance=" + balance +
+                ", balance=" + getBalance() +
+                ", held=" + getHeldAmount() +
                 ", mask=**** **** **** " + panLast4 +
                 '}';
     }
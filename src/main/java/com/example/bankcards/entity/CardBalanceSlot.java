@@ -0,0 +1,49 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Одна из N «полос» баланса горячей карты: параллельные пополнения обновляют разные строки
+ * и не выстраиваются в очередь за блокировкой строки card.
+ */
+@Entity
+@Table(name = "card_balance_slot")
+@IdClass(CardBalanceSlotId.class)
+public class CardBalanceSlot {
+    @Id
+    @Column(name = "card_id", nullable = false)
+    private Long cardId;
+
+    @Id
+    @Column(name = "slot", nullable = false)
+    private short slot;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    protected CardBalanceSlot() {
+    }
+
+    public CardBalanceSlot(Long cardId, short slot) {
+        this.cardId = cardId;
+        this.slot = slot;
+    }
+
+    public Long getCardId() {
+        return cardId;
+    }
+
+    public short getSlot() {
+        return slot;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+}
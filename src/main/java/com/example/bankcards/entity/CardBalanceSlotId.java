@@ -0,0 +1,29 @@
+package com.example.bankcards.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class CardBalanceSlotId implements Serializable {
+    private Long cardId;
+    private short slot;
+
+    public CardBalanceSlotId() {
+    }
+
+    public CardBalanceSlotId(Long cardId, short slot) {
+        this.cardId = cardId;
+        this.slot = slot;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CardBalanceSlotId other)) return false;
+        return slot == other.slot && Objects.equals(cardId, other.cardId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cardId, slot);
+    }
+}
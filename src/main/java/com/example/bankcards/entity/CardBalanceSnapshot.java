@@ -0,0 +1,72 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Остаток карты на версии cardVersion: сумма всех её проводок с card_version <= cardVersion.
+ * asOf — самый поздний created_at среди них, так что снимок годится для любого момента не раньше asOf.
+ * Пересчёт баланса читает только проводки с версией после последнего снимка.
+ * lastEntryId — наибольший id среди учтённых проводок, по нему следующий прогон ищет карты с движением.
+ */
+@Entity
+@Table(name = "card_balance_snapshot")
+public class CardBalanceSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_balance_snapshot_seq")
+    @SequenceGenerator(name = "card_balance_snapshot_seq", sequenceName = "card_balance_snapshot_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "card_id", nullable = false, updatable = false)
+    private Long cardId;
+
+    @Column(name = "as_of", nullable = false, updatable = false)
+    private LocalDateTime asOf;
+
+    @Column(name = "card_version", nullable = false, updatable = false)
+    private Long cardVersion;
+
+    @Column(name = "last_entry_id", nullable = false, updatable = false)
+    private Long lastEntryId;
+
+    @Column(nullable = false, precision = 19, scale = 2, updatable = false)
+    private BigDecimal balance;
+
+    protected CardBalanceSnapshot() {
+    }
+
+    public CardBalanceSnapshot(Long cardId, Long cardVersion, Long lastEntryId, LocalDateTime asOf,
+                               BigDecimal balance) {
+        this.cardId = cardId;
+        this.cardVersion = cardVersion;
+        this.lastEntryId = lastEntryId;
+        this.asOf = asOf;
+        this.balance = balance;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCardId() {
+        return cardId;
+    }
+
+    public Long getCardVersion() {
+        return cardVersion;
+    }
+
+    public Long getLastEntryId() {
+        return lastEntryId;
+    }
+
+    public LocalDateTime getAsOf() {
+        return asOf;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+}
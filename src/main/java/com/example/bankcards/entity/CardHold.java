@@ -0,0 +1,111 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Холд (авторизация): сумма зарезервирована на карте до списания или отмены.
+ * Пока холд активен, его сумма входит в card.held_amount. Статус меняется только условными UPDATE
+ * в {@link com.example.bankcards.repository.CardHoldRepository} — сущность после создания не сохраняется.
+ */
+@Entity
+@Table(name = "card_hold")
+public class CardHold {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "card_id", nullable = false, updatable = false)
+    private Long cardId;
+
+    // владелец — копией, чтобы проверка прав шла в том же UPDATE, что и смена статуса
+    @Column(name = "owner_id", nullable = false, updatable = false)
+    private Long ownerId;
+
+    @Column(nullable = false, precision = 19, scale = 2, updatable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private HoldStatus status;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false, updatable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "closed_at")
+    private LocalDateTime closedAt;
+
+    protected CardHold() {
+    }
+
+    public CardHold(Long cardId, Long ownerId, BigDecimal amount, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.cardId = cardId;
+        this.ownerId = ownerId;
+        this.amount = amount;
+        this.status = HoldStatus.ACTIVE;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCardId() {
+        return cardId;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public HoldStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public LocalDateTime getClosedAt() {
+        return closedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CardHold other = (CardHold) o;
+        return id != null && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "CardHold{" +
+                "id=" + id +
+                ", cardId=" + cardId +
+                ", amount=" + amount +
+                ", status=" + status +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
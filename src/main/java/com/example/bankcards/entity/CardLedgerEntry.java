@@ -0,0 +1,153 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Неизменяемая проводка по карте. Баланс карты — проекция суммы проводок,
+ * обе ноги перевода связаны общим operationId и в сумме дают ноль. Ноги перевода между валютами
+ * несут применённый курс: зачисление равно списанию, умноженному на fxRate.
+ */
+@Entity
+@Table(name = "card_ledger_entry")
+public class CardLedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_ledger_entry_seq")
+    // SEQUENCE, а не IDENTITY: иначе Hibernate не сможет батчить INSERT'ы
+    @SequenceGenerator(name = "card_ledger_entry_seq", sequenceName = "card_ledger_entry_seq", allocationSize = 50)
+    private Long id;
+
+    // без связи @ManyToOne: журнал переживает удаление карты и не тянет лишних JOIN'ов
+    @Column(name = "card_id", nullable = false, updatable = false)
+    private Long cardId;
+
+    /**
+     * Версия карты, под которой записана проводка: после изменения строки карты или, у пополнения полосы,
+     * текущая. Граница снимков остатков (LedgerService.takeSnapshots) — по ней, а не по id из пула.
+     */
+    @Column(name = "card_version", nullable = false, updatable = false)
+    private Long cardVersion;
+
+    @Column(name = "operation_id", nullable = false, updatable = false)
+    private UUID operationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 16, updatable = false)
+    private LedgerEntryType entryType;
+
+    @Column(nullable = false, precision = 19, scale = 2, updatable = false)
+    private BigDecimal amount;
+
+    @Column(name = "balance_after", nullable = false, precision = 19, scale = 2, updatable = false)
+    private BigDecimal balanceAfter;
+
+    @Column(name = "counterparty_card_id", updatable = false)
+    private Long counterpartyCardId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /** Курс перевода между валютами; null — перевод в одной валюте или не перевод. */
+    @Column(name = "fx_rate", precision = 19, scale = FxRate.SCALE, updatable = false)
+    private BigDecimal fxRate;
+
+    @Column(name = "fx_rate_id", updatable = false)
+    private Long fxRateId;
+
+    protected CardLedgerEntry() {
+    }
+
+    public CardLedgerEntry(Long cardId, Long cardVersion, UUID operationId, LedgerEntryType entryType,
+                           BigDecimal amount, BigDecimal balanceAfter, Long counterpartyCardId,
+                           LocalDateTime createdAt) {
+        this.cardId = cardId;
+        this.cardVersion = cardVersion;
+        this.operationId = operationId;
+        this.entryType = entryType;
+        this.amount = amount;
+        this.balanceAfter = balanceAfter;
+        this.counterpartyCardId = counterpartyCardId;
+        this.createdAt = createdAt;
+    }
+
+    public CardLedgerEntry(Long cardId, Long cardVersion, UUID operationId, LedgerEntryType entryType,
+                           BigDecimal amount, BigDecimal balanceAfter, Long counterpartyCardId,
+                           LocalDateTime createdAt, BigDecimal fxRate, Long fxRateId) {
+        this(cardId, cardVersion, operationId, entryType, amount, balanceAfter, counterpartyCardId, createdAt);
+        this.fxRate = fxRate;
+        this.fxRateId = fxRateId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCardId() {
+        return cardId;
+    }
+
+    public Long getCardVersion() {
+        return cardVersion;
+    }
+
+    public UUID getOperationId() {
+        return operationId;
+    }
+
+    public LedgerEntryType getEntryType() {
+        return entryType;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public BigDecimal getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public Long getCounterpartyCardId() {
+        return counterpartyCardId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public BigDecimal getFxRate() {
+        return fxRate;
+    }
+
+    public Long getFxRateId() {
+        return fxRateId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CardLedgerEntry other = (CardLedgerEntry) o;
+        return id != null && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "CardLedgerEntry{" +
+                "id=" + id +
+                ", cardId=" + cardId +
+                ", type=" + entryType +
+                ", amount=" + amount +
+                ", balanceAfter=" + balanceAfter +
+                ", operationId=" + operationId +
+                '}';
+    }
+}
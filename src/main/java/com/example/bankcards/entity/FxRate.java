@@ -0,0 +1,98 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Курс обмена: сколько единиц {@code quoteCurrency} даётся за одну единицу {@code baseCurrency}
+ * начиная с {@code effectiveFrom}. Таблица только пополняется — новый курс пары перекрывает прежний
+ * со своего момента, история остаётся для аудита переводов.
+ */
+@Entity
+@Table(name = "fx_rate")
+public class FxRate {
+    public static final int SCALE = 8;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "base_currency", nullable = false, length = 3, updatable = false)
+    private Currency baseCurrency;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "quote_currency", nullable = false, length = 3, updatable = false)
+    private Currency quoteCurrency;
+
+    @Column(nullable = false, precision = 19, scale = SCALE, updatable = false)
+    private BigDecimal rate;
+
+    @Column(name = "effective_from", nullable = false, updatable = false)
+    private LocalDateTime effectiveFrom;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    protected FxRate() {
+    }
+
+    public FxRate(Currency baseCurrency, Currency quoteCurrency, BigDecimal rate, LocalDateTime effectiveFrom,
+                  LocalDateTime createdAt) {
+        this.baseCurrency = baseCurrency;
+        this.quoteCurrency = quoteCurrency;
+        this.rate = rate;
+        this.effectiveFrom = effectiveFrom;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Currency getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public Currency getQuoteCurrency() {
+        return quoteCurrency;
+    }
+
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    public LocalDateTime getEffectiveFrom() {
+        return effectiveFrom;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FxRate other = (FxRate) o;
+        return id != null && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "FxRate{" +
+                "id=" + id +
+                ", pair=" + baseCurrency + "/" + quoteCurrency +
+                ", rate=" + rate +
+                ", effectiveFrom=" + effectiveFrom +
+                '}';
+    }
+}
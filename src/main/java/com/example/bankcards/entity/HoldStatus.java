@@ -0,0 +1,12 @@
+package com.example.bankcards.entity;
+
+/**
+ * Состояние холда. Из ACTIVE переход ровно один — в любой из трёх конечных статусов.
+ */
+public enum HoldStatus {
+    ACTIVE,
+    CAPTURED,
+    RELEASED,
+    /** Снят чистильщиком по истечении срока. */
+    EXPIRED
+}
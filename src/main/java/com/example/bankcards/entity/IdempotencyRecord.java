@@ -0,0 +1,91 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Результат денежной операции, выполненной с заголовком Idempotency-Key.
+ * Ключ уникален в пределах владельца; строка в статусе IN_PROGRESS служит межузловой «блокировкой» ключа.
+ */
+@Entity
+@Table(name = "idempotency_record",
+        uniqueConstraints = @UniqueConstraint(name = "uq_idempotency_owner_key", columnNames = {"owner_id", "idempotency_key"}))
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "idempotency_key", nullable = false, length = 64)
+    private String idempotencyKey;
+
+    /** Операция и её параметры: повтор ключа с другим телом запроса — ошибка клиента. */
+    @Column(name = "request_fingerprint", nullable = false, length = 255)
+    private String requestFingerprint;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private IdempotencyStatus status;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    protected IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(Long ownerId, String idempotencyKey, String requestFingerprint,
+                             LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.ownerId = ownerId;
+        this.idempotencyKey = idempotencyKey;
+        this.requestFingerprint = requestFingerprint;
+        this.status = IdempotencyStatus.IN_PROGRESS;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public void complete(String responseBody) {
+        this.status = IdempotencyStatus.COMPLETED;
+        this.responseBody = responseBody;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public String getRequestFingerprint() {
+        return requestFingerprint;
+    }
+
+    public IdempotencyStatus getStatus() {
+        return status;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.entity;
+
+public enum IdempotencyStatus {
+    /** Запрос с этим ключом сейчас выполняется (возможно, на другом узле). */
+    IN_PROGRESS,
+    /** Запрос выполнен, ответ сохранён и отдаётся на повторы. */
+    COMPLETED
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Строка-замок периодической задачи. Узел, выполняющий задачу, держит её под блокировкой до конца
+ * своей транзакции: второй узел строку пропускает и в этот раз задачу не выполняет.
+ */
+@Entity
+@Table(name = "job_lock")
+public class JobLock {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    protected JobLock() {
+    }
+
+    public JobLock(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
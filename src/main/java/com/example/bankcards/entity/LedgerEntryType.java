@@ -0,0 +1,14 @@
+package com.example.bankcards.entity;
+
+/**
+ * Тип проводки в журнале движений по карте.
+ * Знак суммы в {@link CardLedgerEntry} всегда совпадает с направлением движения.
+ */
+public enum LedgerEntryType {
+    /** Начальный остаток карты на момент появления журнала. */
+    OPENING,
+    DEPOSIT,
+    WITHDRAWAL,
+    TRANSFER_IN,
+    TRANSFER_OUT
+}
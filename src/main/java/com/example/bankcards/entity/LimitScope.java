@@ -0,0 +1,9 @@
+package com.example.bankcards.entity;
+
+/**
+ * К чему относится лимит расходов: к одной карте или ко всем картам владельца.
+ */
+public enum LimitScope {
+    CARD,
+    OWNER
+}
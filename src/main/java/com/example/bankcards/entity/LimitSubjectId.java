@@ -0,0 +1,37 @@
+package com.example.bankcards.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class LimitSubjectId implements Serializable {
+    private LimitScope scope;
+    private Long subjectId;
+
+    public LimitSubjectId() {
+    }
+
+    public LimitSubjectId(LimitScope scope, Long subjectId) {
+        this.scope = scope;
+        this.subjectId = subjectId;
+    }
+
+    public LimitScope getScope() {
+        return scope;
+    }
+
+    public Long getSubjectId() {
+        return subjectId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LimitSubjectId other)) return false;
+        return scope == other.scope && Objects.equals(subjectId, other.subjectId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(scope, subjectId);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.bankcards.entity;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Неизменяемая денежная сумма: {@code long} минорных единиц (копеек/центов) и валюта.
+ * <p>
+ * Все поддерживаемые валюты двухзнаковые, как и колонки NUMERIC(19,2), поэтому минорная единица — 1/100.
+ * Арифметика без округлений и с проверкой переполнения: выход за пределы {@code long} — {@link ArithmeticException},
+ * а не тихий перенос знака. Суммы разных валют не складываются и не сравниваются.
+ */
+public final class Money implements Comparable<Money> {
+    public static final int SCALE = 2;
+
+    private final long minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = Objects.requireNonNull(currency, "currency");
+    }
+
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    /**
+     * @throws ArithmeticException если у суммы больше {@link #SCALE} значащих знаков после запятой или она не помещается в long
+     */
+    public static Money of(BigDecimal amount, Currency currency) {
+        return new Money(toMinorUnits(amount), currency);
+    }
+
+    public static Money zero(Currency currency) {
+        return new Money(0, currency);
+    }
+
+    /**
+     * Точный перевод десятичной суммы в минорные единицы, без округления.
+     *
+     * @throws ArithmeticException если нужна была бы потеря точности или сумма не помещается в long
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(SCALE).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toDecimal(minorUnits);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return other.minorUnits == 0 ? this : new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return other.minorUnits == 0 ? this : new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits), currency);
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isLessThan(Money other) {
+        return compareTo(other) < 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (currency != other.currency) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Money other)) return false;
+        return minorUnits == other.minorUnits && currency == other.currency;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+}
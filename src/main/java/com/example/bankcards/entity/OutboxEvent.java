@@ -0,0 +1,83 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Доменное событие, записанное в транзакции изменения и ещё не доставленное получателю.
+ * Строка живёт до публикации: релей удаляет её после того, как приёмник принял событие.
+ */
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    // SEQUENCE с пулом: события уходят одним JDBC-батчем вместе с проводками. Id — порядок опроса, а не
+    // порядок коммитов (у каждого узла свой диапазон); порядок изменений карты несёт version в payload
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "aggregate_type", nullable = false, length = 16, updatable = false)
+    private OutboxAggregateType aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false, updatable = false)
+    private Long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 32, updatable = false)
+    private OutboxEventType eventType;
+
+    /** Партиция релея — от id агрегата, поэтому события одной карты доставляются по порядку. */
+    @Column(name = "partition_no", nullable = false, updatable = false)
+    private short partitionNo;
+
+    /** JSON-объект с полями события. */
+    @Column(nullable = false, length = 1024, updatable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    protected OutboxEvent() {
+    }
+
+    public OutboxEvent(OutboxAggregateType aggregateType, Long aggregateId, OutboxEventType eventType, short partitionNo,
+                       String payload, LocalDateTime createdAt) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.partitionNo = partitionNo;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public OutboxAggregateType getAggregateType() {
+        return aggregateType;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public OutboxEventType getEventType() {
+        return eventType;
+    }
+
+    public short getPartitionNo() {
+        return partitionNo;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.entity;
+
+public enum OutboxEventType {
+    CARD_CREATED,
+    CARD_BLOCKED,
+    CARD_UNBLOCKED,
+    /** Проводка по карте: пополнение, списание, нога перевода. */
+    CARD_BALANCE_CHANGED,
+    OWNER_LOCKED,
+    OWNER_UNLOCKED
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Партиция релея outbox. Строку держит под блокировкой тот узел, который сейчас публикует её события:
+ * второй узел её пропускает, и порядок событий внутри партиции не ломается.
+ */
+@Entity
+@Table(name = "outbox_partition")
+public class OutboxPartition {
+    @Id
+    private Short id;
+
+    protected OutboxPartition() {
+    }
+
+    public OutboxPartition(Short id) {
+        this.id = id;
+    }
+
+    public Short getId() {
+        return id;
+    }
+}
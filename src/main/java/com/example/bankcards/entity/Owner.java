@@ -47,6 +47,10 @@ public class Owner {
     @Column(name = "is_locked", nullable = false)
     private boolean isLocked;
 
+    /** Токены, выпущенные не позже этого момента, отозваны; null — отзыва всех не было. */
+    @Column(name = "tokens_valid_after")
+    private LocalDateTime tokensValidAfter;
+
     @OneToMany(mappedBy = "owner", fetch = FetchType.LAZY)
     @JsonIgnore
     private List<Card> cards;
@@ -142,6 +146,14 @@ public class Owner {
         isLocked = locked;
     }
 
+    public LocalDateTime getTokensValidAfter() {
+        return tokensValidAfter;
+    }
+
+    public void setTokensValidAfter(LocalDateTime tokensValidAfter) {
+        this.tokensValidAfter = tokensValidAfter;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,102 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Карта, чей баланс (с полосами) не совпал с суммой её проводок в прогоне сверки.
+ */
+@Entity
+@Table(name = "reconciliation_drift")
+public class ReconciliationDrift {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false, updatable = false)
+    private Long runId;
+
+    // без связи с card: отчёт переживает удаление карты
+    @Column(name = "card_id", nullable = false, updatable = false)
+    private Long cardId;
+
+    @Column(name = "card_balance", nullable = false, precision = 19, scale = 2, updatable = false)
+    private BigDecimal cardBalance;
+
+    @Column(name = "ledger_balance", nullable = false, precision = 19, scale = 2, updatable = false)
+    private BigDecimal ledgerBalance;
+
+    /** card_balance - ledger_balance. */
+    @Column(nullable = false, precision = 19, scale = 2, updatable = false)
+    private BigDecimal drift;
+
+    @Column(name = "detected_at", nullable = false, updatable = false)
+    private LocalDateTime detectedAt;
+
+    protected ReconciliationDrift() {
+    }
+
+    public ReconciliationDrift(Long runId, Long cardId, BigDecimal cardBalance, BigDecimal ledgerBalance,
+                               LocalDateTime detectedAt) {
+        this.runId = runId;
+        this.cardId = cardId;
+        this.cardBalance = cardBalance;
+        this.ledgerBalance = ledgerBalance;
+        this.drift = cardBalance.subtract(ledgerBalance);
+        this.detectedAt = detectedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getRunId() {
+        return runId;
+    }
+
+    public Long getCardId() {
+        return cardId;
+    }
+
+    public BigDecimal getCardBalance() {
+        return cardBalance;
+    }
+
+    public BigDecimal getLedgerBalance() {
+        return ledgerBalance;
+    }
+
+    public BigDecimal getDrift() {
+        return drift;
+    }
+
+    public LocalDateTime getDetectedAt() {
+        return detectedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReconciliationDrift other = (ReconciliationDrift) o;
+        return id != null && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ReconciliationDrift{" +
+                "runId=" + runId +
+                ", cardId=" + cardId +
+                ", cardBalance=" + cardBalance +
+                ", ledgerBalance=" + ledgerBalance +
+                '}';
+    }
+}
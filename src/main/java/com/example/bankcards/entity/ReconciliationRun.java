@@ -0,0 +1,112 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Прогон сверки балансов карт с журналом проводок.
+ */
+@Entity
+@Table(name = "reconciliation_run")
+public class ReconciliationRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ReconciliationStatus status;
+
+    @Column(name = "started_at", nullable = false, updatable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "ranges_total", nullable = false)
+    private int rangesTotal;
+
+    @Column(name = "ranges_failed", nullable = false)
+    private int rangesFailed;
+
+    @Column(name = "cards_checked", nullable = false)
+    private long cardsChecked;
+
+    @Column(name = "drift_count", nullable = false)
+    private long driftCount;
+
+    protected ReconciliationRun() {
+    }
+
+    public ReconciliationRun(LocalDateTime startedAt, int rangesTotal) {
+        this.status = ReconciliationStatus.RUNNING;
+        this.startedAt = startedAt;
+        this.rangesTotal = rangesTotal;
+    }
+
+    public void finish(LocalDateTime finishedAt, long cardsChecked, long driftCount, int rangesFailed) {
+        this.status = rangesFailed == 0 ? ReconciliationStatus.COMPLETED : ReconciliationStatus.FAILED;
+        this.finishedAt = finishedAt;
+        this.cardsChecked = cardsChecked;
+        this.driftCount = driftCount;
+        this.rangesFailed = rangesFailed;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public ReconciliationStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public int getRangesTotal() {
+        return rangesTotal;
+    }
+
+    public int getRangesFailed() {
+        return rangesFailed;
+    }
+
+    public long getCardsChecked() {
+        return cardsChecked;
+    }
+
+    public long getDriftCount() {
+        return driftCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReconciliationRun other = (ReconciliationRun) o;
+        return id != null && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ReconciliationRun{" +
+                "id=" + id +
+                ", status=" + status +
+                ", cardsChecked=" + cardsChecked +
+                ", driftCount=" + driftCount +
+                ", rangesFailed=" + rangesFailed + "/" + rangesTotal +
+                '}';
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.entity;
+
+public enum ReconciliationStatus {
+    RUNNING,
+    COMPLETED,
+    /** Часть диапазонов не удалось сверить — расхождения по остальным записаны. */
+    FAILED
+}
@@ -0,0 +1,72 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh-токен. Хранится только SHA-256 от него; ключ строки — сам хэш, поэтому поиск — чтение по первичному ключу.
+ * <p>
+ * Токены одной цепочки ротации делят family_id. Использованный токен остаётся до истечения с отметкой used_at:
+ * по ней распознаётся повторное предъявление.
+ */
+@Entity
+@Table(name = "refresh_token")
+public class RefreshToken {
+    @Id
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+
+    protected RefreshToken() {
+    }
+
+    public RefreshToken(String tokenHash, Long ownerId, String familyId, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.tokenHash = tokenHash;
+        this.ownerId = ownerId;
+        this.familyId = familyId;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public LocalDateTime getUsedAt() {
+        return usedAt;
+    }
+}
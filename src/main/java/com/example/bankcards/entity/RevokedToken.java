@@ -0,0 +1,55 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Отозванный access-токен (по claim jti). Строка нужна, пока токен не истёк сам: после expires_at удаляется.
+ */
+@Entity
+@Table(name = "revoked_token")
+public class RevokedToken {
+    @Id
+    @Column(name = "jti", length = 36)
+    private String jti;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /** По нему другие узлы дочитывают новые отзывы. */
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    protected RevokedToken() {
+    }
+
+    public RevokedToken(String jti, Long ownerId, LocalDateTime expiresAt, LocalDateTime revokedAt) {
+        this.jti = jti;
+        this.ownerId = ownerId;
+        this.expiresAt = expiresAt;
+        this.revokedAt = revokedAt;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public LocalDateTime getRevokedAt() {
+        return revokedAt;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.bankcards.entity;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Периодичность запланированного перевода. Повторы отсчитываются от первого запуска, а не от предыдущего:
+ * ежемесячный перевод с 31-го числа в коротком месяце уходит последним днём и в следующем снова 31-го.
+ */
+public enum ScheduleRecurrence {
+    ONCE(null),
+    DAILY(ChronoUnit.DAYS),
+    WEEKLY(ChronoUnit.WEEKS),
+    MONTHLY(ChronoUnit.MONTHS);
+
+    private final ChronoUnit unit;
+
+    ScheduleRecurrence(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Следующий запуск после {@code previous}, строго позже {@code now}: пропущенные за время простоя
+     * повторы не догоняются пачкой.
+     *
+     * @return null для {@link #ONCE}
+     */
+    public LocalDateTime next(LocalDateTime first, LocalDateTime previous, LocalDateTime now) {
+        if (unit == null) {
+            return null;
+        }
+        long n = unit.between(first, previous) + 1;
+        LocalDateTime candidate = first.plus(n, unit);
+        while (!candidate.isAfter(previous) || !candidate.isAfter(now)) {
+            candidate = first.plus(++n, unit);
+        }
+        return candidate;
+    }
+}
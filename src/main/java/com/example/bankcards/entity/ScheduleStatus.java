@@ -0,0 +1,10 @@
+package com.example.bankcards.entity;
+
+public enum ScheduleStatus {
+    ACTIVE,
+    /** Разовый перевод выполнен. */
+    COMPLETED,
+    /** Разовый перевод отклонён (недостаточно средств, карта заблокирована и т. п.), причина — в last_error. */
+    FAILED,
+    CANCELLED
+}
@@ -0,0 +1,67 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Собственные лимиты расходов (списания и исходящие переводы) карты или владельца.
+ * Нет строки — действуют лимиты по умолчанию из app.cards.limits; null в колонке — без лимита.
+ */
+@Entity
+@Table(name = "spending_limit")
+@IdClass(LimitSubjectId.class)
+public class SpendingLimit {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private LimitScope scope;
+
+    @Id
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+
+    @Column(name = "daily_limit", precision = 19, scale = 2)
+    private BigDecimal dailyLimit;
+
+    @Column(name = "monthly_limit", precision = 19, scale = 2)
+    private BigDecimal monthlyLimit;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    protected SpendingLimit() {
+    }
+
+    public SpendingLimit(LimitScope scope, Long subjectId) {
+        this.scope = scope;
+        this.subjectId = subjectId;
+    }
+
+    public LimitScope getScope() {
+        return scope;
+    }
+
+    public Long getSubjectId() {
+        return subjectId;
+    }
+
+    public BigDecimal getDailyLimit() {
+        return dailyLimit;
+    }
+
+    public BigDecimal getMonthlyLimit() {
+        return monthlyLimit;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void update(BigDecimal dailyLimit, BigDecimal monthlyLimit) {
+        this.dailyLimit = dailyLimit;
+        this.monthlyLimit = monthlyLimit;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Сброшенные на диск счётчики расходов карты или владельца (минорные единицы) по состоянию на asOf.
+ * При старте счётчики поднимаются из этих строк и досчитываются по журналу после asOf.
+ */
+@Entity
+@Table(name = "spending_usage")
+@IdClass(LimitSubjectId.class)
+public class SpendingUsage {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private LimitScope scope;
+
+    @Id
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+
+    @Column(name = "usage_day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "day_spent", nullable = false)
+    private long daySpent;
+
+    /** Первое число месяца окна. */
+    @Column(name = "usage_month", nullable = false)
+    private LocalDate month;
+
+    @Column(name = "month_spent", nullable = false)
+    private long monthSpent;
+
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+
+    protected SpendingUsage() {
+    }
+
+    public SpendingUsage(LimitScope scope, Long subjectId) {
+        this.scope = scope;
+        this.subjectId = subjectId;
+    }
+
+    public LimitScope getScope() {
+        return scope;
+    }
+
+    public Long getSubjectId() {
+        return subjectId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public long getDaySpent() {
+        return daySpent;
+    }
+
+    public LocalDate getMonth() {
+        return month;
+    }
+
+    public long getMonthSpent() {
+        return monthSpent;
+    }
+
+    public LocalDateTime getAsOf() {
+        return asOf;
+    }
+
+    public void update(LocalDate day, long daySpent, LocalDate month, long monthSpent, LocalDateTime asOf) {
+        this.day = day;
+        this.daySpent = daySpent;
+        this.month = month;
+        this.monthSpent = monthSpent;
+        this.asOf = asOf;
+    }
+}
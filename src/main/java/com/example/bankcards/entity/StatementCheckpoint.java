@@ -0,0 +1,70 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Прогресс генерации выписок за месяц по одной партиции владельцев (owner_id в (lastOwnerId, rangeTo]).
+ * Границы партиций фиксируются при первом запуске, поэтому упавший прогон продолжается с того же места.
+ */
+@Entity
+@Table(name = "statement_checkpoint")
+@IdClass(StatementCheckpointId.class)
+public class StatementCheckpoint {
+    @Id
+    @Column(nullable = false, length = 7)
+    private String period;
+
+    @Id
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+
+    /** Последний владелец, чьи выписки полностью записаны; обработка продолжается строго после него. */
+    @Column(name = "last_owner_id", nullable = false)
+    private long lastOwnerId;
+
+    @Column(name = "range_to", nullable = false)
+    private long rangeTo;
+
+    @Column(nullable = false)
+    private boolean completed;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    protected StatementCheckpoint() {
+    }
+
+    public StatementCheckpoint(String period, int partitionNo, long rangeFromExclusive, long rangeTo) {
+        this.period = period;
+        this.partitionNo = partitionNo;
+        this.lastOwnerId = rangeFromExclusive;
+        this.rangeTo = rangeTo;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public int getPartitionNo() {
+        return partitionNo;
+    }
+
+    public long getLastOwnerId() {
+        return lastOwnerId;
+    }
+
+    public long getRangeTo() {
+        return rangeTo;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.bankcards.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class StatementCheckpointId implements Serializable {
+    private String period;
+    private int partitionNo;
+
+    public StatementCheckpointId() {
+    }
+
+    public StatementCheckpointId(String period, int partitionNo) {
+        this.period = period;
+        this.partitionNo = partitionNo;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StatementCheckpointId other)) return false;
+        return partitionNo == other.partitionNo && Objects.equals(period, other.period);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(period, partitionNo);
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Запланированный (разовый или повторяющийся) перевод между картами владельца.
+ * <p>
+ * Узел, загрузивший строку в своё колесо таймеров, держит аренду (lease_owner, lease_until): пока она не истекла,
+ * другие узлы строку не берут. Запуск, сдвиг next_run_at и снятие аренды — один условный UPDATE
+ * в транзакции самого перевода, см. {@link com.example.bankcards.repository.TransferScheduleRepository}.
+ */
+@Entity
+@Table(name = "transfer_schedule")
+public class TransferSchedule {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "owner_id", nullable = false, updatable = false)
+    private Long ownerId;
+
+    @Column(name = "from_card_id", nullable = false, updatable = false)
+    private Long fromCardId;
+
+    @Column(name = "to_card_id", nullable = false, updatable = false)
+    private Long toCardId;
+
+    @Column(nullable = false, precision = 19, scale = 2, updatable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16, updatable = false)
+    private ScheduleRecurrence recurrence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ScheduleStatus status;
+
+    @Column(name = "first_run_at", nullable = false, updatable = false)
+    private LocalDateTime firstRunAt;
+
+    @Column(name = "next_run_at", nullable = false)
+    private LocalDateTime nextRunAt;
+
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "last_run_at")
+    private LocalDateTime lastRunAt;
+
+    @Column(name = "last_error", length = 255)
+    private String lastError;
+
+    @Column(name = "run_count", nullable = false)
+    private int runCount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    protected TransferSchedule() {
+    }
+
+    public TransferSchedule(Long ownerId, Long fromCardId, Long toCardId, BigDecimal amount,
+                            ScheduleRecurrence recurrence, LocalDateTime firstRunAt, LocalDateTime createdAt) {
+        this.ownerId = ownerId;
+        this.fromCardId = fromCardId;
+        this.toCardId = toCardId;
+        this.amount = amount;
+        this.recurrence = recurrence;
+        this.status = ScheduleStatus.ACTIVE;
+        this.firstRunAt = firstRunAt;
+        this.nextRunAt = firstRunAt;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Аренда при создании: строка сразу попадает в колесо создавшего узла, если срок уже в загруженном окне.
+     */
+    public void lease(String leaseOwner, LocalDateTime leaseUntil) {
+        this.leaseOwner = leaseOwner;
+        this.leaseUntil = leaseUntil;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public Long getFromCardId() {
+        return fromCardId;
+    }
+
+    public Long getToCardId() {
+        return toCardId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public ScheduleRecurrence getRecurrence() {
+        return recurrence;
+    }
+
+    public ScheduleStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getFirstRunAt() {
+        return firstRunAt;
+    }
+
+    public LocalDateTime getNextRunAt() {
+        return nextRunAt;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public LocalDateTime getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public int getRunCount() {
+        return runCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TransferSchedule other = (TransferSchedule) o;
+        return id != null && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "TransferSchedule{" +
+                "id=" + id +
+                ", ownerId=" + ownerId +
+                ", from=" + fromCardId +
+                ", to=" + toCardId +
+                ", amount=" + amount +
+                ", recurrence=" + recurrence +
+                ", status=" + status +
+                ", nextRunAt=" + nextRunAt +
+                '}';
+    }
+}
@@ -2,8 +2,14 @@ package com.example.bankcards.exception;
 
 import com.example.bankcards.dto.ErrorResponseDTO;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PessimisticLockException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authorization.AuthorizationDeniedException;
@@ -79,6 +85,34 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(response);
     }
 
+    /**
+     * Не дождались строковой блокировки карты (lock_timeout / дедлок) — операцию можно безопасно повторить.
+     */
+    @ExceptionHandler({ PessimisticLockingFailureException.class, PessimisticLockException.class, LockTimeoutException.class })
+    public ResponseEntity<ErrorResponseDTO> handleLockTimeout(Exception ex, HttpServletRequest request) {
+        ErrorResponseDTO response = new ErrorResponseDTO();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setMessage("Card is busy, please retry");
+        response.setPath(request.getRequestURI());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
+    /**
+     * Конфликт версий карты не разрешился за отведённые повторы.
+     */
+    @ExceptionHandler({ OptimisticLockingFailureException.class, OptimisticLockException.class })
+    public ResponseEntity<ErrorResponseDTO> handleOptimisticLock(Exception ex, HttpServletRequest request) {
+        ErrorResponseDTO response = new ErrorResponseDTO();
+        response.setStatus(HttpStatus.CONFLICT.value());
+        response.setMessage("Card was modified concurrently, please retry");
+        response.setPath(request.getRequestURI());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponseDTO> handleAnyException(Exception e, HttpServletRequest request) {
         System.err.println("Unexpected exception: " + e.getMessage());
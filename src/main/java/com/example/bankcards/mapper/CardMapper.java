@@ -2,10 +2,22 @@ package com.example.bankcards.mapper;
 
 import com.example.bankcards.dto.CardResponseDTO;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Money;
+import com.example.bankcards.service.SpendingLimitService;
+import com.example.bankcards.service.StripedBalanceService;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+
 @Component
 public class CardMapper {
+    private final StripedBalanceService stripedBalanceService;
+    private final SpendingLimitService spendingLimitService;
+
+    public CardMapper(StripedBalanceService stripedBalanceService, SpendingLimitService spendingLimitService) {
+        this.stripedBalanceService = stripedBalanceService;
+        this.spendingLimitService = spendingLimitService;
+    }
 
     public CardResponseDTO toResponse(Card card) {
         CardResponseDTO dto = new CardResponseDTO();
@@ -16,8 +28,23 @@ public class CardMapper {
         dto.setExpiryMonth(card.getExpiryMonth());
         dto.setExpiryYear(card.getExpiryYear());
         dto.setStatus(card.getStatus());
-        dto.setBalance(card.getBalance());
+        // у полосатой карты часть баланса лежит в card_balance_slot; считаем в минорных единицах,
+        // BigDecimal — только для ответа: без холдов это одно значение на три поля (нулевой берётся из кэша)
+        long balance = stripedBalanceService.totalBalanceMinorUnits(card);
+        long held = card.getHeldMinorUnits();
+        BigDecimal balanceDecimal = Money.toDecimal(balance);
+        dto.setBalance(balanceDecimal);
+        dto.setHeldAmount(Money.toDecimal(held));
+        dto.setAvailableBalance(held == 0 ? balanceDecimal : Money.toDecimal(balance - held));
         dto.setCurrency(card.getCurrency());
+        if (card.getId() != null) {
+            // лимиты и расход — из счётчиков в памяти, без запроса к БД
+            SpendingLimitService.CardSpending spending = spendingLimitService.cardSpending(card.getId());
+            dto.setDailyLimit(spending.dailyLimit());
+            dto.setMonthlyLimit(spending.monthlyLimit());
+            dto.setSpentToday(spending.spentToday());
+            dto.setSpentThisMonth(spending.spentThisMonth());
+        }
         return dto;
     }
 }
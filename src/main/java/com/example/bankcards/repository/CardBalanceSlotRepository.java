@@ -0,0 +1,38 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardBalanceSlot;
+import com.example.bankcards.entity.CardBalanceSlotId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface CardBalanceSlotRepository extends JpaRepository<CardBalanceSlot, CardBalanceSlotId> {
+
+    /**
+     * Пополнение одной полосы. Строку card только читаем (владелец, статус, режим полос) — без блокировки,
+     * поэтому параллельные пополнения одной карты не сериализуются. Контекст очищается: версию карты для
+     * проводки перечитываем после UPDATE.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update CardBalanceSlot s set s.balance = s.balance + :amount " +
+            "where s.cardId = :cardId and s.slot = :slot and exists (" +
+            "select c.id from Card c where c.id = :cardId and c.owner.id = :ownerId " +
+            "and c.balanceSlots > :slot and c.status <> com.example.bankcards.entity.CardStatus.BLOCKED)")
+    int addToSlot(@Param("cardId") Long cardId,
+                  @Param("ownerId") Long ownerId,
+                  @Param("slot") short slot,
+                  @Param("amount") BigDecimal amount);
+
+    @Query("select coalesce(sum(s.balance), 0) from CardBalanceSlot s where s.cardId = :cardId")
+    BigDecimal sumByCardId(@Param("cardId") Long cardId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from CardBalanceSlot s where s.cardId = :cardId order by s.slot")
+    List<CardBalanceSlot> lockAllByCardId(@Param("cardId") Long cardId);
+}
@@ -0,0 +1,27 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardBalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CardBalanceSnapshotRepository extends JpaRepository<CardBalanceSnapshot, Long> {
+
+    Optional<CardBalanceSnapshot> findFirstByCardIdAndAsOfLessThanEqualOrderByCardVersionDesc(
+            Long cardId, LocalDateTime asOf);
+
+    /**
+     * Наибольший id среди учтённых проводок: карты с движением после него ищутся по первичному ключу.
+     */
+    @Query("select max(s.lastEntryId) from CardBalanceSnapshot s")
+    Optional<Long> findLatestEntryId();
+
+    @Query("select s from CardBalanceSnapshot s where s.cardId in :cardIds and s.cardVersion = " +
+            "(select max(s2.cardVersion) from CardBalanceSnapshot s2 where s2.cardId = s.cardId)")
+    List<CardBalanceSnapshot> findLatestByCardIds(@Param("cardIds") Collection<Long> cardIds);
+}
@@ -0,0 +1,104 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Currency;
+import com.example.bankcards.entity.Owner;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Быстрые пути пополнения и списания: условный UPDATE сразу возвращает строку карты после изменения
+ * (PostgreSQL, UPDATE ... RETURNING), так что успешная операция — один запрос, без повторного SELECT.
+ * Пустой результат — строка не подошла, причину вызывающий выясняет probe-запросом.
+ * <p>
+ * JDBC идёт через соединение текущей JPA-транзакции. Контекст Hibernate об UPDATE не знает: вызывать до того,
+ * как карта загружена и изменена в этой транзакции. Возвращаемая карта не управляется JPA и читается без PAN,
+ * владелец — ленивая ссылка по id; сохранять её нельзя.
+ * <p>
+ * В H2 нет RETURNING: тестовый профиль ставит {@code app.cards.update-returning: final-table},
+ * и тот же UPDATE читается через {@code SELECT ... FROM FINAL TABLE (...)} — тоже одним запросом.
+ */
+@Repository
+public class CardBalanceWriter {
+    private static final String COLUMNS = "id, owner_id, pan_last4, bin, expiry_month, expiry_year, status, " +
+            "balance, held_amount, currency, created_at, updated_at, version, balance_slots";
+
+    private final JdbcTemplate jdbc;
+    private final EntityManager entityManager;
+    private final String depositSql;
+    private final String withdrawSql;
+
+    public CardBalanceWriter(DataSource dataSource,
+                             EntityManager entityManager,
+                             @Value("${app.cards.update-returning:returning}") String syntax) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.entityManager = entityManager;
+        // полосатые карты пополняются через card_balance_slot, здесь их не трогаем
+        this.depositSql = returning(syntax, "UPDATE card SET balance = balance + ?, version = version + 1 " +
+                "WHERE id = ? AND owner_id = ? AND balance_slots = 0 AND status <> 'BLOCKED'");
+        // доступный остаток (баланс минус холды) проверяется в том же UPDATE: уйти в минус или потратить
+        // захолдированное нельзя даже при гонке
+        this.withdrawSql = returning(syntax, "UPDATE card SET balance = balance - ?, version = version + 1 " +
+                "WHERE id = ? AND owner_id = ? AND balance_slots = 0 AND status <> 'BLOCKED' " +
+                "AND balance - held_amount >= ?");
+    }
+
+    /**
+     * @return карта после пополнения; пусто — карта не найдена, чужая, заблокирована или полосатая
+     */
+    public Optional<Card> deposit(Long cardId, Long ownerId, BigDecimal amount) {
+        return single(jdbc.query(depositSql, cardMapper(ownerId), amount, cardId, ownerId));
+    }
+
+    /**
+     * @return карта после списания; пусто — карта не найдена, чужая, заблокирована, полосатая
+     * или средств недостаточно
+     */
+    public Optional<Card> withdraw(Long cardId, Long ownerId, BigDecimal amount) {
+        return single(jdbc.query(withdrawSql, cardMapper(ownerId), amount, cardId, ownerId, amount));
+    }
+
+    private RowMapper<Card> cardMapper(Long ownerId) {
+        return (rs, rowNum) -> {
+            Card card = new Card();
+            card.setId(rs.getLong("id"));
+            // getReference не ходит в базу: карте нужен только id владельца
+            card.setOwner(entityManager.getReference(Owner.class, ownerId));
+            card.setPanLast4(rs.getString("pan_last4"));
+            card.setBin(rs.getString("bin"));
+            card.setExpiryMonth(rs.getShort("expiry_month"));
+            card.setExpiryYear(rs.getShort("expiry_year"));
+            card.setStatus(CardStatus.valueOf(rs.getString("status")));
+            card.setCurrency(Currency.valueOf(rs.getString("currency")));
+            card.setBalance(rs.getBigDecimal("balance"));
+            card.setHeldAmount(rs.getBigDecimal("held_amount"));
+            card.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+            card.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+            card.setVersion(rs.getLong("version"));
+            card.setBalanceSlots(rs.getShort("balance_slots"));
+            return card;
+        };
+    }
+
+    private static String returning(String syntax, String update) {
+        return switch (syntax) {
+            case "returning" -> update + " RETURNING " + COLUMNS;
+            case "final-table" -> "SELECT " + COLUMNS + " FROM FINAL TABLE (" + update + ")";
+            default -> throw new IllegalArgumentException("Unknown app.cards.update-returning: " + syntax);
+        };
+    }
+
+    private static Optional<Card> single(List<Card> rows) {
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.getFirst());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CardHoldRepository extends JpaRepository<CardHold, Long> {
+
+    Optional<CardHold> findByIdAndCardIdAndOwnerId(Long id, Long cardId, Long ownerId);
+
+    /**
+     * Переводит активный и не просроченный холд в CAPTURED. Единственная точка выхода из ACTIVE вместе с
+     * {@link #releaseIfActive} и {@link #markExpired}: из двух параллельных операций строку меняет ровно одна,
+     * вторая получает 0.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update CardHold h set h.status = com.example.bankcards.entity.HoldStatus.CAPTURED, h.closedAt = :now " +
+            "where h.id = :id and h.cardId = :cardId and h.ownerId = :ownerId " +
+            "and h.status = com.example.bankcards.entity.HoldStatus.ACTIVE and h.expiresAt > :now")
+    int captureIfActive(@Param("id") Long id, @Param("cardId") Long cardId, @Param("ownerId") Long ownerId,
+                        @Param("now") LocalDateTime now);
+
+    /**
+     * Отмена холда; срок не проверяется — просроченный, но ещё не снятый чистильщиком холд тоже можно отпустить.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update CardHold h set h.status = com.example.bankcards.entity.HoldStatus.RELEASED, h.closedAt = :now " +
+            "where h.id = :id and h.cardId = :cardId and h.ownerId = :ownerId " +
+            "and h.status = com.example.bankcards.entity.HoldStatus.ACTIVE")
+    int releaseIfActive(@Param("id") Long id, @Param("cardId") Long cardId, @Param("ownerId") Long ownerId,
+                        @Param("now") LocalDateTime now);
+
+    /**
+     * Пачка просроченных активных холдов под блокировкой. SKIP LOCKED: параллельные чистильщики на других узлах
+     * берут разные строки, а холд, который прямо сейчас списывается, пропускается до следующего прохода.
+     */
+    @Query(value = "SELECT id FROM card_hold WHERE status = 'ACTIVE' AND expires_at <= :now " +
+            "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockExpiredIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update CardHold h set h.status = com.example.bankcards.entity.HoldStatus.EXPIRED, h.closedAt = :now " +
+            "where h.id in :ids")
+    int markExpired(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,74 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardLedgerEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface CardLedgerEntryRepository extends JpaRepository<CardLedgerEntry, Long> {
+
+    /**
+     * Проводки карты с версией после {@code afterVersion}, созданные не позже {@code at}.
+     */
+    @Query("select coalesce(sum(e.amount), 0) from CardLedgerEntry e " +
+            "where e.cardId = :cardId and e.cardVersion > :afterVersion and e.createdAt <= :at")
+    BigDecimal sumAmountAfter(@Param("cardId") Long cardId,
+                              @Param("afterVersion") long afterVersion,
+                              @Param("at") LocalDateTime at);
+
+    /**
+     * Карты с проводками после {@code afterId} — по первичному ключу, без скана журнала.
+     */
+    @Query("select distinct e.cardId from CardLedgerEntry e where e.id > :afterId")
+    List<Long> findCardIdsWithEntriesAfter(@Param("afterId") long afterId);
+
+    /**
+     * Дельта по каждой карте из списка: её проводки после последнего снимка этой карты и не позже текущей
+     * версии карты, прочитанной тем же запросом, — один сгруппированный запрос на пачку карт.
+     * Элементы: [cardId (Long), sum(amount) (BigDecimal), версия карты (Long), max(id) (Long),
+     * max(createdAt) (LocalDateTime)].
+     */
+    @Query("select e.cardId, sum(e.amount), c.version, max(e.id), max(e.createdAt) " +
+            "from CardLedgerEntry e, Card c where c.id = e.cardId and e.cardId in :cardIds " +
+            "and e.cardVersion <= c.version and e.cardVersion > coalesce(" +
+            "(select max(s.cardVersion) from CardBalanceSnapshot s where s.cardId = e.cardId), -1) " +
+            "group by e.cardId, c.version")
+    List<Object[]> sumAmountByCardSinceSnapshot(@Param("cardIds") Collection<Long> cardIds);
+
+    /**
+     * Расходы (списания и исходящие переводы) по картам начиная с {@code from} — для восстановления счётчиков лимитов.
+     * Элементы: [cardId (Long), ownerId (Long), расход с {@code dayStart} (BigDecimal), расход всего (BigDecimal)].
+     * Суммы положительные: у расходных проводок amount отрицательный.
+     */
+    @Query("select e.cardId, c.owner.id, " +
+            "sum(case when e.createdAt >= :dayStart then -e.amount else 0 end), sum(-e.amount) " +
+            "from CardLedgerEntry e, Card c where c.id = e.cardId and e.createdAt >= :from " +
+            "and e.entryType in (com.example.bankcards.entity.LedgerEntryType.WITHDRAWAL, " +
+            "com.example.bankcards.entity.LedgerEntryType.TRANSFER_OUT) " +
+            "group by e.cardId, c.owner.id")
+    List<Object[]> sumSpendingByCardSince(@Param("from") LocalDateTime from, @Param("dayStart") LocalDateTime dayStart);
+
+    /**
+     * Первая страница истории карты. Порядок совпадает с индексом (card_id, created_at DESC, id DESC),
+     * поэтому запрос читает ровно {@code limit} строк индекса без сортировки и COUNT.
+     */
+    @Query("select e from CardLedgerEntry e where e.cardId = :cardId order by e.createdAt desc, e.id desc")
+    List<CardLedgerEntry> findHistory(@Param("cardId") Long cardId, Limit limit);
+
+    /**
+     * Следующая страница после курсора (createdAt, id): стоимость не зависит от номера страницы, в отличие от OFFSET.
+     * Условие {@code createdAt <= :createdAt} оставлено отдельно, чтобы по нему шёл поиск по индексу.
+     */
+    @Query("select e from CardLedgerEntry e where e.cardId = :cardId and e.createdAt <= :createdAt " +
+            "and (e.createdAt < :createdAt or e.id < :id) order by e.createdAt desc, e.id desc")
+    List<CardLedgerEntry> findHistoryAfter(@Param("cardId") Long cardId,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Long id,
+                                           Limit limit);
+}
@@ -1,15 +1,130 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Card;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface CardRepository extends JpaRepository<Card, Long>, JpaSpecificationExecutor<Card> {
     Page<Card> findAllByOwnerId(Long ownerId, Pageable pageable);
 
     Optional<Card> findByIdAndOwnerId(Long id, Long ownerId);
+
+    boolean existsByIdAndOwnerId(Long id, Long ownerId);
+
+    @Query("select c from Card c join fetch c.owner where c.id = :id")
+    Optional<Card> findByIdWithOwner(@Param("id") Long id);
+
+    /**
+     * Холд: сумма резервируется в held_amount, баланс не меняется.
+     * Условия — как у списания ({@link CardBalanceWriter#withdraw}).
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE card SET held_amount = held_amount + :amount, version = version + 1 " +
+            "WHERE id = :id AND owner_id = :ownerId AND balance_slots = 0 AND status <> 'BLOCKED' " +
+            "AND balance - held_amount >= :amount",
+            nativeQuery = true)
+    int holdIfActive(@Param("id") Long id, @Param("ownerId") Long ownerId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Списание захолдированной суммы одним UPDATE. Проверять остаток не нужно: held_amount никогда
+     * не превышает консолидированный баланс. 0 строк — карта заблокирована или удалена.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE card SET balance = balance - :amount, held_amount = held_amount - :amount, " +
+            "version = version + 1 WHERE id = :id AND status <> 'BLOCKED'",
+            nativeQuery = true)
+    int captureHeld(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE card SET held_amount = held_amount - :amount, version = version + 1 WHERE id = :id",
+            nativeQuery = true)
+    int releaseHeld(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Снимает с карт суммы перечисленных холдов одним UPDATE на пачку — по строке на карту, а не на холд.
+     * Холды должны быть заблокированы вызывающим, иначе их статус может смениться между запросами.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE card SET held_amount = held_amount - " +
+            "(SELECT SUM(h.amount) FROM card_hold h WHERE h.card_id = card.id AND h.id IN (:holdIds)), " +
+            "version = version + 1 " +
+            "WHERE id IN (SELECT h.card_id FROM card_hold h WHERE h.id IN (:holdIds))",
+            nativeQuery = true)
+    int releaseHeldByHolds(@Param("holdIds") Collection<Long> holdIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id = :id")
+    Optional<Card> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * SELECT ... FOR UPDATE по карте владельца. Напрямую не вызывать для пары карт —
+     * см. {@link #lockPairForUpdate(Long, Long, Long)}.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id = :id and c.owner.id = :ownerId")
+    Optional<Card> findByIdAndOwnerIdForUpdate(@Param("id") Long id, @Param("ownerId") Long ownerId);
+
+    /**
+     * Блокирует все перечисленные карты владельца одним SELECT ... ORDER BY id FOR UPDATE:
+     * строки захватываются в порядке сортировки, как и в {@link #lockPairForUpdate(Long, Long, Long)}.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.owner.id = :ownerId and c.id in :ids order by c.id")
+    List<Card> findAllByOwnerIdAndIdInForUpdate(@Param("ownerId") Long ownerId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Блокирует карты разных владельцев одним SELECT ... ORDER BY id FOR UPDATE — для групповых транзакций
+     * воркеров, где в одной транзакции идут переводы по многим парам карт.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id in :ids order by c.id")
+    List<Card> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Полосатые карты из списка: их пополнения не захватывают строку карты.
+     */
+    @Query("select c.id from Card c where c.id in :ids and c.balanceSlots > 0 order by c.id")
+    List<Long> findStripedIdsIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Закрывает версию карт без изменения баланса: пополнения полос, начатые после, запишут проводки
+     * уже под новой версией (LedgerService.takeSnapshots).
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE card SET version = version + 1 WHERE id IN (:ids)", nativeQuery = true)
+    int incrementVersions(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Ограничивает ожидание строковых блокировок до конца текущей транзакции (PostgreSQL, SET LOCAL).
+     */
+    @Query(value = "SELECT set_config('lock_timeout', :timeout, true)", nativeQuery = true)
+    String setLocalLockTimeout(@Param("timeout") String timeout);
+
+    /**
+     * Блокирует две карты владельца строго по возрастанию id, чтобы встречные переводы
+     * A→B и B→A не могли взаимно заблокироваться. Чужие/несуществующие карты в результат не попадают.
+     */
+    default Map<Long, Card> lockPairForUpdate(Long ownerId, Long firstId, Long secondId) {
+        Long lowId = firstId < secondId ? firstId : secondId;
+        Long highId = firstId < secondId ? secondId : firstId;
+
+        Map<Long, Card> locked = new HashMap<>(4);
+        findByIdAndOwnerIdForUpdate(lowId, ownerId).ifPresent(c -> locked.put(lowId, c));
+        findByIdAndOwnerIdForUpdate(highId, ownerId).ifPresent(c -> locked.put(highId, c));
+        return locked;
+    }
 }
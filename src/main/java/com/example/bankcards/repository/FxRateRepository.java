@@ -0,0 +1,27 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.FxRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface FxRateRepository extends JpaRepository<FxRate, Long> {
+
+    /**
+     * Курсы, нужные снимку: действующий на {@code now} по каждой паре и все будущие.
+     * Более старая история в память не поднимается.
+     */
+    @Query("""
+            select r from FxRate r
+            where r.effectiveFrom > :now
+               or r.effectiveFrom = (select max(p.effectiveFrom) from FxRate p
+                                     where p.baseCurrency = r.baseCurrency
+                                       and p.quoteCurrency = r.quoteCurrency
+                                       and p.effectiveFrom <= :now)
+            order by r.effectiveFrom, r.id
+            """)
+    List<FxRate> findCurrentAndFuture(@Param("now") LocalDateTime now);
+}
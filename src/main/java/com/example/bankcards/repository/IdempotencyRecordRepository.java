@@ -0,0 +1,25 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByOwnerIdAndIdempotencyKey(Long ownerId, String idempotencyKey);
+
+    /**
+     * Чистка одним DELETE: истёкшие ответы и «зависшие» IN_PROGRESS упавших узлов.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now " +
+            "or (r.status = com.example.bankcards.entity.IdempotencyStatus.IN_PROGRESS and r.createdAt < :staleBefore)")
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+}
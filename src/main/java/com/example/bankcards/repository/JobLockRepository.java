@@ -0,0 +1,18 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.JobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    /**
+     * Захват задачи до конца транзакции. SKIP LOCKED: если задачу уже выполняет другой узел, сразу
+     * получаем пустой результат, а не ждём.
+     */
+    @Query(value = "SELECT name FROM job_lock WHERE name = :name FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<String> tryLock(@Param("name") String name);
+}
@@ -0,0 +1,29 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Начало очереди партиции по индексу (partition_no, id). Без блокировки строк: партицию читает только
+     * узел, держащий её строку в outbox_partition.
+     */
+    @Query("select e from OutboxEvent e where e.partitionNo = :partitionNo order by e.id")
+    List<OutboxEvent> findHead(@Param("partitionNo") short partitionNo, Limit limit);
+
+    /**
+     * Удаляет опубликованные события по списку id, а не по границе: событие с меньшим id, закоммиченное
+     * уже после чтения пачки, остаётся в очереди.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("delete from OutboxEvent e where e.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
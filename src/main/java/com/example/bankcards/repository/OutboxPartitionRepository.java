@@ -0,0 +1,18 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.OutboxPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OutboxPartitionRepository extends JpaRepository<OutboxPartition, Short> {
+
+    /**
+     * Захват партиции до конца транзакции. SKIP LOCKED: партицию, которую публикует другой узел,
+     * пропускаем сразу, а не ждём.
+     */
+    @Query(value = "SELECT id FROM outbox_partition WHERE id = :id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Short> tryLock(@Param("id") short id);
+}
@@ -2,7 +2,10 @@ package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Owner;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface OwnerRepository extends JpaRepository<Owner, Integer> {
@@ -11,4 +14,17 @@ public interface OwnerRepository extends JpaRepository<Owner, Integer> {
     Optional<Owner> findById(Long id);
 
     boolean existsByEmailAndIdNot(String email, Long id);
+
+    /**
+     * Блокировка и отметка отзыва токенов — для {@link com.example.bankcards.security.OwnerStatusCache},
+     * без загрузки клиента.
+     */
+    @Query("select o.isLocked as locked, o.tokensValidAfter as tokensValidAfter from Owner o where o.id = :id")
+    Optional<TokenState> findTokenStateById(@Param("id") Long id);
+
+    interface TokenState {
+        boolean isLocked();
+
+        LocalDateTime getTokensValidAfter();
+    }
 }
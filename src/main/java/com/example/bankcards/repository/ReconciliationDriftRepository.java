@@ -0,0 +1,11 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.ReconciliationDrift;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ReconciliationDriftRepository extends JpaRepository<ReconciliationDrift, Long> {
+
+    List<ReconciliationDrift> findAllByRunIdOrderByCardId(Long runId);
+}
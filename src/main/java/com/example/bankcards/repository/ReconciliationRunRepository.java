@@ -0,0 +1,7 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.ReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, Long> {
+}
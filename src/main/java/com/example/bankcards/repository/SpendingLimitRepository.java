@@ -0,0 +1,8 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.LimitSubjectId;
+import com.example.bankcards.entity.SpendingLimit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SpendingLimitRepository extends JpaRepository<SpendingLimit, LimitSubjectId> {
+}
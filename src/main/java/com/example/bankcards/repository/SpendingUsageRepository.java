@@ -0,0 +1,21 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.LimitSubjectId;
+import com.example.bankcards.entity.SpendingUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SpendingUsageRepository extends JpaRepository<SpendingUsage, LimitSubjectId> {
+
+    List<SpendingUsage> findAllByMonth(LocalDate month);
+
+    /** Счётчики прошлых месяцев больше не нужны ни проверкам, ни восстановлению. */
+    @Modifying
+    @Query("delete from SpendingUsage u where u.month < :month")
+    int deleteAllByMonthBefore(@Param("month") LocalDate month);
+}
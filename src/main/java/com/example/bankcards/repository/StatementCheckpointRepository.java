@@ -0,0 +1,28 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.StatementCheckpoint;
+import com.example.bankcards.entity.StatementCheckpointId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StatementCheckpointRepository extends JpaRepository<StatementCheckpoint, StatementCheckpointId> {
+
+    List<StatementCheckpoint> findAllByPeriodOrderByPartitionNo(String period);
+
+    @Modifying
+    @Query("update StatementCheckpoint c set c.lastOwnerId = :ownerId, c.updatedAt = :now " +
+            "where c.period = :period and c.partitionNo = :partitionNo")
+    int advance(@Param("period") String period, @Param("partitionNo") int partitionNo,
+                @Param("ownerId") long ownerId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update StatementCheckpoint c set c.completed = true, c.updatedAt = :now " +
+            "where c.period = :period and c.partitionNo = :partitionNo")
+    int markCompleted(@Param("period") String period, @Param("partitionNo") int partitionNo,
+                      @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.ScheduleStatus;
+import com.example.bankcards.entity.TransferSchedule;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TransferScheduleRepository extends JpaRepository<TransferSchedule, Long> {
+
+    Page<TransferSchedule> findAllByOwnerId(Long ownerId, Pageable pageable);
+
+    long countByOwnerIdAndStatus(Long ownerId, ScheduleStatus status);
+
+    /**
+     * Свободные (без аренды или с истёкшей) активные расписания со сроком до {@code horizon}.
+     * Читается только окно по частичному индексу на next_run_at, а не вся таблица. SKIP LOCKED: узлы,
+     * загружающие окно одновременно, разбирают разные строки.
+     */
+    @Query(value = "SELECT id FROM transfer_schedule WHERE status = 'ACTIVE' AND next_run_at < :horizon " +
+            "AND (lease_until IS NULL OR lease_until < :now) " +
+            "ORDER BY next_run_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockDueIds(@Param("horizon") LocalDateTime horizon, @Param("now") LocalDateTime now,
+                          @Param("limit") int limit);
+
+    @Modifying
+    @Query("update TransferSchedule s set s.leaseOwner = :node, s.leaseUntil = :leaseUntil where s.id in :ids")
+    int lease(@Param("ids") Collection<Long> ids, @Param("node") String node, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Забирает запуск: сдвигает next_run_at (или закрывает разовое расписание) и снимает аренду.
+     * 0 строк — расписание отменено, аренду перехватил другой узел или этот запуск уже выполнен.
+     */
+    @Modifying
+    @Query("update TransferSchedule s set s.nextRunAt = :next, s.status = :status, s.lastRunAt = :now, " +
+            "s.runCount = s.runCount + 1, s.lastError = null, s.leaseOwner = null, s.leaseUntil = null " +
+            "where s.id = :id and s.leaseOwner = :node and s.nextRunAt = :expected " +
+            "and s.status = com.example.bankcards.entity.ScheduleStatus.ACTIVE")
+    int claimRun(@Param("id") Long id, @Param("node") String node, @Param("expected") LocalDateTime expected,
+                 @Param("next") LocalDateTime next, @Param("status") ScheduleStatus status,
+                 @Param("now") LocalDateTime now);
+
+    /**
+     * Причина отказа последнего запуска; разовое расписание при этом переходит в FAILED.
+     */
+    @Modifying
+    @Query("update TransferSchedule s set s.lastError = :error, " +
+            "s.status = case when s.status = com.example.bankcards.entity.ScheduleStatus.COMPLETED " +
+            "then com.example.bankcards.entity.ScheduleStatus.FAILED else s.status end " +
+            "where s.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("error") String error);
+
+    @Modifying
+    @Query("update TransferSchedule s set s.status = com.example.bankcards.entity.ScheduleStatus.CANCELLED, " +
+            "s.leaseOwner = null, s.leaseUntil = null " +
+            "where s.id = :id and s.ownerId = :ownerId and s.status = com.example.bankcards.entity.ScheduleStatus.ACTIVE")
+    int cancel(@Param("id") Long id, @Param("ownerId") Long ownerId);
+}
@@ -1,6 +1,7 @@
 package com.example.bankcards.security;
 
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.bankcards.service.TokenRevocationService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,7 +12,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -23,12 +23,15 @@ public class JWTFilter extends OncePerRequestFilter {
     private final Logger logger = LoggerFactory.getLogger(JWTFilter.class);
 
     private final JWTUtil jwtUtil;
-    private final OwnerDetailsService ownerDetailsService;
+    private final OwnerStatusCache ownerStatusCache;
+    private final TokenRevocationService tokenRevocationService;
 
     @Autowired
-    public JWTFilter(JWTUtil jwtUtil, OwnerDetailsService ownerDetailsService) {
+    public JWTFilter(JWTUtil jwtUtil, OwnerStatusCache ownerStatusCache,
+                     TokenRevocationService tokenRevocationService) {
         this.jwtUtil = jwtUtil;
-        this.ownerDetailsService = ownerDetailsService;
+        this.ownerStatusCache = ownerStatusCache;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -49,20 +52,28 @@ public class JWTFilter extends OncePerRequestFilter {
 
         try {
             DecodedJWT decodedJWT = jwtUtil.validateAccessToken(jwt);
+            Long id = decodedJWT.getClaim("id").asLong();
             String username = decodedJWT.getClaim("email").asString();
             String role = decodedJWT.getClaim("role").asString();
 
-            if (username != null && role != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = ownerDetailsService.loadUserByUsername(username);
+            if (id != null && username != null && role != null
+                    && SecurityContextHolder.getContext().getAuthentication() == null) {
+                // principal — из claims; в БД (через кэш) только блокировка и отметка отзыва всех токенов
+                String jti = decodedJWT.getId();
+                if (jti != null && tokenRevocationService.isRevoked(jti)) {
+                    logger.debug("Token {} of owner {} is revoked", jti, id);
+                } else if (!ownerStatusCache.accepts(id, JWTUtil.issuedAt(decodedJWT))) {
+                    logger.debug("Owner {} is locked, removed or revoked this token; token ignored", id);
+                } else {
+                    UsernamePasswordAuthenticationToken auth =
+                            new UsernamePasswordAuthenticationToken(
+                                    new OwnerDetails(id, username, role, jti, decodedJWT.getExpiresAtAsInstant()),
+                                    null,
+                                    List.of(new SimpleGrantedAuthority(role))
+                            );
 
-                UsernamePasswordAuthenticationToken auth =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                List.of(new SimpleGrantedAuthority(role))
-                        );
-
-                SecurityContextHolder.getContext().setAuthentication(auth);
+                    SecurityContextHolder.getContext().setAuthentication(auth);
+                }
             }
         } catch (Exception e) {
             logger.error("Error in JWT filter: {}", e.getMessage(), e);
@@ -8,37 +8,113 @@ import com.auth0.jwt.interfaces.JWTVerifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.time.ZonedDateTime;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Выпуск и проверка access-токенов. Алгоритм и верификатор потокобезопасны и создаются один раз.
+ * <p>
+ * Клиент шлёт один и тот же токен весь срок его жизни, поэтому успешно проверенные токены кэшируются до их
+ * {@code exp}: повторный запрос обходится без HMAC и разбора claims. Кэш — массив фиксированного размера
+ * с прямой адресацией по хэшу токена: без блокировок, новый токен просто вытесняет старый из ячейки.
+ * Попадание засчитывается только при полном совпадении строки токена, так что коллизия хэша стоит
+ * лишь повторной проверки.
+ */
 @Component
 public class JWTUtil {
-    @Value("${jwt_secret}")
-    private String secret;
+    private static final String SUBJECT = "Owner details";
+    private static final String ISSUER = "ADMIN";
+    /**
+     * Момент выпуска в миллисекундах: стандартный iat — в секундах, и с ним новый токен, выпущенный в ту же
+     * секунду, что и отзыв всех токенов клиента, был бы отклонён.
+     */
+    private static final String ISSUED_AT_MILLIS = "iat_ms";
 
-    @Value("${app.security.jwt.expiration}")
-    private java.time.Duration expiration;
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+    private final Duration expiration;
+    /** null — кэш выключен ({@code verified-cache-size: 0}). */
+    private final AtomicReferenceArray<Verified> verified;
+    private final int mask;
+
+    public JWTUtil(@Value("${jwt_secret}") String secret,
+                   @Value("${app.security.jwt.expiration}") Duration expiration,
+                   @Value("${app.security.jwt.verified-cache-size:4096}") int verifiedCacheSize) {
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm)
+                .withSubject(SUBJECT)
+                .withIssuer(ISSUER)
+                .build();
+        this.expiration = expiration;
+        if (verifiedCacheSize > 0) {
+            // степень двойки: ячейка — младшие биты хэша
+            int size = Integer.highestOneBit(Math.min(verifiedCacheSize, 1 << 30) * 2 - 1);
+            this.verified = new AtomicReferenceArray<>(size);
+            this.mask = size - 1;
+        } else {
+            this.verified = null;
+            this.mask = 0;
+        }
+    }
 
     public String generateAccessToken(Long id, String email, String role) {
-        var now = java.time.Instant.now();
+        var now = Instant.now();
         var exp = now.plus(expiration);
 
         return JWT.create()
-                .withSubject("Owner details")
+                .withSubject(SUBJECT)
+                .withJWTId(UUID.randomUUID().toString())
                 .withClaim("id", id)
                 .withClaim("email", email)
                 .withClaim("role", role)
-                .withIssuedAt(new Date())
-                .withIssuer("ADMIN")
-                .withExpiresAt(java.util.Date.from(exp))
-                .sign(Algorithm.HMAC256(secret));
+                .withClaim(ISSUED_AT_MILLIS, now.toEpochMilli())
+                .withIssuedAt(Date.from(now))
+                .withIssuer(ISSUER)
+                .withExpiresAt(Date.from(exp))
+                .sign(algorithm);
     }
 
     public DecodedJWT validateAccessToken(String token) throws JWTVerificationException {
-        JWTVerifier verifier = JWT.require(Algorithm.HMAC256(secret))
-                .withSubject("Owner details")
-                .withIssuer("ADMIN")
-                .build();
-        return verifier.verify(token);
+        if (verified == null) {
+            return verifier.verify(token);
+        }
+        int slot = (int) hash(token) & mask;
+        Verified cached = verified.get(slot);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis() && cached.token().equals(token)) {
+            return cached.jwt();
+        }
+        DecodedJWT jwt = verifier.verify(token);
+        // без exp токен бессрочный — такие не кэшируем
+        if (jwt.getExpiresAt() != null) {
+            verified.set(slot, new Verified(token, jwt, jwt.getExpiresAt().getTime()));
+        }
+        return jwt;
+    }
+
+    /**
+     * Момент выпуска с точностью до миллисекунды; у токенов без {@code iat_ms} — iat с точностью до секунды.
+     */
+    public static Instant issuedAt(DecodedJWT jwt) {
+        Long millis = jwt.getClaim(ISSUED_AT_MILLIS).asLong();
+        return millis != null ? Instant.ofEpochMilli(millis) : jwt.getIssuedAtAsInstant();
+    }
+
+    /**
+     * 64-битный FNV-1a по символам токена: дешевле HMAC на порядки и не зависит от кэша hashCode строки,
+     * которая на каждый запрос новая.
+     */
+    static long hash(String token) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            h ^= token.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h ^ (h >>> 32);
+    }
+
+    private record Verified(String token, DecodedJWT jwt, long expiresAtMillis) {
     }
 }
@@ -0,0 +1,28 @@
+package com.example.bankcards.security;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Шина одного узла: сброс доставляется синхронно подписчикам этого же процесса. Другие узлы о нём не узнают
+ * и видят изменение по истечении {@code app.security.owner-status.ttl}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.security.owner-status.bus", havingValue = "local", matchIfMissing = true)
+public class LocalOwnerStatusInvalidationBus implements OwnerStatusInvalidationBus {
+    private final List<Consumer<Long>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Long ownerId) {
+        listeners.forEach(l -> l.accept(ownerId));
+    }
+
+    @Override
+    public void subscribe(Consumer<Long> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.bankcards.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Проверка пароля при входе на отдельном ограниченном пуле.
+ * <p>
+ * BCrypt — десятки миллисекунд CPU на вход. Без ограничения всплеск входов занимает все потоки Tomcat и
+ * вытесняет операции с картами. Здесь хэширование идёт не больше чем в {@code threads} потоках (по умолчанию —
+ * по числу ядер), ещё {@code queue-capacity} входов ждут в очереди, остальные сразу получают
+ * {@link RejectedExecutionException} — контроллер отвечает 503 с Retry-After. Поток запроса ждёт результата
+ * не дольше {@code timeout}, так что и ждущих потоков Tomcat не больше, чем мест в пуле и очереди.
+ */
+@Component
+public class LoginExecutor {
+    private final AuthenticationManager authenticationManager;
+    private final ThreadPoolExecutor pool;
+    private final Duration timeout;
+    private final Duration retryAfter;
+    private final Timer hashTime;
+    private final Counter rejected;
+
+    public LoginExecutor(AuthenticationManager authenticationManager,
+                         ObjectProvider<MeterRegistry> meterRegistry,
+                         @Value("${app.security.login.threads:0}") int threads,
+                         @Value("${app.security.login.queue-capacity:64}") int queueCapacity,
+                         @Value("${app.security.login.timeout:PT5S}") Duration timeout,
+                         @Value("${app.security.login.retry-after:PT1S}") Duration retryAfter) {
+        this.authenticationManager = authenticationManager;
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                Thread.ofPlatform().name("login-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeout = timeout;
+        this.retryAfter = retryAfter;
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("cards.login.queue", pool, p -> p.getQueue().size()).register(registry);
+            this.hashTime = Timer.builder("cards.login.hash").register(registry);
+            this.rejected = Counter.builder("cards.login.rejected").register(registry);
+        } else {
+            this.hashTime = null;
+            this.rejected = null;
+        }
+    }
+
+    /**
+     * {@link AuthenticationManager#authenticate} на пуле входа. Ошибки аутентификации пробрасываются как есть.
+     *
+     * @throws RejectedExecutionException пул и очередь заняты или проверка не уложилась в {@code timeout}
+     */
+    public Authentication authenticate(Authentication request) {
+        Future<Authentication> result;
+        try {
+            result = pool.submit(() -> verify(request));
+        } catch (RejectedExecutionException e) {
+            countRejected();
+            throw e;
+        }
+        try {
+            return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Login verification failed", e.getCause());
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            countRejected();
+            throw new RejectedExecutionException("Login verification timed out", e);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for login verification", e);
+        }
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    private Authentication verify(Authentication request) {
+        if (hashTime == null) {
+            return authenticationManager.authenticate(request);
+        }
+        long start = System.nanoTime();
+        try {
+            return authenticationManager.authenticate(request);
+        } finally {
+            hashTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void countRejected() {
+        if (rejected != null) {
+            rejected.increment();
+        }
+    }
+}
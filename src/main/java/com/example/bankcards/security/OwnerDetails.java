@@ -1,35 +1,64 @@
 package com.example.bankcards.security;
 
 import com.example.bankcards.entity.Owner;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
 
+/**
+ * Текущий клиент. При входе строится из {@link Owner} (нужен пароль для проверки), в запросах с токеном —
+ * из его claims, без обращения к БД: пароля у такого principal нет.
+ */
 public class OwnerDetails implements UserDetails {
-    private final Owner owner;
+    private final Long id;
+    private final String email;
+    private final String password;
+    private final String role;
+    private final boolean locked;
+    /** jti и exp токена запроса — для его отзыва; у principal входа null. */
+    private final String tokenId;
+    private final Instant tokenExpiresAt;
 
-    @Autowired
     public OwnerDetails(Owner owner) {
-        this.owner = owner;
+        this.id = owner.getId();
+        this.email = owner.getEmail();
+        this.password = owner.getPassword();
+        this.role = owner.getRole().name();
+        this.locked = owner.isLocked();
+        this.tokenId = null;
+        this.tokenExpiresAt = null;
+    }
+
+    /**
+     * Principal из claims access-токена; блокировку клиента уже проверил {@link OwnerStatusCache}.
+     */
+    public OwnerDetails(Long id, String email, String role, String tokenId, Instant tokenExpiresAt) {
+        this.id = id;
+        this.email = email;
+        this.password = null;
+        this.role = role;
+        this.locked = false;
+        this.tokenId = tokenId;
+        this.tokenExpiresAt = tokenExpiresAt;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singletonList(new SimpleGrantedAuthority(owner.getRole().name()));
+        return Collections.singletonList(new SimpleGrantedAuthority(role));
     }
 
     @Override
     public String getPassword() {
-        return owner.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return owner.getEmail();
+        return email;
     }
 
     @Override
@@ -39,7 +68,7 @@ public class OwnerDetails implements UserDetails {
 
     @Override
     public boolean isAccountNonLocked() {
-        return !owner.isLocked();
+        return !locked;
     }
 
     @Override
@@ -53,6 +82,14 @@ public class OwnerDetails implements UserDetails {
     }
 
     public Long getId() {
-        return owner.getId();
+        return id;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public Instant getTokenExpiresAt() {
+        return tokenExpiresAt;
     }
 }
@@ -4,12 +4,14 @@ import com.example.bankcards.entity.Owner;
 import com.example.bankcards.repository.OwnerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class OwnerDetailsService implements UserDetailsService {
+public class OwnerDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final OwnerRepository ownerRepository;
 
     @Autowired
@@ -23,4 +25,17 @@ public class OwnerDetailsService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("Email doesn't found!"));
         return new OwnerDetails(owner);
     }
+
+    /**
+     * Вызывается при успешном входе, если хэш пароля посчитан с устаревшей стоимостью BCrypt:
+     * {@code newPassword} — тот же пароль, уже захэшированный с текущей.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Owner owner = ownerRepository.findByEmail(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("Email doesn't found!"));
+        owner.setPassword(newPassword);
+        return new OwnerDetails(ownerRepository.save(owner));
+    }
 }
@@ -0,0 +1,113 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.repository.OwnerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Статус клиентов для {@link JWTFilter}: блокировка и отметка «токены, выпущенные до, отозваны» — вместо
+ * загрузки клиента на каждый запрос, LRU в памяти.
+ * <p>
+ * Запись сбрасывается через {@link OwnerStatusInvalidationBus} после коммита блокировки, разблокировки,
+ * повышения роли или отзыва всех токенов клиента (см. {@code AdminService}, {@code TokenRevocationService});
+ * {@code ttl} — страховка на случай изменений мимо сервисов и шины одного узла.
+ */
+@Component
+public class OwnerStatusCache {
+    private static final long NOT_REVOKED = Long.MIN_VALUE;
+
+    private final OwnerRepository ownerRepository;
+    private final OwnerStatusInvalidationBus bus;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries;
+    /** Счётчик сбросов: чтение, начатое до сброса, не кладёт в кэш устаревший статус. */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public OwnerStatusCache(OwnerRepository ownerRepository,
+                            OwnerStatusInvalidationBus bus,
+                            @Value("${app.security.owner-status.cache-size:100000}") int cacheSize,
+                            @Value("${app.security.owner-status.ttl:PT5M}") Duration ttl) {
+        this.ownerRepository = ownerRepository;
+        this.bus = bus;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        bus.subscribe(ownerId -> {
+            synchronized (entries) {
+                invalidations.incrementAndGet();
+                entries.remove(ownerId);
+            }
+        });
+    }
+
+    /**
+     * @param issuedAt iat токена; null — токен без iat
+     * @return true, если клиент существует, не заблокирован и токен выпущен после отзыва всех его токенов
+     */
+    public boolean accepts(Long ownerId, Instant issuedAt) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(ownerId);
+        if (entry == null || now - entry.loadedAt() > ttlNanos) {
+            long seen = invalidations.get();
+            // удалённый клиент тоже кэшируется: id не переиспользуются
+            entry = ownerRepository.findTokenStateById(ownerId)
+                    .map(state -> new Entry(!state.isLocked(), validAfterMillis(state.getTokensValidAfter()), now))
+                    .orElseGet(() -> new Entry(false, NOT_REVOKED, now));
+            synchronized (entries) {
+                if (invalidations.get() == seen) {
+                    entries.put(ownerId, entry);
+                }
+            }
+        }
+        if (!entry.active()) {
+            return false;
+        }
+        if (entry.validAfterMillis() == NOT_REVOKED) {
+            return true;
+        }
+        // сравнение в миллисекундах (claim iat_ms): вход сразу после отзыва даёт действующий токен.
+        // У старых токенов только iat в секундах — выпущенный в ту же секунду, что и отзыв, отклоняется
+        return issuedAt != null && issuedAt.toEpochMilli() > entry.validAfterMillis();
+    }
+
+    /**
+     * Сбросить запись на всех узлах. Внутри транзакции — после коммита: иначе параллельный запрос успеет
+     * закэшировать ещё не закоммиченный старый статус.
+     */
+    public void invalidate(Long ownerId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bus.publish(ownerId);
+                }
+            });
+        } else {
+            bus.publish(ownerId);
+        }
+    }
+
+    private static long validAfterMillis(LocalDateTime tokensValidAfter) {
+        return tokensValidAfter != null
+                ? tokensValidAfter.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : NOT_REVOKED;
+    }
+
+    private record Entry(boolean active, long validAfterMillis, long loadedAt) {
+    }
+}
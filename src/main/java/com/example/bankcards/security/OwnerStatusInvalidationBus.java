@@ -0,0 +1,21 @@
+package com.example.bankcards.security;
+
+import java.util.function.Consumer;
+
+/**
+ * Рассылка сброса записей {@link OwnerStatusCache} между узлами. По умолчанию — {@link LocalOwnerStatusInvalidationBus}
+ * в пределах узла; для нескольких узлов подключается свой бин этого типа (брокер, LISTEN/NOTIFY и т.п.)
+ * при {@code app.security.owner-status.bus}, отличном от {@code local}.
+ */
+public interface OwnerStatusInvalidationBus {
+
+    /**
+     * Сообщает всем узлам, включая текущий, что статус клиента изменился. Вызывается после коммита изменения.
+     */
+    void publish(Long ownerId);
+
+    /**
+     * Подписка на сбросы; слушатель вызывается для каждого опубликованного id, в том числе с этого узла.
+     */
+    void subscribe(Consumer<Long> listener);
+}
@@ -0,0 +1,127 @@
+package com.example.bankcards.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Отозванные jti в памяти: фильтр Блума перед точным множеством.
+ * <p>
+ * Проверка идёт на каждом запросе, а отозванных токенов почти нет, поэтому её путь для неотозванного токена —
+ * хэш по символам jti и несколько чтений битов из {@link AtomicLongArray}: без блокировок и без выделения
+ * памяти. Точное множество спрашивается только при положительном ответе фильтра (~1% ложных срабатываний
+ * при расчётном числе токенов), поэтому ложного отзыва не бывает.
+ * <p>
+ * Запись (отзыв, чистка истёкших) редкая и идёт под монитором: из фильтра Блума биты не удаляются, поэтому
+ * чистка и переполнение строят новый фильтр по точному множеству и подменяют его целиком.
+ */
+public class RevokedTokenSet {
+    private static final int HASHES = 7;
+    private static final int BITS_PER_TOKEN = 10;
+
+    private final int expectedTokens;
+    /** jti -> момент истечения токена, мс эпохи. */
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile Bloom bloom;
+
+    public RevokedTokenSet(int expectedTokens) {
+        this.expectedTokens = Math.max(1024, expectedTokens);
+        this.bloom = new Bloom(this.expectedTokens);
+    }
+
+    public boolean contains(String jti) {
+        return bloom.mightContain(jti) && revoked.containsKey(jti);
+    }
+
+    public synchronized void add(String jti, long expiresAtMillis) {
+        if (revoked.put(jti, expiresAtMillis) != null) {
+            return;
+        }
+        if (revoked.size() > bloom.capacity) {
+            rebuild();
+        } else {
+            bloom.put(jti);
+        }
+    }
+
+    /**
+     * Убирает токены, истёкшие к {@code nowMillis}: их отклонит уже проверка exp.
+     *
+     * @return сколько убрано
+     */
+    public synchronized int purgeExpired(long nowMillis) {
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> expiresAt <= nowMillis);
+        int removed = before - revoked.size();
+        if (removed > 0) {
+            rebuild();
+        }
+        return removed;
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    private void rebuild() {
+        Bloom next = new Bloom(Math.max(expectedTokens, revoked.size() * 2));
+        revoked.keySet().forEach(next::put);
+        bloom = next;
+    }
+
+    private static final class Bloom {
+        private final int capacity;
+        private final AtomicLongArray bits;
+        private final long mask;
+
+        private Bloom(int capacity) {
+            this.capacity = capacity;
+            // степень двойки бит: индекс — маской, без деления
+            long size = Long.highestOneBit((long) capacity * BITS_PER_TOKEN * 2 - 1);
+            this.bits = new AtomicLongArray((int) Math.max(1, size >>> 6));
+            this.mask = size - 1;
+        }
+
+        boolean mightContain(String jti) {
+            long h1 = hash(jti);
+            long h2 = mix(h1) | 1;
+            for (int i = 0; i < HASHES; i++) {
+                long bit = (h1 + i * h2) & mask;
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Пишет один поток (под монитором множества), поэтому read-modify-write без CAS. */
+        void put(String jti) {
+            long h1 = hash(jti);
+            long h2 = mix(h1) | 1;
+            for (int i = 0; i < HASHES; i++) {
+                long bit = (h1 + i * h2) & mask;
+                int word = (int) (bit >>> 6);
+                bits.set(word, bits.get(word) | (1L << bit));
+            }
+        }
+
+        /** 64-битный FNV-1a по символам: без выделения памяти и без кэша hashCode новой строки. */
+        private static long hash(String s) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < s.length(); i++) {
+                h ^= s.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return h;
+        }
+
+        /** Финализатор MurmurHash3: вторая независимая хэш-функция для двойного хэширования. */
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -3,15 +3,19 @@ package com.example.bankcards.service;
 import com.example.bankcards.dto.CardAdminFilter;
 import com.example.bankcards.dto.CardResponseDTO;
 import com.example.bankcards.dto.OwnerResponseDTO;
+import com.example.bankcards.dto.SpendingLimitRequestDTO;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.LimitScope;
 import com.example.bankcards.entity.Owner;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.mapper.CardMapper;
 import com.example.bankcards.mapper.OwnerMapper;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.OwnerRepository;
+import com.example.bankcards.security.OwnerStatusCache;
 import com.example.bankcards.util.CardSpecs;
+import com.example.bankcards.util.annotation.RetryOnOptimisticLock;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -23,6 +27,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.server.ResponseStatusException;
 import com.example.bankcards.dto.OwnerAdminUpdateDTO;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -32,12 +37,25 @@ public class AdminService {
     private final OwnerMapper ownerMapper;
     private final CardRepository cardRepository;
     private final CardMapper cardMapper;
-
-    public AdminService(OwnerRepository ownerRepository, OwnerMapper ownerMapper, CardRepository cardRepository, CardMapper cardMapper) {
+    private final StripedBalanceService stripedBalanceService;
+    private final SpendingLimitService spendingLimitService;
+    private final OutboxService outboxService;
+    private final OwnerStatusCache ownerStatusCache;
+    private final TokenRevocationService tokenRevocationService;
+
+    public AdminService(OwnerRepository ownerRepository, OwnerMapper ownerMapper, CardRepository cardRepository, CardMapper cardMapper,
+                        StripedBalanceService stripedBalanceService, SpendingLimitService spendingLimitService,
+                        OutboxService outboxService, OwnerStatusCache ownerStatusCache,
+                        TokenRevocationService tokenRevocationService) {
         this.ownerRepository = ownerRepository;
         this.ownerMapper = ownerMapper;
         this.cardRepository = cardRepository;
         this.cardMapper = cardMapper;
+        this.stripedBalanceService = stripedBalanceService;
+        this.spendingLimitService = spendingLimitService;
+        this.outboxService = outboxService;
+        this.ownerStatusCache = ownerStatusCache;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Transactional
@@ -46,7 +64,10 @@ public class AdminService {
                 .orElseThrow(() -> new EntityNotFoundException("Customer with this id " + personId + " can't be found"));
 
         owner.setRole(Role.ADMIN);
+        // токены с ролью USER больше не нужны: администратор входит заново
+        owner.setTokensValidAfter(LocalDateTime.now());
         ownerRepository.save(owner);
+        ownerStatusCache.invalidate(personId);
     }
 
     @Transactional(readOnly = true)
@@ -63,9 +84,14 @@ public class AdminService {
         Owner ownerToLock = ownerRepository.findById(customerId)
                 .orElseThrow(() -> new EntityNotFoundException("Customer with ID " + customerId + " wasn't found!"));
 
-        ownerToLock.setLocked(true);
-
-        ownerRepository.save(ownerToLock);
+        if (!ownerToLock.isLocked()) {
+            ownerToLock.setLocked(true);
+            // после разблокировки клиент входит заново: выданные до блокировки токены не оживают
+            ownerToLock.setTokensValidAfter(LocalDateTime.now());
+            ownerRepository.save(ownerToLock);
+            outboxService.ownerLockChanged(ownerToLock);
+            ownerStatusCache.invalidate(customerId);
+        }
     }
 
     @PreAuthorize("hasAuthority('ADMIN')")
@@ -76,10 +102,17 @@ public class AdminService {
         if (owner.isLocked()) {
             owner.setLocked(false);
             ownerRepository.save(owner);
+            outboxService.ownerLockChanged(owner);
+            ownerStatusCache.invalidate(ownerId);
         }
         // идемпотентно: если уже разблокирован — просто ничего не делаем
     }
 
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public void revokeCustomerTokens(Long ownerId) {
+        tokenRevocationService.revokeAll(ownerId);
+    }
+
     @Transactional
     @PreAuthorize("hasAuthority('ADMIN')")
     public OwnerResponseDTO updateCustomerDataByAdmin(Long ownerId, OwnerAdminUpdateDTO dto) {
@@ -111,27 +144,93 @@ public class AdminService {
     }
 
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
+    @RetryOnOptimisticLock
     public CardResponseDTO adminBlockCard(Long cardId) {
+        return blockCard(cardId);
+    }
+
+    /**
+     * Блокировка карты без проверки прав: общий путь для администратора и антифрода ({@link FraudRuleService}).
+     */
+    @Transactional
+    public CardResponseDTO blockCard(Long cardId) {
         Card card = cardRepository.findById(cardId)
                 .orElseThrow(() -> new EntityNotFoundException("Card not found"));
         if (card.getStatus() != CardStatus.BLOCKED) {
             card.setStatus(CardStatus.BLOCKED);
             card = cardRepository.save(card);
+            // событие несёт версию после изменения — UPDATE уходит сейчас, а не при коммите
+            cardRepository.flush();
+            outboxService.cardStatusChanged(card);
         }
         return cardMapper.toResponse(card);
     }
 
     @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
+    @RetryOnOptimisticLock
     public CardResponseDTO adminUnblockCard(Long cardId) {
         Card card = cardRepository.findById(cardId)
                 .orElseThrow(() -> new EntityNotFoundException("Card not found"));
         if (card.getStatus() == CardStatus.BLOCKED) {
             card.setStatus(CardStatus.ACTIVE);
             card = cardRepository.save(card);
+            cardRepository.flush();
+            outboxService.cardStatusChanged(card);
+        }
+        return cardMapper.toResponse(card);
+    }
+
+    /**
+     * Включает (slots > 0), перестраивает или выключает (0) полосатый баланс для горячей карты.
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
+    public CardResponseDTO adminSetBalanceSlots(Long cardId, int slots) {
+        if (slots < 0 || slots > StripedBalanceService.MAX_SLOTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "slots must be between 0 and " + StripedBalanceService.MAX_SLOTS);
         }
+        Card card = cardRepository.findByIdForUpdate(cardId)
+                .orElseThrow(() -> new EntityNotFoundException("Card not found"));
+        stripedBalanceService.restripe(card, slots);
         return cardMapper.toResponse(card);
     }
 
+    /**
+     * Собственные лимиты расходов карты. Без общей транзакции: ответ уже показывает новые лимиты.
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public CardResponseDTO adminSetCardLimits(Long cardId, SpendingLimitRequestDTO dto) {
+        Card card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new EntityNotFoundException("Card not found"));
+        spendingLimitService.setLimits(LimitScope.CARD, cardId, dto.getDailyLimit(), dto.getMonthlyLimit());
+        return cardMapper.toResponse(card);
+    }
+
+    /**
+     * Возвращает карте лимиты по умолчанию (app.cards.limits).
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public CardResponseDTO adminClearCardLimits(Long cardId) {
+        Card card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new EntityNotFoundException("Card not found"));
+        spendingLimitService.clearLimits(LimitScope.CARD, cardId);
+        return cardMapper.toResponse(card);
+    }
+
+    /**
+     * Лимиты на сумму расходов по всем картам владельца.
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public void adminSetOwnerLimits(Long ownerId, SpendingLimitRequestDTO dto) {
+        if (ownerRepository.findById(ownerId).isEmpty()) {
+            throw new EntityNotFoundException("Customer with this id " + ownerId + " can't be found");
+        }
+        spendingLimitService.setLimits(LimitScope.OWNER, ownerId, dto.getDailyLimit(), dto.getMonthlyLimit());
+    }
+
     @PreAuthorize("hasAuthority('ADMIN')")
     public Page<CardResponseDTO> findCards(CardAdminFilter filter, Pageable pageable) {
         Page<Card> page = cardRepository.findAll(CardSpecs.byFilter(filter), pageable);
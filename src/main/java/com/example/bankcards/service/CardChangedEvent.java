@@ -0,0 +1,20 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardUpdateDTO;
+import com.example.bankcards.entity.Card;
+
+/**
+ * Карта владельца изменилась в текущей транзакции. Публикуется {@link OutboxService} вместе с записью в outbox,
+ * доставляется в {@link CardStreamService} после коммита.
+ *
+ * @param source сама сущность: версию она получает только при flush, поэтому читаем её после коммита
+ */
+record CardChangedEvent(Long ownerId, CardUpdateDTO card, Card source) {
+
+    /**
+     * Закоммиченная версия карты. Все события одной транзакции получают одну версию — последнего её состояния.
+     */
+    Long committedVersion() {
+        return source.getVersion();
+    }
+}
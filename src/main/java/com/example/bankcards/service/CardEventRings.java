@@ -0,0 +1,222 @@
+package com.example.bankcards.service;
+
+/**
+ * Недавние списания по картам для скоростных правил антифрода: на карту — кольцо из {@code ringSize}
+ * последних событий (время, сумма).
+ * <p>
+ * Устроено как {@link SpendingCounters}: открытая адресация на параллельных примитивных массивах, кольца
+ * всех карт сегмента лежат подряд в двух плоских long[]. Оценка правил и запись события — одна операция
+ * под замком сегмента, без боксинга и без объектов на событие: в установившемся режиме (карта уже
+ * в таблице, таблица не растёт) аллокаций нет. Окна видят не больше {@code ringSize} последних событий.
+ * Карты без событий дольше самого длинного окна убирает {@link #purge(long)}.
+ */
+final class CardEventRings {
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    CardEventRings(int segmentCount, int ringSize) {
+        if (ringSize < 1) {
+            throw new IllegalArgumentException("ringSize must be positive");
+        }
+        int n = Integer.highestOneBit(Math.max(1, segmentCount - 1) << 1);
+        this.segments = new Segment[n];
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment(ringSize);
+        }
+        this.segmentMask = n - 1;
+    }
+
+    /**
+     * Считает окна правил по прошлым событиям карты, применяет правила и, если операция пропускается,
+     * записывает её в кольцо.
+     *
+     * @param cardAgeMillis возраст карты; отрицательный — неизвестен
+     * @return маска сработавших правил ({@link FraudRules#hits})
+     */
+    int evaluate(long cardId, long nowMillis, long amount, long balanceAfter, long cardAgeMillis, FraudRules rules) {
+        return segment(cardId).evaluate(cardId, nowMillis, amount, balanceAfter, cardAgeMillis, rules);
+    }
+
+    /**
+     * Убирает карты, чьё последнее событие не новее {@code cutoffMillis}.
+     *
+     * @return сколько карт осталось
+     */
+    int purge(long cutoffMillis) {
+        int remaining = 0;
+        for (Segment segment : segments) {
+            remaining += segment.purge(cutoffMillis);
+        }
+        return remaining;
+    }
+
+    private Segment segment(long key) {
+        return segments[(int) (mix(key) >>> 40) & segmentMask];
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private static final class Segment {
+        private static final long EMPTY = 0;   // id карт начинаются с 1
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final int ringSize;
+        private long[] keys;
+        /** Позиция следующей записи в кольце карты. */
+        private int[] heads;
+        private int[] counts;
+        private long[] times;
+        private long[] amounts;
+        private int size;
+
+        Segment(int ringSize) {
+            this.ringSize = ringSize;
+            allocate(INITIAL_CAPACITY);
+        }
+
+        synchronized int evaluate(long key, long now, long amount, long balanceAfter, long cardAgeMillis,
+                                  FraudRules rules) {
+            int i = slotFor(key);
+            int base = i * ringSize;
+            int count = counts[i];
+            int head = heads[i];
+            long horizon = rules.maxWindowMillis();
+
+            int countInWindow = 0;
+            long amountInWindow = 0;
+            int drainEvents = 0;
+            long drainSum = 0;
+            // от новых к старым: как только событие старше самого длинного окна, дальше смотреть незачем
+            for (int k = 1; k <= count; k++) {
+                int pos = head - k;
+                if (pos < 0) {
+                    pos += ringSize;
+                }
+                long age = now - times[base + pos];
+                if (age >= horizon) {
+                    break;
+                }
+                long a = amounts[base + pos];
+                if (age < rules.countWindowMillis) {
+                    countInWindow++;
+                }
+                if (age < rules.amountWindowMillis) {
+                    amountInWindow += a;
+                }
+                if (age < rules.drainWindowMillis) {
+                    drainEvents++;
+                    drainSum += a;
+                }
+            }
+
+            int hits = rules.hits(countInWindow, amountInWindow, drainEvents, drainSum, amount, balanceAfter, cardAgeMillis);
+            if (rules.decision(hits) == FraudDecision.ALLOW) {
+                times[base + head] = now;
+                amounts[base + head] = amount;
+                heads[i] = head + 1 == ringSize ? 0 : head + 1;
+                if (count < ringSize) {
+                    counts[i] = count + 1;
+                }
+            }
+            return hits;
+        }
+
+        synchronized int purge(long cutoff) {
+            long[] oldKeys = keys;
+            int[] oldHeads = heads;
+            int[] oldCounts = counts;
+            long[] oldTimes = times;
+            long[] oldAmounts = amounts;
+
+            int alive = 0;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != EMPTY && latest(oldHeads[j], oldCounts[j], j, oldTimes) > cutoff) {
+                    alive++;
+                }
+            }
+            if (alive == size) {
+                return size;
+            }
+            int capacity = INITIAL_CAPACITY;
+            while (alive * 4 > capacity * 3) {
+                capacity *= 2;
+            }
+            allocate(capacity);
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != EMPTY && latest(oldHeads[j], oldCounts[j], j, oldTimes) > cutoff) {
+                    copy(oldKeys[j], oldHeads[j], oldCounts[j], oldTimes, oldAmounts, j);
+                }
+            }
+            return size;
+        }
+
+        private long latest(int head, int count, int slot, long[] ringTimes) {
+            if (count == 0) {
+                return Long.MIN_VALUE;
+            }
+            int pos = head == 0 ? ringSize - 1 : head - 1;
+            return ringTimes[slot * ringSize + pos];
+        }
+
+        private int slotFor(long key) {
+            int mask = keys.length - 1;
+            for (int i = (int) mix(key) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return i;
+                }
+                if (keys[i] == EMPTY) {
+                    break;
+                }
+            }
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize();
+            }
+            return insert(key);
+        }
+
+        private int insert(long key) {
+            int mask = keys.length - 1;
+            int i = (int) mix(key) & mask;
+            while (keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            size++;
+            return i;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldHeads = heads;
+            int[] oldCounts = counts;
+            long[] oldTimes = times;
+            long[] oldAmounts = amounts;
+            allocate(oldKeys.length * 2);
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != EMPTY) {
+                    copy(oldKeys[j], oldHeads[j], oldCounts[j], oldTimes, oldAmounts, j);
+                }
+            }
+        }
+
+        private void copy(long key, int head, int count, long[] fromTimes, long[] fromAmounts, int fromSlot) {
+            int i = insert(key);
+            heads[i] = head;
+            counts[i] = count;
+            System.arraycopy(fromTimes, fromSlot * ringSize, times, i * ringSize, ringSize);
+            System.arraycopy(fromAmounts, fromSlot * ringSize, amounts, i * ringSize, ringSize);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            heads = new int[capacity];
+            counts = new int[capacity];
+            times = new long[capacity * ringSize];
+            amounts = new long[capacity * ringSize];
+            size = 0;
+        }
+    }
+}
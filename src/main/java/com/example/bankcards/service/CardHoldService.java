@@ -0,0 +1,225 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardHoldDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardHold;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.HoldStatus;
+import com.example.bankcards.entity.Money;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardHoldRepository;
+import com.example.bankcards.repository.CardRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Холды (авторизации): деньги резервируются на карте без движения и позже списываются (capture) или
+ * отпускаются (release). Учётный баланс карты меняется только при capture; доступный остаток —
+ * {@code balance - held_amount} — уменьшается сразу.
+ * <p>
+ * Горячий путь — условные UPDATE без SELECT ... FOR UPDATE: холд создаётся одним UPDATE карты, capture и
+ * release сначала «забирают» холд условным UPDATE его статуса, затем одним UPDATE правят карту.
+ * Просроченные холды снимает {@link #expireStale()} пачками, по одному UPDATE на пачку.
+ */
+@Service
+public class CardHoldService {
+    private final Logger logger = LoggerFactory.getLogger(CardHoldService.class);
+
+    private final CardRepository cardRepository;
+    private final CardHoldRepository holdRepository;
+    private final LedgerService ledgerService;
+    private final StripedBalanceService stripedBalanceService;
+    private final SpendingLimitService spendingLimitService;
+    private final CardMapper cardMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final Duration lockTimeout;
+    private final int sweepBatchSize;
+
+    public CardHoldService(CardRepository cardRepository,
+                           CardHoldRepository holdRepository,
+                           LedgerService ledgerService,
+                           StripedBalanceService stripedBalanceService,
+                           SpendingLimitService spendingLimitService,
+                           CardMapper cardMapper,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.cards.holds.default-ttl:P7D}") Duration defaultTtl,
+                           @Value("${app.cards.holds.max-ttl:P30D}") Duration maxTtl,
+                           @Value("${app.cards.lock-timeout:PT3S}") Duration lockTimeout,
+                           @Value("${app.cards.holds.sweep-batch-size:500}") int sweepBatchSize) {
+        this.cardRepository = cardRepository;
+        this.holdRepository = holdRepository;
+        this.ledgerService = ledgerService;
+        this.stripedBalanceService = stripedBalanceService;
+        this.spendingLimitService = spendingLimitService;
+        this.cardMapper = cardMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.lockTimeout = lockTimeout;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    /**
+     * Резервирует сумму на своей карте. Доступный остаток должен её покрывать.
+     *
+     * @param ttl срок жизни холда; null — app.cards.holds.default-ttl
+     */
+    @PreAuthorize("isAuthenticated()")
+    @Transactional
+    public CardHoldDTO hold(Long ownerId, Long cardId, BigDecimal amount, Duration ttl) {
+        CardService.requireValidAmount(amount);
+        Duration effectiveTtl = ttl != null ? ttl : defaultTtl;
+        if (effectiveTtl.isNegative() || effectiveTtl.isZero() || effectiveTtl.compareTo(maxTtl) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ttl must be positive and at most " + maxTtl);
+        }
+
+        if (cardRepository.holdIfActive(cardId, ownerId, amount) == 0) {
+            // неудачный путь, как у списания: полосатой карте нужно слить полосы под блокировкой
+            applyLockTimeout();
+            Card locked = cardRepository.findByIdAndOwnerIdForUpdate(cardId, ownerId).orElse(null);
+            if (locked == null) {
+                throw new EntityNotFoundException("Card not found");
+            }
+            if (locked.getStatus() == CardStatus.BLOCKED) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Card is blocked");
+            }
+            stripedBalanceService.consolidate(locked);
+            if (!locked.isStriped() || locked.getAvailableMoney().isLessThan(Money.of(amount, locked.getCurrency()))) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient funds");
+            }
+            locked.setHeldAmount(locked.getHeldAmount().add(amount));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        CardHold hold = holdRepository.save(new CardHold(cardId, ownerId, amount, now, now.plus(effectiveTtl)));
+        return toDto(hold, HoldStatus.ACTIVE, null, reload(cardId));
+    }
+
+    /**
+     * Списывает захолдированную сумму полностью. Проводка — обычное списание, в лимиты расходов она
+     * попадает в момент capture.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @Transactional
+    public CardHoldDTO capture(Long ownerId, Long cardId, Long holdId) {
+        CardHold hold = findHold(ownerId, cardId, holdId);
+        LocalDateTime now = LocalDateTime.now();
+        if (holdRepository.captureIfActive(holdId, cardId, ownerId, now) == 0) {
+            throw explainClosedHold(hold, now);
+        }
+        // откат транзакции вернёт холду статус ACTIVE
+        if (cardRepository.captureHeld(cardId, hold.getAmount()) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Card is blocked");
+        }
+        spendingLimitService.reserve(ownerId, cardId, Money.toMinorUnits(hold.getAmount()));
+        Card card = reload(cardId);
+        ledgerService.recordWithdrawal(card, hold.getAmount());
+        return toDto(hold, HoldStatus.CAPTURED, now, card);
+    }
+
+    /**
+     * Отпускает холд: сумма снова доступна, баланс не меняется. Разрешено и для заблокированной карты.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @Transactional
+    public CardHoldDTO release(Long ownerId, Long cardId, Long holdId) {
+        CardHold hold = findHold(ownerId, cardId, holdId);
+        LocalDateTime now = LocalDateTime.now();
+        if (holdRepository.releaseIfActive(holdId, cardId, ownerId, now) == 0) {
+            throw explainClosedHold(hold, null);
+        }
+        cardRepository.releaseHeld(cardId, hold.getAmount());
+        return toDto(hold, HoldStatus.RELEASED, now, reload(cardId));
+    }
+
+    /**
+     * Снимает просроченные холды. Каждая пачка — своя короткая транзакция из трёх запросов
+     * (выбрать и заблокировать, пометить EXPIRED, вернуть суммы картам), сколько бы холдов в ней ни было.
+     */
+    @Scheduled(fixedDelayString = "${app.cards.holds.sweep-interval:PT1M}",
+            initialDelayString = "${app.cards.holds.sweep-interval:PT1M}")
+    public void expireStale() {
+        int total = 0;
+        int expired;
+        do {
+            expired = transactionTemplate.execute(status -> expireBatch(LocalDateTime.now()));
+            total += expired;
+        } while (expired == sweepBatchSize);
+        if (total > 0) {
+            logger.info("Expired {} card holds", total);
+        }
+    }
+
+    private int expireBatch(LocalDateTime now) {
+        List<Long> ids = holdRepository.lockExpiredIds(now, sweepBatchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // холды заблокированы нами до коммита: capture/release их не заберут, суммы не вычтутся дважды
+        cardRepository.releaseHeldByHolds(ids);
+        holdRepository.markExpired(ids, now);
+        return ids.size();
+    }
+
+    private CardHold findHold(Long ownerId, Long cardId, Long holdId) {
+        return holdRepository.findByIdAndCardIdAndOwnerId(holdId, cardId, ownerId)
+                .orElseThrow(() -> new EntityNotFoundException("Hold not found"));
+    }
+
+    /**
+     * Условный UPDATE холда не сработал — причина по прочитанной до него строке.
+     *
+     * @param now момент capture; null — срок не проверялся (release)
+     */
+    private static ResponseStatusException explainClosedHold(CardHold hold, LocalDateTime now) {
+        if (hold.getStatus() != HoldStatus.ACTIVE) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, "Hold is " + hold.getStatus().name().toLowerCase());
+        }
+        if (now != null && !hold.getExpiresAt().isAfter(now)) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, "Hold has expired");
+        }
+        // холд закрыли параллельно между чтением и UPDATE
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Hold is no longer active");
+    }
+
+    private Card reload(Long cardId) {
+        return cardRepository.findByIdWithOwner(cardId)
+                .orElseThrow(() -> new EntityNotFoundException("Card not found"));
+    }
+
+    private CardHoldDTO toDto(CardHold hold, HoldStatus status, LocalDateTime closedAt, Card card) {
+        CardHoldDTO dto = new CardHoldDTO();
+        dto.setId(hold.getId());
+        dto.setCardId(hold.getCardId());
+        dto.setAmount(hold.getAmount());
+        dto.setStatus(status);
+        dto.setCreatedAt(hold.getCreatedAt());
+        dto.setExpiresAt(hold.getExpiresAt());
+        dto.setClosedAt(closedAt);
+        dto.setCard(cardMapper.toResponse(card));
+        return dto;
+    }
+
+    private void applyLockTimeout() {
+        if (!lockTimeout.isZero() && !lockTimeout.isNegative()) {
+            cardRepository.setLocalLockTimeout(lockTimeout.toMillis() + "ms");
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.BatchTransferItemResultDTO;
+import com.example.bankcards.dto.BatchTransferItemStatus;
+import com.example.bankcards.dto.BatchTransferMode;
+import com.example.bankcards.dto.BatchTransferResponseDTO;
 import com.example.bankcards.dto.CardCreateRequestDTO;
 import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.dto.CardTransactionPageDTO;
+import com.example.bankcards.dto.TransferRequestDTO;
 import com.example.bankcards.dto.TransferResponseDTO;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.Currency;
+import com.example.bankcards.entity.Money;
 import com.example.bankcards.entity.Owner;
 import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardBalanceWriter;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.OwnerRepository;
 import com.example.bankcards.util.PanGenerator;
@@ -22,30 +30,67 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 public class CardService {
+    public static final int MAX_HISTORY_PAGE = 200;
 
     private final CardRepository cardRepository;
+    private final CardBalanceWriter balanceWriter;
     private final OwnerRepository ownerRepository;
     private final CardMapper cardMapper;
+    private final LedgerService ledgerService;
+    private final StripedBalanceService stripedBalanceService;
+    private final SpendingLimitService spendingLimitService;
+    private final FxRateService fxRateService;
+    private final FraudRuleService fraudRuleService;
+    private final OutboxService outboxService;
     private final Currency defaultCurrency;
 
     private final String defaultBin;
+    private final Duration lockTimeout;
+    private final int maxBatchTransfers;
 
     public CardService(
             CardRepository cardRepository,
+            CardBalanceWriter balanceWriter,
             OwnerRepository ownerRepository,
             CardMapper cardMapper,
+            LedgerService ledgerService,
+            StripedBalanceService stripedBalanceService,
+            SpendingLimitService spendingLimitService,
+            FxRateService fxRateService,
+            FraudRuleService fraudRuleService,
+            OutboxService outboxService,
             @Value("${card.bin:400000}") String defaultBin,
-            @Value("${card.currency:USD}") String defaultCurrency) {
+            @Value("${card.currency:USD}") String defaultCurrency,
+            @Value("${app.cards.lock-timeout:PT3S}") Duration lockTimeout,
+            @Value("${app.cards.transfer-batch.max-size:50}") int maxBatchTransfers) {
         this.cardRepository = cardRepository;
+        this.balanceWriter = balanceWriter;
         this.ownerRepository = ownerRepository;
         this.cardMapper = cardMapper;
+        this.ledgerService = ledgerService;
+        this.stripedBalanceService = stripedBalanceService;
+        this.spendingLimitService = spendingLimitService;
+        this.fxRateService = fxRateService;
+        this.fraudRuleService = fraudRuleService;
+        this.outboxService = outboxService;
         this.defaultBin = defaultBin;
         this.defaultCurrency = Currency.valueOf(defaultCurrency); // если enum
+        this.lockTimeout = lockTimeout;
+        this.maxBatchTransfers = maxBatchTransfers;
     }
 
     @Transactional
@@ -77,6 +122,7 @@ public class CardService {
         card.setCurrency(defaultCurrency);
 
         Card saved = cardRepository.save(card);
+        outboxService.cardCreated(saved);
         return cardMapper.toResponse(saved);
     }
 
@@ -93,55 +139,291 @@ public class CardService {
         return cardMapper.toResponse(card);
     }
 
+    /**
+     * История движений по своей карте, keyset-пагинация по курсору {@code after}.
+     */
+    @PreAuthorize("isAuthenticated()")
+    public CardTransactionPageDTO getMyCardTransactions(Long ownerId, Long cardId, String after, int limit) {
+        validateHistoryLimit(limit);
+        if (!cardRepository.existsByIdAndOwnerId(cardId, ownerId)) {
+            throw new EntityNotFoundException("Card not found");
+        }
+        return ledgerService.history(cardId, after, limit);
+    }
+
+    /**
+     * История по любой карте для администратора. Карта может быть уже удалена — журнал её переживает.
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public CardTransactionPageDTO adminGetCardTransactions(Long cardId, String after, int limit) {
+        validateHistoryLimit(limit);
+        return ledgerService.history(cardId, after, limit);
+    }
+
     @PreAuthorize("isAuthenticated()")
     @Transactional
     public CardResponseDTO depositMyCard(Long ownerId, Long cardId, BigDecimal amount) {
-        if (amount == null || amount.signum() <= 0) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount must be positive");
-        }
-        Card card = cardRepository.findByIdAndOwnerId(cardId, ownerId)
-                .orElseThrow(() -> new EntityNotFoundException("Card not found"));
-        if (card.getStatus() == CardStatus.BLOCKED) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Card is blocked");
+        requireValidAmount(amount);
+        Card card = tryDeposit(ownerId, cardId, amount);
+        if (card == null) {
+            Card probe = cardRepository.findByIdAndOwnerId(cardId, ownerId).orElse(null);
+            // кэш полосатых карт устарел — одна повторная попытка по актуальному пути
+            if (probe != null && probe.getStatus() != CardStatus.BLOCKED && stripedBalanceService.refresh(probe)) {
+                card = tryDeposit(ownerId, cardId, amount);
+            }
+            if (card == null) {
+                throw explainRejectedUpdate(probe, false);
+            }
         }
-        card.setBalance(card.getBalance().add(amount));
-        Card saved = cardRepository.save(card);
-        return cardMapper.toResponse(saved);
+        ledgerService.recordDeposit(card, amount);
+        return cardMapper.toResponse(card);
     }
 
     @PreAuthorize("isAuthenticated()")
     @Transactional
     public CardResponseDTO withdrawMyCard(Long ownerId, Long cardId, BigDecimal amount) {
-        if (amount == null || amount.signum() <= 0) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount must be positive");
+        requireValidAmount(amount);
+        // успешный путь — один UPDATE ... RETURNING
+        Card card = balanceWriter.withdraw(cardId, ownerId, amount).orElse(null);
+        if (card == null) {
+            // неудачный путь: берём карту под блокировку — это и probe, и подготовка к слиянию полос
+            applyLockTimeout();
+            Card locked = cardRepository.findByIdAndOwnerIdForUpdate(cardId, ownerId).orElse(null);
+            if (locked == null || locked.getStatus() == CardStatus.BLOCKED || !locked.isStriped()) {
+                throw explainRejectedUpdate(locked, true);
+            }
+            stripedBalanceService.consolidate(locked);
+            Money debit = Money.of(amount, locked.getCurrency());
+            if (locked.getAvailableMoney().isLessThan(debit)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient funds");
+            }
+            locked.setBalanceMoney(locked.getBalanceMoney().minus(debit));
+            // версия после изменения нужна событиям журнала; UPDATE ушёл бы при коммите всё равно
+            cardRepository.flush();
+            card = locked;
         }
-        Card card = cardRepository.findByIdAndOwnerId(cardId, ownerId)
-                .orElseThrow(() -> new EntityNotFoundException("Card not found"));
-        if (card.getStatus() == CardStatus.BLOCKED) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Card is blocked");
-        }
-        if (card.getBalance().compareTo(amount) < 0) {
+        // после UPDATE: правила и лимит считаем только по своей существующей карте; отказ откатит списание
+        fraudRuleService.check(card, Money.toMinorUnits(amount), card.getBalanceMoney().getMinorUnits());
+        spendingLimitService.reserve(ownerId, cardId, Money.toMinorUnits(amount));
+        ledgerService.recordWithdrawal(card, amount);
+        return cardMapper.toResponse(card);
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @Transactional
+    public TransferResponseDTO transferBetweenMyCards(Long ownerId, Long fromId, Long toId, BigDecimal amount) {
+        return applyTransfer(ownerId, fromId, toId, amount);
+    }
+
+    /**
+     * Тело перевода без транзакции, прав и повторов: вызывается из {@link #transferBetweenMyCards}
+     * и воркерами {@link TransferPipeline} внутри уже открытой (групповой) транзакции.
+     * Отказы (404/409) бросаются до изменения карт, поэтому не портят соседние операции группы.
+     */
+    public TransferResponseDTO applyTransfer(Long ownerId, Long fromId, Long toId, BigDecimal amount) {
+        validateTransferRequest(fromId, toId, amount);
+
+        // Блокируем обе карты (SELECT ... FOR UPDATE) в порядке возрастания id — без lost update и дедлоков
+        applyLockTimeout();
+        Map<Long, Card> locked = cardRepository.lockPairForUpdate(ownerId, fromId, toId);
+        Card from = locked.get(fromId);
+        Card to = locked.get(toId);
+        validateTransferCards(from, to);
+
+        // Достаточно ли средств за вычетом холдов (у полосатой карты часть денег лежит в полосах — сначала сливаем)
+        stripedBalanceService.consolidate(from);
+        Money money = Money.of(amount, from.getCurrency());
+        if (from.getAvailableMoney().isLessThan(money)) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient funds");
         }
-        card.setBalance(card.getBalance().subtract(amount));
-        Card saved = cardRepository.save(card);
-        return cardMapper.toResponse(saved);
+        // курс — из снимка в памяти, без запроса к БД; нет курса — отказ до изменения карт
+        FxRateService.Conversion conversion = convert(money, to);
+        Money credited = conversion != null ? conversion.credited() : money;
+        fraudRuleService.check(from, money.getMinorUnits(), from.getAvailableMoney().minus(money).getMinorUnits());
+        // последняя проверка до изменения карт; резерв снимется при откате транзакции
+        spendingLimitService.reserve(ownerId, fromId, money.getMinorUnits());
+
+        // Денежные операции — на long минорных единицах, без промежуточных BigDecimal
+        from.setBalanceMoney(from.getBalanceMoney().minus(money));
+        to.setBalanceMoney(to.getBalanceMoney().plus(credited));
+
+        // Сохраняем обе — в одной транзакции. UPDATE уходит до записи проводок: их события несут версию карт
+        // после изменения. Лишнего обращения к БД нет — батч UPDATE ушёл бы при коммите
+        Card savedFrom = cardRepository.save(from);
+        Card savedTo   = cardRepository.save(to);
+        cardRepository.flush();
+        recordTransfer(savedFrom, savedTo, amount, conversion);
+
+        TransferResponseDTO resp = new TransferResponseDTO();
+        resp.setFrom(cardMapper.toResponse(savedFrom));
+        resp.setTo(cardMapper.toResponse(savedTo));
+        resp.setCreditedAmount(credited.toBigDecimal());
+        resp.setFxRate(conversion != null ? conversion.rate() : null);
+        return resp;
+    }
+
+    /**
+     * Заранее блокирует все карты групповой транзакции одним запросом в порядке id. Без этого каждый
+     * {@link #applyTransfer} берёт блокировки своей пары, и в одной транзакции они копятся не по порядку:
+     * держим карту 9, ждём карту 2 — дедлок с любым переводом, идущим по правилу возрастания id.
+     * Повторная блокировка пары внутри {@link #applyTransfer} уже не ждёт.
+     */
+    public void lockCardsForGroup(Collection<Long> cardIds) {
+        if (cardIds.isEmpty()) {
+            return;
+        }
+        applyLockTimeout();
+        cardRepository.findAllByIdInForUpdate(new TreeSet<>(cardIds));
     }
 
+    /**
+     * Пакет переводов в одной транзакции. Все карты пакета блокируются одним запросом в порядке id,
+     * переводы прогоняются по балансам в памяти с теми же правилами, что и одиночный перевод,
+     * и только потом применяются к сущностям — UPDATE карт и INSERT проводок уходят JDBC-батчами при flush.
+     */
     @PreAuthorize("isAuthenticated()")
     @Transactional
-    public TransferResponseDTO transferBetweenMyCards(Long ownerId, Long fromId, Long toId, BigDecimal amount) {
-        if (amount == null || amount.signum() <= 0) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount must be positive");
+    public BatchTransferResponseDTO transferBatchBetweenMyCards(Long ownerId, List<TransferRequestDTO> transfers,
+                                                               BatchTransferMode mode) {
+        if (transfers == null || transfers.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch must contain at least one transfer");
+        }
+        if (transfers.size() > maxBatchTransfers) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch must contain at most " + maxBatchTransfers + " transfers");
         }
+        BatchTransferMode effectiveMode = mode != null ? mode : BatchTransferMode.ALL_OR_NOTHING;
+
+        Set<Long> cardIds = new TreeSet<>();
+        Set<Long> sourceIds = new TreeSet<>();
+        for (TransferRequestDTO t : transfers) {
+            if (t.getFromCardId() != null) {
+                cardIds.add(t.getFromCardId());
+                sourceIds.add(t.getFromCardId());
+            }
+            if (t.getToCardId() != null) {
+                cardIds.add(t.getToCardId());
+            }
+        }
+
+        applyLockTimeout();
+        Map<Long, Card> cards = new LinkedHashMap<>();
+        for (Card card : cardRepository.findAllByOwnerIdAndIdInForUpdate(ownerId, cardIds)) {
+            cards.put(card.getId(), card);
+        }
+
+        Map<Long, Money> balances = new HashMap<>();
+        for (Card card : cards.values()) {
+            if (sourceIds.contains(card.getId())) {
+                stripedBalanceService.consolidate(card);
+            }
+            // прогон проверяет доступный остаток: захолдированные деньги не тратятся
+            balances.put(card.getId(), card.getAvailableMoney());
+        }
+
+        // Прогон в памяти: порядок элементов важен — перевод может тратить деньги, пришедшие предыдущим
+        List<BatchTransferItemResultDTO> results = new ArrayList<>(transfers.size());
+        List<SpendingLimitService.Reservation> reservations = new ArrayList<>(transfers.size());
+        // пересчёт фиксируется при прогоне: применяем по тому же курсу, даже если снимок успел смениться
+        FxRateService.Conversion[] conversions = new FxRateService.Conversion[transfers.size()];
+        int rejected = 0;
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequestDTO t = transfers.get(i);
+            BatchTransferItemResultDTO result = new BatchTransferItemResultDTO();
+            result.setIndex(i);
+            result.setFromCardId(t.getFromCardId());
+            result.setToCardId(t.getToCardId());
+            result.setAmount(t.getAmount());
+            try {
+                validateTransferRequest(t.getFromCardId(), t.getToCardId(), t.getAmount());
+                Card from = cards.get(t.getFromCardId());
+                validateTransferCards(from, cards.get(t.getToCardId()));
+                Money money = Money.of(t.getAmount(), from.getCurrency());
+                if (balances.get(t.getFromCardId()).isLessThan(money)) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient funds");
+                }
+                FxRateService.Conversion conversion = convert(money, cards.get(t.getToCardId()));
+                reservations.add(spendingLimitService.reserve(ownerId, from.getId(), money.getMinorUnits()));
+                conversions[i] = conversion;
+                balances.merge(t.getFromCardId(), money, Money::minus);
+                balances.merge(t.getToCardId(), conversion != null ? conversion.credited() : money, Money::plus);
+                result.setStatus(BatchTransferItemStatus.APPLIED);
+            } catch (ResponseStatusException e) {
+                rejectItem(result, e.getStatusCode().value(), e.getReason());
+                rejected++;
+            } catch (EntityNotFoundException e) {
+                rejectItem(result, HttpStatus.NOT_FOUND.value(), e.getMessage());
+                rejected++;
+            }
+            results.add(result);
+        }
+
+        boolean rollback = rejected > 0 && effectiveMode == BatchTransferMode.ALL_OR_NOTHING;
+        if (rollback) {
+            // транзакция коммитится без изменений — резервы лимитов возвращаем сами
+            reservations.forEach(spendingLimitService::release);
+        }
+        // сначала все изменения карт, затем один flush и проводки: события несут версию карт после пакета,
+        // а balanceAfter каждой ноги запоминаем по ходу применения
+        List<BatchTransferItemResultDTO> appliedItems = new ArrayList<>(results.size());
+        List<BigDecimal[]> balancesAfter = new ArrayList<>(results.size());
+        for (BatchTransferItemResultDTO result : results) {
+            if (result.getStatus() != BatchTransferItemStatus.APPLIED) {
+                continue;
+            }
+            if (rollback) {
+                result.setStatus(BatchTransferItemStatus.NOT_APPLIED);
+                continue;
+            }
+            Card from = cards.get(result.getFromCardId());
+            Card to = cards.get(result.getToCardId());
+            Money money = Money.of(result.getAmount(), from.getCurrency());
+            FxRateService.Conversion conversion = conversions[result.getIndex()];
+            from.setBalanceMoney(from.getBalanceMoney().minus(money));
+            to.setBalanceMoney(to.getBalanceMoney().plus(conversion != null ? conversion.credited() : money));
+            appliedItems.add(result);
+            balancesAfter.add(new BigDecimal[]{
+                    stripedBalanceService.totalBalance(from), stripedBalanceService.totalBalance(to)});
+        }
+        int applied = appliedItems.size();
+        if (applied > 0) {
+            cardRepository.flush();
+        }
+        for (int i = 0; i < applied; i++) {
+            BatchTransferItemResultDTO result = appliedItems.get(i);
+            ledgerService.recordTransfer(cards.get(result.getFromCardId()), cards.get(result.getToCardId()),
+                    result.getAmount(), conversions[result.getIndex()], balancesAfter.get(i)[0], balancesAfter.get(i)[1]);
+        }
+
+        BatchTransferResponseDTO resp = new BatchTransferResponseDTO();
+        resp.setMode(effectiveMode);
+        resp.setApplied(applied);
+        resp.setRejected(rejected);
+        resp.setResults(results);
+        resp.setCards(cards.values().stream().map(cardMapper::toResponse).toList());
+        return resp;
+    }
+
+    /**
+     * Проверки, не требующие чтения карт (одиночный, пакетный и асинхронный перевод).
+     */
+    public void validateTransferRequest(Long fromId, Long toId, BigDecimal amount) {
+        requireValidAmount(amount);
         if (Objects.equals(fromId, toId)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Source and destination cards must differ");
         }
+    }
 
-        Card from = cardRepository.findByIdAndOwnerId(fromId, ownerId)
-                .orElseThrow(() -> new EntityNotFoundException("Source card not found"));
-        Card to = cardRepository.findByIdAndOwnerId(toId, ownerId
-        ).orElseThrow(() -> new EntityNotFoundException("Destination card not found"));
+    /**
+     * Проверки заблокированных карт перевода; {@code null} — карта не найдена или чужая.
+     */
+    private void validateTransferCards(Card from, Card to) {
+        if (from == null) {
+            throw new EntityNotFoundException("Source card not found");
+        }
+        if (to == null) {
+            throw new EntityNotFoundException("Destination card not found");
+        }
 
         // Валидируем статусы
         if (from.getStatus() == CardStatus.BLOCKED) {
@@ -150,28 +432,89 @@ public class CardService {
         if (to.getStatus() == CardStatus.BLOCKED) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Destination card is blocked");
         }
+    }
+
+    /**
+     * Пересчёт в валюту получателя; null — валюты совпадают.
+     */
+    private FxRateService.Conversion convert(Money money, Card to) {
+        return money.getCurrency() == to.getCurrency() ? null : fxRateService.convert(money, to.getCurrency());
+    }
 
-        // (опционально) проверка валют
-        if (from.getCurrency() != to.getCurrency()) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Currency mismatch");
+    private void recordTransfer(Card from, Card to, BigDecimal amount, FxRateService.Conversion conversion) {
+        if (conversion == null) {
+            ledgerService.recordTransfer(from, to, amount);
+        } else {
+            ledgerService.recordTransfer(from, to, amount, conversion);
         }
+    }
 
-        // Достаточно ли средств
-        if (from.getBalance().compareTo(amount) < 0) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient funds");
+    /**
+     * Сумма операции: положительна и представима в минорных единицах (не больше двух знаков после запятой).
+     */
+    static void requireValidAmount(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount must be positive");
+        }
+        try {
+            Money.toMinorUnits(amount);
+        } catch (ArithmeticException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount must have at most " + Money.SCALE + " decimal places");
         }
+    }
 
-        // Денежные операции
-        from.setBalance(from.getBalance().subtract(amount));
-        to.setBalance(to.getBalance().add(amount));
+    private static void validateHistoryLimit(int limit) {
+        if (limit < 1 || limit > MAX_HISTORY_PAGE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_HISTORY_PAGE);
+        }
+    }
 
-        // Сохраняем обе — в одной транзакции
-        Card savedFrom = cardRepository.save(from);
-        Card savedTo   = cardRepository.save(to);
+    private static void rejectItem(BatchTransferItemResultDTO result, int status, String message) {
+        result.setStatus(BatchTransferItemStatus.REJECTED);
+        result.setErrorStatus(status);
+        result.setMessage(message);
+    }
 
-        TransferResponseDTO resp = new TransferResponseDTO();
-        resp.setFrom(cardMapper.toResponse(savedFrom));
-        resp.setTo(cardMapper.toResponse(savedTo));
-        return resp;
+    /**
+     * Пополнение полосы: строку полосы наш UPDATE держит до конца транзакции, карту перечитываем после него —
+     * с текущей версией для журнала.
+     */
+    private Card reloadUpdated(Long cardId) {
+        return cardRepository.findByIdWithOwner(cardId)
+                .orElseThrow(() -> new EntityNotFoundException("Card not found"));
+    }
+
+    /**
+     * @return карта после пополнения или null, если UPDATE не затронул строк
+     */
+    private Card tryDeposit(Long ownerId, Long cardId, BigDecimal amount) {
+        if (stripedBalanceService.isStriped(cardId)) {
+            return stripedBalanceService.depositToSlot(ownerId, cardId, amount) ? reloadUpdated(cardId) : null;
+        }
+        return balanceWriter.deposit(cardId, ownerId, amount).orElse(null);
+    }
+
+    /**
+     * Условный UPDATE не затронул строк — по карте из probe-запроса (только на ошибочном пути) выясняем причину.
+     */
+    private RuntimeException explainRejectedUpdate(Card card, boolean withdrawal) {
+        if (card == null) {
+            return new EntityNotFoundException("Card not found");
+        }
+        if (card.getStatus() == CardStatus.BLOCKED) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, "Card is blocked");
+        }
+        if (withdrawal) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient funds");
+        }
+        // карту успели разблокировать между UPDATE и probe — пусть клиент повторит
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Card state changed, please retry");
+    }
+
+    private void applyLockTimeout() {
+        // 0 — оставить таймаут БД по умолчанию (например, для H2 в тестах)
+        if (!lockTimeout.isZero() && !lockTimeout.isNegative()) {
+            cardRepository.setLocalLockTimeout(lockTimeout.toMillis() + "ms");
+        }
     }
 }
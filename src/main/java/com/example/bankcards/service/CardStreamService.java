@@ -0,0 +1,320 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardUpdateDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Живой поток изменений карт владельца (GET /cards/stream, Server-Sent Events) вместо опроса GET /cards.
+ * <p>
+ * Fan-out в памяти узла по id владельца: {@link CardChangedEvent} приходит после коммита изменения, получает
+ * очередной номер в канале владельца и раскладывается по очередям его подписчиков. Колбэки после коммита
+ * идут в порядке завершения запросов, а не коммитов, поэтому событие несёт версию карты: канал помнит последнюю
+ * разосланную версию каждой карты и более старое состояние не рассылает. Пополнения полосатой карты версию
+ * не меняют — события с равной версией проходят в порядке прихода. Ожидающее SSE-соединение
+ * потоков не держит (асинхронный запрос сервлета); запись в сокет идёт на виртуальном потоке подписчика, поэтому
+ * медленный клиент не тормозит ни коммит, ни соседей. Клиент, отставший больше чем на {@code max-pending}
+ * событий, отключается и переподключается с Last-Event-ID.
+ * <p>
+ * Канал хранит последние {@code replay-size} событий и живёт {@code retention} после ухода последнего подписчика:
+ * переподключение с Last-Event-ID досылает пропущенное. Если пропущенного в буфере уже нет или id выдан
+ * до перезапуска узла, клиент получает событие {@code reset} и перечитывает GET /cards.
+ * <p>
+ * Поток видит изменения, закоммиченные на этом узле; при нескольких узлах клиенты владельца должны приходить
+ * на один узел (или поток надо кормить из outbox).
+ */
+@Service
+public class CardStreamService {
+    static final String CARD_EVENT = "card";
+    static final String RESET_EVENT = "reset";
+
+    private final Logger logger = LoggerFactory.getLogger(CardStreamService.class);
+
+    private final ConcurrentHashMap<Long, OwnerChannel> channels = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    /** Эпоха номеров событий: id, выданные до перезапуска узла, не спутать с новыми. */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Duration timeout;
+    private final int replaySize;
+    private final int maxPending;
+    private final int maxPerOwner;
+    private final long retentionMillis;
+
+    public CardStreamService(ObjectProvider<MeterRegistry> meterRegistry,
+                             @Value("${app.cards.stream.timeout:PT30M}") Duration timeout,
+                             @Value("${app.cards.stream.replay-size:64}") int replaySize,
+                             @Value("${app.cards.stream.max-pending:256}") int maxPending,
+                             @Value("${app.cards.stream.max-per-owner:8}") int maxPerOwner,
+                             @Value("${app.cards.stream.retention:PT5M}") Duration retention) {
+        this.timeout = timeout;
+        this.replaySize = Math.max(1, replaySize);
+        this.maxPending = Math.max(1, maxPending);
+        this.maxPerOwner = Math.max(1, maxPerOwner);
+        this.retentionMillis = retention.toMillis();
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("cards.stream.subscribers", subscriberCount, AtomicInteger::get).register(registry);
+        }
+    }
+
+    /**
+     * Подписка владельца. Пропущенные после {@code lastEventId} события досылаются до живых, без пропусков
+     * и повторов на стыке.
+     *
+     * @param lastEventId заголовок Last-Event-ID переподключения; null — новая подписка
+     */
+    public SseEmitter subscribe(Long ownerId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter);
+        while (true) {
+            OwnerChannel channel = channels.computeIfAbsent(ownerId, id -> new OwnerChannel(replaySize));
+            synchronized (channel) {
+                // канал могли убрать по retention между computeIfAbsent и захватом монитора
+                if (channel.removed) {
+                    continue;
+                }
+                if (channel.subscribers.size() >= maxPerOwner) {
+                    throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many open card streams");
+                }
+                replay(channel, subscriber, lastEventId);
+                channel.subscribers.add(subscriber);
+                channel.idleSince = 0;
+            }
+            subscriberCount.incrementAndGet();
+            Runnable unsubscribe = () -> unsubscribe(ownerId, channel, subscriber);
+            emitter.onCompletion(unsubscribe);
+            emitter.onTimeout(unsubscribe);
+            emitter.onError(e -> unsubscribe.run());
+            return emitter;
+        }
+    }
+
+    /**
+     * После коммита: на потоке закоммитившего запроса, поэтому только раскладывает событие по очередям.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    void onCardChanged(CardChangedEvent event) {
+        OwnerChannel channel = channels.get(event.ownerId());
+        if (channel == null) {
+            // никто не подписан и не переподключается — буферизовать нечего
+            return;
+        }
+        CardUpdateDTO card = event.card();
+        card.setVersion(event.committedVersion());
+        synchronized (channel) {
+            if (!channel.isNewer(card)) {
+                logger.debug("Stale update of card {} (version {}) dropped", card.getCardId(), card.getVersion());
+                return;
+            }
+            long seq = channel.append(card);
+            SseEmitter.SseEventBuilder sse = cardEvent(seq, card);
+            for (Subscriber s : channel.subscribers) {
+                s.offer(sse);
+            }
+        }
+    }
+
+    /**
+     * Комментарий-heartbeat держит соединение через прокси и выявляет отвалившихся клиентов;
+     * заодно убираются каналы без подписчиков дольше retention.
+     */
+    @Scheduled(fixedDelayString = "${app.cards.stream.heartbeat:PT30S}",
+            initialDelayString = "${app.cards.stream.heartbeat:PT30S}")
+    public void heartbeat() {
+        long expiredBefore = System.currentTimeMillis() - retentionMillis;
+        SseEmitter.SseEventBuilder ping = SseEmitter.event().comment("ping");
+        channels.forEach((ownerId, channel) -> {
+            synchronized (channel) {
+                if (channel.subscribers.isEmpty() && channel.idleSince < expiredBefore) {
+                    channel.removed = true;
+                    channels.remove(ownerId, channel);
+                    return;
+                }
+                for (Subscriber s : channel.subscribers) {
+                    s.offer(ping);
+                }
+            }
+        });
+    }
+
+    int subscribers() {
+        return subscriberCount.get();
+    }
+
+    private void replay(OwnerChannel channel, Subscriber subscriber, String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return;
+        }
+        long after = parseSeq(lastEventId);
+        if (after < 0 || after > channel.lastSeq || after < channel.firstSeq() - 1) {
+            subscriber.offer(SseEmitter.event().name(RESET_EVENT).data("{}", MediaType.APPLICATION_JSON));
+            return;
+        }
+        for (long seq = after + 1; seq <= channel.lastSeq; seq++) {
+            subscriber.offer(cardEvent(seq, channel.get(seq)));
+        }
+    }
+
+    /**
+     * @return номер события этой эпохи или -1, если id чужой или испорчен
+     */
+    private long parseSeq(String eventId) {
+        int sep = eventId.indexOf('-');
+        if (sep < 0 || !eventId.regionMatches(0, epoch, 0, sep) || sep != epoch.length()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId, sep + 1, eventId.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private SseEmitter.SseEventBuilder cardEvent(long seq, CardUpdateDTO card) {
+        return SseEmitter.event().id(epoch + "-" + seq).name(CARD_EVENT).data(card, MediaType.APPLICATION_JSON);
+    }
+
+    private void unsubscribe(Long ownerId, OwnerChannel channel, Subscriber subscriber) {
+        synchronized (channel) {
+            if (!channel.subscribers.remove(subscriber)) {
+                return;
+            }
+            if (channel.subscribers.isEmpty()) {
+                channel.idleSince = System.currentTimeMillis();
+            }
+        }
+        subscriberCount.decrementAndGet();
+        logger.debug("Card stream of owner {} closed", ownerId);
+    }
+
+    /**
+     * Канал владельца: подписчики и кольцо последних событий. Меняется под монитором канала.
+     */
+    private static final class OwnerChannel {
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final CardUpdateDTO[] ring;
+        /** Последняя разосланная версия каждой карты владельца. */
+        private final Map<Long, Long> versions = new HashMap<>();
+        private long lastSeq;
+        /** Когда ушёл последний подписчик; 0 — подписчики есть. */
+        private long idleSince;
+        private boolean removed;
+
+        private OwnerChannel(int replaySize) {
+            this.ring = new CardUpdateDTO[replaySize];
+        }
+
+        /**
+         * Запоминает версию карты, если обновление не старше уже разосланного.
+         */
+        boolean isNewer(CardUpdateDTO card) {
+            if (card.getVersion() == null) {
+                return true;
+            }
+            Long seen = versions.get(card.getCardId());
+            if (seen != null && card.getVersion() < seen) {
+                return false;
+            }
+            versions.put(card.getCardId(), card.getVersion());
+            return true;
+        }
+
+        long append(CardUpdateDTO card) {
+            lastSeq++;
+            ring[(int) (lastSeq % ring.length)] = card;
+            return lastSeq;
+        }
+
+        /** Самый старый номер, ещё лежащий в кольце. */
+        long firstSeq() {
+            return Math.max(1, lastSeq - ring.length + 1);
+        }
+
+        CardUpdateDTO get(long seq) {
+            return ring[(int) (seq % ring.length)];
+        }
+    }
+
+    /**
+     * Очередь событий одного соединения. Пишет её не больше одного виртуального потока за раз — порядок
+     * событий сохраняется, а поток живёт только пока есть что писать.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final ConcurrentLinkedQueue<SseEmitter.SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (pending.incrementAndGet() > maxPending) {
+                // клиент не успевает: отключаем, догонит по Last-Event-ID или через reset
+                close();
+                return;
+            }
+            queue.add(event);
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while ((event = queue.poll()) != null) {
+                    pending.decrementAndGet();
+                    if (closed) {
+                        continue;
+                    }
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // клиент ушёл или соединение уже завершено — отписка придёт через onCompletion/onError
+                        close();
+                    }
+                }
+                draining.set(false);
+                // событие могло прийти между последним poll и сбросом флага
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void close() {
+            if (!closed) {
+                closed = true;
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardBalanceWriter;
+import com.example.bankcards.repository.CardRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit пополнений горячей карты (app.cards.deposit-coalescing.enabled).
+ * <p>
+ * Первый запрос к карте становится лидером пачки: ждёт до {@code window} или до {@code max-batch} попутчиков,
+ * затем одной транзакцией делает один UPDATE на сумму пачки и один батч проводок. Каждый участник получает
+ * свой ответ с балансом «после своего» пополнения. Ответ отдаётся только после коммита пачки.
+ * <p>
+ * Вне режима, внутри чужой транзакции (например, с Idempotency-Key, где ответ фиксируется атомарно с операцией)
+ * и для полосатых карт используется обычный {@link CardService#depositMyCard}.
+ */
+@Service
+public class DepositCoalescer {
+
+    private final CardService cardService;
+    private final CardRepository cardRepository;
+    private final CardBalanceWriter balanceWriter;
+    private final LedgerService ledgerService;
+    private final StripedBalanceService stripedBalanceService;
+    private final CardMapper cardMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatch;
+
+    private final ConcurrentHashMap<BatchKey, Batch> openBatches = new ConcurrentHashMap<>();
+
+    public DepositCoalescer(CardService cardService,
+                            CardRepository cardRepository,
+                            CardBalanceWriter balanceWriter,
+                            LedgerService ledgerService,
+                            StripedBalanceService stripedBalanceService,
+                            CardMapper cardMapper,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.cards.deposit-coalescing.enabled:false}") boolean enabled,
+                            @Value("${app.cards.deposit-coalescing.window:2ms}") Duration window,
+                            @Value("${app.cards.deposit-coalescing.max-batch:64}") int maxBatch) {
+        this.cardService = cardService;
+        this.cardRepository = cardRepository;
+        this.balanceWriter = balanceWriter;
+        this.ledgerService = ledgerService;
+        this.stripedBalanceService = stripedBalanceService;
+        this.cardMapper = cardMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    public CardResponseDTO deposit(Long ownerId, Long cardId, BigDecimal amount) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()
+                || stripedBalanceService.isStriped(cardId)) {
+            return cardService.depositMyCard(ownerId, cardId, amount);
+        }
+        CardService.requireValidAmount(amount);
+
+        BatchKey key = new BatchKey(ownerId, cardId);
+        Pending pending = new Pending(amount);
+        Batch batch = join(key, pending);
+        if (batch.leader == pending) {
+            lead(key, batch);
+        }
+
+        CardResponseDTO response;
+        try {
+            response = pending.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+        // null — пачку нельзя применить одним UPDATE (карту сделали полосатой и т.п.), идём по обычному пути
+        return response != null ? response : cardService.depositMyCard(ownerId, cardId, amount);
+    }
+
+    private Batch join(BatchKey key, Pending pending) {
+        while (true) {
+            Batch batch = openBatches.computeIfAbsent(key, k -> new Batch());
+            synchronized (batch) {
+                if (batch.closed) {
+                    // лидер уже забрал эту пачку — открываем следующую
+                    openBatches.remove(key, batch);
+                    continue;
+                }
+                batch.items.add(pending);
+                if (batch.leader == null) {
+                    batch.leader = pending;
+                }
+                if (batch.items.size() >= maxBatch) {
+                    close(key, batch);
+                    batch.notifyAll();
+                }
+                return batch;
+            }
+        }
+    }
+
+    private void lead(BatchKey key, Batch batch) {
+        synchronized (batch) {
+            long deadline = System.nanoTime() + windowNanos;
+            long remaining;
+            while (!batch.closed && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(batch, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            close(key, batch);
+        }
+
+        List<Pending> items = batch.items;
+        try {
+            List<CardResponseDTO> responses = transactionTemplate.execute(status -> apply(key, items));
+            for (int i = 0; i < items.size(); i++) {
+                items.get(i).result.complete(responses != null ? responses.get(i) : null);
+            }
+        } catch (RuntimeException e) {
+            items.forEach(p -> p.result.completeExceptionally(e));
+        } catch (Error e) {
+            items.forEach(p -> p.result.completeExceptionally(e));
+            throw e;
+        }
+    }
+
+    private void close(BatchKey key, Batch batch) {
+        batch.closed = true;
+        openBatches.remove(key, batch);
+    }
+
+    /**
+     * @return ответы в порядке участников или null, если пачку надо разобрать по одному
+     */
+    private List<CardResponseDTO> apply(BatchKey key, List<Pending> items) {
+        List<BigDecimal> amounts = new ArrayList<>(items.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (Pending p : items) {
+            amounts.add(p.amount);
+            total = total.add(p.amount);
+        }
+
+        Card card = balanceWriter.deposit(key.cardId(), key.ownerId(), total).orElse(null);
+        if (card == null) {
+            Card probe = cardRepository.findByIdAndOwnerId(key.cardId(), key.ownerId()).orElse(null);
+            if (probe == null) {
+                throw new EntityNotFoundException("Card not found");
+            }
+            if (probe.getStatus() == CardStatus.BLOCKED) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Card is blocked");
+            }
+            stripedBalanceService.refresh(probe);
+            return null;
+        }
+
+        List<BigDecimal> balances = ledgerService.recordDeposits(card, amounts);
+
+        // остаток и доступное — на момент своего пополнения; холды пачка не меняет
+        BigDecimal held = card.getHeldAmount();
+        List<CardResponseDTO> responses = new ArrayList<>(items.size());
+        for (BigDecimal balance : balances) {
+            CardResponseDTO dto = cardMapper.toResponse(card);
+            dto.setBalance(balance);
+            dto.setAvailableBalance(balance.subtract(held));
+            responses.add(dto);
+        }
+        return responses;
+    }
+
+    private record BatchKey(Long ownerId, Long cardId) {
+    }
+
+    private static final class Batch {
+        private final List<Pending> items = new ArrayList<>();
+        private Pending leader;
+        private boolean closed;
+    }
+
+    private static final class Pending {
+        private final BigDecimal amount;
+        private final CompletableFuture<CardResponseDTO> result = new CompletableFuture<>();
+
+        private Pending(BigDecimal amount) {
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.bankcards.service;
+
+/**
+ * Решение антифрода по операции, по возрастанию строгости.
+ */
+enum FraudDecision {
+    /** Операция проходит; срабатывание правила только считается в метриках. */
+    ALLOW,
+    /** Операция отклоняется, карта остаётся активной. */
+    BLOCK,
+    /** Операция отклоняется, карта блокируется до разбора — тем же путём, что и администратором. */
+    FLAG
+}
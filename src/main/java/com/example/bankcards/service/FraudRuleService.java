@@ -0,0 +1,198 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Скоростные правила антифрода на денежных путях (списание и перевод) — до коммита операции:
+ * <ul>
+ *     <li>velocity-count — не больше N списаний по карте за окно;</li>
+ *     <li>velocity-amount — не больше суммы по карте за окно;</li>
+ *     <li>new-card — крупное списание с карты моложе заданного возраста;</li>
+ *     <li>drain — серия списаний, оставившая на карте меньше заданной доли баланса начала окна.</li>
+ * </ul>
+ * Правила считаются по кольцам недавних событий в памяти ({@link CardEventRings}), без запросов к БД.
+ * У каждого правила своё действие: ALLOW (только метрика), BLOCK (операция отклоняется) или FLAG
+ * (операция отклоняется, карта блокируется до разбора через {@link AdminService#blockCard}).
+ * <p>
+ * В кольцо попадают пропущенные правилами операции; если операция потом откатилась по другой причине,
+ * событие остаётся в окне — правила от этого только строже. Кольца живут в памяти узла.
+ */
+@Service
+public class FraudRuleService {
+    private final Logger logger = LoggerFactory.getLogger(FraudRuleService.class);
+
+    private final AdminService adminService;
+    private final TransactionTemplate blockTx;
+    private final boolean enabled;
+    private final FraudRules rules;
+    private final CardEventRings rings;
+    /** Счётчики срабатываний по битам правил; null — метрик нет. */
+    private final Counter[] ruleHits;
+    private final Counter[] decisions;
+
+    public FraudRuleService(AdminService adminService,
+                            PlatformTransactionManager transactionManager,
+                            ObjectProvider<MeterRegistry> meterRegistry,
+                            @Value("${app.fraud.enabled:true}") boolean enabled,
+                            @Value("${app.fraud.ring-size:16}") int ringSize,
+                            @Value("${app.fraud.velocity-count.max:10}") int countMax,
+                            @Value("${app.fraud.velocity-count.window:PT1M}") Duration countWindow,
+                            @Value("${app.fraud.velocity-count.action:BLOCK}") String countAction,
+                            @Value("${app.fraud.velocity-amount.max:}") BigDecimal amountMax,
+                            @Value("${app.fraud.velocity-amount.window:PT1H}") Duration amountWindow,
+                            @Value("${app.fraud.velocity-amount.action:BLOCK}") String amountAction,
+                            @Value("${app.fraud.new-card.age:P1D}") Duration newCardAge,
+                            @Value("${app.fraud.new-card.amount:}") BigDecimal newCardAmount,
+                            @Value("${app.fraud.new-card.action:FLAG}") String newCardAction,
+                            @Value("${app.fraud.drain.min-events:3}") int drainMinEvents,
+                            @Value("${app.fraud.drain.window:PT10M}") Duration drainWindow,
+                            @Value("${app.fraud.drain.remaining-ratio:0.05}") BigDecimal drainRemainingRatio,
+                            @Value("${app.fraud.drain.action:FLAG}") String drainAction) {
+        if (countMax >= ringSize) {
+            throw new IllegalArgumentException("app.fraud.velocity-count.max must be below app.fraud.ring-size");
+        }
+        this.adminService = adminService;
+        // блокировка после завершения операции — своей транзакцией, когда строка карты уже отпущена
+        this.blockTx = new TransactionTemplate(transactionManager);
+        this.blockTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.rules = new FraudRules(countMax, countWindow.toMillis(),
+                toThreshold(amountMax), amountWindow.toMillis(),
+                newCardAge.toMillis(), toThreshold(newCardAmount),
+                drainMinEvents, drainWindow.toMillis(), drainRemainingRatio.movePointRight(3).intValue(),
+                FraudDecision.valueOf(countAction), FraudDecision.valueOf(amountAction),
+                FraudDecision.valueOf(newCardAction), FraudDecision.valueOf(drainAction));
+        this.rings = new CardEventRings(64, ringSize);
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            ruleHits = new Counter[FraudRules.NAMES.length];
+            for (int i = 0; i < ruleHits.length; i++) {
+                ruleHits[i] = Counter.builder("cards.fraud.rule_hits").tag("rule", FraudRules.NAMES[i]).register(registry);
+            }
+            decisions = new Counter[FraudDecision.values().length];
+            for (FraudDecision d : FraudDecision.values()) {
+                decisions[d.ordinal()] = Counter.builder("cards.fraud.decisions").tag("decision", d.name()).register(registry);
+            }
+        } else {
+            ruleHits = null;
+            decisions = null;
+        }
+    }
+
+    /**
+     * Проверяет списание с карты. Вызывается внутри транзакции операции до её коммита.
+     *
+     * @param amountMinor       сумма списания
+     * @param balanceAfterMinor остаток карты после списания
+     * @throws ResponseStatusException 409, если правила отклонили операцию
+     */
+    public void check(Card card, long amountMinor, long balanceAfterMinor) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int hits = rings.evaluate(card.getId(), now, amountMinor, balanceAfterMinor, cardAgeMillis(card, now), rules);
+        if (hits == 0) {
+            return;
+        }
+        FraudDecision decision = rules.decision(hits);
+        count(hits, decision);
+        switch (decision) {
+            case ALLOW -> logger.info("Card {}: fraud rules {} hit, allowed", card.getId(), names(hits));
+            case BLOCK -> {
+                logger.warn("Card {}: operation declined by fraud rules {}", card.getId(), names(hits));
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Operation declined by fraud rules");
+            }
+            case FLAG -> {
+                logger.warn("Card {}: flagged by fraud rules {}, blocking for review", card.getId(), names(hits));
+                blockAfterCompletion(card.getId());
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Card is blocked for fraud review");
+            }
+        }
+    }
+
+    /**
+     * Убирает из памяти карты без событий дольше самого длинного окна.
+     */
+    @Scheduled(fixedDelayString = "${app.fraud.purge-interval:PT10M}",
+            initialDelayString = "${app.fraud.purge-interval:PT10M}")
+    public void purge() {
+        int remaining = rings.purge(System.currentTimeMillis() - rules.maxWindowMillis());
+        logger.debug("Fraud event rings purged, {} cards tracked", remaining);
+    }
+
+    /**
+     * Блокирует карту, когда транзакция операции завершится (она откатится из-за нашего же 409, а в групповой
+     * транзакции конвейера — закоммитит соседей): до этого строка карты под нашей же блокировкой.
+     */
+    private void blockAfterCompletion(Long cardId) {
+        Runnable block = () -> {
+            try {
+                blockTx.executeWithoutResult(status -> adminService.blockCard(cardId));
+            } catch (RuntimeException e) {
+                logger.error("Card {}: failed to block after fraud flag", cardId, e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    block.run();
+                }
+            });
+        } else {
+            block.run();
+        }
+    }
+
+    private void count(int hits, FraudDecision decision) {
+        if (ruleHits == null) {
+            return;
+        }
+        for (int rule = 0; rule < ruleHits.length; rule++) {
+            if ((hits & (1 << rule)) != 0) {
+                ruleHits[rule].increment();
+            }
+        }
+        decisions[decision.ordinal()].increment();
+    }
+
+    private static long cardAgeMillis(Card card, long now) {
+        long createdAt = card.getCreatedAtMillis();
+        return createdAt < 0 ? -1 : now - createdAt;
+    }
+
+    private static String names(int hits) {
+        StringBuilder sb = new StringBuilder();
+        for (int rule = 0; rule < FraudRules.NAMES.length; rule++) {
+            if ((hits & (1 << rule)) != 0) {
+                sb.append(sb.isEmpty() ? "" : ",").append(FraudRules.NAMES[rule]);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static long toThreshold(BigDecimal amount) {
+        return amount == null ? FraudRules.OFF : Money.toMinorUnits(amount);
+    }
+}
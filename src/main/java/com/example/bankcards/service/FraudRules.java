@@ -0,0 +1,99 @@
+package com.example.bankcards.service;
+
+/**
+ * Неизменяемый набор скоростных правил антифрода. Вход — статистика окон из {@link CardEventRings},
+ * выход — битовая маска сработавших правил. Только арифметика на примитивах, без аллокаций.
+ * Суммы — в минорных единицах, время — в миллисекундах.
+ */
+final class FraudRules {
+    static final int VELOCITY_COUNT = 1;
+    static final int VELOCITY_AMOUNT = 1 << 1;
+    static final int NEW_CARD_LARGE = 1 << 2;
+    static final int RAPID_DRAIN = 1 << 3;
+
+    /** Имена правил в порядке битов — для метрик и логов. */
+    static final String[] NAMES = {"velocity_count", "velocity_amount", "new_card_large", "rapid_drain"};
+
+    /** Порог не задан — правило выключено. */
+    static final long OFF = Long.MAX_VALUE;
+
+    final int countMax;
+    final long countWindowMillis;
+    final long amountMax;
+    final long amountWindowMillis;
+    final long newCardAgeMillis;
+    final long newCardAmount;
+    final int drainMinEvents;
+    final long drainWindowMillis;
+    /** Остаток после операции не больше этой доли (в промилле) от баланса в начале окна. */
+    final int drainRemainingPermille;
+    private final FraudDecision[] actions;
+
+    FraudRules(int countMax, long countWindowMillis, long amountMax, long amountWindowMillis,
+               long newCardAgeMillis, long newCardAmount,
+               int drainMinEvents, long drainWindowMillis, int drainRemainingPermille,
+               FraudDecision countAction, FraudDecision amountAction, FraudDecision newCardAction,
+               FraudDecision drainAction) {
+        this.countMax = countMax;
+        this.countWindowMillis = countWindowMillis;
+        this.amountMax = amountMax;
+        this.amountWindowMillis = amountWindowMillis;
+        this.newCardAgeMillis = newCardAgeMillis;
+        this.newCardAmount = newCardAmount;
+        this.drainMinEvents = drainMinEvents;
+        this.drainWindowMillis = drainWindowMillis;
+        this.drainRemainingPermille = drainRemainingPermille;
+        this.actions = new FraudDecision[]{countAction, amountAction, newCardAction, drainAction};
+    }
+
+    /**
+     * Самое длинное окно: события старше него уже ни на что не влияют.
+     */
+    long maxWindowMillis() {
+        return Math.max(countWindowMillis, Math.max(amountWindowMillis, drainWindowMillis));
+    }
+
+    /**
+     * @param countInWindow   прошлых списаний в окне количества
+     * @param amountInWindow  их сумма в окне суммы
+     * @param drainEvents     прошлых списаний в окне опустошения
+     * @param drainSum        их сумма
+     * @param cardAgeMillis   возраст карты; отрицательный — неизвестен
+     * @return маска сработавших правил, 0 — ни одного
+     */
+    int hits(int countInWindow, long amountInWindow, int drainEvents, long drainSum,
+             long amount, long balanceAfter, long cardAgeMillis) {
+        int hits = 0;
+        if (countMax > 0 && countInWindow >= countMax) {
+            hits |= VELOCITY_COUNT;
+        }
+        // через вычитание: суммы неотрицательны, переполнения нет
+        if (amountMax != OFF && amount > amountMax - amountInWindow) {
+            hits |= VELOCITY_AMOUNT;
+        }
+        if (newCardAmount != OFF && cardAgeMillis >= 0 && cardAgeMillis < newCardAgeMillis && amount >= newCardAmount) {
+            hits |= NEW_CARD_LARGE;
+        }
+        if (drainMinEvents > 0 && drainEvents + 1 >= drainMinEvents) {
+            // баланс в начале окна — текущий остаток плюс всё, что списано за окно вместе с этой операцией
+            long start = balanceAfter + drainSum + amount;
+            if (balanceAfter * 1000 <= start * drainRemainingPermille) {
+                hits |= RAPID_DRAIN;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Самое строгое действие среди сработавших правил.
+     */
+    FraudDecision decision(int hits) {
+        FraudDecision decision = FraudDecision.ALLOW;
+        for (int rule = 0; rule < actions.length; rule++) {
+            if ((hits & (1 << rule)) != 0 && actions[rule].compareTo(decision) > 0) {
+                decision = actions[rule];
+            }
+        }
+        return decision;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.FxRateDTO;
+import com.example.bankcards.dto.FxRateRequestDTO;
+import com.example.bankcards.entity.Currency;
+import com.example.bankcards.entity.FxRate;
+import com.example.bankcards.entity.Money;
+import com.example.bankcards.repository.FxRateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Курсы валют для переводов между картами в разных валютах.
+ * <p>
+ * Путь перевода в БД за курсом не ходит: действующие и запланированные курсы лежат в неизменяемом
+ * {@link FxRateSnapshot}, который целиком подменяется через {@link AtomicReference} после загрузки курсов
+ * и раз в {@code refresh-interval} (курсы, загруженные на других узлах). Читатель видит либо старый,
+ * либо новый снимок целиком — без блокировок и без смеси курсов.
+ */
+@Service
+public class FxRateService implements SmartLifecycle {
+    private final Logger logger = LoggerFactory.getLogger(FxRateService.class);
+
+    private final FxRateRepository rateRepository;
+    private final TransactionTemplate readOnlyTemplate;
+    private final AtomicReference<FxRateSnapshot> snapshot = new AtomicReference<>(FxRateSnapshot.EMPTY);
+    private volatile boolean running;
+
+    public FxRateService(FxRateRepository rateRepository, PlatformTransactionManager transactionManager) {
+        this.rateRepository = rateRepository;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Пересчитывает сумму в валюту зачисления по курсу, действующему сейчас. Округление — банковское,
+     * до минорной единицы. Нет курса — 409.
+     */
+    public Conversion convert(Money amount, Currency target) {
+        FxRate rate = snapshot.get().find(amount.getCurrency(), target, LocalDateTime.now());
+        if (rate == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "No exchange rate for " + amount.getCurrency() + "/" + target);
+        }
+        BigDecimal credited = amount.toBigDecimal().multiply(rate.getRate())
+                .setScale(Money.SCALE, RoundingMode.HALF_EVEN);
+        if (credited.signum() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount is too small to convert");
+        }
+        return new Conversion(Money.of(credited, target), rate.getRate(), rate.getId());
+    }
+
+    /**
+     * Загружает курсы одной транзакцией. В снимок они попадают после коммита.
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @Transactional
+    public List<FxRateDTO> load(List<FxRateRequestDTO> rates) {
+        LocalDateTime now = LocalDateTime.now();
+        List<FxRate> rows = new ArrayList<>(rates.size());
+        for (FxRateRequestDTO dto : rates) {
+            if (dto.getBaseCurrency() == dto.getQuoteCurrency()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Base and quote currencies must differ: " + dto.getBaseCurrency());
+            }
+            if (dto.getRate() == null || dto.getRate().signum() <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rate must be positive");
+            }
+            if (dto.getRate().stripTrailingZeros().scale() > FxRate.SCALE) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Rate must have at most " + FxRate.SCALE + " decimal places");
+            }
+            LocalDateTime effectiveFrom = dto.getEffectiveFrom() != null ? dto.getEffectiveFrom() : now;
+            rows.add(new FxRate(dto.getBaseCurrency(), dto.getQuoteCurrency(),
+                    dto.getRate().setScale(FxRate.SCALE, RoundingMode.UNNECESSARY), effectiveFrom, now));
+        }
+        List<FxRate> saved = rateRepository.saveAll(rows);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh();
+                }
+            });
+        } else {
+            refresh();
+        }
+        return saved.stream().map(FxRateService::toDto).toList();
+    }
+
+    /**
+     * Курсы текущего снимка — то, по чему сейчас считаются переводы, включая запланированные.
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public List<FxRateDTO> currentRates() {
+        return snapshot.get().rates().stream().map(FxRateService::toDto).toList();
+    }
+
+    /**
+     * Перечитывает курсы и подменяет снимок. Ошибка чтения оставляет прежний снимок.
+     * Синхронизирован, чтобы медленное чтение не подменило снимок более старым после быстрого.
+     */
+    @Scheduled(fixedDelayString = "${app.cards.fx.refresh-interval:PT1M}",
+            initialDelayString = "${app.cards.fx.refresh-interval:PT1M}")
+    public synchronized void refresh() {
+        try {
+            List<FxRate> rates = readOnlyTemplate.execute(status ->
+                    rateRepository.findCurrentAndFuture(LocalDateTime.now()));
+            snapshot.set(new FxRateSnapshot(rates));
+            logger.debug("FX snapshot refreshed: {} rates", rates.size());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh FX rates, keeping {} cached rates", snapshot.get().size(), e);
+        }
+    }
+
+    @Override
+    public void start() {
+        refresh();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Раньше веб-сервера: первые переводы уже видят курсы.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private static FxRateDTO toDto(FxRate rate) {
+        return new FxRateDTO(rate.getId(), rate.getBaseCurrency(), rate.getQuoteCurrency(), rate.getRate(),
+                rate.getEffectiveFrom());
+    }
+
+    /**
+     * Пересчёт суммы перевода: зачисляемая сумма и применённый курс (для журнала).
+     */
+    public record Conversion(Money credited, BigDecimal rate, Long rateId) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Currency;
+import com.example.bankcards.entity.FxRate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Неизменяемый снимок курсов: по каждой паре — курсы по возрастанию начала действия.
+ * Поиск курса — индекс пары и короткий проход с конца, без блокировок и без БД.
+ * Будущие курсы лежат в снимке заранее и вступают в силу без перечитывания.
+ */
+final class FxRateSnapshot {
+    static final FxRateSnapshot EMPTY = new FxRateSnapshot(List.of());
+
+    private static final int CURRENCIES = Currency.values().length;
+    private static final FxRate[] NONE = new FxRate[0];
+
+    private final FxRate[][] byPair;
+    private final int size;
+
+    /**
+     * @param rates курсы по возрастанию (effectiveFrom, id): при равном начале действует загруженный позже
+     */
+    FxRateSnapshot(List<FxRate> rates) {
+        List<List<FxRate>> pairs = new ArrayList<>(CURRENCIES * CURRENCIES);
+        for (int i = 0; i < CURRENCIES * CURRENCIES; i++) {
+            pairs.add(new ArrayList<>());
+        }
+        for (FxRate rate : rates) {
+            pairs.get(pair(rate.getBaseCurrency(), rate.getQuoteCurrency())).add(rate);
+        }
+        this.byPair = new FxRate[pairs.size()][];
+        for (int i = 0; i < byPair.length; i++) {
+            byPair[i] = pairs.get(i).isEmpty() ? NONE : pairs.get(i).toArray(NONE);
+        }
+        this.size = rates.size();
+    }
+
+    /**
+     * Курс пары, действующий в момент {@code at}; null — курса нет.
+     */
+    FxRate find(Currency base, Currency quote, LocalDateTime at) {
+        FxRate[] rates = byPair[pair(base, quote)];
+        for (int i = rates.length - 1; i >= 0; i--) {
+            if (!rates[i].getEffectiveFrom().isAfter(at)) {
+                return rates[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Все курсы снимка: действующие и запланированные.
+     */
+    List<FxRate> rates() {
+        List<FxRate> all = new ArrayList<>(size);
+        for (FxRate[] rates : byPair) {
+            all.addAll(List.of(rates));
+        }
+        return all;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static int pair(Currency base, Currency quote) {
+        return base.ordinal() * CURRENCIES + quote.ordinal();
+    }
+}
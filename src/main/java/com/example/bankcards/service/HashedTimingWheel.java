@@ -0,0 +1,109 @@
+package com.example.bankcards.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Хешированное колесо таймеров (Varghese &amp; Lauck): кольцо из {@code wheelSize} корзин по {@code tickMillis}.
+ * Постановка и срабатывание — O(1) на запись независимо от числа таймеров: запись кладётся в корзину
+ * {@code tick & mask}, а на каждом шаге просматривается только текущая корзина. Срок дальше одного оборота
+ * хранится как число оставшихся оборотов.
+ * <p>
+ * Время передаётся явно — колесо не читает часы и не владеет потоками. Срабатывание не раньше срока
+ * и не позже чем через один тик после него.
+ */
+final class HashedTimingWheel {
+
+    @FunctionalInterface
+    interface ExpiryHandler {
+        void expired(long id, long partitionKey);
+    }
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int mask;
+    private final List<List<Entry>> buckets;
+    /** Следующий необработанный тик. */
+    private long currentTick;
+    private int size;
+
+    HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        int n = Integer.highestOneBit(Math.max(1, wheelSize - 1) << 1);
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.mask = n - 1;
+        this.buckets = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Ставит таймер. Просроченный срок срабатывает на ближайшем тике.
+     */
+    synchronized void schedule(long id, long partitionKey, long deadlineMillis) {
+        long tick = Math.max(currentTick, Math.ceilDiv(deadlineMillis - startMillis, tickMillis));
+        long rounds = (tick - currentTick) / buckets.size();
+        buckets.get((int) (tick & mask)).add(new Entry(id, partitionKey, rounds));
+        size++;
+    }
+
+    /**
+     * Проворачивает колесо до {@code nowMillis} включительно и отдаёт сработавшие таймеры.
+     * Обработчик вызывается под монитором колеса — он должен только передать запись дальше.
+     *
+     * @return число сработавших таймеров
+     */
+    synchronized int advance(long nowMillis, ExpiryHandler handler) {
+        long target = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        int fired = 0;
+        for (; currentTick <= target; currentTick++) {
+            List<Entry> bucket = buckets.get((int) (currentTick & mask));
+            Iterator<Entry> it = bucket.iterator();
+            while (it.hasNext()) {
+                Entry e = it.next();
+                if (e.rounds <= 0) {
+                    it.remove();
+                    size--;
+                    fired++;
+                    handler.expired(e.id, e.partitionKey);
+                } else {
+                    e.rounds--;
+                }
+            }
+            if (size == 0) {
+                // пустое колесо догоняет часы сразу, без прохода по оставшимся корзинам
+                currentTick = target + 1;
+                break;
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * Длительность одного оборота. Окно загрузки не длиннее оборота — записи ложатся без лишних кругов.
+     */
+    long spanMillis() {
+        return tickMillis * buckets.size();
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final long partitionKey;
+        private long rounds;
+
+        private Entry(long id, long partitionKey, long rounds) {
+            this.id = id;
+            this.partitionKey = partitionKey;
+            this.rounds = rounds;
+        }
+    }
+}
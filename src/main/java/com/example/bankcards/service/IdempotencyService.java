@@ -0,0 +1,230 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.IdempotencyRecord;
+import com.example.bankcards.entity.IdempotencyStatus;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Идемпотентность денежных операций по заголовку Idempotency-Key.
+ * <p>
+ * Два уровня хранения: ограниченный LRU в памяти для «горячего» окна повторов и таблица idempotency_record
+ * (переживает рестарт и видна всем узлам). Повтор завершённого запроса отдаёт сохранённый ответ, не трогая карты;
+ * повтор ещё выполняющегося запроса на этом узле ждёт исходный, а не выполняется второй раз.
+ */
+@Service
+public class IdempotencyService {
+    public static final int MAX_KEY_LENGTH = 64;
+
+    private final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+
+    private final Map<String, CachedResponse> completed;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${app.idempotency.in-progress-timeout:PT30S}") Duration inProgressTimeout) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.inProgressTimeout = inProgressTimeout;
+        this.completed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Выполняет {@code action} не более одного раза для пары (владелец, ключ).
+     *
+     * @param fingerprint операция и её параметры; тот же ключ с другим запросом — 422
+     */
+    public <T> T execute(Long ownerId, String key, String fingerprint, Class<T> responseType, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be 1.." + MAX_KEY_LENGTH + " characters");
+        }
+        String cacheKey = ownerId + ":" + key;
+
+        CachedResponse cached = completed.get(cacheKey);
+        if (cached != null && cached.expiresAt().isAfter(LocalDateTime.now())) {
+            return replay(cached, fingerprint, responseType);
+        }
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> original = inFlight.putIfAbsent(cacheKey, mine);
+        if (original != null) {
+            return awaitOriginal(original, cacheKey, fingerprint, responseType);
+        }
+        try {
+            T result = executeOnce(ownerId, key, cacheKey, fingerprint, responseType, action);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    private <T> T executeOnce(Long ownerId, String key, String cacheKey, String fingerprint,
+                              Class<T> responseType, Supplier<T> action) {
+        IdempotencyRecord stored = recordRepository.findByOwnerIdAndIdempotencyKey(ownerId, key).orElse(null);
+        if (stored != null) {
+            if (stored.getStatus() == IdempotencyStatus.COMPLETED) {
+                CachedResponse response = new CachedResponse(stored.getRequestFingerprint(),
+                        deserialize(stored.getResponseBody(), responseType), stored.getExpiresAt());
+                completed.put(cacheKey, response);
+                return replay(response, fingerprint, responseType);
+            }
+            // ключ держит другой узел (или упавший — такую строку уберёт purge по in-progress-timeout)
+            throw inProgressConflict();
+        }
+
+        // INSERT IN_PROGRESS в своей транзакции: уникальный ключ разводит гонку между узлами
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord claim;
+        try {
+            claim = recordRepository.saveAndFlush(
+                    new IdempotencyRecord(ownerId, key, fingerprint, now, now.plus(ttl)));
+        } catch (DataIntegrityViolationException e) {
+            throw inProgressConflict();
+        }
+
+        T result;
+        try {
+            // ответ фиксируется в той же транзакции, что и движение денег: после коммита повтор не выполнится
+            result = transactionTemplate.execute(status -> {
+                T r = action.get();
+                claim.complete(serialize(r));
+                recordRepository.save(claim);
+                return r;
+            });
+        } catch (RuntimeException e) {
+            // операция не прошла — освобождаем ключ, клиент может повторить
+            releaseClaim(claim);
+            throw e;
+        }
+        completed.put(cacheKey, new CachedResponse(fingerprint, result, claim.getExpiresAt()));
+        return result;
+    }
+
+    private <T> T awaitOriginal(CompletableFuture<Object> original, String cacheKey,
+                                String fingerprint, Class<T> responseType) {
+        try {
+            original.get(inProgressTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgressConflict();
+        } catch (TimeoutException e) {
+            throw inProgressConflict();
+        } catch (ExecutionException e) {
+            // исходный запрос завершился ошибкой — повтор получает ту же ошибку
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        CachedResponse response = completed.get(cacheKey);
+        if (response == null) {
+            // вытеснен из LRU за время ожидания — повторяем через таблицу
+            throw inProgressConflict();
+        }
+        return replay(response, fingerprint, responseType);
+    }
+
+    private <T> T replay(CachedResponse response, String fingerprint, Class<T> responseType) {
+        if (!response.fingerprint().equals(fingerprint)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different request");
+        }
+        return responseType.cast(response.body());
+    }
+
+    private void releaseClaim(IdempotencyRecord claim) {
+        try {
+            recordRepository.deleteById(claim.getId());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to release idempotency key {}, it will expire by timeout", claim.getIdempotencyKey(), e);
+        }
+    }
+
+    /**
+     * Удаляет истёкшие ответы и брошенные IN_PROGRESS-записи одним DELETE.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval:PT10M}",
+            initialDelayString = "${app.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int removed = recordRepository.deleteExpired(now, now.minus(inProgressTimeout));
+        synchronized (completed) {
+            completed.values().removeIf(r -> !r.expiresAt().isAfter(now));
+        }
+        if (removed > 0) {
+            logger.info("Purged {} idempotency records", removed);
+        }
+    }
+
+    private static ResponseStatusException inProgressConflict() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "Request with this Idempotency-Key is still in progress, please retry");
+    }
+
+    private String serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize idempotent response", e);
+        }
+    }
+
+    private <T> T deserialize(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot deserialize idempotent response", e);
+        }
+    }
+
+    private record CachedResponse(String fingerprint, Object body, LocalDateTime expiresAt) {
+    }
+}
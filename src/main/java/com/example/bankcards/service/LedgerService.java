@@ -0,0 +1,329 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardTransactionDTO;
+import com.example.bankcards.dto.CardTransactionPageDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardBalanceSnapshot;
+import com.example.bankcards.entity.CardLedgerEntry;
+import com.example.bankcards.entity.JobLock;
+import com.example.bankcards.entity.LedgerEntryType;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
+import com.example.bankcards.repository.CardBalanceSnapshotRepository;
+import com.example.bankcards.repository.CardLedgerEntryRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.JobLockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Журнал движений по картам (append-only) и периодические снимки остатков.
+ * Проводки пишутся в транзакции вызывающего метода CardService и уходят одним JDBC-батчем при flush;
+ * на каждую проводку в той же транзакции пишется событие CARD_BALANCE_CHANGED в outbox ({@link OutboxService}).
+ * <p>
+ * Граница снимка — версия карты, а не время и не id: id берутся из пула и по коммитам не упорядочены.
+ * Проводка несёт версию карты после изменения, записанную под блокировкой строки карты, которую транзакция
+ * и так держит (условный UPDATE или FOR UPDATE). Версия карты в базе видна только после коммита, а с ней —
+ * все проводки с версией не выше, поэтому снимок берёт проводки до версии карты, прочитанной тем же запросом;
+ * проводки незакоммиченной транзакции несут версию выше и попадут в следующий снимок.
+ * Пополнения полосатой карты строку карты не меняют и пишут её текущую версию — снимок такой карты
+ * делается под блокировкой карты и её полос и закрывает версию ({@link CardRepository#incrementVersions}).
+ */
+@Service
+public class LedgerService {
+    private static final int SNAPSHOT_CHUNK = 1000;
+    static final String SNAPSHOT_JOB = "ledger-snapshot";
+
+    private final Logger logger = LoggerFactory.getLogger(LedgerService.class);
+
+    private final CardLedgerEntryRepository ledgerRepository;
+    private final CardBalanceSnapshotRepository snapshotRepository;
+    private final CardRepository cardRepository;
+    private final CardBalanceSlotRepository slotRepository;
+    private final JobLockRepository jobLockRepository;
+    private final StripedBalanceService stripedBalanceService;
+    private final OutboxService outboxService;
+    private final TransactionTemplate snapshotTx;
+    private final TransactionTemplate chunkTx;
+
+    public LedgerService(CardLedgerEntryRepository ledgerRepository,
+                         CardBalanceSnapshotRepository snapshotRepository,
+                         CardRepository cardRepository,
+                         CardBalanceSlotRepository slotRepository,
+                         JobLockRepository jobLockRepository,
+                         StripedBalanceService stripedBalanceService,
+                         OutboxService outboxService,
+                         PlatformTransactionManager transactionManager) {
+        this.ledgerRepository = ledgerRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.cardRepository = cardRepository;
+        this.slotRepository = slotRepository;
+        this.jobLockRepository = jobLockRepository;
+        this.stripedBalanceService = stripedBalanceService;
+        this.outboxService = outboxService;
+        this.snapshotTx = new TransactionTemplate(transactionManager);
+        this.chunkTx = new TransactionTemplate(transactionManager);
+        this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @param card карта уже с новым балансом и версией
+     */
+    public void recordDeposit(Card card, BigDecimal amount) {
+        append(card, List.of(entry(card, UUID.randomUUID(), LedgerEntryType.DEPOSIT, amount, null)));
+    }
+
+    /**
+     * Пачка пополнений одной карты, применённая одним UPDATE ({@link DepositCoalescer}): проводка на каждое
+     * пополнение, balanceAfter — нарастающим итогом, как если бы они шли по одному.
+     *
+     * @param card карта уже с итоговым балансом и версией
+     * @return остаток после каждого пополнения, в порядке {@code amounts}
+     */
+    public List<BigDecimal> recordDeposits(Card card, List<BigDecimal> amounts) {
+        BigDecimal total = amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal running = stripedBalanceService.totalBalance(card).subtract(total);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<CardLedgerEntry> entries = new ArrayList<>(amounts.size());
+        List<BigDecimal> balances = new ArrayList<>(amounts.size());
+        for (BigDecimal amount : amounts) {
+            running = running.add(amount);
+            entries.add(new CardLedgerEntry(card.getId(), card.getVersion(), UUID.randomUUID(),
+                    LedgerEntryType.DEPOSIT, amount, running, null, now));
+            balances.add(running);
+        }
+        append(card, entries);
+        return balances;
+    }
+
+    public void recordWithdrawal(Card card, BigDecimal amount) {
+        append(card, List.of(entry(card, UUID.randomUUID(), LedgerEntryType.WITHDRAWAL, amount.negate(), null)));
+    }
+
+    /**
+     * Обе ноги перевода — под одним operationId, сумма проводок равна нулю.
+     */
+    public void recordTransfer(Card from, Card to, BigDecimal amount) {
+        recordTransfer(from, to, amount, null,
+                stripedBalanceService.totalBalance(from), stripedBalanceService.totalBalance(to));
+    }
+
+    /**
+     * Перевод между валютами: списание в валюте источника, зачисление в валюте получателя,
+     * на обеих ногах — применённый курс.
+     */
+    public void recordTransfer(Card from, Card to, BigDecimal amount, FxRateService.Conversion conversion) {
+        recordTransfer(from, to, amount, conversion,
+                stripedBalanceService.totalBalance(from), stripedBalanceService.totalBalance(to));
+    }
+
+    /**
+     * Перевод из пакета, где карты менялись несколькими переводами: остатки после ног посчитаны вызывающим
+     * в момент применения, карты уже с итоговой версией.
+     *
+     * @param conversion null — перевод в одной валюте
+     */
+    public void recordTransfer(Card from, Card to, BigDecimal amount, FxRateService.Conversion conversion,
+                               BigDecimal fromBalanceAfter, BigDecimal toBalanceAfter) {
+        UUID operationId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal rate = conversion != null ? conversion.rate() : null;
+        Long rateId = conversion != null ? conversion.rateId() : null;
+        BigDecimal credited = conversion != null ? conversion.credited().toBigDecimal() : amount;
+        append(from, List.of(new CardLedgerEntry(from.getId(), from.getVersion(), operationId,
+                LedgerEntryType.TRANSFER_OUT, amount.negate(), fromBalanceAfter, to.getId(), now, rate, rateId)));
+        append(to, List.of(new CardLedgerEntry(to.getId(), to.getVersion(), operationId,
+                LedgerEntryType.TRANSFER_IN, credited, toBalanceAfter, from.getId(), now, rate, rateId)));
+    }
+
+    /**
+     * Остаток по журналу на момент {@code at}: последний снимок не позже {@code at} плюс проводки с версией
+     * карты после него, созданные не позже {@code at}. Проводка, закоммиченная после снимка, в него не вошла,
+     * но её версия выше границы — она учтётся здесь, даже если создана раньше asOf снимка.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal balanceAsOf(Long cardId, LocalDateTime at) {
+        return snapshotRepository.findFirstByCardIdAndAsOfLessThanEqualOrderByCardVersionDesc(cardId, at)
+                .map(s -> s.getBalance().add(nullToZero(ledgerRepository.sumAmountAfter(cardId, s.getCardVersion(), at))))
+                .orElseGet(() -> nullToZero(ledgerRepository.sumAmountAfter(cardId, -1, at)));
+    }
+
+    /**
+     * Страница истории карты, новые сверху. Берём limit + 1 строку: лишняя говорит, что есть следующая страница.
+     *
+     * @param after курсор из {@link CardTransactionPageDTO#getNextCursor()} или null для первой страницы
+     */
+    @Transactional(readOnly = true)
+    public CardTransactionPageDTO history(Long cardId, String after, int limit) {
+        List<CardLedgerEntry> rows;
+        if (after == null || after.isBlank()) {
+            rows = ledgerRepository.findHistory(cardId, Limit.of(limit + 1));
+        } else {
+            Cursor cursor = Cursor.decode(after);
+            rows = ledgerRepository.findHistoryAfter(cardId, cursor.createdAt(), cursor.id(), Limit.of(limit + 1));
+        }
+
+        boolean hasNext = rows.size() > limit;
+        List<CardLedgerEntry> page = hasNext ? rows.subList(0, limit) : rows;
+        List<CardTransactionDTO> items = new ArrayList<>(page.size());
+        page.forEach(e -> items.add(toDto(e)));
+
+        String nextCursor = null;
+        if (hasNext) {
+            CardLedgerEntry last = page.get(page.size() - 1);
+            nextCursor = new Cursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CardTransactionPageDTO(items, nextCursor);
+    }
+
+    /**
+     * Снимки карт с новыми проводками, до текущей версии каждой карты. Одновременно работает один узел:
+     * он держит строку задачи в job_lock до конца транзакции, остальные её пропускают.
+     * <p>
+     * Карты ищутся по id проводок после наибольшего учтённого. Id берутся из пула, и проводка с меньшим id
+     * может закоммититься позже; такая карта попадёт в прогон с её следующим движением — снимок отстанет,
+     * но останется верным: {@link #balanceAsOf} досчитывает проводки после версии снимка.
+     */
+    @Scheduled(fixedDelayString = "${app.ledger.snapshot.interval:PT15M}",
+            initialDelayString = "${app.ledger.snapshot.interval:PT15M}")
+    public void takeSnapshots() {
+        ensureJobLock();
+        snapshotTx.executeWithoutResult(status -> {
+            if (jobLockRepository.tryLock(SNAPSHOT_JOB).isEmpty()) {
+                logger.debug("Ledger snapshot is being taken by another node");
+                return;
+            }
+            long afterId = snapshotRepository.findLatestEntryId().orElse(0L);
+            List<Long> cardIds = ledgerRepository.findCardIdsWithEntriesAfter(afterId);
+            int cards = 0;
+            for (int from = 0; from < cardIds.size(); from += SNAPSHOT_CHUNK) {
+                List<Long> chunk = cardIds.subList(from, Math.min(from + SNAPSHOT_CHUNK, cardIds.size()));
+                cards += chunkTx.execute(s -> snapshotChunk(chunk));
+            }
+            logger.info("Ledger snapshot after entry {}: {} cards", afterId, cards);
+        });
+    }
+
+    /**
+     * Пополнение полосатой карты держит только строку своей полосы и пишет проводку под текущей версией карты,
+     * так что проводка с версией снимка может закоммититься уже после него. Поэтому полосатые карты пачки
+     * берём под блокировку вместе с полосами до конца транзакции — текущие пополнения успевают закоммититься,
+     * новые ждут, — и после снимка поднимаем их версию: пополнения после снимка пишутся уже под следующей.
+     */
+    private int snapshotChunk(List<Long> cardIds) {
+        List<Long> striped = cardRepository.findStripedIdsIn(cardIds);
+        if (!striped.isEmpty()) {
+            cardRepository.findAllByIdInForUpdate(striped);
+            striped.forEach(slotRepository::lockAllByCardId);
+        }
+
+        Map<Long, CardBalanceSnapshot> previous = new HashMap<>();
+        snapshotRepository.findLatestByCardIds(cardIds).forEach(s -> previous.put(s.getCardId(), s));
+
+        List<CardBalanceSnapshot> snapshots = new ArrayList<>(cardIds.size());
+        List<Long> stripedTaken = new ArrayList<>();
+        for (Object[] row : ledgerRepository.sumAmountByCardSinceSnapshot(cardIds)) {
+            Long cardId = (Long) row[0];
+            CardBalanceSnapshot last = previous.get(cardId);
+            BigDecimal base = last != null ? last.getBalance() : BigDecimal.ZERO;
+            LocalDateTime asOf = (LocalDateTime) row[4];
+            if (last != null && last.getAsOf().isAfter(asOf)) {
+                asOf = last.getAsOf();
+            }
+            snapshots.add(new CardBalanceSnapshot(cardId, (Long) row[2], (Long) row[3], asOf,
+                    base.add((BigDecimal) row[1])));
+            if (striped.contains(cardId)) {
+                stripedTaken.add(cardId);
+            }
+        }
+        // до saveAll: UPDATE очищает контекст, несохранённые снимки пропали бы
+        if (!stripedTaken.isEmpty()) {
+            cardRepository.incrementVersions(stripedTaken);
+        }
+        snapshotRepository.saveAll(snapshots);
+        return snapshots.size();
+    }
+
+    /**
+     * Строка задачи создаётся при первом запуске. Гонку узлов проигравший переживает: строка уже есть.
+     */
+    private void ensureJobLock() {
+        if (jobLockRepository.existsById(SNAPSHOT_JOB)) {
+            return;
+        }
+        try {
+            snapshotTx.executeWithoutResult(status -> jobLockRepository.save(new JobLock(SNAPSHOT_JOB)));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Ledger snapshot job lock is being created by another node", e);
+        }
+    }
+
+    private void append(Card card, List<CardLedgerEntry> entries) {
+        outboxService.balanceChanged(card, ledgerRepository.saveAll(entries));
+    }
+
+    private CardLedgerEntry entry(Card card, UUID operationId, LedgerEntryType type, BigDecimal signedAmount,
+                                  Long counterpartyCardId) {
+        return new CardLedgerEntry(card.getId(), card.getVersion(), operationId, type, signedAmount,
+                stripedBalanceService.totalBalance(card), counterpartyCardId, LocalDateTime.now());
+    }
+
+    private static CardTransactionDTO toDto(CardLedgerEntry e) {
+        CardTransactionDTO dto = new CardTransactionDTO();
+        dto.setId(e.getId());
+        dto.setOperationId(e.getOperationId());
+        dto.setType(e.getEntryType());
+        dto.setAmount(e.getAmount());
+        dto.setBalanceAfter(e.getBalanceAfter());
+        dto.setCounterpartyCardId(e.getCounterpartyCardId());
+        dto.setFxRate(e.getFxRate());
+        dto.setCreatedAt(e.getCreatedAt());
+        return dto;
+    }
+
+    private static BigDecimal nullToZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    /**
+     * Позиция последней отданной проводки. Для клиента — непрозрачная base64url-строка.
+     */
+    private record Cursor(LocalDateTime createdAt, Long id) {
+
+        String encode() {
+            String raw = createdAt + "_" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int sep = raw.lastIndexOf('_');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+            } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+    }
+}
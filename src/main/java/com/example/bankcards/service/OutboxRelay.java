@@ -0,0 +1,188 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.OutboxEvent;
+import com.example.bankcards.entity.OutboxPartition;
+import com.example.bankcards.repository.OutboxEventRepository;
+import com.example.bankcards.repository.OutboxPartitionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Релей outbox: опрашивает outbox_event пачками и отдаёт события в {@link OutboxSink}.
+ * <p>
+ * Очередь поделена на {@code partitions} партиций по id агрегата. Пачка — одна транзакция: захват строки
+ * партиции в outbox_partition (FOR UPDATE SKIP LOCKED — партицию, занятую другим узлом, пропускаем), чтение
+ * начала её очереди по индексу, публикация, удаление опубликованных строк. Партицию в каждый момент публикует
+ * один узел и строго по id; партиции идут параллельно, каждая на своём виртуальном потоке и своём соединении.
+ * <p>
+ * Id событий выдаются из пула последовательности, у каждого узла свой диапазон, поэтому порядок id — не порядок
+ * коммитов: изменение карты, записанное позже на другом узле, может уйти раньше. Порядок изменений одной карты
+ * несёт поле {@code version} события — версия строки карты после изменения; UPDATE, меняющий карту под её
+ * блокировкой, увеличивает и версию. Проводки одной транзакции делят версию и упорядочены по {@code entryId}.
+ * Получатель применяет событие карты, только если его версия не меньше уже применённой. Пополнения полосатой
+ * карты строку карты не меняют и несут её текущую версию: суммы коммутативны, но balanceAfter в их событиях
+ * не обязан расти монотонно.
+ * <p>
+ * Доставка at-least-once: если после публикации упал коммит или узел, пачка останется и уйдёт повторно.
+ * Число партиций меняется только при пустом outbox — иначе часть событий окажется в партициях, которых никто
+ * не опрашивает.
+ */
+@Service
+public class OutboxRelay {
+    private final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository eventRepository;
+    private final OutboxPartitionRepository partitionRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate relayTx;
+    private final boolean enabled;
+    private final int partitions;
+    private final int batchSize;
+    /** null — метрик нет. */
+    private final Counter relayed;
+    private final Counter failures;
+
+    private final AtomicBoolean inProgress = new AtomicBoolean();
+    private volatile boolean partitionsReady;
+
+    public OutboxRelay(OutboxEventRepository eventRepository,
+                       OutboxPartitionRepository partitionRepository,
+                       OutboxSink sink,
+                       PlatformTransactionManager transactionManager,
+                       ObjectProvider<MeterRegistry> meterRegistry,
+                       @Value("${app.outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${app.outbox.partitions:4}") int partitions,
+                       @Value("${app.outbox.relay.batch-size:1000}") int batchSize) {
+        this.eventRepository = eventRepository;
+        this.partitionRepository = partitionRepository;
+        this.sink = sink;
+        this.relayTx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.partitions = checkPartitions(partitions);
+        this.batchSize = Math.max(1, batchSize);
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.relayed = registry != null ? Counter.builder("cards.outbox.relayed").register(registry) : null;
+        this.failures = registry != null ? Counter.builder("cards.outbox.relay_failures").register(registry) : null;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay.poll-interval:200ms}",
+            initialDelayString = "${app.outbox.relay.poll-interval:200ms}")
+    public void relayScheduled() {
+        if (enabled) {
+            relay();
+        }
+    }
+
+    /**
+     * Выгружает все партиции, пока в них есть события. Если релей уже идёт на этом узле — ничего не делает.
+     *
+     * @return число опубликованных событий
+     */
+    public long relay() {
+        if (!inProgress.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            ensurePartitions();
+            long total = 0;
+            try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<Long>> futures = new ArrayList<>(partitions);
+                for (int p = 0; p < partitions; p++) {
+                    short partition = (short) p;
+                    futures.add(pool.submit(() -> drain(partition)));
+                }
+                for (int p = 0; p < futures.size(); p++) {
+                    try {
+                        total += futures.get(p).get();
+                    } catch (ExecutionException e) {
+                        // пачка осталась в outbox и уйдёт на следующем опросе
+                        if (failures != null) {
+                            failures.increment();
+                        }
+                        logger.error("Outbox partition {}: relay failed", p, e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return total;
+        } finally {
+            inProgress.set(false);
+        }
+    }
+
+    static int checkPartitions(int partitions) {
+        if (partitions < 1 || partitions > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("app.outbox.partitions must be between 1 and " + Short.MAX_VALUE);
+        }
+        return partitions;
+    }
+
+    private long drain(short partition) {
+        long total = 0;
+        int published;
+        do {
+            published = relayTx.execute(status -> relayBatch(partition));
+            total += published;
+        } while (published == batchSize);
+        return total;
+    }
+
+    private int relayBatch(short partition) {
+        if (partitionRepository.tryLock(partition).isEmpty()) {
+            return 0;
+        }
+        List<OutboxEvent> events = eventRepository.findHead(partition, Limit.of(batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        sink.publish(events);
+        List<Long> ids = new ArrayList<>(events.size());
+        events.forEach(e -> ids.add(e.getId()));
+        eventRepository.deleteByIds(ids);
+        if (relayed != null) {
+            relayed.increment(events.size());
+        }
+        return events.size();
+    }
+
+    /**
+     * Строки партиций создаются при первом опросе. Гонку узлов проигравший переживает: повторит на следующем.
+     */
+    private void ensurePartitions() {
+        if (partitionsReady) {
+            return;
+        }
+        try {
+            relayTx.executeWithoutResult(status -> {
+                for (int p = 0; p < partitions; p++) {
+                    if (!partitionRepository.existsById((short) p)) {
+                        partitionRepository.save(new OutboxPartition((short) p));
+                    }
+                }
+            });
+            partitionsReady = true;
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Outbox partitions are being created by another node", e);
+        }
+    }
+}
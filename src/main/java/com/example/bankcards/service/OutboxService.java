@@ -0,0 +1,152 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardUpdateDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardLedgerEntry;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.OutboxAggregateType;
+import com.example.bankcards.entity.OutboxEvent;
+import com.example.bankcards.entity.OutboxEventType;
+import com.example.bankcards.entity.Owner;
+import com.example.bankcards.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запись доменных событий карт и владельцев в outbox — только внутри транзакции изменения (MANDATORY):
+ * событие коммитится вместе с изменением или откатывается вместе с ним. Доставляет их {@link OutboxRelay}.
+ * <p>
+ * События балансов пишет {@link LedgerService} — по событию на проводку, поэтому их порождает любой денежный
+ * путь. Партиция события — от id агрегата, события карты несут её версию после изменения — по ней получатель
+ * восстанавливает порядок (см. {@link OutboxRelay}). Поэтому карта передаётся уже с новой версией: после
+ * условного UPDATE и перечитывания или после flush изменённой сущности.
+ * <p>
+ * Изменения карт заодно публикуются как {@link CardChangedEvent} для живого потока {@link CardStreamService};
+ * тот получает их только после коммита.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+    private final OutboxEventRepository eventRepository;
+    private final StripedBalanceService stripedBalanceService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int partitions;
+
+    public OutboxService(OutboxEventRepository eventRepository,
+                         StripedBalanceService stripedBalanceService,
+                         ApplicationEventPublisher eventPublisher,
+                         @Value("${app.outbox.partitions:4}") int partitions) {
+        this.eventRepository = eventRepository;
+        this.stripedBalanceService = stripedBalanceService;
+        this.eventPublisher = eventPublisher;
+        this.partitions = OutboxRelay.checkPartitions(partitions);
+    }
+
+    public void cardCreated(Card card) {
+        append(OutboxAggregateType.CARD, card.getId(), OutboxEventType.CARD_CREATED, cardJson(card)
+                .append(",\"panLast4\":\"").append(card.getPanLast4())
+                .append("\",\"currency\":\"").append(card.getCurrency()).append("\"}").toString());
+        notifyChanged(card, stripedBalanceService.totalBalance(card));
+    }
+
+    /**
+     * Карта заблокирована или разблокирована — по её текущему статусу.
+     */
+    public void cardStatusChanged(Card card) {
+        OutboxEventType type = card.getStatus() == CardStatus.BLOCKED
+                ? OutboxEventType.CARD_BLOCKED
+                : OutboxEventType.CARD_UNBLOCKED;
+        append(OutboxAggregateType.CARD, card.getId(), type, cardJson(card).append('}').toString());
+        notifyChanged(card, stripedBalanceService.totalBalance(card));
+    }
+
+    /**
+     * По событию на проводку карты; проводки уже сохранены (id выдан из пула последовательности).
+     * В живой поток уходит одно состояние — после последней проводки.
+     */
+    public void balanceChanged(Card card, List<CardLedgerEntry> entries) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = new ArrayList<>(entries.size());
+        for (CardLedgerEntry e : entries) {
+            // значения — числа, UUID и имена enum: экранировать нечего
+            StringBuilder json = new StringBuilder(192)
+                    .append("{\"cardId\":").append(e.getCardId())
+                    .append(",\"entryId\":").append(e.getId())
+                    .append(",\"version\":").append(card.getVersion())
+                    .append(",\"operationId\":\"").append(e.getOperationId())
+                    .append("\",\"entryType\":\"").append(e.getEntryType())
+                    .append("\",\"amount\":\"").append(e.getAmount().toPlainString())
+                    .append("\",\"balanceAfter\":\"").append(e.getBalanceAfter().toPlainString()).append('"');
+            if (e.getCounterpartyCardId() != null) {
+                json.append(",\"counterpartyCardId\":").append(e.getCounterpartyCardId());
+            }
+            if (e.getFxRate() != null) {
+                json.append(",\"fxRate\":\"").append(e.getFxRate().toPlainString()).append('"');
+            }
+            events.add(event(OutboxAggregateType.CARD, e.getCardId(), OutboxEventType.CARD_BALANCE_CHANGED,
+                    json.append('}').toString(), now));
+        }
+        eventRepository.saveAll(events);
+        notifyChanged(card, entries.getLast().getBalanceAfter());
+    }
+
+    /**
+     * Клиент заблокирован или разблокирован — по его текущему флагу locked.
+     */
+    public void ownerLockChanged(Owner owner) {
+        OutboxEventType type = owner.isLocked() ? OutboxEventType.OWNER_LOCKED : OutboxEventType.OWNER_UNLOCKED;
+        append(OutboxAggregateType.OWNER, owner.getId(), type, "{\"ownerId\":" + owner.getId() + "}");
+    }
+
+    /**
+     * Партиция агрегата. Перемешиваем биты: последовательные id карт расходятся по партициям равномерно.
+     */
+    static short partitionOf(long aggregateId, int partitions) {
+        long h = aggregateId * 0x9E3779B97F4A7C15L;
+        return (short) Math.floorMod(h ^ (h >>> 32), partitions);
+    }
+
+    private void append(OutboxAggregateType aggregateType, Long aggregateId, OutboxEventType type, String payload) {
+        eventRepository.save(event(aggregateType, aggregateId, type, payload, LocalDateTime.now()));
+    }
+
+    /**
+     * @param balance баланс вместе с полосами — уже посчитанный вызывающим
+     */
+    private void notifyChanged(Card card, BigDecimal balance) {
+        if (card.getOwner() == null) {
+            return;
+        }
+        CardUpdateDTO dto = new CardUpdateDTO();
+        dto.setCardId(card.getId());
+        dto.setStatus(card.getStatus());
+        dto.setBalance(balance);
+        dto.setHeldAmount(card.getHeldAmount());
+        dto.setAvailableBalance(balance.subtract(card.getHeldAmount()));
+        dto.setCurrency(card.getCurrency());
+        dto.setChangedAt(LocalDateTime.now());
+        eventPublisher.publishEvent(new CardChangedEvent(card.getOwner().getId(), dto, card));
+    }
+
+    private OutboxEvent event(OutboxAggregateType aggregateType, Long aggregateId, OutboxEventType type,
+                              String payload, LocalDateTime now) {
+        return new OutboxEvent(aggregateType, aggregateId, type, partitionOf(aggregateId, partitions), payload, now);
+    }
+
+    private static StringBuilder cardJson(Card card) {
+        // getId() у ленивого прокси владельца не инициализирует его
+        return new StringBuilder(128)
+                .append("{\"cardId\":").append(card.getId())
+                .append(",\"ownerId\":").append(card.getOwner() != null ? card.getOwner().getId() : null)
+                .append(",\"version\":").append(card.getVersion())
+                .append(",\"status\":\"").append(card.getStatus()).append('"');
+    }
+}
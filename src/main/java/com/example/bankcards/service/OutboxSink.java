@@ -0,0 +1,22 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Получатель событий outbox. По умолчанию — локальный журнал {@link SegmentedFileOutboxSink};
+ * другой приёмник подключается бином этого типа при {@code app.outbox.sink}, отличном от {@code file}.
+ * <p>
+ * Доставка — at-least-once: пачка, принятая приёмником, но не удалённая из outbox (упал коммит или узел),
+ * будет отдана повторно. Получатель отбрасывает повторы по {@link OutboxEvent#getId()}.
+ */
+public interface OutboxSink {
+
+    /**
+     * Принимает пачку событий одной партиции в порядке id. Возврат без исключения означает, что события
+     * сохранены надёжно и их можно удалить из outbox; исключение — пачка останется и будет отдана снова.
+     * Вызывается параллельно для разных партиций.
+     */
+    void publish(List<OutboxEvent> events);
+}
@@ -0,0 +1,225 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.ReconciliationDrift;
+import com.example.bankcards.entity.ReconciliationRun;
+import com.example.bankcards.repository.ReconciliationDriftRepository;
+import com.example.bankcards.repository.ReconciliationRunRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сверка балансов карт с журналом: баланс карты вместе с полосами должен равняться сумме всех её проводок.
+ * <p>
+ * Пространство id карт режется на диапазоны по {@code range-size}; каждый диапазон — одна задача
+ * на виртуальном потоке и один сгруппированный запрос, который потоково отдаёт по строке на карту
+ * (баланс, сумма полос, сумма проводок). Одновременно с БД работают не больше {@code parallelism}
+ * диапазонов — столько соединений пула сверка может занять.
+ * <p>
+ * Диапазон читается в своей read-only транзакции REPEATABLE READ (в PostgreSQL — снимок): перевод,
+ * закоммиченный во время чтения, виден либо целиком (карты и проводки), либо не виден вовсе, поэтому
+ * сверка не даёт ложных расхождений под живым трафиком и не блокирует его. Расхождения пишутся
+ * в reconciliation_drift отдельной транзакцией после чтения диапазона, итоги — в reconciliation_run и метрики.
+ */
+@Service
+public class ReconciliationService {
+    // агрегаты собираются до соединения с card: по строке на карту вместо строки на проводку
+    private static final String RANGE_SQL = """
+            SELECT c.id, c.balance, COALESCE(s.total, 0) AS slots_total, COALESCE(l.total, 0) AS ledger_total
+            FROM card c
+            LEFT JOIN (SELECT card_id, SUM(balance) AS total FROM card_balance_slot
+                       WHERE card_id > ? AND card_id <= ? GROUP BY card_id) s ON s.card_id = c.id
+            LEFT JOIN (SELECT card_id, SUM(amount) AS total FROM card_ledger_entry
+                       WHERE card_id > ? AND card_id <= ? GROUP BY card_id) l ON l.card_id = c.id
+            WHERE c.id > ? AND c.id <= ?
+            """;
+
+    private final Logger logger = LoggerFactory.getLogger(ReconciliationService.class);
+
+    private final ReconciliationRunRepository runRepository;
+    private final ReconciliationDriftRepository driftRepository;
+    private final JdbcTemplate streamingJdbc;
+    private final TransactionTemplate snapshotTx;
+    private final TransactionTemplate writeTx;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final long rangeSize;
+    private final int parallelism;
+
+    private final AtomicBoolean inProgress = new AtomicBoolean();
+    private final AtomicLong lastDriftCount = new AtomicLong();
+    private volatile boolean gaugeRegistered;
+
+    public ReconciliationService(ReconciliationRunRepository runRepository,
+                                 ReconciliationDriftRepository driftRepository,
+                                 DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectProvider<MeterRegistry> meterRegistry,
+                                 @Value("${app.reconciliation.range-size:50000}") long rangeSize,
+                                 @Value("${app.reconciliation.parallelism:4}") int parallelism,
+                                 @Value("${app.reconciliation.fetch-size:1000}") int fetchSize) {
+        this.runRepository = runRepository;
+        this.driftRepository = driftRepository;
+        this.streamingJdbc = new JdbcTemplate(dataSource);
+        this.streamingJdbc.setFetchSize(fetchSize);
+        this.snapshotTx = new TransactionTemplate(transactionManager);
+        this.snapshotTx.setReadOnly(true);
+        this.snapshotTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.rangeSize = Math.max(1, rangeSize);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Ежедневная сверка. Запуск по умолчанию — в 02:30.
+     */
+    @Scheduled(cron = "${app.reconciliation.cron:0 30 2 * * *}")
+    public void reconcileScheduled() {
+        reconcile();
+    }
+
+    /**
+     * Сверяет все карты. Если сверка уже идёт на этом узле — ничего не делает и возвращает null.
+     */
+    public ReconciliationRun reconcile() {
+        if (!inProgress.compareAndSet(false, true)) {
+            logger.warn("Reconciliation is already running, skipping");
+            return null;
+        }
+        try {
+            return runAll();
+        } finally {
+            inProgress.set(false);
+        }
+    }
+
+    private ReconciliationRun runAll() {
+        long startedNanos = System.nanoTime();
+        Long[] bounds = streamingJdbc.queryForObject("SELECT MIN(id), MAX(id) FROM card",
+                (rs, n) -> new Long[]{rs.getObject(1, Long.class), rs.getObject(2, Long.class)});
+        List<long[]> ranges = bounds == null || bounds[0] == null
+                ? List.of()
+                : split(bounds[0] - 1, bounds[1], rangeSize);
+        ReconciliationRun run = writeTx.execute(status ->
+                runRepository.save(new ReconciliationRun(LocalDateTime.now(), ranges.size())));
+        Long runId = run.getId();
+
+        long checked = 0;
+        long drifts = 0;
+        int failed = 0;
+        Semaphore permits = new Semaphore(parallelism);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<RangeResult>> futures = new ArrayList<>(ranges.size());
+            for (long[] range : ranges) {
+                futures.add(pool.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return reconcileRange(runId, range[0], range[1]);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    RangeResult result = futures.get(i).get();
+                    checked += result.checked();
+                    drifts += result.drifts();
+                } catch (ExecutionException e) {
+                    // остальные диапазоны досчитываются; прогон будет помечен FAILED
+                    failed++;
+                    logger.error("Reconciliation run {}: range ({}, {}] failed",
+                            runId, ranges.get(i)[0], ranges.get(i)[1], e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed = ranges.size();
+        }
+
+        run.finish(LocalDateTime.now(), checked, drifts, failed);
+        ReconciliationRun finished = writeTx.execute(status -> runRepository.save(run));
+        record(finished, Duration.ofNanos(System.nanoTime() - startedNanos));
+        if (drifts > 0) {
+            logger.warn("Reconciliation run {}: {} of {} cards drifted from the ledger", runId, drifts, checked);
+        } else {
+            logger.info("Reconciliation run {}: {} cards match the ledger", runId, checked);
+        }
+        return finished;
+    }
+
+    /**
+     * Один диапазон (from, to] — одним запросом в одной снимковой транзакции.
+     */
+    RangeResult reconcileRange(Long runId, long from, long to) {
+        LocalDateTime detectedAt = LocalDateTime.now();
+        List<ReconciliationDrift> drifts = new ArrayList<>();
+        long[] checked = {0};
+        snapshotTx.executeWithoutResult(status -> streamingJdbc.query(RANGE_SQL, rs -> {
+            checked[0]++;
+            BigDecimal cardBalance = rs.getBigDecimal("balance").add(rs.getBigDecimal("slots_total"));
+            BigDecimal ledgerBalance = rs.getBigDecimal("ledger_total");
+            if (cardBalance.compareTo(ledgerBalance) != 0) {
+                drifts.add(new ReconciliationDrift(runId, rs.getLong("id"), cardBalance, ledgerBalance, detectedAt));
+            }
+        }, from, to, from, to, from, to));
+
+        if (!drifts.isEmpty()) {
+            writeTx.executeWithoutResult(status -> driftRepository.saveAll(drifts));
+        }
+        return new RangeResult(checked[0], drifts.size());
+    }
+
+    static List<long[]> split(long fromExclusive, long toInclusive, long rangeSize) {
+        List<long[]> ranges = new ArrayList<>();
+        for (long from = fromExclusive; from < toInclusive; from += rangeSize) {
+            ranges.add(new long[]{from, Math.min(from + rangeSize, toInclusive)});
+        }
+        return ranges;
+    }
+
+    private void record(ReconciliationRun run, Duration elapsed) {
+        lastDriftCount.set(run.getDriftCount());
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        if (!gaugeRegistered) {
+            Gauge.builder("cards.reconciliation.last_drift", lastDriftCount, AtomicLong::get).register(registry);
+            gaugeRegistered = true;
+        }
+        Counter.builder("cards.reconciliation.cards").register(registry).increment(run.getCardsChecked());
+        Counter.builder("cards.reconciliation.drift").register(registry).increment(run.getDriftCount());
+        Counter.builder("cards.reconciliation.failed_ranges").register(registry).increment(run.getRangesFailed());
+        Timer.builder("cards.reconciliation.duration").register(registry).record(elapsed);
+    }
+
+    record RangeResult(long checked, long drifts) {
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.JWTResponse;
+import com.example.bankcards.entity.Owner;
+import com.example.bankcards.entity.RefreshToken;
+import com.example.bankcards.repository.OwnerRepository;
+import com.example.bankcards.repository.RefreshTokenRepository;
+import com.example.bankcards.security.JWTUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Продление сессии без пароля: истёкший access-токен меняется на новый по refresh-токену.
+ * <p>
+ * Вход проверяет пароль BCrypt — это десятки миллисекунд CPU. Продление стоит SHA-256 и чтения строки
+ * по первичному ключу. Refresh-токен — 256 случайных бит, поэтому соль и медленный хэш ему не нужны.
+ * <p>
+ * Каждое продление выдаёт новый refresh-токен и гасит предъявленный (ротация). Если погашенный токен
+ * предъявлен повторно, им пользуется кто-то ещё: вся цепочка (family) удаляется, и обоим клиентам
+ * нужен вход по паролю. Блокировку клиента и отзыв всех его токенов (owner.tokens_valid_after) продление
+ * соблюдает так же, как {@link com.example.bankcards.security.OwnerStatusCache} для access-токенов.
+ */
+@Service
+public class RefreshTokenService {
+    private static final int TOKEN_BYTES = 32;
+
+    private final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final OwnerRepository ownerRepository;
+    private final JWTUtil jwtUtil;
+    private final Duration ttl;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               OwnerRepository ownerRepository,
+                               JWTUtil jwtUtil,
+                               @Value("${app.security.refresh.ttl:P30D}") Duration ttl) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.ownerRepository = ownerRepository;
+        this.jwtUtil = jwtUtil;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Новая цепочка при входе по паролю.
+     *
+     * @return сам токен; в БД остаётся только его хэш
+     */
+    @Transactional
+    public String issue(Long ownerId) {
+        return issue(ownerId, UUID.randomUUID().toString(), LocalDateTime.now());
+    }
+
+    /**
+     * Меняет refresh-токен на новую пару токенов. Отказ по повторному предъявлению не откатывает
+     * удаление цепочки.
+     */
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public JWTResponse rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw invalid();
+        }
+        String hash = hash(rawToken);
+        RefreshToken token = refreshTokenRepository.findById(hash).orElseThrow(this::invalid);
+        LocalDateTime now = LocalDateTime.now();
+        if (!token.getExpiresAt().isAfter(now)) {
+            throw invalid();
+        }
+        if (refreshTokenRepository.markUsed(hash, now) == 0) {
+            int deleted = refreshTokenRepository.deleteFamily(token.getFamilyId());
+            logger.warn("Refresh token reuse detected for owner {}: family {} revoked ({} tokens)",
+                    token.getOwnerId(), token.getFamilyId(), deleted);
+            throw invalid();
+        }
+
+        Owner owner = ownerRepository.findById(token.getOwnerId()).orElse(null);
+        if (owner == null || owner.isLocked() || (owner.getTokensValidAfter() != null
+                && !token.getCreatedAt().isAfter(owner.getTokensValidAfter()))) {
+            refreshTokenRepository.deleteFamily(token.getFamilyId());
+            throw invalid();
+        }
+
+        String refreshToken = issue(owner.getId(), token.getFamilyId(), now);
+        String accessToken = jwtUtil.generateAccessToken(owner.getId(), owner.getEmail(), owner.getRole().name());
+        return new JWTResponse(accessToken, owner.getId(), owner.getEmail(), refreshToken);
+    }
+
+    /**
+     * Выход с устройства: гасит цепочку предъявленного токена. Неизвестный токен ничего не меняет.
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return;
+        }
+        refreshTokenRepository.findById(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.deleteFamily(token.getFamilyId()));
+    }
+
+    /**
+     * Использованные токены хранятся до истечения ради распознавания повтора, истёкшие уже не нужны.
+     */
+    @Scheduled(fixedDelayString = "${app.security.refresh.purge-interval:PT1H}",
+            initialDelayString = "${app.security.refresh.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        logger.debug("Expired refresh tokens purged: {}", deleted);
+    }
+
+    private String issue(Long ownerId, String familyId, LocalDateTime now) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(new RefreshToken(hash(rawToken), ownerId, familyId, now, now.plus(ttl)));
+        return rawToken;
+    }
+
+    static String hash(String rawToken) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token is invalid or expired");
+    }
+}
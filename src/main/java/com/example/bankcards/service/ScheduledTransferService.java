@@ -0,0 +1,378 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.ScheduledTransferDTO;
+import com.example.bankcards.dto.ScheduledTransferRequestDTO;
+import com.example.bankcards.entity.ScheduleStatus;
+import com.example.bankcards.entity.TransferSchedule;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferScheduleRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запланированные и повторяющиеся переводы между картами владельца.
+ * <p>
+ * Расписания лежат в transfer_schedule с частичным индексом по next_run_at. Раз в {@code load-interval} узел
+ * арендует свободные строки со сроком в ближайшие {@code lookahead} (FOR UPDATE SKIP LOCKED + lease_until)
+ * и раскладывает их по {@link HashedTimingWheel} — таблица целиком не опрашивается, сколько бы в ней ни было строк.
+ * Поток колеса раз в тик отдаёт наступившие запуски воркерам; партиция — по владельцу, как в {@link TransferPipeline}.
+ * Воркер выполняет пачку запусков одной транзакцией через {@link CardService#applyTransfer} — с теми же правилами,
+ * что и /cards/transfer.
+ * <p>
+ * Запуск и сдвиг next_run_at — в транзакции самого перевода, поэтому запуск выполняется не более одного раза.
+ * Упавший узел просто перестаёт продлевать аренду: по её истечении строки заберёт другой узел.
+ */
+@Service
+public class ScheduledTransferService implements SmartLifecycle {
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final Logger logger = LoggerFactory.getLogger(ScheduledTransferService.class);
+
+    private final TransferScheduleRepository scheduleRepository;
+    private final CardRepository cardRepository;
+    private final CardService cardService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration tick;
+    private final Duration lookahead;
+    private final Duration lease;
+    private final int loadBatch;
+    private final int groupSize;
+    private final int maxPerOwner;
+    private final String nodeId;
+
+    private final HashedTimingWheel wheel;
+    private final List<BlockingQueue<Long>> partitions;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+    /** До какого момента этот узел уже арендовал и загрузил расписания. */
+    private volatile LocalDateTime loadedHorizon;
+
+    public ScheduledTransferService(TransferScheduleRepository scheduleRepository,
+                                    CardRepository cardRepository,
+                                    CardService cardService,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.cards.scheduled-transfers.enabled:true}") boolean enabled,
+                                    @Value("${app.cards.scheduled-transfers.tick:1s}") Duration tick,
+                                    @Value("${app.cards.scheduled-transfers.wheel-size:512}") int wheelSize,
+                                    @Value("${app.cards.scheduled-transfers.lookahead:PT1M}") Duration lookahead,
+                                    @Value("${app.cards.scheduled-transfers.lease:PT5M}") Duration lease,
+                                    @Value("${app.cards.scheduled-transfers.load-batch:5000}") int loadBatch,
+                                    @Value("${app.cards.scheduled-transfers.workers:2}") int workers,
+                                    @Value("${app.cards.scheduled-transfers.group-size:32}") int groupSize,
+                                    @Value("${app.cards.scheduled-transfers.max-per-owner:100}") int maxPerOwner,
+                                    @Value("${app.cards.scheduled-transfers.node-id:}") String nodeId) {
+        this.scheduleRepository = scheduleRepository;
+        this.cardRepository = cardRepository;
+        this.cardService = cardService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.tick = tick;
+        this.lookahead = lookahead;
+        this.lease = lease;
+        this.loadBatch = loadBatch;
+        this.groupSize = groupSize;
+        this.maxPerOwner = maxPerOwner;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.wheel = new HashedTimingWheel(tick.toMillis(), wheelSize, System.currentTimeMillis());
+        this.partitions = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            partitions.add(new LinkedBlockingQueue<>());
+        }
+    }
+
+    /**
+     * Проверки — как у перевода, кроме средств и блокировок: они проверяются при каждом запуске.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @Transactional
+    public ScheduledTransferDTO create(Long ownerId, ScheduledTransferRequestDTO dto) {
+        cardService.validateTransferRequest(dto.getFromCardId(), dto.getToCardId(), dto.getAmount());
+        LocalDateTime now = LocalDateTime.now();
+        if (dto.getFirstRunAt().isBefore(now.minus(tick))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "firstRunAt must not be in the past");
+        }
+        if (!cardRepository.existsByIdAndOwnerId(dto.getFromCardId(), ownerId)) {
+            throw new EntityNotFoundException("Source card not found");
+        }
+        if (!cardRepository.existsByIdAndOwnerId(dto.getToCardId(), ownerId)) {
+            throw new EntityNotFoundException("Destination card not found");
+        }
+        if (scheduleRepository.countByOwnerIdAndStatus(ownerId, ScheduleStatus.ACTIVE) >= maxPerOwner) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "At most " + maxPerOwner + " active scheduled transfers are allowed");
+        }
+
+        TransferSchedule schedule = new TransferSchedule(ownerId, dto.getFromCardId(), dto.getToCardId(),
+                dto.getAmount(), dto.getRecurrence(), dto.getFirstRunAt(), now);
+        // окно уже загружено — иначе запуск ждал бы следующей загрузки
+        LocalDateTime horizon = loadedHorizon;
+        boolean inLoadedWindow = running && horizon != null && dto.getFirstRunAt().isBefore(horizon);
+        if (inLoadedWindow) {
+            schedule.lease(nodeId, horizon.plus(lease));
+        }
+        TransferSchedule saved = scheduleRepository.save(schedule);
+        if (inLoadedWindow) {
+            afterCommit(() -> wheel.schedule(saved.getId(), ownerId, epochMillis(saved.getNextRunAt())));
+        }
+        return toDto(saved);
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    public Page<ScheduledTransferDTO> getMine(Long ownerId, Pageable pageable) {
+        return scheduleRepository.findAllByOwnerId(ownerId, pageable).map(ScheduledTransferService::toDto);
+    }
+
+    /**
+     * Отмена активного расписания. Запись в колесе узла остаётся, но её запуск не пройдёт условный UPDATE.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @Transactional
+    public void cancel(Long ownerId, Long scheduleId) {
+        if (scheduleRepository.cancel(scheduleId, ownerId) == 0) {
+            throw new EntityNotFoundException("Scheduled transfer not found");
+        }
+    }
+
+    /**
+     * Арендует расписания со сроком в ближайшие {@code lookahead} и ставит их в колесо. Пачки по {@code load-batch}
+     * строк — каждая в своей короткой транзакции.
+     */
+    @Scheduled(fixedDelayString = "${app.cards.scheduled-transfers.load-interval:PT20S}")
+    public void loadWindow() {
+        if (!running) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.plus(lookahead);
+        LocalDateTime leaseUntil = horizon.plus(lease);
+        int total = 0;
+        List<TransferSchedule> batch;
+        do {
+            batch = transactionTemplate.execute(status -> {
+                List<Long> ids = scheduleRepository.lockDueIds(horizon, now, loadBatch);
+                if (ids.isEmpty()) {
+                    return List.of();
+                }
+                scheduleRepository.lease(ids, nodeId, leaseUntil);
+                return scheduleRepository.findAllById(ids);
+            });
+            for (TransferSchedule s : batch) {
+                wheel.schedule(s.getId(), s.getOwnerId(), epochMillis(s.getNextRunAt()));
+            }
+            total += batch.size();
+        } while (batch.size() == loadBatch);
+        loadedHorizon = horizon;
+        if (total > 0) {
+            logger.debug("Leased {} scheduled transfers due before {}", total, horizon);
+        }
+    }
+
+    private void runTicker() {
+        long tickMillis = tick.toMillis();
+        while (running) {
+            try {
+                Thread.sleep(tickMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            // очереди без ограничения: потерянный запуск всё равно вернулся бы только по истечении аренды
+            wheel.advance(System.currentTimeMillis(),
+                    (id, ownerId) -> partitions.get(partitionOf(ownerId)).offer(id));
+        }
+    }
+
+    private void runWorker(BlockingQueue<Long> queue) {
+        List<Long> group = new ArrayList<>(groupSize);
+        while (running) {
+            try {
+                Long first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, groupSize - 1);
+                runGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // расписания остались арендованы нами: после lease их перезагрузит любой узел
+                logger.error("Scheduled transfer worker failed on a group of {}", group.size(), e);
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Пачка запусков — одна транзакция. Карты всех запусков блокируются сразу, одним запросом в порядке id:
+     * иначе блокировки пар копятся не по порядку и пачка может взаимно заблокироваться с другими переводами.
+     * Бизнес-отказы не откатывают пачку; если упала транзакция целиком (lock timeout, сбой БД),
+     * запуски повторяются по одному.
+     */
+    void runGroup(List<Long> scheduleIds) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<TransferSchedule> schedules = scheduleRepository.findAllById(scheduleIds);
+                Set<Long> cardIds = new HashSet<>();
+                for (TransferSchedule schedule : schedules) {
+                    cardIds.add(schedule.getFromCardId());
+                    cardIds.add(schedule.getToCardId());
+                }
+                cardService.lockCardsForGroup(cardIds);
+                schedules.forEach(this::runOnce);
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Group of {} scheduled transfers failed, running one by one", scheduleIds.size(), e);
+            for (Long id : scheduleIds) {
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            scheduleRepository.findById(id).ifPresent(this::runOnce));
+                } catch (RuntimeException single) {
+                    logger.error("Scheduled transfer {} failed, will retry after lease expiry", id, single);
+                }
+            }
+        }
+    }
+
+    private void runOnce(TransferSchedule schedule) {
+        if (schedule.getStatus() != ScheduleStatus.ACTIVE || !nodeId.equals(schedule.getLeaseOwner())) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expected = schedule.getNextRunAt();
+        LocalDateTime next = schedule.getRecurrence().next(schedule.getFirstRunAt(), expected, now);
+        ScheduleStatus status = next != null ? ScheduleStatus.ACTIVE : ScheduleStatus.COMPLETED;
+        if (scheduleRepository.claimRun(schedule.getId(), nodeId, expected, next != null ? next : expected,
+                status, now) == 0) {
+            return;
+        }
+        try {
+            cardService.applyTransfer(schedule.getOwnerId(), schedule.getFromCardId(), schedule.getToCardId(),
+                    schedule.getAmount());
+        } catch (ResponseStatusException e) {
+            scheduleRepository.recordFailure(schedule.getId(), truncate(e.getReason()));
+        } catch (EntityNotFoundException e) {
+            scheduleRepository.recordFailure(schedule.getId(), truncate(e.getMessage()));
+        }
+    }
+
+    private int partitionOf(long ownerId) {
+        return Math.floorMod(Long.hashCode(ownerId * 0x9E3779B97F4A7C15L), partitions.size());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static long epochMillis(LocalDateTime at) {
+        return at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return "Rejected";
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private static ScheduledTransferDTO toDto(TransferSchedule s) {
+        ScheduledTransferDTO dto = new ScheduledTransferDTO();
+        dto.setId(s.getId());
+        dto.setFromCardId(s.getFromCardId());
+        dto.setToCardId(s.getToCardId());
+        dto.setAmount(s.getAmount());
+        dto.setRecurrence(s.getRecurrence());
+        dto.setStatus(s.getStatus());
+        dto.setFirstRunAt(s.getFirstRunAt());
+        dto.setNextRunAt(s.getNextRunAt());
+        dto.setLastRunAt(s.getLastRunAt());
+        dto.setLastError(s.getLastError());
+        dto.setRunCount(s.getRunCount());
+        return dto;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        Thread ticker = new Thread(this::runTicker, "transfer-schedule-wheel");
+        ticker.setDaemon(true);
+        ticker.start();
+        threads.add(ticker);
+        for (int i = 0; i < partitions.size(); i++) {
+            BlockingQueue<Long> queue = partitions.get(i);
+            Thread worker = new Thread(() -> runWorker(queue), "transfer-schedule-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            threads.add(worker);
+        }
+        logger.info("Scheduled transfers started on node {} with {} workers", nodeId, partitions.size());
+    }
+
+    /**
+     * Запуски, уже стоящие в колесе и очередях, не выполняются: аренда истечёт, и их заберёт другой узел.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // воркеры дорабатывают текущую пачку и выходят сами, не прерываем их посреди транзакции
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        threads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
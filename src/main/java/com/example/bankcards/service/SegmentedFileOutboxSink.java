@@ -0,0 +1,172 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.OutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Приёмник outbox по умолчанию: локальный журнал только на дозапись, без внешнего брокера.
+ * <p>
+ * События пишутся JSON Lines в сегменты {@code {dir}/outbox-{номер}.log}; сегмент закрывается, набрав
+ * {@code segment-size}, и дальше не меняется — его можно забирать, архивировать и удалять. Пачка уходит одной
+ * записью и одним fsync, поэтому цена fsync делится на всю пачку.
+ * <p>
+ * Узел, упавший посреди записи, оставляет в хвосте последнего сегмента оборванную строку; при открытии она
+ * отрезается, а сами события не удалены из outbox и будут записаны снова.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "file", matchIfMissing = true)
+public class SegmentedFileOutboxSink implements OutboxSink, AutoCloseable {
+    private static final String PREFIX = "outbox-";
+    private static final String SUFFIX = ".log";
+
+    private final Logger logger = LoggerFactory.getLogger(SegmentedFileOutboxSink.class);
+
+    private final Path dir;
+    private final long segmentBytes;
+
+    private FileChannel channel;
+    private long segmentNo;
+    private long segmentSize;
+
+    public SegmentedFileOutboxSink(@Value("${app.outbox.file.dir:./outbox}") String dir,
+                                   @Value("${app.outbox.file.segment-size:64MB}") DataSize segmentSize) {
+        this.dir = Path.of(dir);
+        this.segmentBytes = segmentSize.toBytes();
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        byte[] batch = encode(events);
+        try {
+            if (channel == null) {
+                openLastSegment();
+            }
+            // пачка не делится между сегментами; пустой сегмент принимает и пачку больше segment-size
+            if (segmentSize > 0 && segmentSize + batch.length > segmentBytes) {
+                roll();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            segmentSize += batch.length;
+        } catch (IOException e) {
+            // канал в неизвестном состоянии: следующая пачка переоткроет сегмент и отрежет недописанное
+            closeQuietly();
+            throw new UncheckedIOException("Failed to append " + events.size() + " outbox events", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closeQuietly();
+    }
+
+    static byte[] encode(List<OutboxEvent> events) {
+        StringBuilder sb = new StringBuilder(events.size() * 256);
+        for (OutboxEvent e : events) {
+            sb.append("{\"id\":").append(e.getId())
+                    .append(",\"partition\":").append(e.getPartitionNo())
+                    .append(",\"aggregateType\":\"").append(e.getAggregateType())
+                    .append("\",\"aggregateId\":").append(e.getAggregateId())
+                    .append(",\"type\":\"").append(e.getEventType())
+                    .append("\",\"createdAt\":\"").append(e.getCreatedAt())
+                    .append("\",\"payload\":").append(e.getPayload())
+                    .append("}\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static Path segmentPath(Path dir, long segmentNo) {
+        return dir.resolve(String.format("%s%012d%s", PREFIX, segmentNo, SUFFIX));
+    }
+
+    private void openLastSegment() throws IOException {
+        Files.createDirectories(dir);
+        long last = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            last = files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(PREFIX) && n.endsWith(SUFFIX))
+                    .mapToLong(n -> Long.parseLong(n, PREFIX.length(), n.length() - SUFFIX.length(), 10))
+                    .max()
+                    .orElse(0);
+        }
+        open(last);
+        long intact = lastLineEnd(channel);
+        if (intact < channel.size()) {
+            logger.warn("Outbox segment {}: truncating {} bytes of an incomplete write",
+                    segmentPath(dir, segmentNo), channel.size() - intact);
+            channel.truncate(intact);
+        }
+        segmentSize = intact;
+        channel.position(intact);
+    }
+
+    private void roll() throws IOException {
+        channel.close();
+        open(segmentNo + 1);
+        segmentSize = 0;
+    }
+
+    private void open(long no) throws IOException {
+        channel = FileChannel.open(segmentPath(dir, no),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        segmentNo = no;
+    }
+
+    /**
+     * Позиция сразу за последним переводом строки — конец последнего целого события.
+     */
+    private static long lastLineEnd(FileChannel channel) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(8192);
+        long end = channel.size();
+        while (end > 0) {
+            long start = Math.max(0, end - block.capacity());
+            block.clear().limit((int) (end - start));
+            while (block.hasRemaining()) {
+                if (channel.read(block, start + block.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = block.position() - 1; i >= 0; i--) {
+                if (block.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    private void closeQuietly() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close outbox segment {}", segmentPath(dir, segmentNo), e);
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.bankcards.service;
+
+import java.util.Arrays;
+
+/**
+ * Счётчики расходов за текущие сутки и месяц по ключу long (id карты или владельца) и их лимиты.
+ * <p>
+ * Открытая адресация на параллельных примитивных массивах — без боксинга ключей и значений и без объекта
+ * на запись. Таблица разбита на сегменты со своим монитором: проверка с резервированием — одна операция
+ * под замком сегмента, конкурируют только ключи одного сегмента. Окна сдвигаются лениво: при первом
+ * обращении в новые сутки (месяц) счётчик обнуляется. Суммы — в минорных единицах.
+ */
+final class SpendingCounters {
+    /** Лимит не задан для ключа — берётся лимит по умолчанию. */
+    static final long DEFAULT = -1;
+    /** Лимита нет. */
+    static final long UNLIMITED = Long.MAX_VALUE;
+
+    static final int OK = 0;
+    static final int DAILY_EXCEEDED = 1;
+    static final int MONTHLY_EXCEEDED = 2;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    SpendingCounters(int segmentCount) {
+        int n = Integer.highestOneBit(Math.max(1, segmentCount - 1) << 1);
+        this.segments = new Segment[n];
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment();
+        }
+        this.segmentMask = n - 1;
+    }
+
+    /**
+     * Атомарно проверяет лимиты и, если они не превышены, прибавляет сумму к обоим окнам.
+     *
+     * @param defaultDaily   лимит на сутки, если для ключа не задан свой ({@link #UNLIMITED} — без лимита)
+     * @param defaultMonthly то же для месяца
+     * @return {@link #OK}, {@link #DAILY_EXCEEDED} или {@link #MONTHLY_EXCEEDED}
+     */
+    int tryReserve(long key, long amount, int day, int month, long defaultDaily, long defaultMonthly) {
+        return segment(key).tryReserve(key, amount, day, month, defaultDaily, defaultMonthly);
+    }
+
+    /** Возврат резерва (откат транзакции). Резерв прошлых суток/месяца уже не влияет на окно. */
+    void release(long key, long amount, int day, int month) {
+        segment(key).release(key, amount, day, month);
+    }
+
+    /** Наполнение при старте: снимок и проводки журнала. */
+    void add(long key, long daySpent, long monthSpent, int day, int month) {
+        segment(key).add(key, daySpent, monthSpent, day, month);
+    }
+
+    void setLimits(long key, long daily, long monthly) {
+        segment(key).setLimits(key, daily, monthly);
+    }
+
+    /** Текущий расход за сутки; 0, если ключа нет или окно уже сменилось. */
+    long daySpent(long key, int day) {
+        return segment(key).daySpent(key, day);
+    }
+
+    long monthSpent(long key, int month) {
+        return segment(key).monthSpent(key, month);
+    }
+
+    /** Собственный лимит ключа или {@link #DEFAULT}. */
+    long dailyLimit(long key) {
+        return segment(key).limit(key, true);
+    }
+
+    long monthlyLimit(long key) {
+        return segment(key).limit(key, false);
+    }
+
+    /** Повторная отметка записи после неудачного сброса. */
+    void markDirty(long key) {
+        segment(key).markDirty(key);
+    }
+
+    /**
+     * Обходит изменённые с прошлого вызова записи и снимает с них отметку.
+     * Вызывается из одного потока (сброс на диск).
+     */
+    void drainDirty(DirtyVisitor visitor) {
+        for (Segment segment : segments) {
+            segment.drainDirty(visitor);
+        }
+    }
+
+    @FunctionalInterface
+    interface DirtyVisitor {
+        void visit(long key, int day, long daySpent, int month, long monthSpent);
+    }
+
+    private Segment segment(long key) {
+        // старшие биты — на выбор сегмента, младшие — на слот внутри него, чтобы ключи сегмента не слипались
+        return segments[(int) (mix(key) >>> 40) & segmentMask];
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private static final class Segment {
+        private static final long EMPTY = 0;   // id сущностей начинаются с 1
+
+        private long[] keys = new long[16];
+        private int[] days = new int[16];
+        private long[] daySpent = new long[16];
+        private int[] months = new int[16];
+        private long[] monthSpent = new long[16];
+        private long[] dailyLimits = filled(16);
+        private long[] monthlyLimits = filled(16);
+        private boolean[] dirty = new boolean[16];
+        private int size;
+
+        synchronized int tryReserve(long key, long amount, int day, int month, long defaultDaily, long defaultMonthly) {
+            int i = slotFor(key);
+            roll(i, day, month);
+            long dailyLimit = dailyLimits[i] == DEFAULT ? defaultDaily : dailyLimits[i];
+            long monthlyLimit = monthlyLimits[i] == DEFAULT ? defaultMonthly : monthlyLimits[i];
+            // сравнение через вычитание: amount и лимит неотрицательны, переполнения нет
+            if (amount > dailyLimit - daySpent[i]) {
+                return DAILY_EXCEEDED;
+            }
+            if (amount > monthlyLimit - monthSpent[i]) {
+                return MONTHLY_EXCEEDED;
+            }
+            daySpent[i] += amount;
+            monthSpent[i] += amount;
+            dirty[i] = true;
+            return OK;
+        }
+
+        synchronized void release(long key, long amount, int day, int month) {
+            int i = find(key);
+            if (i < 0) {
+                return;
+            }
+            if (days[i] == day) {
+                daySpent[i] = Math.max(0, daySpent[i] - amount);
+            }
+            if (months[i] == month) {
+                monthSpent[i] = Math.max(0, monthSpent[i] - amount);
+            }
+            dirty[i] = true;
+        }
+
+        synchronized void add(long key, long daySpentDelta, long monthSpentDelta, int day, int month) {
+            int i = slotFor(key);
+            roll(i, day, month);
+            daySpent[i] += daySpentDelta;
+            monthSpent[i] += monthSpentDelta;
+        }
+
+        synchronized void setLimits(long key, long daily, long monthly) {
+            int i = slotFor(key);
+            dailyLimits[i] = daily;
+            monthlyLimits[i] = monthly;
+        }
+
+        synchronized long daySpent(long key, int day) {
+            int i = find(key);
+            return i >= 0 && days[i] == day ? daySpent[i] : 0;
+        }
+
+        synchronized long monthSpent(long key, int month) {
+            int i = find(key);
+            return i >= 0 && months[i] == month ? monthSpent[i] : 0;
+        }
+
+        synchronized long limit(long key, boolean daily) {
+            int i = find(key);
+            if (i < 0) {
+                return DEFAULT;
+            }
+            return daily ? dailyLimits[i] : monthlyLimits[i];
+        }
+
+        synchronized void markDirty(long key) {
+            int i = find(key);
+            if (i >= 0) {
+                dirty[i] = true;
+            }
+        }
+
+        synchronized void drainDirty(DirtyVisitor visitor) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY && dirty[i]) {
+                    dirty[i] = false;
+                    visitor.visit(keys[i], days[i], daySpent[i], months[i], monthSpent[i]);
+                }
+            }
+        }
+
+        private void roll(int i, int day, int month) {
+            if (days[i] != day) {
+                days[i] = day;
+                daySpent[i] = 0;
+            }
+            if (months[i] != month) {
+                months[i] = month;
+                monthSpent[i] = 0;
+            }
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            for (int i = (int) mix(key) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return i;
+                }
+                if (keys[i] == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        private int slotFor(long key) {
+            int i = find(key);
+            if (i >= 0) {
+                return i;
+            }
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            i = (int) mix(key) & mask;
+            while (keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            size++;
+            return i;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldDays = days;
+            long[] oldDaySpent = daySpent;
+            int[] oldMonths = months;
+            long[] oldMonthSpent = monthSpent;
+            long[] oldDailyLimits = dailyLimits;
+            long[] oldMonthlyLimits = monthlyLimits;
+            boolean[] oldDirty = dirty;
+
+            int capacity = oldKeys.length * 2;
+            keys = new long[capacity];
+            days = new int[capacity];
+            daySpent = new long[capacity];
+            months = new int[capacity];
+            monthSpent = new long[capacity];
+            dailyLimits = filled(capacity);
+            monthlyLimits = filled(capacity);
+            dirty = new boolean[capacity];
+
+            int mask = capacity - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == EMPTY) {
+                    continue;
+                }
+                int i = (int) mix(oldKeys[j]) & mask;
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                days[i] = oldDays[j];
+                daySpent[i] = oldDaySpent[j];
+                months[i] = oldMonths[j];
+                monthSpent[i] = oldMonthSpent[j];
+                dailyLimits[i] = oldDailyLimits[j];
+                monthlyLimits[i] = oldMonthlyLimits[j];
+                dirty[i] = oldDirty[j];
+            }
+        }
+
+        private static long[] filled(int capacity) {
+            long[] a = new long[capacity];
+            Arrays.fill(a, DEFAULT);
+            return a;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.LimitScope;
+import com.example.bankcards.entity.LimitSubjectId;
+import com.example.bankcards.entity.Money;
+import com.example.bankcards.entity.SpendingLimit;
+import com.example.bankcards.entity.SpendingUsage;
+import com.example.bankcards.repository.CardLedgerEntryRepository;
+import com.example.bankcards.repository.SpendingLimitRepository;
+import com.example.bankcards.repository.SpendingUsageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Лимиты расходов (списания и исходящие переводы) за сутки и календарный месяц — по карте и по владельцу.
+ * <p>
+ * Проверка не ходит в БД: текущие расходы лежат в памяти ({@link SpendingCounters}), проверка с резервированием
+ * суммы — одна операция под замком сегмента. Резерв делается внутри транзакции операции и снимается, если она
+ * откатилась. Счётчики раз в {@code flush-interval} сбрасываются в spending_usage, при старте поднимаются оттуда
+ * и досчитываются по журналу проводок после последнего сброса.
+ * <p>
+ * Счётчики живут в памяти узла: при нескольких узлах лимит соблюдается на каждом узле отдельно.
+ */
+@Service
+public class SpendingLimitService implements SmartLifecycle {
+    private static final int SEGMENTS = 64;
+
+    private final Logger logger = LoggerFactory.getLogger(SpendingLimitService.class);
+
+    private final SpendingLimitRepository limitRepository;
+    private final SpendingUsageRepository usageRepository;
+    private final CardLedgerEntryRepository ledgerRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final long cardDaily;
+    private final long cardMonthly;
+    private final long ownerDaily;
+    private final long ownerMonthly;
+
+    private final SpendingCounters cards = new SpendingCounters(SEGMENTS);
+    private final SpendingCounters owners = new SpendingCounters(SEGMENTS);
+    private volatile boolean running;
+
+    public SpendingLimitService(SpendingLimitRepository limitRepository,
+                                SpendingUsageRepository usageRepository,
+                                CardLedgerEntryRepository ledgerRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.cards.limits.card-daily:}") BigDecimal cardDaily,
+                                @Value("${app.cards.limits.card-monthly:}") BigDecimal cardMonthly,
+                                @Value("${app.cards.limits.owner-daily:}") BigDecimal ownerDaily,
+                                @Value("${app.cards.limits.owner-monthly:}") BigDecimal ownerMonthly) {
+        this.limitRepository = limitRepository;
+        this.usageRepository = usageRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cardDaily = toLimit(cardDaily);
+        this.cardMonthly = toLimit(cardMonthly);
+        this.ownerDaily = toLimit(ownerDaily);
+        this.ownerMonthly = toLimit(ownerMonthly);
+    }
+
+    /**
+     * Проверяет лимиты карты и владельца и резервирует сумму. Превышение — 409, ничего не зарезервировано.
+     * Внутри транзакции резерв автоматически снимается при её откате.
+     */
+    public Reservation reserve(Long ownerId, Long cardId, long amountMinor) {
+        LocalDate today = LocalDate.now();
+        int day = dayIndex(today);
+        int month = monthIndex(today);
+
+        int cardResult = cards.tryReserve(cardId, amountMinor, day, month, cardDaily, cardMonthly);
+        if (cardResult != SpendingCounters.OK) {
+            throw limitExceeded(cardResult, "card");
+        }
+        int ownerResult = owners.tryReserve(ownerId, amountMinor, day, month, ownerDaily, ownerMonthly);
+        if (ownerResult != SpendingCounters.OK) {
+            cards.release(cardId, amountMinor, day, month);
+            throw limitExceeded(ownerResult, "owner");
+        }
+
+        Reservation reservation = new Reservation(ownerId, cardId, amountMinor, day, month);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(reservation);
+                    }
+                }
+            });
+        }
+        return reservation;
+    }
+
+    /**
+     * Досрочно возвращает резерв (операция не применена, а транзакция всё равно коммитится). Повтор — без эффекта.
+     */
+    public void release(Reservation reservation) {
+        if (reservation == null || reservation.released) {
+            return;
+        }
+        reservation.released = true;
+        cards.release(reservation.cardId, reservation.amountMinor, reservation.day, reservation.month);
+        owners.release(reservation.ownerId, reservation.amountMinor, reservation.day, reservation.month);
+    }
+
+    /**
+     * Лимиты и расход карты для ответа API; лимит null — без ограничения.
+     */
+    public CardSpending cardSpending(Long cardId) {
+        LocalDate today = LocalDate.now();
+        long daily = effective(cards.dailyLimit(cardId), cardDaily);
+        long monthly = effective(cards.monthlyLimit(cardId), cardMonthly);
+        return new CardSpending(
+                daily == SpendingCounters.UNLIMITED ? null : Money.toDecimal(daily),
+                monthly == SpendingCounters.UNLIMITED ? null : Money.toDecimal(monthly),
+                Money.toDecimal(cards.daySpent(cardId, dayIndex(today))),
+                Money.toDecimal(cards.monthSpent(cardId, monthIndex(today))));
+    }
+
+    /**
+     * Собственные лимиты карты или владельца; null — без лимита. Действуют в памяти после коммита.
+     * Вызывается внутри транзакции администратора.
+     */
+    public void setLimits(LimitScope scope, Long subjectId, BigDecimal daily, BigDecimal monthly) {
+        long dailyMinor = toLimit(daily);
+        long monthlyMinor = toLimit(monthly);
+        SpendingLimit limit = limitRepository.findById(new LimitSubjectId(scope, subjectId))
+                .orElseGet(() -> new SpendingLimit(scope, subjectId));
+        limit.update(daily, monthly);
+        limitRepository.save(limit);
+        afterCommit(() -> counters(scope).setLimits(subjectId, dailyMinor, monthlyMinor));
+    }
+
+    /**
+     * Сбрасывает собственные лимиты: снова действуют лимиты по умолчанию.
+     */
+    public void clearLimits(LimitScope scope, Long subjectId) {
+        limitRepository.deleteById(new LimitSubjectId(scope, subjectId));
+        afterCommit(() -> counters(scope).setLimits(subjectId, SpendingCounters.DEFAULT, SpendingCounters.DEFAULT));
+    }
+
+    /**
+     * Записывает изменившиеся счётчики текущего месяца. Если запись не удалась, записи снова помечаются
+     * изменёнными и уйдут при следующем сбросе.
+     */
+    @Scheduled(fixedDelayString = "${app.cards.limits.flush-interval:PT30S}",
+            initialDelayString = "${app.cards.limits.flush-interval:PT30S}")
+    public synchronized void flush() {
+        LocalDateTime asOf = LocalDateTime.now();
+        LocalDate monthStart = asOf.toLocalDate().withDayOfMonth(1);
+        Map<LimitSubjectId, long[]> dirty = drainDirty();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                usageRepository.deleteAllByMonthBefore(monthStart);
+                write(dirty, monthStart, asOf);
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Failed to flush {} spending counters, will retry", dirty.size(), e);
+            dirty.keySet().forEach(id -> counters(id.getScope()).markDirty(id.getSubjectId()));
+        }
+    }
+
+    /**
+     * Последний сброс при остановке: только изменившиеся счётчики, без чистки прошлых месяцев — её сделает
+     * плановый сброс. Ничего не изменилось — в базу не ходим. Неудача не теряет расход: при старте
+     * {@link #rebuild} досчитывает его по журналу после последнего сброса.
+     */
+    synchronized void flushOnStop() {
+        Map<LimitSubjectId, long[]> dirty = drainDirty();
+        if (dirty.isEmpty()) {
+            return;
+        }
+        LocalDateTime asOf = LocalDateTime.now();
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(dirty, asOf.toLocalDate().withDayOfMonth(1), asOf));
+        } catch (RuntimeException e) {
+            logger.info("Final flush of {} spending counters failed, they will be rebuilt from the ledger", dirty.size());
+            logger.debug("Final spending counters flush failed", e);
+        }
+    }
+
+    private Map<LimitSubjectId, long[]> drainDirty() {
+        Map<LimitSubjectId, long[]> dirty = new HashMap<>();
+        cards.drainDirty((key, day, daySpent, month, monthSpent) ->
+                dirty.put(new LimitSubjectId(LimitScope.CARD, key), new long[]{day, daySpent, month, monthSpent}));
+        owners.drainDirty((key, day, daySpent, month, monthSpent) ->
+                dirty.put(new LimitSubjectId(LimitScope.OWNER, key), new long[]{day, daySpent, month, monthSpent}));
+        return dirty;
+    }
+
+    private void write(Map<LimitSubjectId, long[]> dirty, LocalDate monthStart, LocalDateTime asOf) {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Map<LimitSubjectId, SpendingUsage> rows = new HashMap<>();
+        usageRepository.findAllById(dirty.keySet())
+                .forEach(u -> rows.put(new LimitSubjectId(u.getScope(), u.getSubjectId()), u));
+        List<SpendingUsage> changed = new ArrayList<>(dirty.size());
+        dirty.forEach((id, v) -> {
+            SpendingUsage row = rows.get(id);
+            if (row == null) {
+                row = new SpendingUsage(id.getScope(), id.getSubjectId());
+            }
+            row.update(LocalDate.ofEpochDay(v[0]), v[1], monthStart((int) v[2]), v[3], asOf);
+            changed.add(row);
+        });
+        usageRepository.saveAll(changed);
+    }
+
+    /**
+     * Поднимает лимиты и счётчики: строки spending_usage текущего месяца плюс проводки журнала после
+     * последнего сброса. Проводки около момента сброса могут учесться дважды — лимит лишь строже, не мягче.
+     */
+    void rebuild() {
+        LocalDate today = LocalDate.now();
+        int day = dayIndex(today);
+        int month = monthIndex(today);
+        LocalDate monthStart = today.withDayOfMonth(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (SpendingLimit limit : limitRepository.findAll()) {
+                counters(limit.getScope()).setLimits(limit.getSubjectId(),
+                        toLimit(limit.getDailyLimit()), toLimit(limit.getMonthlyLimit()));
+            }
+
+            LocalDateTime from = monthStart.atStartOfDay();
+            for (SpendingUsage usage : usageRepository.findAllByMonth(monthStart)) {
+                long daySpent = today.equals(usage.getDay()) ? usage.getDaySpent() : 0;
+                counters(usage.getScope()).add(usage.getSubjectId(), daySpent, usage.getMonthSpent(), day, month);
+                if (usage.getAsOf().isAfter(from)) {
+                    from = usage.getAsOf();
+                }
+            }
+
+            List<Object[]> deltas = ledgerRepository.sumSpendingByCardSince(from, today.atStartOfDay());
+            for (Object[] row : deltas) {
+                long daySpent = Money.toMinorUnits((BigDecimal) row[2]);
+                long monthSpent = Money.toMinorUnits((BigDecimal) row[3]);
+                cards.add((Long) row[0], daySpent, monthSpent, day, month);
+                owners.add((Long) row[1], daySpent, monthSpent, day, month);
+            }
+            logger.info("Spending counters rebuilt from ledger since {}: {} cards", from, deltas.size());
+        });
+    }
+
+    @Override
+    public void start() {
+        rebuild();
+        running = true;
+    }
+
+    /**
+     * Последний сброс счётчиков при остановке.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        flushOnStop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Раньше веб-сервера: первые запросы уже видят восстановленные счётчики, а останавливаемся после него.
+     * Фазы останавливаются до уничтожения бинов, так что последний сброс идёт при живых JPA и пуле соединений.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private SpendingCounters counters(LimitScope scope) {
+        return scope == LimitScope.CARD ? cards : owners;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static ResponseStatusException limitExceeded(int result, String subject) {
+        String window = result == SpendingCounters.DAILY_EXCEEDED ? "Daily" : "Monthly";
+        return new ResponseStatusException(HttpStatus.CONFLICT, window + " " + subject + " spending limit exceeded");
+    }
+
+    private static long toLimit(BigDecimal limit) {
+        return limit == null ? SpendingCounters.UNLIMITED : Money.toMinorUnits(limit);
+    }
+
+    private static long effective(long own, long fallback) {
+        return own == SpendingCounters.DEFAULT ? fallback : own;
+    }
+
+    private static int dayIndex(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+
+    private static int monthIndex(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private static LocalDate monthStart(int monthIndex) {
+        return LocalDate.of(monthIndex / 12, monthIndex % 12 + 1, 1);
+    }
+
+    /**
+     * Зарезервированная сумма одной операции.
+     */
+    public static final class Reservation {
+        private final Long ownerId;
+        private final Long cardId;
+        private final long amountMinor;
+        private final int day;
+        private final int month;
+        private boolean released;
+
+        private Reservation(Long ownerId, Long cardId, long amountMinor, int day, int month) {
+            this.ownerId = ownerId;
+            this.cardId = cardId;
+            this.amountMinor = amountMinor;
+            this.day = day;
+            this.month = month;
+        }
+    }
+
+    /**
+     * @param dailyLimit   действующий лимит на сутки (свой или по умолчанию), null — без лимита
+     * @param monthlyLimit то же на месяц
+     */
+    public record CardSpending(BigDecimal dailyLimit, BigDecimal monthlyLimit, BigDecimal spentToday,
+                               BigDecimal spentThisMonth) {
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.StatementCheckpoint;
+import com.example.bankcards.repository.StatementCheckpointRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Ежемесячные выписки по картам (CSV и JSON Lines) из журнала проводок.
+ * <p>
+ * Строки журнала читаются потоково (forward-only курсор с fetch size) в порядке owner → card → время,
+ * поэтому в каждый момент открыт файл только одной карты и память не зависит от числа карт и владельцев.
+ * Владельцы делятся на партиции по диапазонам id, партиции обрабатываются параллельно; после каждого
+ * владельца прогресс фиксируется в statement_checkpoint, и упавший прогон продолжается с места остановки.
+ * <p>
+ * Готовые файлы лежат в {@code {dir}/{yyyy-MM}/{ownerId}/{cardId}.csv|.jsonl} и отдаются без обращения к БД.
+ */
+@Service
+public class StatementService {
+    public static final String CSV = "csv";
+    public static final String JSONL = "jsonl";
+
+    private static final String CSV_HEADER = "entry_id,created_at,operation_id,type,amount,balance_after,counterparty_card_id\n";
+
+    // LEFT JOIN: выписка (пусть и пустая) нужна каждой карте, даже без движений за месяц
+    private static final String STREAM_SQL = """
+            SELECT c.owner_id, c.id AS card_id, e.id AS entry_id, e.created_at, e.operation_id,
+                   e.entry_type, e.amount, e.balance_after, e.counterparty_card_id
+            FROM card c
+            LEFT JOIN card_ledger_entry e
+                   ON e.card_id = c.id AND e.created_at >= ? AND e.created_at < ?
+            WHERE c.owner_id > ? AND c.owner_id <= ?
+            ORDER BY c.owner_id, c.id, e.created_at, e.id
+            """;
+
+    private final Logger logger = LoggerFactory.getLogger(StatementService.class);
+
+    private final StatementCheckpointRepository checkpointRepository;
+    private final JdbcTemplate streamingJdbc;
+    private final TransactionTemplate readOnlyTx;
+    private final TransactionTemplate checkpointTx;
+    private final Path root;
+    private final int partitions;
+
+    public StatementService(StatementCheckpointRepository checkpointRepository,
+                            DataSource dataSource,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.statements.dir:./statements}") String dir,
+                            @Value("${app.statements.partitions:4}") int partitions,
+                            @Value("${app.statements.fetch-size:1000}") int fetchSize) {
+        this.checkpointRepository = checkpointRepository;
+        this.streamingJdbc = new JdbcTemplate(dataSource);
+        this.streamingJdbc.setFetchSize(fetchSize);
+        // PostgreSQL отдаёт строки порциями по fetch size только внутри транзакции (autocommit off)
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        // отметки прогресса фиксируются сразу, независимо от длинной читающей транзакции партиции
+        this.checkpointTx = new TransactionTemplate(transactionManager);
+        this.checkpointTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.root = Path.of(dir);
+        this.partitions = partitions;
+    }
+
+    /**
+     * Выписки за прошедший месяц. Запуск по умолчанию — 1-го числа в 03:00.
+     */
+    @Scheduled(cron = "${app.statements.cron:0 0 3 1 * *}")
+    public void generatePreviousMonth() {
+        generate(YearMonth.now().minusMonths(1));
+    }
+
+    public void generate(YearMonth period) {
+        List<StatementCheckpoint> checkpoints = checkpointsFor(period);
+        List<StatementCheckpoint> pending = checkpoints.stream().filter(c -> !c.isCompleted()).toList();
+        if (pending.isEmpty()) {
+            logger.info("Statements for {} are already generated", period);
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(pending.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>(pending.size());
+            for (StatementCheckpoint checkpoint : pending) {
+                futures.add(pool.submit(() -> runPartition(period, checkpoint)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            logger.info("Statements for {} generated ({} partitions)", period, pending.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // незавершённые партиции продолжатся при следующем запуске
+            logger.error("Statement generation for {} failed", period, e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Путь к готовой выписке. Владелец входит в путь, поэтому чужую карту не найти и без запроса к БД.
+     */
+    public Path getStatement(Long ownerId, Long cardId, String period, String format) {
+        if (!CSV.equals(format) && !JSONL.equals(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format must be csv or jsonl");
+        }
+        YearMonth month;
+        try {
+            month = YearMonth.parse(period);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Period must be yyyy-MM");
+        }
+        Path file = ownerDir(month, ownerId).resolve(cardId + "." + format);
+        if (!Files.isRegularFile(file)) {
+            throw new EntityNotFoundException("Statement not found");
+        }
+        return file;
+    }
+
+    private List<StatementCheckpoint> checkpointsFor(YearMonth period) {
+        String key = period.toString();
+        List<StatementCheckpoint> existing = checkpointRepository.findAllByPeriodOrderByPartitionNo(key);
+        if (!existing.isEmpty()) {
+            return existing;
+        }
+
+        Long[] bounds = streamingJdbc.queryForObject("SELECT MIN(id), MAX(id) FROM owner",
+                (rs, n) -> new Long[]{rs.getObject(1, Long.class), rs.getObject(2, Long.class)});
+        if (bounds == null || bounds[0] == null) {
+            return List.of();
+        }
+        long from = bounds[0] - 1;
+        long span = Math.max(1, (bounds[1] - from + partitions - 1) / partitions);
+        List<StatementCheckpoint> created = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions && from < bounds[1]; i++) {
+            long to = Math.min(from + span, bounds[1]);
+            created.add(new StatementCheckpoint(key, i, from, to));
+            from = to;
+        }
+        return checkpointRepository.saveAll(created);
+    }
+
+    private void runPartition(YearMonth period, StatementCheckpoint checkpoint) {
+        LocalDateTime start = period.atDay(1).atStartOfDay();
+        LocalDateTime end = period.plusMonths(1).atDay(1).atStartOfDay();
+
+        PartitionWriter writer = new PartitionWriter(period, checkpoint.getPartitionNo());
+        try {
+            readOnlyTx.executeWithoutResult(status -> streamingJdbc.query(STREAM_SQL, writer,
+                    Timestamp.valueOf(start), Timestamp.valueOf(end),
+                    checkpoint.getLastOwnerId(), checkpoint.getRangeTo()));
+            writer.finish();
+        } finally {
+            writer.abandon();
+        }
+        checkpointTx.executeWithoutResult(status -> checkpointRepository.markCompleted(
+                period.toString(), checkpoint.getPartitionNo(), LocalDateTime.now()));
+    }
+
+    private Path ownerDir(YearMonth period, Long ownerId) {
+        return root.resolve(period.toString()).resolve(String.valueOf(ownerId));
+    }
+
+    /**
+     * Принимает отсортированный поток строк партиции. Смена карты закрывает её файлы,
+     * смена владельца — ещё и продвигает checkpoint.
+     */
+    private final class PartitionWriter implements RowCallbackHandler {
+        private final YearMonth period;
+        private final int partitionNo;
+        private Long currentOwner;
+        private long currentCard = -1;
+        private CardStatementFiles files;
+
+        private PartitionWriter(YearMonth period, int partitionNo) {
+            this.period = period;
+            this.partitionNo = partitionNo;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long ownerId = rs.getLong("owner_id");
+            long cardId = rs.getLong("card_id");
+            try {
+                if (cardId != currentCard) {
+                    commitCard();
+                    if (currentOwner != null && currentOwner != ownerId) {
+                        checkpoint(currentOwner);
+                    }
+                    currentOwner = ownerId;
+                    currentCard = cardId;
+                    files = new CardStatementFiles(ownerDir(period, ownerId), cardId);
+                }
+                long entryId = rs.getLong("entry_id");
+                if (!rs.wasNull()) {
+                    files.write(entryId, rs);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void finish() {
+            try {
+                commitCard();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (currentOwner != null) {
+                checkpoint(currentOwner);
+            }
+        }
+
+        void abandon() {
+            if (files != null) {
+                files.discard();
+                files = null;
+            }
+        }
+
+        private void commitCard() throws IOException {
+            if (files != null) {
+                files.commit();
+                files = null;
+            }
+        }
+
+        private void checkpoint(long ownerId) {
+            checkpointTx.executeWithoutResult(status -> checkpointRepository.advance(
+                    period.toString(), partitionNo, ownerId, LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Файлы выписки одной карты. Пишутся во временные *.part через буферизованные каналы
+     * и атомарно переименовываются в commit() — скачивание никогда не увидит половину файла.
+     */
+    private static final class CardStatementFiles implements Closeable {
+        private final Path csv;
+        private final Path jsonl;
+        private final Path csvPart;
+        private final Path jsonlPart;
+        private final Writer csvWriter;
+        private final Writer jsonlWriter;
+        private final long cardId;
+
+        CardStatementFiles(Path dir, long cardId) throws IOException {
+            Files.createDirectories(dir);
+            this.cardId = cardId;
+            this.csv = dir.resolve(cardId + "." + CSV);
+            this.jsonl = dir.resolve(cardId + "." + JSONL);
+            this.csvPart = dir.resolve(cardId + "." + CSV + ".part");
+            this.jsonlPart = dir.resolve(cardId + "." + JSONL + ".part");
+            this.csvWriter = open(csvPart);
+            this.jsonlWriter = open(jsonlPart);
+            csvWriter.write(CSV_HEADER);
+        }
+
+        private static Writer open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            return new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        void write(long entryId, ResultSet rs) throws SQLException, IOException {
+            String createdAt = rs.getTimestamp("created_at").toLocalDateTime().toString();
+            String operationId = rs.getString("operation_id");
+            String type = rs.getString("entry_type");
+            String amount = rs.getBigDecimal("amount").toPlainString();
+            String balanceAfter = rs.getBigDecimal("balance_after").toPlainString();
+            long counterparty = rs.getLong("counterparty_card_id");
+            String counterpartyId = rs.wasNull() ? null : String.valueOf(counterparty);
+
+            csvWriter.append(String.valueOf(entryId)).append(',')
+                    .append(createdAt).append(',')
+                    .append(operationId).append(',')
+                    .append(type).append(',')
+                    .append(amount).append(',')
+                    .append(balanceAfter).append(',')
+                    .append(counterpartyId != null ? counterpartyId : "").append('\n');
+
+            // все значения — числа, UUID, enum и ISO-даты: экранирование JSON не требуется
+            jsonlWriter.append("{\"entryId\":").append(String.valueOf(entryId))
+                    .append(",\"cardId\":").append(String.valueOf(cardId))
+                    .append(",\"createdAt\":\"").append(createdAt)
+                    .append("\",\"operationId\":\"").append(operationId)
+                    .append("\",\"type\":\"").append(type)
+                    .append("\",\"amount\":").append(amount)
+                    .append(",\"balanceAfter\":").append(balanceAfter)
+                    .append(",\"counterpartyCardId\":").append(counterpartyId != null ? counterpartyId : "null")
+                    .append("}\n");
+        }
+
+        void commit() throws IOException {
+            close();
+            Files.move(csvPart, csv, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(jsonlPart, jsonl, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        void discard() {
+            try {
+                close();
+                Files.deleteIfExists(csvPart);
+                Files.deleteIfExists(jsonlPart);
+            } catch (IOException ignored) {
+                // *.part перезапишется при повторном прогоне
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                csvWriter.close();
+            } finally {
+                jsonlWriter.close();
+            }
+        }
+    }
+}
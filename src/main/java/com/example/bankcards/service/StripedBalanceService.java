@@ -0,0 +1,142 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardBalanceSlot;
+import com.example.bankcards.entity.Money;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * «Полосатый» баланс горячих карт: пополнения идут в одну из N строк card_balance_slot,
+ * списания и переводы сначала сливают полосы в card.balance под блокировкой.
+ * <p>
+ * Какие карты полосатые, кэшируется в памяти. Кэш может отставать (режим переключили на другом узле) —
+ * CardService в этом случае получает 0 обновлённых строк, перечитывает карту и вызывает {@link #refresh(Card)}.
+ */
+@Service
+public class StripedBalanceService {
+    public static final int MAX_SLOTS = 64;
+
+    private final CardBalanceSlotRepository slotRepository;
+    private final boolean hashStrategy;
+    private final Map<Long, Integer> stripedCards = new ConcurrentHashMap<>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    public StripedBalanceService(CardBalanceSlotRepository slotRepository,
+                                 @Value("${app.cards.striping.strategy:ROUND_ROBIN}") String strategy) {
+        this.slotRepository = slotRepository;
+        this.hashStrategy = "HASH".equalsIgnoreCase(strategy);
+    }
+
+    public boolean isStriped(Long cardId) {
+        return stripedCards.containsKey(cardId);
+    }
+
+    /**
+     * Синхронизирует кэш с только что прочитанной картой.
+     *
+     * @return true, если кэш отличался — значит, операцию имеет смысл повторить по другому пути
+     */
+    public boolean refresh(Card card) {
+        Integer actual = card.isStriped() ? (int) card.getBalanceSlots() : null;
+        Integer cached = actual != null
+                ? stripedCards.put(card.getId(), actual)
+                : stripedCards.remove(card.getId());
+        return actual == null ? cached != null : !actual.equals(cached);
+    }
+
+    /**
+     * @return false, если карта не полосатая (по кэшу или по факту), чужая или заблокирована
+     */
+    public boolean depositToSlot(Long ownerId, Long cardId, BigDecimal amount) {
+        Integer slots = stripedCards.get(cardId);
+        if (slots == null) {
+            return false;
+        }
+        return slotRepository.addToSlot(cardId, ownerId, pickSlot(slots), amount) > 0;
+    }
+
+    /**
+     * Полный баланс карты: консолидированная часть плюс полосы.
+     */
+    public BigDecimal totalBalance(Card card) {
+        return Money.toDecimal(totalBalanceMinorUnits(card));
+    }
+
+    /**
+     * То же в минорных единицах: у обычной карты — без выделений.
+     */
+    public long totalBalanceMinorUnits(Card card) {
+        if (!card.isStriped()) {
+            return card.getBalanceMinorUnits();
+        }
+        return Math.addExact(card.getBalanceMinorUnits(), Money.toMinorUnits(slotRepository.sumByCardId(card.getId())));
+    }
+
+    /**
+     * Сливает полосы в card.balance. Карта должна быть заблокирована вызывающим (SELECT ... FOR UPDATE),
+     * полосы блокируются здесь по возрастанию номера. Изменения уходят при flush вместе с картой.
+     */
+    public void consolidate(Card lockedCard) {
+        if (!lockedCard.isStriped()) {
+            return;
+        }
+        BigDecimal collected = BigDecimal.ZERO;
+        for (CardBalanceSlot slot : slotRepository.lockAllByCardId(lockedCard.getId())) {
+            if (slot.getBalance().signum() != 0) {
+                collected = collected.add(slot.getBalance());
+                slot.setBalance(BigDecimal.ZERO);
+            }
+        }
+        if (collected.signum() != 0) {
+            lockedCard.setBalance(lockedCard.getBalance().add(collected));
+        }
+    }
+
+    /**
+     * Меняет число полос (0 — выключить). Карта должна быть заблокирована вызывающим.
+     * Существующие строки переиспользуются: Hibernate выполняет INSERT раньше DELETE,
+     * поэтому «удалить всё и создать заново» упёрлось бы в первичный ключ.
+     */
+    public void restripe(Card lockedCard, int slots) {
+        if (slots < 0 || slots > MAX_SLOTS) {
+            throw new IllegalArgumentException("slots must be between 0 and " + MAX_SLOTS);
+        }
+        consolidate(lockedCard);
+
+        List<CardBalanceSlot> existing = slotRepository.lockAllByCardId(lockedCard.getId());
+        List<CardBalanceSlot> toDelete = new ArrayList<>();
+        for (CardBalanceSlot slot : existing) {
+            if (slot.getSlot() >= slots) {
+                toDelete.add(slot);
+            }
+        }
+        slotRepository.deleteAll(toDelete);
+
+        List<CardBalanceSlot> toCreate = new ArrayList<>();
+        for (int i = existing.size() - toDelete.size(); i < slots; i++) {
+            toCreate.add(new CardBalanceSlot(lockedCard.getId(), (short) i));
+        }
+        slotRepository.saveAll(toCreate);
+
+        lockedCard.setBalanceSlots((short) slots);
+        refresh(lockedCard);
+    }
+
+    private short pickSlot(int slots) {
+        if (hashStrategy) {
+            // один и тот же поток стабильно попадает в свою полосу
+            long h = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+            return (short) Math.floorMod(Long.hashCode(h), slots);
+        }
+        return (short) Math.floorMod(roundRobin.getAndIncrement(), slots);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Owner;
+import com.example.bankcards.entity.RevokedToken;
+import com.example.bankcards.repository.OwnerRepository;
+import com.example.bankcards.repository.RevokedTokenRepository;
+import com.example.bankcards.security.OwnerStatusCache;
+import com.example.bankcards.security.RevokedTokenSet;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Отзыв access-токенов до истечения их срока.
+ * <p>
+ * Отдельный токен отзывается по claim jti: строка в revoked_token живёт до истечения токена, а
+ * {@link com.example.bankcards.security.JWTFilter} проверяет jti по {@link RevokedTokenSet} в памяти.
+ * Отзыв на этом узле виден сразу после коммита; другие узлы дочитывают новые строки раз в
+ * {@code refresh-interval} (с перекрытием {@code refresh-overlap} на расхождение часов и долгие коммиты).
+ * <p>
+ * Все токены клиента отзываются отметкой owner.tokens_valid_after: токены с iat не позже неё отклоняет
+ * {@link OwnerStatusCache}, а сброс его записи расходится по узлам через шину кэша.
+ */
+@Service
+public class TokenRevocationService implements SmartLifecycle {
+    private final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final OwnerRepository ownerRepository;
+    private final OwnerStatusCache ownerStatusCache;
+    private final TransactionTemplate readOnlyTemplate;
+    private final RevokedTokenSet revoked;
+    private final Duration refreshOverlap;
+
+    /** До какого момента (по часам этого узла) отзывы уже прочитаны; null — ещё ни разу. */
+    private LocalDateTime refreshedUpTo;
+    private volatile boolean running;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  OwnerRepository ownerRepository,
+                                  OwnerStatusCache ownerStatusCache,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.security.revocation.expected-tokens:100000}") int expectedTokens,
+                                  @Value("${app.security.revocation.refresh-overlap:PT1M}") Duration refreshOverlap) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.ownerRepository = ownerRepository;
+        this.ownerStatusCache = ownerStatusCache;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.revoked = new RevokedTokenSet(expectedTokens);
+        this.refreshOverlap = refreshOverlap;
+    }
+
+    /**
+     * Горячий путь каждого запроса: без блокировок и выделения памяти, пока токен не отозван.
+     */
+    public boolean isRevoked(String jti) {
+        return revoked.contains(jti);
+    }
+
+    /**
+     * Отзывает один токен. Повторный отзыв того же jti ничего не меняет.
+     */
+    @Transactional
+    public void revoke(Long ownerId, String jti, Instant expiresAt) {
+        if (!revokedTokenRepository.existsById(jti)) {
+            revokedTokenRepository.save(new RevokedToken(jti, ownerId,
+                    LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()), LocalDateTime.now()));
+        }
+        long expiresAtMillis = expiresAt.toEpochMilli();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revoked.add(jti, expiresAtMillis);
+                }
+            });
+        } else {
+            revoked.add(jti, expiresAtMillis);
+        }
+    }
+
+    /**
+     * Отзывает все токены клиента, выпущенные до этого момента. Новый вход выдаёт действующий токен.
+     */
+    @Transactional
+    public void revokeAll(Long ownerId) {
+        Owner owner = ownerRepository.findById(ownerId)
+                .orElseThrow(() -> new EntityNotFoundException("Owner with id " + ownerId + " not found"));
+        owner.setTokensValidAfter(LocalDateTime.now());
+        ownerRepository.save(owner);
+        ownerStatusCache.invalidate(ownerId);
+    }
+
+    /**
+     * Дочитывает отзывы с других узлов. Первый вызов загружает все неистёкшие.
+     * Синхронизирован: медленное чтение не откатит {@code refreshedUpTo} назад после быстрого.
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.refresh-interval:PT5S}",
+            initialDelayString = "${app.security.revocation.refresh-interval:PT5S}")
+    public synchronized void refresh() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        try {
+            List<RevokedToken> rows = readOnlyTemplate.execute(status -> refreshedUpTo == null
+                    ? revokedTokenRepository.findByExpiresAtAfter(startedAt)
+                    : revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(
+                            refreshedUpTo.minus(refreshOverlap), startedAt));
+            for (RevokedToken t : rows) {
+                revoked.add(t.getJti(), t.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+            refreshedUpTo = startedAt;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh revoked tokens, keeping {} in memory", revoked.size(), e);
+        }
+    }
+
+    /**
+     * Истёкшие токены отклоняет проверка exp — их отзыв больше не нужен ни в таблице, ни в памяти.
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.purge-interval:PT10M}",
+            initialDelayString = "${app.security.revocation.purge-interval:PT10M}")
+    public void purgeExpired() {
+        int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        int evicted = revoked.purgeExpired(System.currentTimeMillis());
+        logger.debug("Revoked tokens purged: {} rows, {} in memory", deleted, evicted);
+    }
+
+    @Override
+    public void start() {
+        refresh();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Раньше веб-сервера: первые запросы уже видят отзывы.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransferOperationDTO;
+import com.example.bankcards.dto.TransferOperationStatus;
+import com.example.bankcards.dto.TransferResponseDTO;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Асинхронные переводы для пиковой нагрузки (app.cards.transfer.async.enabled).
+ * <p>
+ * Запрос проверяется и кладётся в ограниченную очередь одного из воркеров; клиент сразу получает 202 и id операции.
+ * Партиция выбирается по владельцу: перевод возможен только между картами одного владельца, поэтому обе карты
+ * всегда обслуживает один и тот же воркер, и воркеры не конкурируют за строки card между собой.
+ * Воркер забирает из очереди до {@code group-size} операций и применяет их в одной транзакции (group commit).
+ * <p>
+ * Статусы операций хранятся в памяти узла и удаляются через {@code retention} после завершения.
+ */
+@Service
+public class TransferPipeline implements SmartLifecycle {
+    private final Logger logger = LoggerFactory.getLogger(TransferPipeline.class);
+
+    private final CardService cardService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int groupSize;
+    private final Duration retention;
+
+    private final List<BlockingQueue<TransferOperation>> partitions;
+    private final Map<UUID, TransferOperation> operations = new ConcurrentHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public TransferPipeline(CardService cardService,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.cards.transfer.async.enabled:false}") boolean enabled,
+                            @Value("${app.cards.transfer.async.workers:4}") int workers,
+                            @Value("${app.cards.transfer.async.queue-capacity:1024}") int queueCapacity,
+                            @Value("${app.cards.transfer.async.group-size:32}") int groupSize,
+                            @Value("${app.cards.transfer.async.retention:PT1H}") Duration retention) {
+        this.cardService = cardService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.groupSize = groupSize;
+        this.retention = retention;
+        this.partitions = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            partitions.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Проверяет запрос (400 — сразу) и ставит перевод в очередь партиции владельца.
+     * Блокировки карт, валюта и достаточность средств проверяются воркером — результат в статусе операции.
+     */
+    public TransferOperationDTO submit(Long ownerId, Long fromId, Long toId, BigDecimal amount) {
+        cardService.validateTransferRequest(fromId, toId, amount);
+
+        TransferOperation op = new TransferOperation(UUID.randomUUID(), ownerId, fromId, toId, amount);
+        // снимок до offer(): после него воркер может успеть завершить операцию, а ответ 202 — всегда PENDING
+        TransferOperationDTO accepted = op.toDto();
+        operations.put(op.id, op);
+        if (!running || !partitions.get(partitionOf(ownerId)).offer(op)) {
+            operations.remove(op.id);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transfer queue is full, please retry");
+        }
+        return accepted;
+    }
+
+    public Optional<TransferOperationDTO> find(Long ownerId, UUID operationId) {
+        TransferOperation op = operations.get(operationId);
+        // чужая операция неотличима от несуществующей
+        if (op == null || !op.ownerId.equals(ownerId)) {
+            return Optional.empty();
+        }
+        return Optional.of(op.toDto());
+    }
+
+    private int partitionOf(Long ownerId) {
+        return Math.floorMod(Long.hashCode(ownerId * 0x9E3779B97F4A7C15L), partitions.size());
+    }
+
+    private void runWorker(BlockingQueue<TransferOperation> queue) {
+        List<TransferOperation> group = new ArrayList<>(groupSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                TransferOperation first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, groupSize - 1);
+                applyGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Transfer worker failed on a group of {} operations", group.size(), e);
+                group.forEach(op -> op.reject(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Internal error"));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Вся группа — одна транзакция. Все карты группы блокируются сразу, одним запросом в порядке id,
+     * как в пакетном переводе. Бизнес-отказы не откатывают группу (бросаются до изменения карт);
+     * если же транзакция группы упала целиком (lock timeout, сбой БД), операции повторяются по одной.
+     */
+    private void applyGroup(List<TransferOperation> group) {
+        Set<Long> cardIds = new HashSet<>();
+        for (TransferOperation op : group) {
+            if (op.fromId != null) {
+                cardIds.add(op.fromId);
+            }
+            if (op.toId != null) {
+                cardIds.add(op.toId);
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                cardService.lockCardsForGroup(cardIds);
+                group.forEach(this::applyStaged);
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Group commit of {} transfers failed, applying one by one", group.size(), e);
+            group.forEach(TransferOperation::unstage);
+            for (TransferOperation op : group) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> applyStaged(op));
+                } catch (RuntimeException single) {
+                    op.unstage();
+                    op.reject(HttpStatus.SERVICE_UNAVAILABLE.value(), "Transfer failed, please retry");
+                }
+            }
+        }
+        // результаты становятся видны клиенту только после коммита
+        group.forEach(TransferOperation::publish);
+    }
+
+    private void applyStaged(TransferOperation op) {
+        try {
+            op.stage(cardService.applyTransfer(op.ownerId, op.fromId, op.toId, op.amount));
+        } catch (ResponseStatusException e) {
+            op.stageRejection(e.getStatusCode().value(), e.getReason());
+        } catch (EntityNotFoundException e) {
+            op.stageRejection(HttpStatus.NOT_FOUND.value(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cards.transfer.async.retention:PT1H}")
+    public void purgeFinished() {
+        LocalDateTime threshold = LocalDateTime.now().minus(retention);
+        operations.values().removeIf(op -> op.completedAt != null && op.completedAt.isBefore(threshold));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < partitions.size(); i++) {
+            BlockingQueue<TransferOperation> queue = partitions.get(i);
+            Thread worker = new Thread(() -> runWorker(queue), "transfer-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        logger.info("Async transfer pipeline started with {} workers", partitions.size());
+    }
+
+    /**
+     * Новые операции больше не принимаются, уже поставленные в очередь воркеры дорабатывают.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static final class TransferOperation {
+        private final UUID id;
+        private final Long ownerId;
+        private final Long fromId;
+        private final Long toId;
+        private final BigDecimal amount;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+
+        // staged* пишет и читает только поток воркера; опубликованные поля читают HTTP-потоки
+        private TransferResponseDTO stagedResult;
+        private Integer stagedErrorStatus;
+        private String stagedMessage;
+
+        private volatile TransferOperationStatus status = TransferOperationStatus.PENDING;
+        private volatile TransferResponseDTO result;
+        private volatile Integer errorStatus;
+        private volatile String message;
+        private volatile LocalDateTime completedAt;
+
+        private TransferOperation(UUID id, Long ownerId, Long fromId, Long toId, BigDecimal amount) {
+            this.id = id;
+            this.ownerId = ownerId;
+            this.fromId = fromId;
+            this.toId = toId;
+            this.amount = amount;
+        }
+
+        void stage(TransferResponseDTO result) {
+            this.stagedResult = result;
+        }
+
+        void stageRejection(int errorStatus, String message) {
+            this.stagedErrorStatus = errorStatus;
+            this.stagedMessage = message;
+        }
+
+        void unstage() {
+            this.stagedResult = null;
+            this.stagedErrorStatus = null;
+            this.stagedMessage = null;
+        }
+
+        void reject(int errorStatus, String message) {
+            stageRejection(errorStatus, message);
+            publish();
+        }
+
+        void publish() {
+            if (status != TransferOperationStatus.PENDING) {
+                return;
+            }
+            if (stagedErrorStatus != null) {
+                errorStatus = stagedErrorStatus;
+                message = stagedMessage;
+                completedAt = LocalDateTime.now();
+                status = TransferOperationStatus.REJECTED;
+            } else if (stagedResult != null) {
+                result = stagedResult;
+                completedAt = LocalDateTime.now();
+                status = TransferOperationStatus.COMPLETED;
+            }
+        }
+
+        TransferOperationDTO toDto() {
+            TransferOperationDTO dto = new TransferOperationDTO();
+            dto.setId(id);
+            // status пишется последним в publish(), поэтому читаем его первым
+            TransferOperationStatus current = status;
+            dto.setStatus(current);
+            dto.setCreatedAt(createdAt);
+            if (current != TransferOperationStatus.PENDING) {
+                dto.setCompletedAt(completedAt);
+                dto.setResult(result);
+                dto.setErrorStatus(errorStatus);
+                dto.setMessage(message);
+            }
+            return dto;
+        }
+    }
+}
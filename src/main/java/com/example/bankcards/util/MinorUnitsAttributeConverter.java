@@ -0,0 +1,28 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.entity.Money;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Минорные единицы (long) ↔ NUMERIC(19,2). В сущности баланс хранится как long: dirty checking сравнивает
+ * примитивы, а арифметика в сервисах не создаёт BigDecimal. Конвертация — только на границе с JDBC.
+ */
+@Converter
+public class MinorUnitsAttributeConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long minorUnits) {
+        if (minorUnits == null) return null;
+        return Money.toDecimal(minorUnits);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal dbData) {
+        if (dbData == null) return null;
+        // NUMERIC(19,2) шире long на последний порядок — такой баланс лучше уронить, чем исказить
+        return Money.toMinorUnits(dbData);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.util.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Метод целиком (вместе со своей транзакцией) перезапускается при конфликте версий {@code @Version}.
+ * Перехватчик стоит снаружи транзакционного, поэтому каждая попытка — новая транзакция.
+ * <p>
+ * Только для путей, где конфликт возможен: карта читается без блокировки и сохраняется через JPA
+ * (блокировка/разблокировка администратором). Пополнение, списание и переводы идут условным UPDATE
+ * или под FOR UPDATE — конфликта версий там не бывает, и повтор им не нужен.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnOptimisticLock {
+}
@@ -0,0 +1,77 @@
+package com.example.bankcards.util.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Повторяет вызов при OptimisticLockException с экспоненциальной задержкой и full jitter.
+ * Счётчики: cards.optimistic_lock.retries (каждый повтор) и cards.optimistic_lock.exhausted (попытки кончились).
+ */
+public class OptimisticLockRetryInterceptor implements MethodInterceptor {
+    private final Logger logger = LoggerFactory.getLogger(OptimisticLockRetryInterceptor.class);
+
+    private final int maxAttempts;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public OptimisticLockRetryInterceptor(int maxAttempts, Duration baseBackoff, Duration maxBackoff,
+                                          ObjectProvider<MeterRegistry> meterRegistry) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffNanos = baseBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String method = invocation.getMethod().getDeclaringClass().getSimpleName() + "." + invocation.getMethod().getName();
+        int attempt = 1;
+        while (true) {
+            // proceed() у MethodInvocation одноразовый — каждая попытка идёт по своей копии цепочки
+            MethodInvocation current = invocation instanceof ProxyMethodInvocation pmi && attempt > 1
+                    ? pmi.invocableClone()
+                    : invocation;
+            try {
+                return current.proceed();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    count("cards.optimistic_lock.exhausted", method);
+                    logger.warn("{}: optimistic lock conflict, giving up after {} attempts", method, attempt);
+                    throw e;
+                }
+                count("cards.optimistic_lock.retries", method);
+                logger.debug("{}: optimistic lock conflict, retry #{}", method, attempt);
+                backoff(attempt);
+                attempt++;
+            }
+        }
+    }
+
+    private void backoff(int attempt) throws InterruptedException {
+        long ceiling = Math.min(maxBackoffNanos, baseBackoffNanos << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        long nanos = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+    }
+
+    private void count(String name, String method) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Counter.builder(name).tag("method", method).register(registry).increment();
+        }
+    }
+}
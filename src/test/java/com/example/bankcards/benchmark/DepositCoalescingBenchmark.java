@@ -0,0 +1,145 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Owner;
+import com.example.bankcards.fixture.CardFixtures;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardBalanceWriter;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.OwnerRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.DepositCoalescer;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.StripedBalanceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Пополнения одной горячей карты: транзакция на запрос против group commit (DepositCoalescer).
+ * Печатает пропускную способность и p50/p99 задержки вызова.
+ * Не входит в обычный прогон, запуск: {@code mvn test -Dtest=DepositCoalescingBenchmark}.
+ * На H2 цифры показывают только относительный эффект, абсолютные — снимать на PostgreSQL.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DepositCoalescingBenchmark {
+
+    private static final int THREADS = 32;
+    private static final int DEPOSITS_PER_THREAD = 200;
+    private static final int WARMUP_PER_THREAD = 20;
+
+    private final Logger logger = LoggerFactory.getLogger(DepositCoalescingBenchmark.class);
+
+    @Autowired private CardService cardService;
+    @Autowired private CardRepository cardRepository;
+    @Autowired private CardBalanceWriter balanceWriter;
+    @Autowired private OwnerRepository ownerRepository;
+    @Autowired private CardFixtures fixtures;
+    @Autowired private LedgerService ledgerService;
+    @Autowired private StripedBalanceService stripedBalanceService;
+    @Autowired private CardMapper cardMapper;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanup() {
+        cardRepository.deleteAll();
+        ownerRepository.deleteAll();
+    }
+
+    @Test
+    void hotCardDepositLatencyAndThroughput() throws Exception {
+        Owner owner = fixtures.owner("coalesce-bench@example.com");
+        StringBuilder report = new StringBuilder(
+                "\nmode                  | deposits/s |  p50, ms |  p99, ms\n----------------------+------------+----------+---------\n");
+
+        DepositCoalescer perRequest = coalescer(false, Duration.ZERO, 1);
+        DepositCoalescer coalesced2ms = coalescer(true, Duration.ofMillis(2), 64);
+        DepositCoalescer coalesced500us = coalescer(true, Duration.ofNanos(500_000), 64);
+
+        String[] names = {"per-request", "coalesced 2ms/64", "coalesced 0.5ms/64"};
+        DepositCoalescer[] modes = {perRequest, coalesced2ms, coalesced500us};
+        for (int i = 0; i < modes.length; i++) {
+            Card card = fixtures.card(owner, String.format("%04d", 8000 + i));
+
+            run(modes[i], owner.getId(), card.getId(), WARMUP_PER_THREAD);
+            Result result = run(modes[i], owner.getId(), card.getId(), DEPOSITS_PER_THREAD);
+            report.append(String.format("%-21s | %10.0f | %8.2f | %8.2f%n",
+                    names[i], result.opsPerSecond, result.percentileMillis(50), result.percentileMillis(99)));
+
+            BigDecimal expected = BigDecimal.valueOf((long) THREADS * (WARMUP_PER_THREAD + DEPOSITS_PER_THREAD));
+            BigDecimal actual = cardRepository.findById(card.getId()).orElseThrow().getBalance();
+            assertEquals(0, expected.compareTo(actual), names[i]);
+        }
+        logger.info("{}", report);
+    }
+
+    private DepositCoalescer coalescer(boolean enabled, Duration window, int maxBatch) {
+        return new DepositCoalescer(cardService, cardRepository, balanceWriter, ledgerService, stripedBalanceService, cardMapper,
+                transactionManager, enabled, window, maxBatch);
+    }
+
+    private Result run(DepositCoalescer coalescer, Long ownerId, Long cardId, int perThread) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                SecurityContextHolder.getContext()
+                        .setAuthentication(new TestingAuthenticationToken("bench", null, "USER"));
+                try {
+                    start.await();
+                    long[] latencies = new long[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        long begin = System.nanoTime();
+                        coalescer.deposit(ownerId, cardId, BigDecimal.ONE);
+                        latencies[i] = System.nanoTime() - begin;
+                    }
+                    return latencies;
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        long[] all = new long[THREADS * perThread];
+        int offset = 0;
+        for (Future<long[]> f : futures) {
+            long[] latencies = f.get(5, TimeUnit.MINUTES);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+            offset += latencies.length;
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        pool.shutdown();
+        Arrays.sort(all);
+        return new Result(all.length / seconds, all);
+    }
+
+    private record Result(double opsPerSecond, long[] sortedLatencies) {
+        double percentileMillis(int p) {
+            int index = (int) Math.ceil(p / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.service.FraudRuleService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка правил антифрода на каждом списании, {@link FraudRuleService#check}: время одного вызова
+ * (p50/p99 по System.nanoTime) и байт на вызов. Отдельно — возраст карты прежним способом
+ * (Duration между LocalDateTime) и нынешним (миллисекунды создания, вычисленные при загрузке карты).
+ * p99 проверки должен укладываться в 100 мкс.
+ * Не входит в обычный прогон, запуск: {@code mvn test -Dtest=FraudCheckBenchmark}.
+ */
+class FraudCheckBenchmark {
+
+    private static final int CARDS = 4096;
+    private static final int WARMUP = 1_000_000;
+    private static final int ITERATIONS = 2_000_000;
+    private static final long P99_LIMIT_NANOS = 100_000;
+
+    private final Logger logger = LoggerFactory.getLogger(FraudCheckBenchmark.class);
+
+    @Test
+    void check() {
+        // окна в 1 мс: карта повторяется раз в CARDS вызовов, и ни одно правило не срабатывает — меряем
+        // проход по кольцу без исключений; суммы ниже порогов, половина карт моложе суток
+        FraudRuleService service = new FraudRuleService(null, null,
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), true, 16,
+                10, Duration.ofMillis(1), "BLOCK",
+                new BigDecimal("10000.00"), Duration.ofMillis(1), "BLOCK",
+                Duration.ofDays(1), new BigDecimal("1000.00"), "FLAG",
+                3, Duration.ofMillis(1), new BigDecimal("0.05"), "FLAG");
+        Card[] cards = new Card[CARDS];
+        for (int i = 0; i < CARDS; i++) {
+            cards[i] = new Card();
+            cards[i].setId((long) i + 1);
+            cards[i].setCreatedAt(LocalDateTime.now().minusHours(i % 2 == 0 ? 2 : 24 * 30));
+        }
+
+        StringBuilder report = new StringBuilder(
+                "\npath    |      ops/s | bytes/op | p50, ns | p99, ns\n--------+------------+----------+---------+--------\n");
+        report.append(measureAge("old-age", cards, FraudCheckBenchmark::durationAge));
+        report.append(measureAge("age", cards, FraudCheckBenchmark::millisAge));
+
+        long[] latencies = new long[ITERATIONS];
+        runChecks(service, cards, latencies, WARMUP);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long bytesBefore = mx.getThreadAllocatedBytes(thread);
+        long startedAt = System.nanoTime();
+        runChecks(service, cards, latencies, ITERATIONS);
+        long elapsed = System.nanoTime() - startedAt;
+        long bytes = mx.getThreadAllocatedBytes(thread) - bytesBefore;
+
+        Arrays.sort(latencies);
+        long p50 = latencies[ITERATIONS / 2];
+        long p99 = latencies[(int) (ITERATIONS * 0.99)];
+        report.append(String.format("%-7s | %10.0f | %8.1f | %7d | %7d%n", "check",
+                ITERATIONS / (elapsed / 1_000_000_000.0), bytes / (double) ITERATIONS, p50, p99));
+        logger.info("{}", report);
+        assertTrue(p99 < P99_LIMIT_NANOS, "fraud check p99 " + p99 + " ns");
+    }
+
+    private static void runChecks(FraudRuleService service, Card[] cards, long[] latencies, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            service.check(cards[i % CARDS], 1_00, 5_000_00);
+            latencies[i % latencies.length] = System.nanoTime() - start;
+        }
+    }
+
+    /** Прежний FraudRuleService.cardAgeMillis: Duration и LocalDateTime.now() на каждую проверку. */
+    private static long durationAge(Card card) {
+        LocalDateTime createdAt = card.getCreatedAt();
+        return createdAt == null ? -1 : Duration.between(createdAt, LocalDateTime.now()).toMillis();
+    }
+
+    private static long millisAge(Card card) {
+        long createdAt = card.getCreatedAtMillis();
+        return createdAt < 0 ? -1 : System.currentTimeMillis() - createdAt;
+    }
+
+    private String measureAge(String name, Card[] cards, Age age) {
+        runAge(cards, age, WARMUP);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long bytesBefore = mx.getThreadAllocatedBytes(thread);
+        long startedAt = System.nanoTime();
+        long sink = runAge(cards, age, ITERATIONS);
+        long elapsed = System.nanoTime() - startedAt;
+        long bytes = mx.getThreadAllocatedBytes(thread) - bytesBefore;
+        // все карты созданы не меньше двух часов назад: проверка заодно не даёт JIT выкинуть цикл
+        assertTrue(sink >= (long) ITERATIONS * Duration.ofHours(2).toMillis(), name);
+        return String.format("%-7s | %10.0f | %8.1f | %7s | %7s%n", name,
+                ITERATIONS / (elapsed / 1_000_000_000.0), bytes / (double) ITERATIONS, "-", "-");
+    }
+
+    private static long runAge(Card[] cards, Age age, int iterations) {
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            sink += age.millis(cards[i % CARDS]);
+        }
+        return sink;
+    }
+
+    @FunctionalInterface
+    private interface Age {
+        long millis(Card card);
+    }
+}
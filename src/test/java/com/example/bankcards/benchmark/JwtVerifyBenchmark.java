@@ -0,0 +1,84 @@
+package com.example.bankcards.benchmark;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.bankcards.security.JWTUtil;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Проверка access-токена на каждом запросе: прежний путь (алгоритм и верификатор на каждый вызов), общий
+ * верификатор без кэша (холодная проверка) и кэш проверенных токенов {@link JWTUtil}.
+ * Печатает операций в секунду и байт, выделенных на операцию.
+ * Не входит в обычный прогон, запуск: {@code mvn test -Dtest=JwtVerifyBenchmark}.
+ */
+class JwtVerifyBenchmark {
+
+    private static final String SECRET = "8f2e4b0093a94c35b6d17fcf0a51980485ae71b4f6f064f3869e7092e7b40acd";
+    private static final int TOKENS = 256;
+    private static final int WARMUP = 262_144;
+    private static final int ITERATIONS = 1_048_576;   // кратно TOKENS
+
+    private final Logger logger = LoggerFactory.getLogger(JwtVerifyBenchmark.class);
+
+    @Test
+    void verify() {
+        JWTUtil cold = new JWTUtil(SECRET, Duration.ofHours(1), 0);
+        JWTUtil cached = new JWTUtil(SECRET, Duration.ofHours(1), 4096);
+        // запросы приходят с разными токенами; каждая строка — новая, как из заголовка
+        String[] tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = cold.generateAccessToken((long) i, "user" + i + "@example.com", "USER");
+        }
+
+        StringBuilder report = new StringBuilder("\npath            |      ops/s | bytes/op\n----------------+------------+---------\n");
+        report.append(measure("per-call", tokens, JwtVerifyBenchmark::perCallVerify));
+        report.append(measure("shared, cold", tokens, cold::validateAccessToken));
+        report.append(measure("shared, cached", tokens, cached::validateAccessToken));
+        logger.info("{}", report);
+    }
+
+    /** Прежнее поведение JWTUtil: HMAC-ключ и верификатор создавались на каждый вызов. */
+    private static DecodedJWT perCallVerify(String token) {
+        return JWT.require(Algorithm.HMAC256(SECRET))
+                .withSubject("Owner details")
+                .withIssuer("ADMIN")
+                .build()
+                .verify(token);
+    }
+
+    private String measure(String name, String[] tokens, Verify verify) {
+        run(tokens, verify, WARMUP);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long bytesBefore = mx.getThreadAllocatedBytes(thread);
+        long startedAt = System.nanoTime();
+        long sink = run(tokens, verify, ITERATIONS);
+        long elapsed = System.nanoTime() - startedAt;
+        long bytes = mx.getThreadAllocatedBytes(thread) - bytesBefore;
+        // сумма id из claims: проверка заодно не даёт JIT выкинуть цикл
+        assertEquals((long) ITERATIONS / TOKENS * (TOKENS - 1) * TOKENS / 2, sink, name);
+        return String.format("%-15s | %10.0f | %8.1f%n", name,
+                ITERATIONS / (elapsed / 1_000_000_000.0), bytes / (double) ITERATIONS);
+    }
+
+    private static long run(String[] tokens, Verify verify, int iterations) {
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            sink += verify.verify(new String(tokens[i % tokens.length])).getClaim("id").asLong();
+        }
+        return sink;
+    }
+
+    @FunctionalInterface
+    private interface Verify {
+        DecodedJWT verify(String token);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Currency;
+import com.example.bankcards.entity.Money;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.service.StripedBalanceService;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Горячий путь перевода на сущностях: проверка средств, списание, зачисление и баланс для ответа.
+ * Сравнивает прежнюю арифметику на BigDecimal с {@link Money} на long минорных единицах:
+ * операций в секунду и байт, выделенных на операцию (ThreadMXBean, без профилировщика).
+ * Отдельно — сборка ответа {@link CardMapper#toResponse}: прежний расчёт балансов через BigDecimal
+ * против нынешнего в минорных единицах.
+ * Не входит в обычный прогон, запуск: {@code mvn test -Dtest=MoneyArithmeticBenchmark}.
+ */
+class MoneyArithmeticBenchmark {
+
+    private static final int WARMUP = 2_000_000;
+    private static final int ITERATIONS = 10_000_000;
+    /** Сумма доступных остатков в минорных единицах за ITERATIONS ответов по карте 10000.00 без холдов. */
+    private static final long MAPPING_CHECKSUM = 1_000_000L * ITERATIONS;
+
+    private final Logger logger = LoggerFactory.getLogger(MoneyArithmeticBenchmark.class);
+
+    /** Обычная карта без id: полосы и счётчики лимитов не нужны. */
+    private final CardMapper cardMapper = new CardMapper(new StripedBalanceService(null, "ROUND_ROBIN"), null);
+
+    /** Прежнее поведение Card: баланс хранился и отдавался как BigDecimal. */
+    private static final class DecimalCard {
+        private BigDecimal balance;
+
+        DecimalCard(BigDecimal balance) {
+            this.balance = balance;
+        }
+    }
+
+    @Test
+    void transferHotPath() {
+        StringBuilder report = new StringBuilder("\npath       |      ops/s | bytes/op\n-----------+------------+---------\n");
+        report.append(measure("BigDecimal", this::decimalPath));
+        report.append(measure("Money", this::moneyPath));
+        report.append(measure("old-map", this::decimalMappingPath, MAPPING_CHECKSUM));
+        report.append(measure("CardMapper", this::mapperPath, MAPPING_CHECKSUM));
+        logger.info("{}", report);
+    }
+
+    private String measure(String name, HotPath path) {
+        return measure(name, path, 2_000_000L);
+    }
+
+    private String measure(String name, HotPath path, long expectedSink) {
+        path.run(WARMUP);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long bytesBefore = mx.getThreadAllocatedBytes(thread);
+        long startedAt = System.nanoTime();
+        long sink = path.run(ITERATIONS);
+        long elapsed = System.nanoTime() - startedAt;
+        long bytes = mx.getThreadAllocatedBytes(thread) - bytesBefore;
+        // перевод туда-обратно сохраняет сумму балансов: проверка заодно не даёт JIT выкинуть цикл
+        assertEquals(expectedSink, sink, name);
+        return String.format("%-10s | %10.0f | %8.1f%n", name,
+                ITERATIONS / (elapsed / 1_000_000_000.0), bytes / (double) ITERATIONS);
+    }
+
+    private long decimalPath(int iterations) {
+        DecimalCard from = new DecimalCard(new BigDecimal("10000.00"));
+        DecimalCard to = new DecimalCard(new BigDecimal("10000.00"));
+        BigDecimal amount = new BigDecimal("12.34");
+        BigDecimal shown = BigDecimal.ZERO;
+        for (int i = 0; i < iterations; i++) {
+            DecimalCard src = (i & 1) == 0 ? from : to;
+            DecimalCard dst = (i & 1) == 0 ? to : from;
+            if (src.balance.compareTo(amount) < 0) {
+                throw new IllegalStateException("Insufficient funds");
+            }
+            src.balance = src.balance.subtract(amount);
+            dst.balance = dst.balance.add(amount);
+            shown = src.balance;
+        }
+        return from.balance.add(to.balance).add(shown.signum() >= 0 ? BigDecimal.ZERO : BigDecimal.ONE)
+                .movePointRight(2).longValueExact();
+    }
+
+    private long moneyPath(int iterations) {
+        Card from = card(new BigDecimal("10000.00"));
+        Card to = card(new BigDecimal("10000.00"));
+        Money amount = Money.of(new BigDecimal("12.34"), Currency.USD);
+        long shown = 0;
+        for (int i = 0; i < iterations; i++) {
+            Card src = (i & 1) == 0 ? from : to;
+            Card dst = (i & 1) == 0 ? to : from;
+            Money balance = src.getBalanceMoney();
+            if (balance.isLessThan(amount)) {
+                throw new IllegalStateException("Insufficient funds");
+            }
+            src.setBalanceMoney(balance.minus(amount));
+            dst.setBalanceMoney(dst.getBalanceMoney().plus(amount));
+            shown = src.getBalanceMoney().getMinorUnits();
+        }
+        return from.getBalanceMoney().plus(to.getBalanceMoney()).getMinorUnits() + (shown >= 0 ? 0 : 1);
+    }
+
+    /** Прежний {@link CardMapper#toResponse} для обычной карты без id: балансы через BigDecimal. */
+    private long decimalMappingPath(int iterations) {
+        Card card = card(new BigDecimal("10000.00"));
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            CardResponseDTO dto = new CardResponseDTO();
+            dto.setId(card.getId());
+            dto.setOwnerId(card.getOwner() != null ? card.getOwner().getId() : null);
+            dto.setMaskedPan("**** **** **** " + card.getPanLast4());
+            dto.setExpiryMonth(card.getExpiryMonth());
+            dto.setExpiryYear(card.getExpiryYear());
+            dto.setStatus(card.getStatus());
+            BigDecimal balance = card.getBalance();
+            dto.setBalance(balance);
+            dto.setHeldAmount(card.getHeldAmount());
+            dto.setAvailableBalance(balance.subtract(card.getHeldAmount()));
+            dto.setCurrency(card.getCurrency());
+            sink += dto.getAvailableBalance().unscaledValue().longValue();
+        }
+        return sink;
+    }
+
+    private long mapperPath(int iterations) {
+        Card card = card(new BigDecimal("10000.00"));
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            sink += cardMapper.toResponse(card).getAvailableBalance().unscaledValue().longValue();
+        }
+        return sink;
+    }
+
+    private static Card card(BigDecimal balance) {
+        Card c = new Card();
+        c.setCurrency(Currency.USD);
+        c.setPanLast4("4242");
+        c.setBalance(balance);
+        return c;
+    }
+
+    @FunctionalInterface
+    private interface HotPath {
+        long run(int iterations);
+    }
+}
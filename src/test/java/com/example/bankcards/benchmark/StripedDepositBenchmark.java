@@ -0,0 +1,123 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Owner;
+import com.example.bankcards.fixture.CardFixtures;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.OwnerRepository;
+import com.example.bankcards.service.AdminService;
+import com.example.bankcards.service.CardService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Пропускная способность пополнений одной горячей карты: обычная карта и полосатая с N = 1, 8, 32.
+ * Не входит в обычный прогон (имя не попадает под шаблоны surefire), запуск:
+ * {@code mvn test -Dtest=StripedDepositBenchmark}.
+ * На H2 цифры показывают только относительный эффект, абсолютные — снимать на PostgreSQL.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class StripedDepositBenchmark {
+
+    private static final int THREADS = 32;
+    private static final int DEPOSITS_PER_THREAD = 200;
+    private static final int WARMUP_PER_THREAD = 20;
+
+    private final Logger logger = LoggerFactory.getLogger(StripedDepositBenchmark.class);
+
+    @Autowired private CardService cardService;
+    @Autowired private AdminService adminService;
+    @Autowired private CardRepository cardRepository;
+    @Autowired private OwnerRepository ownerRepository;
+    @Autowired private CardFixtures fixtures;
+
+    @AfterEach
+    void cleanup() {
+        cardRepository.deleteAll();
+        ownerRepository.deleteAll();
+    }
+
+    @Test
+    void hotCardDepositThroughput() throws Exception {
+        Owner owner = fixtures.owner("bench@example.com");
+        StringBuilder report = new StringBuilder("\nslots | deposits/s\n------+-----------\n");
+
+        int[] configurations = {0, 1, 8, 32};
+        for (int i = 0; i < configurations.length; i++) {
+            int slots = configurations[i];
+            Card card = fixtures.card(owner, String.format("%04d", 7000 + i));
+            if (slots > 0) {
+                asAdmin(() -> adminService.adminSetBalanceSlots(card.getId(), slots));
+            }
+
+            run(owner.getId(), card.getId(), WARMUP_PER_THREAD);
+            double opsPerSecond = run(owner.getId(), card.getId(), DEPOSITS_PER_THREAD);
+            report.append(String.format("%5d | %10.0f%n", slots, opsPerSecond));
+
+            BigDecimal expected = BigDecimal.valueOf((long) THREADS * (WARMUP_PER_THREAD + DEPOSITS_PER_THREAD));
+            BigDecimal actual = asUser(() -> cardService.getMyCardById(owner.getId(), card.getId()).getBalance());
+            assertEquals(0, expected.compareTo(actual), "slots=" + slots);
+        }
+        logger.info("{}", report);
+    }
+
+    private double run(Long ownerId, Long cardId, int perThread) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return asUser(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        cardService.depositMyCard(ownerId, cardId, BigDecimal.ONE);
+                    }
+                    return null;
+                });
+            }));
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(5, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+        return THREADS * (double) perThread / ((System.nanoTime() - startedAt) / 1_000_000_000.0);
+    }
+
+    private <T> T asUser(java.util.function.Supplier<T> action) {
+        return withAuthority("USER", action);
+    }
+
+    private <T> T asAdmin(java.util.function.Supplier<T> action) {
+        return withAuthority("ADMIN", action);
+    }
+
+    private <T> T withAuthority(String authority, java.util.function.Supplier<T> action) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("bench", null, authority));
+        try {
+            return action.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -2,8 +2,12 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.entity.*;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.FxRateRepository;
 import com.example.bankcards.repository.OwnerRepository;
+import com.example.bankcards.repository.SpendingLimitRepository;
 import com.example.bankcards.security.JWTUtil;
+import com.example.bankcards.service.FxRateService;
+import com.example.bankcards.service.SpendingLimitService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -20,12 +24,15 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @AutoConfigureMockMvc
@@ -37,13 +44,20 @@ class AdminCardControllerTests {
     @Autowired private OwnerRepository ownerRepository;
     @Autowired private JWTUtil jwtUtil;
     @Autowired private CardRepository cardRepository;
+    @Autowired private FxRateRepository fxRateRepository;
+    @Autowired private FxRateService fxRateService;
+    @Autowired private SpendingLimitRepository spendingLimitRepository;
+    @Autowired private SpendingLimitService spendingLimitService;
     @Autowired
     JdbcTemplate jdbcTemplate;
 
     @AfterEach
     void cleanup() {
+        spendingLimitRepository.deleteAll();
         cardRepository.deleteAll();   // сначала дочерние
         ownerRepository.deleteAll();  // потом родители
+        fxRateRepository.deleteAll();
+        fxRateService.refresh();
     }
 
     private Owner createOwner(String email, Role role) {
@@ -419,4 +433,140 @@ class AdminCardControllerTests {
 
         return saved;
     }
+
+    @Nested
+    class FxRatesTests {
+        @Test
+        void loadRates_shouldReturn201_andServeThemFromSnapshot_forAdmin() throws Exception {
+            Owner admin = createOwner("fx-admin@example.com", Role.ADMIN);
+            String token = jwtUtil.generateAccessToken(admin.getId(), admin.getEmail(), "ADMIN");
+
+            mockMvc.perform(post("/admin/fx-rates")
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"rates\": [" +
+                                    "{\"baseCurrency\": \"USD\", \"quoteCurrency\": \"EUR\", \"rate\": 0.9215}," +
+                                    "{\"baseCurrency\": \"EUR\", \"quoteCurrency\": \"USD\", \"rate\": 1.0852}]}"))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$[0].id").exists());
+
+            mockMvc.perform(get("/admin/fx-rates")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2));
+        }
+
+        @Test
+        void loadRates_shouldReturn400_forSameCurrencyPair_and403_forUser() throws Exception {
+            Owner admin = createOwner("fx-admin2@example.com", Role.ADMIN);
+            Owner user = createOwner("fx-user@example.com", Role.USER);
+            String body = "{\"rates\": [{\"baseCurrency\": \"USD\", \"quoteCurrency\": \"USD\", \"rate\": 1}]}";
+
+            mockMvc.perform(post("/admin/fx-rates")
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION,
+                                    "Bearer " + jwtUtil.generateAccessToken(admin.getId(), admin.getEmail(), "ADMIN"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isBadRequest());
+
+            mockMvc.perform(post("/admin/fx-rates")
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION,
+                                    "Bearer " + jwtUtil.generateAccessToken(user.getId(), user.getEmail(), "USER"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    @Nested
+    class CardLimitsTests {
+        private static final String LIMITS = "{\"dailyLimit\": 100.00, \"monthlyLimit\": 1500.00}";
+
+        @Test
+        void setLimits_shouldStoreAndApplyCardLimits_forAdmin() throws Exception {
+            Owner admin = createOwner("limits-admin@example.com", Role.ADMIN);
+            Owner user = createOwner("limits-user@example.com", Role.USER);
+            Card card = createCard(user, "2222", LocalDateTime.now(), CardStatus.ACTIVE);
+            String token = jwtUtil.generateAccessToken(admin.getId(), admin.getEmail(), "ADMIN");
+
+            mockMvc.perform(put("/admin/cards/{id}/limits", card.getId())
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(LIMITS))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(card.getId()));
+
+            SpendingLimit stored = spendingLimitRepository.findById(new LimitSubjectId(LimitScope.CARD, card.getId()))
+                    .orElseThrow();
+            assertEquals(0, new BigDecimal("100.00").compareTo(stored.getDailyLimit()));
+            assertEquals(0, new BigDecimal("1500.00").compareTo(stored.getMonthlyLimit()));
+            assertEquals(0, new BigDecimal("100.00").compareTo(spendingLimitService.cardSpending(card.getId()).dailyLimit()));
+        }
+
+        @Test
+        void clearLimits_shouldRemoveCardLimits_forAdmin() throws Exception {
+            Owner admin = createOwner("limits-admin2@example.com", Role.ADMIN);
+            Owner user = createOwner("limits-user2@example.com", Role.USER);
+            Card card = createCard(user, "3333", LocalDateTime.now(), CardStatus.ACTIVE);
+            String token = jwtUtil.generateAccessToken(admin.getId(), admin.getEmail(), "ADMIN");
+
+            mockMvc.perform(put("/admin/cards/{id}/limits", card.getId())
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(LIMITS))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(delete("/admin/cards/{id}/limits", card.getId())
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk());
+
+            assertTrue(spendingLimitRepository.findById(new LimitSubjectId(LimitScope.CARD, card.getId())).isEmpty());
+            assertNull(spendingLimitService.cardSpending(card.getId()).dailyLimit());
+        }
+
+        @Test
+        void setLimits_shouldReturn403_forUser_and404_forMissingCard() throws Exception {
+            Owner admin = createOwner("limits-admin3@example.com", Role.ADMIN);
+            Owner user = createOwner("limits-user3@example.com", Role.USER);
+            Card card = createCard(user, "4444", LocalDateTime.now(), CardStatus.ACTIVE);
+
+            mockMvc.perform(put("/admin/cards/{id}/limits", card.getId())
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION,
+                                    "Bearer " + jwtUtil.generateAccessToken(user.getId(), user.getEmail(), "USER"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(LIMITS))
+                    .andExpect(status().isForbidden());
+
+            mockMvc.perform(put("/admin/cards/{id}/limits", 999999L)
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION,
+                                    "Bearer " + jwtUtil.generateAccessToken(admin.getId(), admin.getEmail(), "ADMIN"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(LIMITS))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        void setLimits_shouldReturn400_forNegativeLimit() throws Exception {
+            Owner admin = createOwner("limits-admin4@example.com", Role.ADMIN);
+            Owner user = createOwner("limits-user4@example.com", Role.USER);
+            Card card = createCard(user, "5555", LocalDateTime.now(), CardStatus.ACTIVE);
+
+            mockMvc.perform(put("/admin/cards/{id}/limits", card.getId())
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION,
+                                    "Bearer " + jwtUtil.generateAccessToken(admin.getId(), admin.getEmail(), "ADMIN"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"dailyLimit\": -1}"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
 }
@@ -1,8 +1,12 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.entity.LimitScope;
+import com.example.bankcards.entity.LimitSubjectId;
 import com.example.bankcards.entity.Owner;
 import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.SpendingLimit;
 import com.example.bankcards.repository.OwnerRepository;
+import com.example.bankcards.repository.SpendingLimitRepository;
 import com.example.bankcards.security.JWTUtil;
 import com.example.bankcards.security.OwnerDetails;
 import org.hamcrest.Matchers;
@@ -19,12 +23,16 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
@@ -36,12 +44,60 @@ public class AdminControllerTests {
     private MockMvc mockMvc;
     @Autowired private JWTUtil jwtUtil;
     @Autowired private OwnerRepository ownerRepository;
+    @Autowired private SpendingLimitRepository spendingLimitRepository;
 
     @AfterEach
     void clearDatabase() {
+        spendingLimitRepository.deleteAll();
         ownerRepository.deleteAll();
     }
 
+    @Nested
+    class CustomerLimitsTests {
+
+        @Test
+        void setCustomerLimits_shouldReturn204_andStoreOwnerLimits() throws Exception {
+            Owner admin = createSampleOwner("Anna", "Admin", "limits-admin@gmail.com", Role.ADMIN);
+            Owner customer = createSampleOwner("John", "Smith", "limits-customer@gmail.com", Role.USER);
+            String token = jwtUtil.generateAccessToken(admin.getId(), admin.getEmail(), Role.ADMIN.name());
+
+            mockMvc.perform(put("/admin/customer-limits/{id}", customer.getId())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"dailyLimit\": 500.00}"))
+                    .andExpect(status().isNoContent());
+
+            SpendingLimit stored = spendingLimitRepository.findById(new LimitSubjectId(LimitScope.OWNER, customer.getId()))
+                    .orElseThrow();
+            assertEquals(0, new BigDecimal("500.00").compareTo(stored.getDailyLimit()));
+            assertNull(stored.getMonthlyLimit());
+        }
+
+        @Test
+        void setCustomerLimits_shouldReturn404_whenCustomerMissing() throws Exception {
+            Owner admin = createSampleOwner("Anna", "Admin", "limits-admin2@gmail.com", Role.ADMIN);
+            String token = jwtUtil.generateAccessToken(admin.getId(), admin.getEmail(), Role.ADMIN.name());
+
+            mockMvc.perform(put("/admin/customer-limits/{id}", 999999L)
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"dailyLimit\": 500.00}"))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        void setCustomerLimits_shouldReturn403_forUser() throws Exception {
+            Owner customer = createSampleOwner("John", "Smith", "limits-user@gmail.com", Role.USER);
+            String token = jwtUtil.generateAccessToken(customer.getId(), customer.getEmail(), Role.USER.name());
+
+            mockMvc.perform(put("/admin/customer-limits/{id}", customer.getId())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"dailyLimit\": 500.00}"))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
     @Nested
     class methodPromoteTests {
         @Test
@@ -221,6 +277,37 @@ public class AdminControllerTests {
                     .andExpect(content().string("Customer's account with id " + target.getId() + " is locked."));
         }
 
+        @Test
+        void blockCustomer_shouldRevokeAccess_ofExistingTokens_evenAfterUnblock() throws Exception {
+            Owner admin = createSampleOwner("Admin", "Boss", "admin@example.com", Role.ADMIN);
+            Owner target = createSampleOwner("John", "Smith", "john23@gmail.com", Role.USER);
+
+            String adminToken = jwtUtil.generateAccessToken(admin.getId(), admin.getEmail(), Role.ADMIN.name());
+            String targetToken = jwtUtil.generateAccessToken(target.getId(), target.getEmail(), Role.USER.name());
+
+            // статус клиента уже в кэше — блокировка должна его сбросить
+            mockMvc.perform(get("/owner/personal-account")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + targetToken))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(patch("/admin/block-customer/{id}", target.getId())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/owner/personal-account")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + targetToken))
+                    .andExpect(status().isUnauthorized());
+
+            // после разблокировки клиент входит заново: токены, выданные до блокировки, не оживают
+            mockMvc.perform(patch("/admin/unblock-customer/{id}", target.getId())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/owner/personal-account")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + targetToken))
+                    .andExpect(status().isUnauthorized());
+        }
+
         @Test
         void blockCustomer_shouldReturn403_forUser() throws Exception {
             Owner user = createSampleOwner("User", "U", "user@example.com", Role.USER);
@@ -2,12 +2,21 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.HoldStatus;
+import com.example.bankcards.entity.LimitScope;
 import com.example.bankcards.entity.Currency;
 import com.example.bankcards.entity.Owner;
 import com.example.bankcards.entity.Role;
+import com.example.bankcards.repository.CardHoldRepository;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.OwnerRepository;
+import com.example.bankcards.repository.StatementCheckpointRepository;
+import com.example.bankcards.repository.TransferScheduleRepository;
 import com.example.bankcards.security.JWTUtil;
+import com.example.bankcards.service.CardHoldService;
+import com.example.bankcards.service.SpendingLimitService;
+import com.example.bankcards.service.StatementService;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -19,16 +28,25 @@ import org.springframework.http.MediaType;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -44,9 +62,19 @@ class CardControllerTests {
     private JWTUtil jwtUtil;
     @Autowired
     JdbcTemplate jdbcTemplate;
+    @Autowired private StatementService statementService;
+    @Autowired private StatementCheckpointRepository statementCheckpointRepository;
+    @Autowired private CardHoldRepository cardHoldRepository;
+    @Autowired private CardHoldService cardHoldService;
+    @Autowired private TransferScheduleRepository transferScheduleRepository;
+    @Autowired private SpendingLimitService spendingLimitService;
+    @Autowired private PlatformTransactionManager transactionManager;
 
     @AfterEach
     void cleanup() {
+        statementCheckpointRepository.deleteAll();
+        cardHoldRepository.deleteAll();
+        transferScheduleRepository.deleteAll();
         cardRepository.deleteAll();
         ownerRepository.deleteAll();
     }
@@ -354,6 +382,36 @@ class CardControllerTests {
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.balance").value(60.00));
         }
+
+        @Test
+        void withdraw_shouldRollBackUpdate_whenLimitRejectsAfterIt() throws Exception {
+            Owner me = createOwner("limitwd@example.com", Role.USER);
+            Card card = createCard(me, "5656", LocalDateTime.now(), CardStatus.ACTIVE);
+            String token = jwtUtil.generateAccessToken(me.getId(), me.getEmail(), "USER");
+            mockMvc.perform(post("/cards/{id}/deposit", card.getId())
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": 100}"))
+                    .andExpect(status().isOk());
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.executeWithoutResult(s -> spendingLimitService.setLimits(LimitScope.CARD, card.getId(),
+                    new BigDecimal("30.00"), null));
+            try {
+                // UPDATE ... RETURNING уже списал 40, лимит проверяется после него — откат должен вернуть баланс
+                mockMvc.perform(post("/cards/{id}/withdraw", card.getId())
+                                .with(csrf())
+                                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"amount\": 40}"))
+                        .andExpect(status().isConflict());
+
+                assertEquals(0, new BigDecimal("100.00")
+                        .compareTo(cardRepository.findById(card.getId()).orElseThrow().getBalance()));
+            } finally {
+                tx.executeWithoutResult(s -> spendingLimitService.clearLimits(LimitScope.CARD, card.getId()));
+            }
+        }
     }
 
     @Nested
@@ -454,5 +512,479 @@ class CardControllerTests {
                     .andExpect(jsonPath("$.to.id").value(to.getId().intValue()))
                     .andExpect(jsonPath("$.to.balance").value(40.00));
         }
+
+        @Test
+        void transferBatch_bestEffort_shouldApplyValidItems_andReportRejected() throws Exception {
+            Owner me = createOwner("batch@example.com", Role.USER);
+            Card a = createCard(me, "1111", LocalDateTime.now(), CardStatus.ACTIVE);
+            Card b = createCard(me, "2222", LocalDateTime.now(), CardStatus.ACTIVE);
+
+            String token = jwtUtil.generateAccessToken(me.getId(), me.getEmail(), "USER");
+
+            mockMvc.perform(post("/cards/{id}/deposit", a.getId())
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": 100}"))
+                    .andExpect(status().isOk());
+
+            // a→b 70, a→b 70 (не хватает), b→a 20
+            String body = "{\"mode\":\"BEST_EFFORT\",\"transfers\":["
+                    + "{\"fromCardId\":" + a.getId() + ",\"toCardId\":" + b.getId() + ",\"amount\":70},"
+                    + "{\"fromCardId\":" + a.getId() + ",\"toCardId\":" + b.getId() + ",\"amount\":70},"
+                    + "{\"fromCardId\":" + b.getId() + ",\"toCardId\":" + a.getId() + ",\"amount\":20}]}";
+
+            mockMvc.perform(post("/cards/transfer/batch")
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.applied").value(2))
+                    .andExpect(jsonPath("$.rejected").value(1))
+                    .andExpect(jsonPath("$.results[1].status").value("REJECTED"))
+                    .andExpect(jsonPath("$.results[1].errorStatus").value(409));
+
+            assertEquals(0, new BigDecimal("50.00").compareTo(cardRepository.findById(a.getId()).orElseThrow().getBalance()));
+            assertEquals(0, new BigDecimal("50.00").compareTo(cardRepository.findById(b.getId()).orElseThrow().getBalance()));
+        }
+    }
+
+    @Nested
+    class IdempotencyKeyIT {
+
+        @Test
+        void deposit_shouldApplyOnce_whenReplayedWithSameKey() throws Exception {
+            Owner me = createOwner("idem@example.com", Role.USER);
+            Card card = createCard(me, "6666", LocalDateTime.now(), CardStatus.ACTIVE);
+
+            String token = jwtUtil.generateAccessToken(me.getId(), me.getEmail(), "USER");
+
+            for (int i = 0; i < 3; i++) {
+                mockMvc.perform(post("/cards/{id}/deposit", card.getId())
+                                .with(csrf())
+                                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                                .header("Idempotency-Key", "dep-1")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"amount\": 25}"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.balance").value(25.00));
+            }
+
+            // повторы не трогают карту: списано/зачислено ровно один раз
+            BigDecimal balance = cardRepository.findById(card.getId()).orElseThrow().getBalance();
+            assertEquals(0, new BigDecimal("25.00").compareTo(balance));
+        }
+
+        @Test
+        void deposit_shouldReturn422_whenKeyReusedForDifferentRequest() throws Exception {
+            Owner me = createOwner("idem2@example.com", Role.USER);
+            Card card = createCard(me, "7777", LocalDateTime.now(), CardStatus.ACTIVE);
+
+            String token = jwtUtil.generateAccessToken(me.getId(), me.getEmail(), "USER");
+
+            mockMvc.perform(post("/cards/{id}/deposit", card.getId())
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .header("Idempotency-Key", "dep-2")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": 10}"))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(post("/cards/{id}/withdraw", card.getId())
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .header("Idempotency-Key", "dep-2")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": 10}"))
+                    .andExpect(status().isUnprocessableEntity());
+        }
+    }
+
+    @Nested
+    class TransactionHistoryIT {
+
+        @Test
+        void transactions_shouldPageWithCursor_newestFirst() throws Exception {
+            Owner me = createOwner("history@example.com", Role.USER);
+            Card card = createCard(me, "1212", LocalDateTime.now(), CardStatus.ACTIVE);
+
+            String token = jwtUtil.generateAccessToken(me.getId(), me.getEmail(), "USER");
+            for (int amount = 1; amount <= 3; amount++) {
+                mockMvc.perform(post("/cards/{id}/deposit", card.getId())
+                                .with(csrf())
+                                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"amount\": " + amount + "}"))
+                        .andExpect(status().isOk());
+            }
+
+            String firstPage = mockMvc.perform(get("/cards/{id}/transactions", card.getId())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(2)))
+                    .andExpect(jsonPath("$.items[0].amount").value(3.00))
+                    .andExpect(jsonPath("$.items[0].balanceAfter").value(6.00))
+                    .andExpect(jsonPath("$.items[1].amount").value(2.00))
+                    .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                    .andExpect(jsonPath("$.totalElements").doesNotExist())
+                    .andReturn().getResponse().getContentAsString();
+
+            String cursor = JsonPath.read(firstPage, "$.nextCursor");
+            mockMvc.perform(get("/cards/{id}/transactions", card.getId())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .param("limit", "2")
+                            .param("after", cursor))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.items[0].amount").value(1.00))
+                    .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        }
+
+        @Test
+        void transactions_shouldReturn404_whenCardNotOwned_and400_whenCursorInvalid() throws Exception {
+            Owner me = createOwner("history2@example.com", Role.USER);
+            Owner other = createOwner("history3@example.com", Role.USER);
+            Card mine = createCard(me, "3434", LocalDateTime.now(), CardStatus.ACTIVE);
+            Card others = createCard(other, "5656", LocalDateTime.now(), CardStatus.ACTIVE);
+
+            String token = jwtUtil.generateAccessToken(me.getId(), me.getEmail(), "USER");
+
+            mockMvc.perform(get("/cards/{id}/transactions", others.getId())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isNotFound());
+
+            mockMvc.perform(get("/cards/{id}/transactions", mine.getId())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .param("after", "not-a-cursor"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    class StatementIT {
+
+        @Test
+        void statement_shouldBeDownloadable_afterGeneration_onlyByOwner() throws Exception {
+            Owner me = createOwner("statement@example.com", Role.USER);
+            Owner other = createOwner("statement2@example.com", Role.USER);
+            Card card = createCard(me, "7878", LocalDateTime.now(), CardStatus.ACTIVE);
+            createCard(other, "8989", LocalDateTime.now(), CardStatus.ACTIVE);
+
+            String token = jwtUtil.generateAccessToken(me.getId(), me.getEmail(), "USER");
+            String otherToken = jwtUtil.generateAccessToken(other.getId(), other.getEmail(), "USER");
+            for (int amount = 1; amount <= 2; amount++) {
+                mockMvc.perform(post("/cards/{id}/deposit", card.getId())
+                                .with(csrf())
+                                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"amount\": " + amount + "}"))
+                        .andExpect(status().isOk());
+            }
+
+            YearMonth period = YearMonth.now();
+            statementService.generate(period);
+
+            mockMvc.perform(get("/cards/{id}/statements/{period}", card.getId(), period.toString())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CONTENT_TYPE, startsWith("text/csv")))
+                    .andExpect(content().string(startsWith("entry_id,created_at,operation_id,type,amount,balance_after,counterparty_card_id\n")))
+                    .andExpect(content().string(containsString(",DEPOSIT,2.00,3.00,\n")));
+
+            mockMvc.perform(get("/cards/{id}/statements/{period}", card.getId(), period.toString())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .param("format", "jsonl"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(containsString("\"amount\":1.00,\"balanceAfter\":1.00")));
+
+            mockMvc.perform(get("/cards/{id}/statements/{period}", card.getId(), period.toString())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + otherToken))
+                    .andExpect(status().isNotFound());
+
+            mockMvc.perform(get("/cards/{id}/statements/{period}", card.getId(), "2025-13")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    class HoldIT {
+
+        @Test
+        void hold_shouldReduceAvailable_andCaptureDebitsBalance_once() throws Exception {
+            Owner me = createOwner("hold@example.com", Role.USER);
+            Card card = createCard(me, "3434", LocalDateTime.now(), CardStatus.ACTIVE);
+            String token = jwtUtil.generateAccessToken(me.getId(), me.getEmail(), "USER");
+            deposit(token, card.getId(), "100");
+
+            String body = mockMvc.perform(post("/cards/{id}/holds", card.getId())
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": 70, \"ttl\": \"PT1H\"}"))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.status").value("ACTIVE"))
+                    .andExpect(jsonPath("$.card.balance").value(100.00))
+                    .andExpect(jsonPath("$.card.heldAmount").value(70.00))
+                    .andExpect(jsonPath("$.card.availableBalance").value(30.00))
+                    .andReturn().getResponse().getContentAsString();
+            Integer holdId = JsonPath.read(body, "$.id");
+
+            // захолдированное нельзя потратить ни списанием, ни вторым холдом
+            mockMvc.perform(post("/cards/{id}/withdraw", card.getId())
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": 40}"))
+                    .andExpect(status().isConflict());
+            mockMvc.perform(post("/cards/{id}/holds", card.getId())
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": 40}"))
+                    .andExpect(status().isConflict());
+
+            mockMvc.perform(post("/cards/{id}/holds/{holdId}/capture", card.getId(), holdId)
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status").value("CAPTURED"))
+                    .andExpect(jsonPath("$.card.balance").value(30.00))
+                    .andExpect(jsonPath("$.card.heldAmount").value(0.00))
+                    .andExpect(jsonPath("$.card.availableBalance").value(30.00));
+
+            mockMvc.perform(post("/cards/{id}/holds/{holdId}/capture", card.getId(), holdId)
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isConflict());
+            mockMvc.perform(post("/cards/{id}/holds/{holdId}/release", card.getId(), holdId)
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isConflict());
+        }
+
+        @Test
+        void release_shouldRestoreAvailable_andBeHiddenFromOtherOwner() throws Exception {
+            Owner me = createOwner("hold-release@example.com", Role.USER);
+            Owner other = createOwner("hold-other@example.com", Role.USER);
+            Card card = createCard(me, "4545", LocalDateTime.now(), CardStatus.ACTIVE);
+            String token = jwtUtil.generateAccessToken(me.getId(), me.getEmail(), "USER");
+            String otherToken = jwtUtil.generateAccessToken(other.getId(), other.getEmail(), "USER");
+            deposit(token, card.getId(), "50");
+
+            String body = mockMvc.perform(post("/cards/{id}/holds", card.getId())
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": 20}"))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            Integer holdId = JsonPath.read(body, "$.id");
+
+            mockMvc.perform(post("/cards/{id}/holds/{holdId}/release", card.getId(), holdId)
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + otherToken))
+                    .andExpect(status().isNotFound());
+
+            mockMvc.perform(post("/cards/{id}/holds/{holdId}/release", card.getId(), holdId)
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status").value("RELEASED"))
+                    .andExpect(jsonPath("$.card.balance").value(50.00))
+                    .andExpect(jsonPath("$.card.availableBalance").value(50.00));
+        }
+
+        @Test
+        void expireStale_shouldReleaseExpiredHolds_inBatch() throws Exception {
+            Owner me = createOwner("hold-expire@example.com", Role.USER);
+            Card card = createCard(me, "5656", LocalDateTime.now(), CardStatus.ACTIVE);
+            String token = jwtUtil.generateAccessToken(me.getId(), me.getEmail(), "USER");
+            deposit(token, card.getId(), "90");
+
+            for (int i = 0; i < 3; i++) {
+                mockMvc.perform(post("/cards/{id}/holds", card.getId())
+                                .with(csrf())
+                                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"amount\": 10}"))
+                        .andExpect(status().isCreated());
+            }
+            // два холда из трёх уже просрочены
+            jdbcTemplate.update("UPDATE card_hold SET expires_at = ? WHERE id IN (SELECT id FROM card_hold ORDER BY id LIMIT 2)",
+                    LocalDateTime.now().minusMinutes(1));
+
+            cardHoldService.expireStale();
+
+            Card reloaded = cardRepository.findById(card.getId()).orElseThrow();
+            assertEquals(0, new BigDecimal("90.00").compareTo(reloaded.getBalance()));
+            assertEquals(0, new BigDecimal("10.00").compareTo(reloaded.getHeldAmount()));
+            assertEquals(2, cardHoldRepository.findAll().stream().filter(h -> h.getStatus() == HoldStatus.EXPIRED).count());
+        }
+
+        private void deposit(String token, Long cardId, String amount) throws Exception {
+            mockMvc.perform(post("/cards/{id}/deposit", cardId)
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": " + amount + "}"))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Nested
+    class ScheduledTransferIT {
+
+        @Test
+        void scheduledTransfer_shouldBeCreatedListedAndCancelled_byOwnerOnly() throws Exception {
+            Owner me = createOwner("schedule@example.com", Role.USER);
+            Owner other = createOwner("schedule2@example.com", Role.USER);
+            Card from = createCard(me, "6767", LocalDateTime.now(), CardStatus.ACTIVE);
+            Card to = createCard(me, "7878", LocalDateTime.now(), CardStatus.ACTIVE);
+            String token = jwtUtil.generateAccessToken(me.getId(), me.getEmail(), "USER");
+            String otherToken = jwtUtil.generateAccessToken(other.getId(), other.getEmail(), "USER");
+            String firstRunAt = LocalDateTime.now().plusDays(1).withNano(0).toString();
+
+            String body = mockMvc.perform(post("/cards/scheduled-transfers")
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"fromCardId\": " + from.getId() + ", \"toCardId\": " + to.getId() +
+                                    ", \"amount\": 15, \"firstRunAt\": \"" + firstRunAt + "\", \"recurrence\": \"WEEKLY\"}"))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.status").value("ACTIVE"))
+                    .andExpect(jsonPath("$.nextRunAt").exists())
+                    .andReturn().getResponse().getContentAsString();
+            Integer scheduleId = JsonPath.read(body, "$.id");
+
+            mockMvc.perform(get("/cards/scheduled-transfers")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content", hasSize(1)))
+                    .andExpect(jsonPath("$.content[0].recurrence").value("WEEKLY"));
+
+            mockMvc.perform(delete("/cards/scheduled-transfers/{id}", scheduleId)
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + otherToken))
+                    .andExpect(status().isNotFound());
+            mockMvc.perform(delete("/cards/scheduled-transfers/{id}", scheduleId)
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isNoContent());
+            mockMvc.perform(delete("/cards/scheduled-transfers/{id}", scheduleId)
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        void scheduledTransfer_shouldReturn400_whenFirstRunInPast_and404_whenCardNotOwned() throws Exception {
+            Owner me = createOwner("schedule3@example.com", Role.USER);
+            Owner other = createOwner("schedule4@example.com", Role.USER);
+            Card mine = createCard(me, "8989", LocalDateTime.now(), CardStatus.ACTIVE);
+            Card foreign = createCard(other, "9090", LocalDateTime.now(), CardStatus.ACTIVE);
+            String token = jwtUtil.generateAccessToken(me.getId(), me.getEmail(), "USER");
+
+            mockMvc.perform(post("/cards/scheduled-transfers")
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"fromCardId\": " + mine.getId() + ", \"toCardId\": " + foreign.getId() +
+                                    ", \"amount\": 15, \"firstRunAt\": \"" + LocalDateTime.now().minusDays(1).withNano(0) +
+                                    "\", \"recurrence\": \"ONCE\"}"))
+                    .andExpect(status().isBadRequest());
+
+            mockMvc.perform(post("/cards/scheduled-transfers")
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"fromCardId\": " + mine.getId() + ", \"toCardId\": " + foreign.getId() +
+                                    ", \"amount\": 15, \"firstRunAt\": \"" + LocalDateTime.now().plusHours(1).withNano(0) +
+                                    "\", \"recurrence\": \"ONCE\"}"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    class CardStreamIT {
+
+        @Test
+        void stream_shouldReturn401_whenUnauthenticated() throws Exception {
+            mockMvc.perform(get("/cards/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        @Test
+        void stream_shouldPushBalance_afterDeposit_andReplayMissedEvents_byLastEventId() throws Exception {
+            Owner me = createOwner("stream@example.com", Role.USER);
+            Card mine = createCard(me, "4242", LocalDateTime.now(), CardStatus.ACTIVE);
+            String token = jwtUtil.generateAccessToken(me.getId(), me.getEmail(), "USER");
+
+            MvcResult live = mockMvc.perform(get("/cards/stream")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .accept(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            deposit(mine, token, 10);
+            String first = awaitContent(live, "\"balance\":10");
+            assertTrue(first.contains("event:card"));
+            assertTrue(first.contains("\"cardId\":" + mine.getId()));
+            assertTrue(first.contains("\"version\":"));
+            String firstId = first.substring(first.indexOf("id:") + 3, first.indexOf('\n', first.indexOf("id:")));
+
+            deposit(mine, token, 5);
+            awaitContent(live, "\"balance\":15");
+
+            // переподключение с id первого события досылает только второе
+            MvcResult resumed = mockMvc.perform(get("/cards/stream")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .header("Last-Event-ID", firstId)
+                            .accept(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String replayed = awaitContent(resumed, "\"balance\":15");
+            assertFalse(replayed.contains("\"balance\":10"));
+        }
+
+        @Test
+        void stream_shouldSendReset_whenLastEventIdUnknown() throws Exception {
+            Owner me = createOwner("stream2@example.com", Role.USER);
+            String token = jwtUtil.generateAccessToken(me.getId(), me.getEmail(), "USER");
+
+            MvcResult result = mockMvc.perform(get("/cards/stream")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .header("Last-Event-ID", "previous-boot-42")
+                            .accept(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            awaitContent(result, "event:reset");
+        }
+
+        private void deposit(Card card, String token, int amount) throws Exception {
+            mockMvc.perform(post("/cards/{id}/deposit", card.getId())
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": " + amount + "}"))
+                    .andExpect(status().isOk());
+        }
+
+        /** События пишутся виртуальным потоком после коммита — ждём их в теле ответа. */
+        private String awaitContent(MvcResult result, String expected) throws Exception {
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            String content = result.getResponse().getContentAsString();
+            while (!content.contains(expected)) {
+                if (System.nanoTime() > deadline) {
+                    throw new AssertionError("Expected stream to contain " + expected + " but was: " + content);
+                }
+                Thread.sleep(10);
+                content = result.getResponse().getContentAsString();
+            }
+            return content;
+        }
     }
 }
@@ -4,10 +4,13 @@ import com.example.bankcards.dto.OwnerResponseDTO;
 import com.example.bankcards.entity.Owner;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.repository.OwnerRepository;
+import com.example.bankcards.repository.RefreshTokenRepository;
 import com.example.bankcards.security.JWTUtil;
 import com.example.bankcards.security.OwnerDetails;
 import com.example.bankcards.security.OwnerDetailsService;
 import com.example.bankcards.service.OwnerService;
+import com.example.bankcards.service.RefreshTokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +20,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -24,13 +28,16 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
 
 import java.time.LocalDate;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -45,12 +52,16 @@ public class OwnerControllerTests {
     @Autowired private OwnerService ownerService;
     //@Autowired private OwnerValidator ownerValidator; <-- возможно, на будущее сделаем
     @Autowired private JWTUtil jwtUtil;
+    @Autowired private RefreshTokenService refreshTokenService;
+    @Autowired private RefreshTokenRepository refreshTokenRepository;
+    @Autowired private ObjectMapper objectMapper;
 
     @MockBean private AuthenticationManager authenticationManager;
     @MockBean private OwnerDetailsService ownerDetailsService;
 
     @AfterEach
     void clearDatabase() {
+        refreshTokenRepository.deleteAll();
         ownerRepository.deleteAll();
     }
 
@@ -81,7 +92,8 @@ public class OwnerControllerTests {
                                     }
                                     """))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$.email").value("john23@gmail.com"));
+                    .andExpect(jsonPath("$.email").value("john23@gmail.com"))
+                    .andExpect(jsonPath("$.refreshToken").isNotEmpty());
         }
 
         @Test
@@ -103,6 +115,25 @@ public class OwnerControllerTests {
                     .andExpect(jsonPath("$.path").value("/owner/login"));
         }
 
+        @Test
+        void performAuthentication_shouldReturn503WithRetryAfter_whenLoginExecutorIsFull() throws Exception {
+            when(authenticationManager.authenticate(any(Authentication.class)))
+                    .thenThrow(new RejectedExecutionException("Login queue is full"));
+
+            mockMvc.perform(post("/owner/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {
+                                        "email": "john23@gmail.com",
+                                        "password": "secret"
+                                    }
+                                    """))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                    .andExpect(jsonPath("$.status").value(503))
+                    .andExpect(jsonPath("$.path").value("/owner/login"));
+        }
+
         @Test
         void performAuthentication_shouldReturn423_whenAccountLocked() throws Exception {
             Owner locked = new Owner();
@@ -200,6 +231,150 @@ public class OwnerControllerTests {
         }
     }
 
+    @Nested
+    class logoutTests {
+
+        @Test
+        void logout_shouldRevokeOnlyCurrentToken() throws Exception {
+            Owner owner = ownerRepository.save(createSampleOwner("John", "Smith", "logout@gmail.com", Role.USER));
+            String current = jwtUtil.generateAccessToken(owner.getId(), owner.getEmail(), Role.USER.name());
+            String other = jwtUtil.generateAccessToken(owner.getId(), owner.getEmail(), Role.USER.name());
+
+            mockMvc.perform(post("/owner/logout")
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + current))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/owner/personal-account")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + current))
+                    .andExpect(status().isUnauthorized());
+            mockMvc.perform(get("/owner/personal-account")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + other))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        void logoutAll_shouldRevokeEveryIssuedToken() throws Exception {
+            Owner owner = ownerRepository.save(createSampleOwner("John", "Smith", "logout-all@gmail.com", Role.USER));
+            String current = jwtUtil.generateAccessToken(owner.getId(), owner.getEmail(), Role.USER.name());
+            String other = jwtUtil.generateAccessToken(owner.getId(), owner.getEmail(), Role.USER.name());
+
+            mockMvc.perform(post("/owner/logout-all")
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + current))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/owner/personal-account")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + current))
+                    .andExpect(status().isUnauthorized());
+            mockMvc.perform(get("/owner/personal-account")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + other))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        @Test
+        void logoutAll_shouldAcceptTokenIssuedRightAfter_inTheSameSecond() throws Exception {
+            Owner owner = ownerRepository.save(createSampleOwner("John", "Smith", "relogin@gmail.com", Role.USER));
+            String old = jwtUtil.generateAccessToken(owner.getId(), owner.getEmail(), Role.USER.name());
+
+            mockMvc.perform(post("/owner/logout-all")
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + old))
+                    .andExpect(status().isOk());
+            // повторный вход сразу после отзыва — почти всегда в ту же секунду
+            String fresh = jwtUtil.generateAccessToken(owner.getId(), owner.getEmail(), Role.USER.name());
+
+            mockMvc.perform(get("/owner/personal-account")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + fresh))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/owner/personal-account")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + old))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        @Test
+        void logout_shouldReturn401_whenNoToken() throws Exception {
+            mockMvc.perform(post("/owner/logout").with(csrf()))
+                    .andExpect(status().isUnauthorized());
+        }
+    }
+
+    @Nested
+    class refreshTests {
+
+        @Test
+        void refresh_shouldRotateTokens() throws Exception {
+            Owner owner = ownerRepository.save(createSampleOwner("John", "Smith", "refresh@gmail.com", Role.USER));
+            String refreshToken = refreshTokenService.issue(owner.getId());
+
+            String body = mockMvc.perform(refresh(refreshToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(owner.getId()))
+                    .andExpect(jsonPath("$.refreshToken").value(Matchers.not(refreshToken)))
+                    .andReturn().getResponse().getContentAsString();
+
+            String accessToken = objectMapper.readTree(body).get("accessToken").asText();
+            mockMvc.perform(get("/owner/personal-account")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        void refresh_shouldRevokeFamily_whenTokenReused() throws Exception {
+            Owner owner = ownerRepository.save(createSampleOwner("John", "Smith", "reuse@gmail.com", Role.USER));
+            String first = refreshTokenService.issue(owner.getId());
+
+            String body = mockMvc.perform(refresh(first))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            String second = objectMapper.readTree(body).get("refreshToken").asText();
+
+            mockMvc.perform(refresh(first))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(jsonPath("$.path").value("/owner/refresh"));
+            mockMvc.perform(refresh(second))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        @Test
+        void refresh_shouldReturn401_afterLogoutAll() throws Exception {
+            Owner owner = ownerRepository.save(createSampleOwner("John", "Smith", "refresh-all@gmail.com", Role.USER));
+            String refreshToken = refreshTokenService.issue(owner.getId());
+            String accessToken = jwtUtil.generateAccessToken(owner.getId(), owner.getEmail(), Role.USER.name());
+
+            mockMvc.perform(post("/owner/logout-all")
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(refresh(refreshToken))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        @Test
+        void logout_shouldRevokePresentedRefreshToken() throws Exception {
+            Owner owner = ownerRepository.save(createSampleOwner("John", "Smith", "refresh-out@gmail.com", Role.USER));
+            String refreshToken = refreshTokenService.issue(owner.getId());
+            String accessToken = jwtUtil.generateAccessToken(owner.getId(), owner.getEmail(), Role.USER.name());
+
+            mockMvc.perform(post("/owner/logout")
+                            .with(csrf())
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"refreshToken\": \"" + refreshToken + "\"}"))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(refresh(refreshToken))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        private RequestBuilder refresh(String refreshToken) {
+            return post("/owner/refresh")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"refreshToken\": \"" + refreshToken + "\"}");
+        }
+    }
+
     private static Owner createSampleOwner(String firstName, String lastName, String email, Role role) {
         Owner owner = new Owner();
         owner.setFirstName(firstName);
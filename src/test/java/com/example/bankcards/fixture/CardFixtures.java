@@ -0,0 +1,65 @@
+package com.example.bankcards.fixture;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Currency;
+import com.example.bankcards.entity.Owner;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.OwnerRepository;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Сохранённые клиенты и карты для интеграционных тестов и бенчмарков на общей базе контекста.
+ * Очистка остаётся за тестом: он знает, какие ещё таблицы ссылаются на карты.
+ */
+@Component
+public class CardFixtures {
+    private final OwnerRepository ownerRepository;
+    private final CardRepository cardRepository;
+
+    public CardFixtures(OwnerRepository ownerRepository, CardRepository cardRepository) {
+        this.ownerRepository = ownerRepository;
+        this.cardRepository = cardRepository;
+    }
+
+    /**
+     * Активный клиент с ролью USER; email должен быть уникальным в пределах теста.
+     */
+    public Owner owner(String email) {
+        Owner o = new Owner();
+        o.setFirstName("John");
+        o.setLastName("Smith");
+        o.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        o.setEmail(email);
+        o.setPassword("secret");
+        o.setPhone("+1000000");
+        o.setRole(Role.USER);
+        o.setLocked(false);
+        return ownerRepository.save(o);
+    }
+
+    /**
+     * Активная долларовая карта с нулевым балансом.
+     */
+    public Card card(Owner owner, String last4) {
+        return card(owner, last4, BigDecimal.ZERO);
+    }
+
+    public Card card(Owner owner, String last4, BigDecimal balance) {
+        Card c = new Card();
+        c.setOwner(owner);
+        c.setPan("stub");
+        c.setPanLast4(last4);
+        c.setBin("400000");
+        c.setExpiryMonth((short) 10);
+        c.setExpiryYear((short) 2030);
+        c.setStatus(CardStatus.ACTIVE);
+        c.setBalance(balance);
+        c.setCurrency(Currency.USD);
+        return cardRepository.save(c);
+    }
+}
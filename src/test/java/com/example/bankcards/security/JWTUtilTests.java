@@ -0,0 +1,82 @@
+package com.example.bankcards.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JWTUtilTests {
+    private static final String SECRET = "test-secret";
+
+    private final JWTUtil jwtUtil = new JWTUtil(SECRET, Duration.ofHours(1), 16);
+
+    @Test
+    void validateAccessToken_shouldReturnCachedClaims_forRepeatedToken() {
+        String token = jwtUtil.generateAccessToken(7L, "user@example.com", "USER");
+
+        DecodedJWT first = jwtUtil.validateAccessToken(token);
+        DecodedJWT second = jwtUtil.validateAccessToken(new String(token.toCharArray()));
+
+        assertSame(first, second);
+        assertEquals(7L, second.getClaim("id").asLong());
+        assertEquals("USER", second.getClaim("role").asString());
+    }
+
+    @Test
+    void validateAccessToken_shouldRejectTamperedToken_evenWhenOriginalIsCached() {
+        String token = jwtUtil.generateAccessToken(7L, "user@example.com", "USER");
+        jwtUtil.validateAccessToken(token);
+
+        String[] parts = token.split("\\.");
+        String forged = JWT.create()
+                .withSubject("Owner details")
+                .withIssuer("ADMIN")
+                .withClaim("id", 7L)
+                .withClaim("role", "ADMIN")
+                .withExpiresAt(Date.from(Instant.now().plusSeconds(3600)))
+                .sign(Algorithm.HMAC256(SECRET)).split("\\.")[1];
+
+        assertThrows(JWTVerificationException.class,
+                () -> jwtUtil.validateAccessToken(parts[0] + "." + forged + "." + parts[2]));
+    }
+
+    @Test
+    void validateAccessToken_shouldRejectExpiredToken() {
+        String expired = JWT.create()
+                .withSubject("Owner details")
+                .withIssuer("ADMIN")
+                .withClaim("id", 7L)
+                .withExpiresAt(Date.from(Instant.now().minusSeconds(1)))
+                .sign(Algorithm.HMAC256(SECRET));
+
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.validateAccessToken(expired));
+    }
+
+    @Test
+    void issuedAt_shouldHaveMillisecondPrecision_andFallBackToIat() {
+        Instant before = Instant.now();
+        Instant issuedAt = JWTUtil.issuedAt(jwtUtil.validateAccessToken(
+                jwtUtil.generateAccessToken(7L, "user@example.com", "USER")));
+        assertFalse(issuedAt.isBefore(before.truncatedTo(ChronoUnit.MILLIS)));
+
+        Date iat = Date.from(Instant.ofEpochSecond(1_700_000_000L));
+        String legacy = JWT.create()
+                .withSubject("Owner details")
+                .withIssuer("ADMIN")
+                .withIssuedAt(iat)
+                .withExpiresAt(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                .sign(Algorithm.HMAC256(SECRET));
+        assertEquals(iat.toInstant(), JWTUtil.issuedAt(jwtUtil.validateAccessToken(legacy)));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.bankcards.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LoginExecutorTests {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void authenticate_shouldFailFast_whenPoolAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AuthenticationManager slow = request -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return request;
+        };
+        LoginExecutor executor = new LoginExecutor(slow, meterRegistry(), 1, 1, Duration.ofSeconds(10), Duration.ofSeconds(1));
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            callers.submit(() -> executor.authenticate(token()));
+            callers.submit(() -> executor.authenticate(token()));
+            // один вход в пуле, второй в очереди
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (registry.get("cards.login.queue").gauge().value() < 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+
+            assertThrows(RejectedExecutionException.class, () -> executor.authenticate(token()));
+            assertEquals(1.0, registry.get("cards.login.rejected").counter().count());
+        } finally {
+            release.countDown();
+            callers.shutdown();
+            assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2, registry.get("cards.login.hash").timer().count());
+    }
+
+    @Test
+    void authenticate_shouldPropagateAuthenticationErrors() {
+        AuthenticationManager rejecting = request -> {
+            throw new BadCredentialsException("Invalid credentials");
+        };
+        LoginExecutor executor = new LoginExecutor(rejecting, meterRegistry(), 1, 1, Duration.ofSeconds(10), Duration.ofSeconds(1));
+
+        assertThrows(BadCredentialsException.class, () -> executor.authenticate(token()));
+        assertEquals(1, registry.get("cards.login.hash").timer().count());
+    }
+
+    @Test
+    void authenticate_shouldReject_whenVerificationTimesOut() {
+        CountDownLatch never = new CountDownLatch(1);
+        AuthenticationManager stuck = request -> {
+            try {
+                never.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return request;
+        };
+        LoginExecutor executor = new LoginExecutor(stuck, meterRegistry(), 1, 1, Duration.ofMillis(50), Duration.ofSeconds(1));
+
+        assertThrows(RejectedExecutionException.class, () -> executor.authenticate(token()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ObjectProvider<MeterRegistry> meterRegistry() {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(registry);
+        return provider;
+    }
+
+    private static UsernamePasswordAuthenticationToken token() {
+        return new UsernamePasswordAuthenticationToken("john@gmail.com", "secret");
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.Owner;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.repository.OwnerRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OwnerDetailsServiceTests {
+    private final OwnerRepository ownerRepository = mock(OwnerRepository.class);
+    private final OwnerDetailsService ownerDetailsService = new OwnerDetailsService(ownerRepository);
+
+    @Test
+    void login_shouldRehashPassword_whenBcryptStrengthIncreased() {
+        Owner owner = owner(new BCryptPasswordEncoder(4).encode("secret"));
+        when(ownerRepository.findByEmail("john@gmail.com")).thenReturn(Optional.of(owner));
+        when(ownerRepository.save(any(Owner.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        provider(new BCryptPasswordEncoder(5))
+                .authenticate(new UsernamePasswordAuthenticationToken("john@gmail.com", "secret"));
+
+        ArgumentCaptor<Owner> saved = ArgumentCaptor.forClass(Owner.class);
+        verify(ownerRepository).save(saved.capture());
+        assertTrue(saved.getValue().getPassword().startsWith("$2a$05$"));
+        assertTrue(new BCryptPasswordEncoder(5).matches("secret", saved.getValue().getPassword()));
+    }
+
+    @Test
+    void login_shouldKeepPassword_whenBcryptStrengthUnchanged() {
+        Owner owner = owner(new BCryptPasswordEncoder(4).encode("secret"));
+        when(ownerRepository.findByEmail("john@gmail.com")).thenReturn(Optional.of(owner));
+
+        provider(new BCryptPasswordEncoder(4))
+                .authenticate(new UsernamePasswordAuthenticationToken("john@gmail.com", "secret"));
+
+        verify(ownerRepository, never()).save(any(Owner.class));
+    }
+
+    /** Как провайдер, который строит AuthenticationManagerBuilder в SecurityConfig. */
+    private DaoAuthenticationProvider provider(BCryptPasswordEncoder encoder) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(ownerDetailsService);
+        provider.setPasswordEncoder(encoder);
+        provider.setUserDetailsPasswordService(ownerDetailsService);
+        return provider;
+    }
+
+    private static Owner owner(String encodedPassword) {
+        Owner owner = new Owner();
+        owner.setId(1L);
+        owner.setEmail("john@gmail.com");
+        owner.setPassword(encodedPassword);
+        owner.setRole(Role.USER);
+        return owner;
+    }
+}
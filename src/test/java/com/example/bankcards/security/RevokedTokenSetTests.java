@@ -0,0 +1,53 @@
+package com.example.bankcards.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RevokedTokenSetTests {
+    private static final long FUTURE = Long.MAX_VALUE;
+
+    @Test
+    void contains_shouldBeExact_forRevokedAndNotRevokedIds() {
+        RevokedTokenSet set = new RevokedTokenSet(1024);
+        String revoked = UUID.randomUUID().toString();
+        set.add(revoked, FUTURE);
+
+        assertTrue(set.contains(revoked));
+        // ложные срабатывания фильтра Блума отсекает точное множество
+        for (int i = 0; i < 10_000; i++) {
+            assertFalse(set.contains(UUID.randomUUID().toString()));
+        }
+    }
+
+    @Test
+    void add_shouldKeepEveryId_whenGrowingPastExpectedSize() {
+        RevokedTokenSet set = new RevokedTokenSet(1024);
+        String[] ids = new String[5_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID().toString();
+            set.add(ids[i], FUTURE);
+        }
+
+        for (String id : ids) {
+            assertTrue(set.contains(id));
+        }
+        assertEquals(ids.length, set.size());
+    }
+
+    @Test
+    void purgeExpired_shouldDropOnlyExpiredIds() {
+        RevokedTokenSet set = new RevokedTokenSet(1024);
+        set.add("expired", 1_000L);
+        set.add("active", 5_000L);
+
+        assertEquals(1, set.purgeExpired(2_000L));
+
+        assertFalse(set.contains("expired"));
+        assertTrue(set.contains("active"));
+    }
+}
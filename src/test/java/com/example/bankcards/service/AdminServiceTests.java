@@ -9,6 +9,7 @@ import com.example.bankcards.mapper.CardMapper;
 import com.example.bankcards.mapper.OwnerMapper;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.OwnerRepository;
+import com.example.bankcards.security.OwnerStatusCache;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -48,6 +49,21 @@ class AdminServiceTests {
     @Mock
     private CardMapper cardMapper;
 
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private SpendingLimitService spendingLimitService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private OwnerStatusCache ownerStatusCache;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
     @InjectMocks
     private AdminService adminService;
 
@@ -64,6 +80,8 @@ class AdminServiceTests {
 
             verify(ownerRepository).save(owner);
             assertEquals(Role.ADMIN, owner.getRole());
+            assertNotNull(owner.getTokensValidAfter());
+            verify(ownerStatusCache).invalidate(PERSON_ID);
         }
 
         @Test
@@ -79,7 +97,7 @@ class AdminServiceTests {
     class FindAllUsersTests {
         @BeforeEach
         void setUp() {
-            adminService = new AdminService(ownerRepository, ownerMapper, cardRepository, cardMapper);
+            adminService = new AdminService(ownerRepository, ownerMapper, cardRepository, cardMapper, stripedBalanceService, spendingLimitService, outboxService, ownerStatusCache, tokenRevocationService);
         }
 
         @Test
@@ -129,7 +147,10 @@ class AdminServiceTests {
             adminService.blockCustomer(1L);
 
             assertTrue(o.isLocked());
+            assertNotNull(o.getTokensValidAfter());
             verify(ownerRepository).save(o);
+            verify(outboxService).ownerLockChanged(o);
+            verify(ownerStatusCache).invalidate(1L);
         }
 
         @Test
@@ -156,6 +177,7 @@ class AdminServiceTests {
 
             assertFalse(o.isLocked());
             verify(ownerRepository).save(o);
+            verify(ownerStatusCache).invalidate(1L);
         }
 
         @Test
@@ -170,6 +192,7 @@ class AdminServiceTests {
 
             assertFalse(o.isLocked());
             verify(ownerRepository, never()).save(any());
+            verifyNoInteractions(ownerStatusCache);
         }
 
         @Test
@@ -276,6 +299,7 @@ class AdminServiceTests {
             verify(cardRepository).findById(cardId);
             verify(cardRepository).save(argThat(c -> c.getStatus() == CardStatus.BLOCKED));
             verify(cardMapper).toResponse(blocked);
+            verify(outboxService).cardStatusChanged(blocked);
         }
 
         @Test
@@ -307,6 +331,7 @@ class AdminServiceTests {
             verify(cardRepository).findById(cardId);
             verify(cardRepository, never()).save(any());
             verify(cardMapper).toResponse(card);
+            verifyNoInteractions(outboxService);
         }
 
         @Test
@@ -373,6 +398,7 @@ class AdminServiceTests {
             verify(cardRepository).findById(cardId);
             verify(cardRepository, never()).save(any());
             verify(cardMapper).toResponse(card);
+            verifyNoInteractions(outboxService);
         }
 
         @Test
@@ -388,12 +414,49 @@ class AdminServiceTests {
         }
     }
 
+    @Nested
+    class AdminSetBalanceSlotsTests {
+
+        @Test
+        void adminSetBalanceSlots_shouldRestripeLockedCard() {
+            Card card = new Card();
+            card.setId(300L);
+            card.setStatus(CardStatus.ACTIVE);
+            card.setBalance(new BigDecimal("10.00"));
+            when(cardRepository.findByIdForUpdate(300L)).thenReturn(Optional.of(card));
+
+            CardResponseDTO dto = new CardResponseDTO();
+            dto.setId(300L);
+            when(cardMapper.toResponse(card)).thenReturn(dto);
+
+            CardResponseDTO result = adminService.adminSetBalanceSlots(300L, 8);
+
+            assertEquals(300L, result.getId());
+            verify(stripedBalanceService).restripe(card, 8);
+        }
+
+        @Test
+        void adminSetBalanceSlots_shouldReturn400_whenSlotsOutOfRange() {
+            assertThrows(ResponseStatusException.class, () -> adminService.adminSetBalanceSlots(300L, -1));
+            assertThrows(ResponseStatusException.class,
+                    () -> adminService.adminSetBalanceSlots(300L, StripedBalanceService.MAX_SLOTS + 1));
+            verifyNoInteractions(cardRepository, stripedBalanceService);
+        }
+
+        @Test
+        void adminSetBalanceSlots_shouldThrow404_whenCardMissing() {
+            when(cardRepository.findByIdForUpdate(301L)).thenReturn(Optional.empty());
+            assertThrows(EntityNotFoundException.class, () -> adminService.adminSetBalanceSlots(301L, 4));
+            verifyNoInteractions(stripedBalanceService);
+        }
+    }
+
     @Nested
     class FindCardsByFilterTests {
 
         @BeforeEach
         void initService() {
-            adminService = new AdminService(ownerRepository, ownerMapper, cardRepository, cardMapper);
+            adminService = new AdminService(ownerRepository, ownerMapper, cardRepository, cardMapper, stripedBalanceService, spendingLimitService, outboxService, ownerStatusCache, tokenRevocationService);
         }
 
         @Test
@@ -469,7 +532,7 @@ class AdminServiceTests {
 
         @BeforeEach
         void initService() {
-            adminService = new AdminService(ownerRepository, ownerMapper, cardRepository, cardMapper);
+            adminService = new AdminService(ownerRepository, ownerMapper, cardRepository, cardMapper, stripedBalanceService, spendingLimitService, outboxService, ownerStatusCache, tokenRevocationService);
         }
 
         @Test
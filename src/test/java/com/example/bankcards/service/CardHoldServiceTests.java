@@ -0,0 +1,69 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.CardHold;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardHoldRepository;
+import com.example.bankcards.repository.CardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardHoldServiceTests {
+
+    @Mock private CardRepository cardRepository;
+    @Mock private CardHoldRepository holdRepository;
+    @Mock private LedgerService ledgerService;
+    @Mock private StripedBalanceService stripedBalanceService;
+    @Mock private SpendingLimitService spendingLimitService;
+    @Mock private CardMapper cardMapper;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private CardHoldService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CardHoldService(cardRepository, holdRepository, ledgerService, stripedBalanceService,
+                spendingLimitService, cardMapper, transactionManager,
+                Duration.ofDays(7), Duration.ofDays(30), Duration.ZERO, 500);
+    }
+
+    @Test
+    void hold_shouldReturn400_whenTtlExceedsMax_withoutTouchingCard() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.hold(1L, 10L, new BigDecimal("5.00"), Duration.ofDays(31)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        verifyNoInteractions(cardRepository, holdRepository);
+    }
+
+    @Test
+    void capture_shouldReturn409_andNotDebitCard_whenHoldClaimedConcurrently() {
+        LocalDateTime now = LocalDateTime.now();
+        CardHold hold = new CardHold(10L, 1L, new BigDecimal("5.00"), now, now.plusHours(1));
+        when(holdRepository.findByIdAndCardIdAndOwnerId(42L, 10L, 1L)).thenReturn(Optional.of(hold));
+        // строку успел закрыть параллельный release
+        when(holdRepository.captureIfActive(eq(42L), eq(10L), eq(1L), any())).thenReturn(0);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.capture(1L, 10L, 42L));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertEquals("Hold is no longer active", ex.getReason());
+        verify(cardRepository, never()).captureHeld(any(), any());
+        verifyNoInteractions(ledgerService, spendingLimitService);
+    }
+}
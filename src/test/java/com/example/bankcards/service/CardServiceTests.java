@@ -1,13 +1,19 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.BatchTransferItemStatus;
+import com.example.bankcards.dto.BatchTransferMode;
+import com.example.bankcards.dto.BatchTransferResponseDTO;
 import com.example.bankcards.dto.CardCreateRequestDTO;
 import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.dto.TransferRequestDTO;
 import com.example.bankcards.dto.TransferResponseDTO;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.Currency;
+import com.example.bankcards.entity.Money;
 import com.example.bankcards.entity.Owner;
 import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardBalanceWriter;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.OwnerRepository;
 import jakarta.persistence.EntityNotFoundException;
@@ -22,9 +28,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,8 +43,15 @@ import static org.mockito.Mockito.*;
 class CardServiceTests {
 
     @Mock private CardRepository cardRepository;
+    @Mock private CardBalanceWriter balanceWriter;
     @Mock private OwnerRepository ownerRepository;
     @Mock private CardMapper cardMapper;
+    @Mock private LedgerService ledgerService;
+    @Mock private StripedBalanceService stripedBalanceService;
+    @Mock private SpendingLimitService spendingLimitService;
+    @Mock private FxRateService fxRateService;
+    @Mock private FraudRuleService fraudRuleService;
+    @Mock private OutboxService outboxService;
 
     private CardService cardService;
 
@@ -43,10 +59,19 @@ class CardServiceTests {
     void setUp() {
         cardService = new CardService(
                 cardRepository,
+                balanceWriter,
                 ownerRepository,
                 cardMapper,
+                ledgerService,
+                stripedBalanceService,
+                spendingLimitService,
+                fxRateService,
+                fraudRuleService,
+                outboxService,
                 "400000",
-                "USD"
+                "USD",
+                Duration.ZERO,
+                50
         );
     }
 
@@ -80,26 +105,36 @@ class CardServiceTests {
         assertNotNull(resp);
         assertEquals(10L, resp.getOwnerId());
         assertEquals(CardStatus.ACTIVE, resp.getStatus());
-        assertEquals(BigDecimal.ZERO, resp.getBalance());
+        assertEquals(new BigDecimal("0.00"), resp.getBalance());
 
         LocalDate now = LocalDate.now();
         assertEquals((short) now.getMonthValue(), resp.getExpiryMonth());
         assertEquals((short) (now.getYear() + 4), resp.getExpiryYear());
 
         verify(cardRepository).save(any(Card.class));
+        verify(outboxService).cardCreated(any(Card.class));
     }
 
     @Nested
     class GetMyCardsTests {
         @BeforeEach
         void setUp() {
-            // ВАЖНО: передать все 5 аргументов конструктора
+            // ВАЖНО: передать все аргументы конструктора
             cardService = new CardService(
                     cardRepository,
+                    balanceWriter,
                     ownerRepository,
                     cardMapper,
+                    ledgerService,
+                    stripedBalanceService,
+                    spendingLimitService,
+                    fxRateService,
+                    fraudRuleService,
+                    outboxService,
                     "400000",   // defaultBin
-                    "USD"       // defaultCurrency (строкой, enum внутри разберётся)
+                    "USD",      // defaultCurrency (строкой, enum внутри разберётся)
+                    Duration.ZERO, // lockTimeout: таймаут БД по умолчанию
+                    50             // maxBatchTransfers
             );
         }
 
@@ -240,8 +275,8 @@ class CardServiceTests {
 
         @BeforeEach
         void initService() {
-            // твой конструктор: (cardRepository, ownerRepository, cardMapper, defaultBin, defaultCurrency)
-            cardService = new CardService(cardRepository, ownerRepository, cardMapper, "400000", "USD");
+            // твой конструктор: (cardRepository, balanceWriter, ownerRepository, cardMapper, ledgerService, stripedBalanceService, defaultBin, defaultCurrency, lockTimeout)
+            cardService = new CardService(cardRepository, balanceWriter, ownerRepository, cardMapper, ledgerService, stripedBalanceService, spendingLimitService, fxRateService, fraudRuleService, outboxService, "400000", "USD", Duration.ZERO, 50);
         }
 
         @Test
@@ -260,11 +295,9 @@ class CardServiceTests {
             card.setBalance(BigDecimal.ZERO);
             card.setCurrency(Currency.USD);
 
-            when(cardRepository.findByIdAndOwnerId(cardId, ownerId)).thenReturn(Optional.of(card));
-
             Card after = cloneCard(card);
             after.setBalance(new BigDecimal("50.00"));
-            when(cardRepository.save(any(Card.class))).thenReturn(after);
+            when(balanceWriter.deposit(cardId, ownerId, amount)).thenReturn(Optional.of(after));
 
             CardResponseDTO dto = new CardResponseDTO();
             dto.setId(cardId);
@@ -277,8 +310,11 @@ class CardServiceTests {
             CardResponseDTO res = cardService.depositMyCard(ownerId, cardId, amount);
 
             assertEquals(new BigDecimal("50.00"), res.getBalance());
-            verify(cardRepository).findByIdAndOwnerId(cardId, ownerId);
-            verify(cardRepository).save(argThat(c -> c.getBalance().compareTo(new BigDecimal("50.00")) == 0));
+            verify(balanceWriter).deposit(cardId, ownerId, amount);
+            verify(cardRepository, never()).findByIdWithOwner(anyLong()); // строку вернул сам UPDATE
+            verify(ledgerService).recordDeposit(after, amount);
+            verify(cardRepository, never()).findByIdAndOwnerId(anyLong(), anyLong()); // probe только на ошибке
+            verify(cardRepository, never()).save(any());
             verify(cardMapper).toResponse(after);
         }
 
@@ -288,6 +324,14 @@ class CardServiceTests {
             assertThrows(ResponseStatusException.class, () -> cardService.depositMyCard(1L, 1L, new BigDecimal("-5")));
         }
 
+        @Test
+        void withdrawMyCard_shouldReturn400_whenAmountHasSubMinorUnits() {
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> cardService.withdrawMyCard(1L, 1L, new BigDecimal("1.005")));
+            assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+            verifyNoInteractions(cardRepository, balanceWriter);
+        }
+
         @Test
         void depositMyCard_shouldReturn404_whenCardNotOwned() {
             when(cardRepository.findByIdAndOwnerId(99L, 1L)).thenReturn(Optional.empty());
@@ -331,11 +375,9 @@ class CardServiceTests {
             card.setBalance(new BigDecimal("100.00"));
             card.setCurrency(Currency.USD);
 
-            when(cardRepository.findByIdAndOwnerId(cardId, ownerId)).thenReturn(Optional.of(card));
-
             Card after = cloneCard(card);
             after.setBalance(new BigDecimal("60.00"));
-            when(cardRepository.save(any(Card.class))).thenReturn(after);
+            when(balanceWriter.withdraw(cardId, ownerId, amount)).thenReturn(Optional.of(after));
 
             CardResponseDTO dto = new CardResponseDTO();
             dto.setId(cardId);
@@ -348,8 +390,11 @@ class CardServiceTests {
             CardResponseDTO res = cardService.withdrawMyCard(ownerId, cardId, amount);
 
             assertEquals(new BigDecimal("60.00"), res.getBalance());
-            verify(cardRepository).findByIdAndOwnerId(cardId, ownerId);
-            verify(cardRepository).save(argThat(c -> c.getBalance().compareTo(new BigDecimal("60.00")) == 0));
+            verify(balanceWriter).withdraw(cardId, ownerId, amount);
+            verify(cardRepository, never()).findByIdWithOwner(anyLong());
+            verify(ledgerService).recordWithdrawal(after, amount);
+            verify(cardRepository, never()).findByIdAndOwnerId(anyLong(), anyLong());
+            verify(cardRepository, never()).save(any());
             verify(cardMapper).toResponse(after);
         }
 
@@ -366,13 +411,87 @@ class CardServiceTests {
             card.setStatus(CardStatus.ACTIVE);
             card.setBalance(new BigDecimal("30.00"));
             card.setCurrency(Currency.USD);
-            when(cardRepository.findByIdAndOwnerId(cardId, ownerId)).thenReturn(Optional.of(card));
+            when(cardRepository.findByIdAndOwnerIdForUpdate(cardId, ownerId)).thenReturn(Optional.of(card));
 
             ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                     () -> cardService.withdrawMyCard(ownerId, cardId, new BigDecimal("50.00")));
             assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+            assertEquals("Insufficient funds", ex.getReason());
             verify(cardRepository, never()).save(any());
-            verifyNoInteractions(cardMapper);
+            verifyNoInteractions(cardMapper, ledgerService);
+        }
+
+        @Test
+        void depositMyCard_shouldGoToSlot_whenCardIsStriped() {
+            Long ownerId = 5L, cardId = 500L;
+            BigDecimal amount = new BigDecimal("25.00");
+            Card card = new Card();
+            card.setId(cardId);
+            card.setStatus(CardStatus.ACTIVE);
+            card.setBalance(BigDecimal.ZERO);
+            card.setBalanceSlots((short) 8);
+            card.setCurrency(Currency.USD);
+
+            when(stripedBalanceService.isStriped(cardId)).thenReturn(true);
+            when(stripedBalanceService.depositToSlot(ownerId, cardId, amount)).thenReturn(true);
+            when(cardRepository.findByIdWithOwner(cardId)).thenReturn(Optional.of(card));
+            when(cardMapper.toResponse(card)).thenReturn(new CardResponseDTO());
+
+            cardService.depositMyCard(ownerId, cardId, amount);
+
+            verify(balanceWriter, never()).deposit(anyLong(), anyLong(), any());
+            verify(ledgerService).recordDeposit(card, amount);
+        }
+
+        @Test
+        void depositMyCard_shouldRetryOnce_whenStripedCacheIsStale() {
+            Long ownerId = 5L, cardId = 501L;
+            BigDecimal amount = new BigDecimal("25.00");
+            Card card = new Card();
+            card.setId(cardId);
+            card.setStatus(CardStatus.ACTIVE);
+            card.setBalance(BigDecimal.ZERO);
+            card.setBalanceSlots((short) 4);
+            card.setCurrency(Currency.USD);
+
+            // кэш ещё не знает, что карта полосатая: обычный UPDATE не проходит, probe обновляет кэш
+            when(stripedBalanceService.isStriped(cardId)).thenReturn(false, true);
+            when(cardRepository.findByIdAndOwnerId(cardId, ownerId)).thenReturn(Optional.of(card));
+            when(stripedBalanceService.refresh(card)).thenReturn(true);
+            when(stripedBalanceService.depositToSlot(ownerId, cardId, amount)).thenReturn(true);
+            when(cardRepository.findByIdWithOwner(cardId)).thenReturn(Optional.of(card));
+            when(cardMapper.toResponse(card)).thenReturn(new CardResponseDTO());
+
+            cardService.depositMyCard(ownerId, cardId, amount);
+
+            verify(balanceWriter).deposit(cardId, ownerId, amount);
+            verify(stripedBalanceService).depositToSlot(ownerId, cardId, amount);
+            verify(ledgerService).recordDeposit(card, amount);
+        }
+
+        @Test
+        void withdrawMyCard_shouldConsolidateSlots_whenCardIsStriped() {
+            Long ownerId = 6L, cardId = 600L;
+            Card card = new Card();
+            card.setId(cardId);
+            card.setStatus(CardStatus.ACTIVE);
+            card.setBalance(new BigDecimal("10.00"));
+            card.setBalanceSlots((short) 8);
+            card.setCurrency(Currency.USD);
+
+            when(cardRepository.findByIdAndOwnerIdForUpdate(cardId, ownerId)).thenReturn(Optional.of(card));
+            // в полосах лежит ещё 90
+            doAnswer(inv -> {
+                Card c = inv.getArgument(0);
+                c.setBalance(c.getBalance().add(new BigDecimal("90.00")));
+                return null;
+            }).when(stripedBalanceService).consolidate(card);
+            when(cardMapper.toResponse(card)).thenReturn(new CardResponseDTO());
+
+            cardService.withdrawMyCard(ownerId, cardId, new BigDecimal("70.00"));
+
+            assertEquals(0, new BigDecimal("30.00").compareTo(card.getBalance()));
+            verify(ledgerService).recordWithdrawal(card, new BigDecimal("70.00"));
         }
     }
 
@@ -381,7 +500,7 @@ class CardServiceTests {
 
         @BeforeEach
         void initService() {
-            cardService = new CardService(cardRepository, ownerRepository, cardMapper, "400000", "USD");
+            cardService = new CardService(cardRepository, balanceWriter, ownerRepository, cardMapper, ledgerService, stripedBalanceService, spendingLimitService, fxRateService, fraudRuleService, outboxService, "400000", "USD", Duration.ZERO, 50);
         }
 
         @Test
@@ -394,8 +513,7 @@ class CardServiceTests {
             Card from = baseCard(fromId, "1111", CardStatus.ACTIVE, new BigDecimal("100.00"));
             Card to   = baseCard(toId, "2222", CardStatus.ACTIVE, new BigDecimal("5.00"));
 
-            when(cardRepository.findByIdAndOwnerId(fromId, ownerId)).thenReturn(Optional.of(from));
-            when(cardRepository.findByIdAndOwnerId(toId, ownerId)).thenReturn(Optional.of(to));
+            when(cardRepository.lockPairForUpdate(ownerId, fromId, toId)).thenReturn(Map.of(fromId, from, toId, to));
 
             // после операции должны получиться такие состояния
             Card savedFrom = cloneCard(from);
@@ -425,9 +543,10 @@ class CardServiceTests {
             assertEquals(new BigDecimal("60.00"), res.getFrom().getBalance());
             assertEquals(new BigDecimal("45.00"), res.getTo().getBalance());
 
-            verify(cardRepository).findByIdAndOwnerId(fromId, ownerId);
-            verify(cardRepository).findByIdAndOwnerId(toId, ownerId);
+            verify(cardRepository).lockPairForUpdate(ownerId, fromId, toId);
+            verify(cardRepository, never()).findByIdAndOwnerId(anyLong(), anyLong());
             verify(cardRepository, times(2)).save(any(Card.class));
+            verify(ledgerService).recordTransfer(savedFrom, savedTo, amount);
             verify(cardMapper).toResponse(savedFrom);
             verify(cardMapper).toResponse(savedTo);
         }
@@ -442,9 +561,16 @@ class CardServiceTests {
 
         @Test
         void transfer_should404_whenFromOrToNotOwned() {
-            when(cardRepository.findByIdAndOwnerId(10L, 1L)).thenReturn(Optional.empty());
+            when(cardRepository.lockPairForUpdate(1L, 10L, 20L)).thenReturn(Map.of());
             assertThrows(EntityNotFoundException.class,
                     () -> cardService.transferBetweenMyCards(1L, 10L, 20L, new BigDecimal("1")));
+
+            // источник свой, получатель чужой
+            Card mine = baseCard(10L, "1111", CardStatus.ACTIVE, new BigDecimal("100"));
+            when(cardRepository.lockPairForUpdate(1L, 10L, 20L)).thenReturn(Map.of(10L, mine));
+            EntityNotFoundException ex = assertThrows(EntityNotFoundException.class,
+                    () -> cardService.transferBetweenMyCards(1L, 10L, 20L, new BigDecimal("1")));
+            assertTrue(ex.getMessage().contains("Destination"));
         }
 
         @Test
@@ -453,8 +579,7 @@ class CardServiceTests {
             Card from = baseCard(1L, "1111", CardStatus.BLOCKED, new BigDecimal("100"));
             Card to   = baseCard(2L, "2222", CardStatus.ACTIVE,  new BigDecimal("0"));
 
-            when(cardRepository.findByIdAndOwnerId(1L, ownerId)).thenReturn(Optional.of(from));
-            when(cardRepository.findByIdAndOwnerId(2L, ownerId)).thenReturn(Optional.of(to));
+            when(cardRepository.lockPairForUpdate(ownerId, 1L, 2L)).thenReturn(Map.of(1L, from, 2L, to));
 
             assertEquals(HttpStatus.CONFLICT,
                     assertThrows(ResponseStatusException.class,
@@ -470,6 +595,32 @@ class CardServiceTests {
                             .getStatusCode());
         }
 
+        @Test
+        void transfer_shouldConvertAtSnapshotRate_andRecordRate_whenCurrenciesDiffer() {
+            Long ownerId = 7L;
+            BigDecimal amount = new BigDecimal("40.00");
+            Card from = baseCard(1L, "1111", CardStatus.ACTIVE, new BigDecimal("100.00"));
+            Card to   = baseCard(2L, "2222", CardStatus.ACTIVE, new BigDecimal("5.00"));
+            to.setCurrency(Currency.EUR);
+            FxRateService.Conversion conversion = new FxRateService.Conversion(
+                    Money.of(new BigDecimal("36.80"), Currency.EUR), new BigDecimal("0.92000000"), 3L);
+
+            when(cardRepository.lockPairForUpdate(ownerId, 1L, 2L)).thenReturn(Map.of(1L, from, 2L, to));
+            when(fxRateService.convert(Money.of(amount, Currency.USD), Currency.EUR)).thenReturn(conversion);
+            when(cardRepository.save(any(Card.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            TransferResponseDTO res = cardService.transferBetweenMyCards(ownerId, 1L, 2L, amount);
+
+            assertEquals(0, new BigDecimal("60.00").compareTo(from.getBalance()));
+            assertEquals(0, new BigDecimal("41.80").compareTo(to.getBalance()));
+            assertEquals(new BigDecimal("36.80"), res.getCreditedAmount());
+            assertEquals(new BigDecimal("0.92000000"), res.getFxRate());
+            // лимит расходов — в валюте списания
+            verify(spendingLimitService).reserve(ownerId, 1L, 4000L);
+            verify(ledgerService).recordTransfer(from, to, amount, conversion);
+            verify(ledgerService, never()).recordTransfer(any(), any(), any(BigDecimal.class));
+        }
+
         // helpers
         private Card baseCard(Long id, String last4, CardStatus st, BigDecimal bal) {
             Card c = new Card();
@@ -492,6 +643,103 @@ class CardServiceTests {
         }
     }
 
+    @Nested
+    class TransferBatchTests {
+
+        @Test
+        void batch_shouldLockAllCardsOnce_andSpendIncomingFundsInOrder() {
+            Card a = card(1L, CardStatus.ACTIVE, "0");
+            Card b = card(2L, CardStatus.ACTIVE, "100");
+            Card c = card(3L, CardStatus.ACTIVE, "0");
+            when(cardRepository.findAllByOwnerIdAndIdInForUpdate(eq(7L), anyCollection())).thenReturn(List.of(a, b, c));
+            when(cardMapper.toResponse(any(Card.class))).thenReturn(new CardResponseDTO());
+            when(stripedBalanceService.totalBalance(any(Card.class))).thenAnswer(inv -> ((Card) inv.getArgument(0)).getBalance());
+
+            // 2→1 на 60, затем 1→3 на 50: второй перевод тратит деньги, пришедшие первым
+            BatchTransferResponseDTO res = cardService.transferBatchBetweenMyCards(7L,
+                    List.of(transfer(2L, 1L, "60"), transfer(1L, 3L, "50")), BatchTransferMode.ALL_OR_NOTHING);
+
+            assertEquals(2, res.getApplied());
+            assertEquals(0, res.getRejected());
+            assertEquals(0, new BigDecimal("10").compareTo(a.getBalance()));
+            assertEquals(0, new BigDecimal("40").compareTo(b.getBalance()));
+            assertEquals(0, new BigDecimal("50").compareTo(c.getBalance()));
+            verify(cardRepository, times(1)).findAllByOwnerIdAndIdInForUpdate(eq(7L), anyCollection());
+            // остатки после ног — на момент применения каждого перевода, а не итоговые
+            verify(ledgerService).recordTransfer(eq(b), eq(a), eq(new BigDecimal("60")), isNull(),
+                    eq(new BigDecimal("40.00")), eq(new BigDecimal("60.00")));
+            verify(ledgerService).recordTransfer(eq(a), eq(c), eq(new BigDecimal("50")), isNull(),
+                    eq(new BigDecimal("10.00")), eq(new BigDecimal("50.00")));
+        }
+
+        @Test
+        void batch_allOrNothing_shouldApplyNothing_whenAnyItemRejected() {
+            Card a = card(1L, CardStatus.ACTIVE, "100");
+            Card b = card(2L, CardStatus.BLOCKED, "0");
+            Card c = card(3L, CardStatus.ACTIVE, "0");
+            when(cardRepository.findAllByOwnerIdAndIdInForUpdate(eq(7L), anyCollection())).thenReturn(List.of(a, b, c));
+            when(cardMapper.toResponse(any(Card.class))).thenReturn(new CardResponseDTO());
+
+            BatchTransferResponseDTO res = cardService.transferBatchBetweenMyCards(7L,
+                    List.of(transfer(1L, 3L, "10"), transfer(1L, 2L, "10"), transfer(1L, 9L, "10")),
+                    BatchTransferMode.ALL_OR_NOTHING);
+
+            assertEquals(0, res.getApplied());
+            assertEquals(2, res.getRejected());
+            assertEquals(BatchTransferItemStatus.NOT_APPLIED, res.getResults().get(0).getStatus());
+            assertEquals(409, res.getResults().get(1).getErrorStatus());
+            assertEquals(404, res.getResults().get(2).getErrorStatus());
+            assertEquals(0, new BigDecimal("100").compareTo(a.getBalance()));
+            verify(ledgerService, never()).recordTransfer(any(), any(), any());
+        }
+
+        @Test
+        void batch_bestEffort_shouldApplyValidItems_andReportRejected() {
+            Card a = card(1L, CardStatus.ACTIVE, "30");
+            Card b = card(2L, CardStatus.ACTIVE, "0");
+            when(cardRepository.findAllByOwnerIdAndIdInForUpdate(eq(7L), anyCollection())).thenReturn(List.of(a, b));
+            when(cardMapper.toResponse(any(Card.class))).thenReturn(new CardResponseDTO());
+
+            BatchTransferResponseDTO res = cardService.transferBatchBetweenMyCards(7L,
+                    List.of(transfer(1L, 2L, "20"), transfer(1L, 2L, "20"), transfer(1L, 1L, "1")),
+                    BatchTransferMode.BEST_EFFORT);
+
+            assertEquals(1, res.getApplied());
+            assertEquals(2, res.getRejected());
+            assertEquals("Insufficient funds", res.getResults().get(1).getMessage());
+            assertEquals(400, res.getResults().get(2).getErrorStatus());
+            assertEquals(0, new BigDecimal("10").compareTo(a.getBalance()));
+            assertEquals(0, new BigDecimal("20").compareTo(b.getBalance()));
+        }
+
+        @Test
+        void batch_should400_whenTooManyTransfers() {
+            List<TransferRequestDTO> transfers = Collections.nCopies(51, transfer(1L, 2L, "1"));
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> cardService.transferBatchBetweenMyCards(7L, transfers, BatchTransferMode.BEST_EFFORT));
+            assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+            verifyNoInteractions(cardRepository);
+        }
+
+        private Card card(Long id, CardStatus status, String balance) {
+            Card c = new Card();
+            c.setId(id);
+            c.setStatus(status);
+            c.setBalance(new BigDecimal(balance));
+            c.setCurrency(Currency.USD);
+            return c;
+        }
+
+        private TransferRequestDTO transfer(Long from, Long to, String amount) {
+            TransferRequestDTO t = new TransferRequestDTO();
+            t.setFromCardId(from);
+            t.setToCardId(to);
+            t.setAmount(new BigDecimal(amount));
+            return t;
+        }
+    }
+
     private Card cloneCard(Card src) {
         Card c = new Card();
         c.setId(src.getId());
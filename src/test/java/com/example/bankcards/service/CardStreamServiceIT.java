@@ -0,0 +1,108 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardUpdateDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Owner;
+import com.example.bankcards.fixture.CardFixtures;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.OwnerRepository;
+import com.example.bankcards.security.JWTUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+@ActiveProfiles("test")
+class CardStreamServiceIT {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private CardStreamService cardStreamService;
+    @Autowired private CardRepository cardRepository;
+    @Autowired private OwnerRepository ownerRepository;
+    @Autowired private CardFixtures fixtures;
+    @Autowired private JWTUtil jwtUtil;
+
+    @AfterEach
+    void cleanup() {
+        cardRepository.deleteAll();
+        ownerRepository.deleteAll();
+    }
+
+    @Test
+    void onCardChanged_shouldDropUpdate_olderThanAlreadyStreamed() throws Exception {
+        Owner me = fixtures.owner("stream-order@example.com");
+        Card mine = fixtures.card(me, "4242");
+        MvcResult live = subscribe(me);
+
+        // колбэк после коммита версии 1 пришёл позже, чем версии 2
+        cardStreamService.onCardChanged(changed(me, mine, 2L, "20"));
+        cardStreamService.onCardChanged(changed(me, mine, 1L, "10"));
+        // та же версия — пополнение полосатой карты, его не отбрасываем
+        cardStreamService.onCardChanged(changed(me, mine, 2L, "25"));
+
+        String content = awaitContent(live, "\"balance\":25");
+        assertFalse(content.contains("\"balance\":10"));
+    }
+
+    @Test
+    void onCardChanged_shouldTrackVersions_perCard() throws Exception {
+        Owner me = fixtures.owner("stream-cards@example.com");
+        Card first = fixtures.card(me, "1111");
+        Card second = fixtures.card(me, "2222");
+        MvcResult live = subscribe(me);
+
+        cardStreamService.onCardChanged(changed(me, first, 5L, "50"));
+        cardStreamService.onCardChanged(changed(me, second, 1L, "10"));
+
+        awaitContent(live, "\"balance\":10");
+    }
+
+    private MvcResult subscribe(Owner owner) throws Exception {
+        String token = jwtUtil.generateAccessToken(owner.getId(), owner.getEmail(), "USER");
+        return mockMvc.perform(get("/cards/stream")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private CardChangedEvent changed(Owner owner, Card card, long version, String balance) {
+        Card source = new Card();
+        source.setVersion(version);
+        CardUpdateDTO dto = new CardUpdateDTO();
+        dto.setCardId(card.getId());
+        dto.setBalance(new BigDecimal(balance));
+        dto.setChangedAt(LocalDateTime.now());
+        return new CardChangedEvent(owner.getId(), dto, source);
+    }
+
+    /** События пишутся виртуальным потоком — ждём их в теле ответа. */
+    private String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected)) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Expected stream to contain " + expected + " but was: " + content);
+            }
+            Thread.sleep(10);
+            content = result.getResponse().getContentAsString();
+        }
+        return content;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Owner;
+import com.example.bankcards.fixture.CardFixtures;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.OwnerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Нагрузочная проверка блокировок в transferBetweenMyCards: 64 потока гоняют деньги
+ * по кругу между несколькими картами одного владельца (в обе стороны — классический сценарий дедлока).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CardTransferConcurrencyIT {
+
+    private static final int THREADS = 64;
+    private static final int TRANSFERS_PER_THREAD = 40;
+    private static final int CARDS = 4;
+
+    private final Logger logger = LoggerFactory.getLogger(CardTransferConcurrencyIT.class);
+
+    @Autowired private CardService cardService;
+    @Autowired private CardRepository cardRepository;
+    @Autowired private OwnerRepository ownerRepository;
+    @Autowired private CardFixtures fixtures;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void cleanup() {
+        cardRepository.deleteAll();
+        ownerRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentTransfers_shouldPreserveTotalBalance_andNeverDeadlock() throws Exception {
+        Owner owner = fixtures.owner("stress@example.com");
+        List<Long> cardIds = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            cardIds.add(fixtures.card(owner, "10" + i + "0", new BigDecimal("1000.00")).getId());
+        }
+        BigDecimal totalBefore = totalBalance(cardIds);
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();   // 409 — например, недостаточно средств
+        AtomicInteger retries = new AtomicInteger();    // lock timeout → повтор, как сделал бы клиент по 503
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        long startedAt = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                SecurityContextHolder.getContext()
+                        .setAuthentication(new TestingAuthenticationToken("stress", null, "USER"));
+                try {
+                    start.await();
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        int a = rnd.nextInt(CARDS);
+                        int b = (a + 1 + rnd.nextInt(CARDS - 1)) % CARDS;
+                        BigDecimal amount = BigDecimal.valueOf(rnd.nextInt(1, 50));
+                        transferWithRetry(owner.getId(), cardIds.get(a), cardIds.get(b), amount,
+                                completed, rejected, retries);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+
+        logger.info("transfers: ok={} rejected={} retries={}, {} ops/s", completed.get(), rejected.get(),
+                retries.get(), Math.round((completed.get() + rejected.get()) / seconds));
+
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, completed.get() + rejected.get());
+        // по 1000.00 на карте и переводы до 49: отказы по остатку возможны, но большинство проходит
+        assertTrue(completed.get() > rejected.get(), "ok=" + completed.get() + " rejected=" + rejected.get());
+        assertEquals(0, totalBefore.compareTo(totalBalance(cardIds)), "money must not appear or vanish");
+        for (Long id : cardIds) {
+            assertTrue(cardRepository.findById(id).orElseThrow().getBalance().signum() >= 0);
+        }
+    }
+
+    @Test
+    void groupTransaction_shouldLockCardsOfSeveralOwnersUpFront_andApplyEveryPair() {
+        Owner first = fixtures.owner("group-1@example.com");
+        Owner second = fixtures.owner("group-2@example.com");
+        Card a = fixtures.card(first, "2010", new BigDecimal("100.00"));
+        Card b = fixtures.card(first, "2020", new BigDecimal("0.00"));
+        Card c = fixtures.card(second, "2030", new BigDecimal("50.00"));
+        Card d = fixtures.card(second, "2040", new BigDecimal("0.00"));
+
+        // как групповая транзакция воркера: сначала все карты по возрастанию id, затем переводы в любом порядке
+        transactionTemplate.executeWithoutResult(status -> {
+            cardService.lockCardsForGroup(List.of(d.getId(), a.getId(), c.getId(), b.getId()));
+            cardService.applyTransfer(second.getId(), c.getId(), d.getId(), new BigDecimal("20.00"));
+            cardService.applyTransfer(first.getId(), a.getId(), b.getId(), new BigDecimal("30.00"));
+        });
+
+        assertEquals(0, new BigDecimal("70.00").compareTo(cardRepository.findById(a.getId()).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("30.00").compareTo(cardRepository.findById(b.getId()).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("30.00").compareTo(cardRepository.findById(c.getId()).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("20.00").compareTo(cardRepository.findById(d.getId()).orElseThrow().getBalance()));
+    }
+
+    private void transferWithRetry(Long ownerId, Long fromId, Long toId, BigDecimal amount,
+                                   AtomicInteger completed, AtomicInteger rejected, AtomicInteger retries) {
+        while (true) {
+            try {
+                cardService.transferBetweenMyCards(ownerId, fromId, toId, amount);
+                completed.incrementAndGet();
+                return;
+            } catch (ResponseStatusException e) {
+                rejected.incrementAndGet();
+                return;
+            } catch (PessimisticLockingFailureException e) {
+                retries.incrementAndGet();
+            }
+        }
+    }
+
+    private BigDecimal totalBalance(List<Long> cardIds) {
+        return cardRepository.findAllById(cardIds).stream()
+                .map(Card::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardResponseDTO;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardBalanceWriter;
+import com.example.bankcards.repository.CardRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DepositCoalescerTests {
+
+    @Mock private CardService cardService;
+    @Mock private CardRepository cardRepository;
+    @Mock private CardBalanceWriter balanceWriter;
+    @Mock private LedgerService ledgerService;
+    @Mock private StripedBalanceService stripedBalanceService;
+    @Mock private CardMapper cardMapper;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private DepositCoalescer coalescer(boolean enabled, Duration window, int maxBatch) {
+        return new DepositCoalescer(cardService, cardRepository, balanceWriter, ledgerService, stripedBalanceService, cardMapper,
+                transactionManager, enabled, window, maxBatch);
+    }
+
+    @Test
+    void deposit_shouldDelegateToCardService_whenDisabled() {
+        CardResponseDTO dto = new CardResponseDTO();
+        when(cardService.depositMyCard(1L, 10L, BigDecimal.TEN)).thenReturn(dto);
+
+        assertSame(dto, coalescer(false, Duration.ofMillis(2), 64).deposit(1L, 10L, BigDecimal.TEN));
+        verifyNoInteractions(cardRepository, balanceWriter, ledgerService);
+    }
+
+    @Test
+    void deposit_shouldApplyConcurrentDepositsWithOneUpdate_andGiveEachCallerItsOwnBalance() throws Exception {
+        int callers = 3;
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        Card card = new Card();
+        card.setId(10L);
+        card.setHeldAmount(new BigDecimal("30.00"));
+        when(balanceWriter.deposit(10L, 1L, new BigDecimal("6"))).thenReturn(Optional.of(card));
+        // баланс до пачки 100: остатки нарастающим итогом по порядку участников
+        when(ledgerService.recordDeposits(eq(card), anyList())).thenAnswer(inv -> {
+            List<BigDecimal> amounts = inv.getArgument(1);
+            List<BigDecimal> balances = new ArrayList<>();
+            BigDecimal running = new BigDecimal("100");
+            for (BigDecimal a : amounts) {
+                running = running.add(a);
+                balances.add(running);
+            }
+            return balances;
+        });
+        when(cardMapper.toResponse(card)).thenAnswer(inv -> new CardResponseDTO());
+
+        // окно большое — пачку закрывает max-batch
+        DepositCoalescer coalescer = coalescer(true, Duration.ofSeconds(5), callers);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CardResponseDTO>> futures = new ArrayList<>();
+        for (int i = 1; i <= callers; i++) {
+            BigDecimal amount = BigDecimal.valueOf(i);
+            futures.add(pool.submit(() -> {
+                start.await();
+                return coalescer.deposit(1L, 10L, amount);
+            }));
+        }
+        start.countDown();
+        List<BigDecimal> balances = new ArrayList<>();
+        for (Future<CardResponseDTO> f : futures) {
+            CardResponseDTO dto = f.get(5, TimeUnit.SECONDS);
+            balances.add(dto.getBalance());
+            // доступное — от своего остатка, а не от итогового баланса карты
+            assertEquals(0, dto.getBalance().subtract(new BigDecimal("30.00")).compareTo(dto.getAvailableBalance()),
+                    "available " + dto.getAvailableBalance() + " for balance " + dto.getBalance());
+        }
+        pool.shutdown();
+
+        verify(balanceWriter, times(1)).deposit(10L, 1L, new BigDecimal("6"));
+        verifyNoInteractions(cardRepository);
+        verify(transactionManager, times(1)).commit(any());
+        assertEquals(callers, balances.stream().collect(Collectors.toSet()).size(), "every caller sees its own balance");
+        assertTrue(balances.contains(new BigDecimal("106")));
+        verifyNoInteractions(cardService);
+    }
+
+    @Test
+    void deposit_shouldFailWholeBatch_whenCardBlocked() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(balanceWriter.deposit(10L, 1L, BigDecimal.ONE)).thenReturn(Optional.empty());
+        Card blocked = new Card();
+        blocked.setStatus(CardStatus.BLOCKED);
+        when(cardRepository.findByIdAndOwnerId(10L, 1L)).thenReturn(Optional.of(blocked));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> coalescer(true, Duration.ofMillis(1), 64).deposit(1L, 10L, BigDecimal.ONE));
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        verify(ledgerService, never()).recordDeposits(any(), anyList());
+        verify(transactionManager).rollback(any());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Currency;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FraudRuleServiceTests {
+
+    @Mock private AdminService adminService;
+    @Mock private PlatformTransactionManager transactionManager;
+    @Mock private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private FraudRuleService service;
+
+    @BeforeEach
+    void setUp() {
+        // 3 списания в минуту, сумма — до 500.00 в час, новая карта — до суток и от 100.00, опустошение — 3 списания до 5%
+        service = new FraudRuleService(adminService, transactionManager, meterRegistry, true, 16,
+                3, Duration.ofMinutes(1), "BLOCK",
+                new BigDecimal("500.00"), Duration.ofHours(1), "BLOCK",
+                Duration.ofDays(1), new BigDecimal("100.00"), "FLAG",
+                3, Duration.ofMinutes(10), new BigDecimal("0.05"), "FLAG");
+    }
+
+    @Test
+    void check_shouldDeclineOperation_overCountVelocity_perCard() {
+        Card card = card(1L, LocalDateTime.now().minusDays(30));
+        for (int i = 0; i < 3; i++) {
+            service.check(card, 1_00, 10_000_00);
+        }
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.check(card, 1_00, 10_000_00));
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        // окна у каждой карты свои
+        assertDoesNotThrow(() -> service.check(card(2L, null), 1_00, 10_000_00));
+        verifyNoInteractions(adminService);
+    }
+
+    @Test
+    void check_shouldDecline_whenAmountVelocityExceeded() {
+        Card card = card(1L, LocalDateTime.now().minusDays(30));
+        service.check(card, 300_00, 10_000_00);
+
+        assertThrows(ResponseStatusException.class, () -> service.check(card, 200_01, 10_000_00));
+        assertDoesNotThrow(() -> service.check(card, 200_00, 10_000_00));
+    }
+
+    @Test
+    void check_shouldFlagAndBlockCard_whenNewCardMakesLargeWithdrawal() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        Card card = card(5L, LocalDateTime.now().minusHours(2));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.check(card, 150_00, 10_000_00));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        // вне транзакции блокировка идёт сразу, тем же путём, что у администратора
+        verify(adminService).blockCard(5L);
+    }
+
+    @Test
+    void check_shouldFlag_whenSeriesDrainsCardNearlyToZero() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        Card card = card(7L, LocalDateTime.now().minusDays(30));
+        // баланс 300.00: два списания по 90.00 — ещё 40% остатка
+        service.check(card, 90_00, 210_00);
+        service.check(card, 90_00, 120_00);
+
+        assertThrows(ResponseStatusException.class, () -> service.check(card, 115_00, 5_00));
+        verify(adminService).blockCard(7L);
+    }
+
+    private static Card card(Long id, LocalDateTime createdAt) {
+        Card c = new Card();
+        c.setId(id);
+        c.setStatus(CardStatus.ACTIVE);
+        c.setCurrency(Currency.USD);
+        c.setBalance(BigDecimal.ZERO);
+        c.setCreatedAt(createdAt);
+        return c;
+    }
+}
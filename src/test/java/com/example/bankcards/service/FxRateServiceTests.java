@@ -0,0 +1,101 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.FxRateRequestDTO;
+import com.example.bankcards.entity.Currency;
+import com.example.bankcards.entity.FxRate;
+import com.example.bankcards.entity.Money;
+import com.example.bankcards.repository.FxRateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FxRateServiceTests {
+
+    @Mock private FxRateRepository rateRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private FxRateService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new FxRateService(rateRepository, transactionManager);
+    }
+
+    @Test
+    void convert_shouldUseRateEffectiveNow_andRoundHalfEven_withoutQueryingRates() {
+        LocalDateTime now = LocalDateTime.now();
+        stubRates(List.of(
+                rate(Currency.USD, Currency.EUR, "0.90000000", now.minusDays(1)),
+                // запланированный курс уже в снимке, но ещё не действует
+                rate(Currency.USD, Currency.EUR, "0.50000000", now.plusDays(1))));
+        service.refresh();
+        clearInvocations(rateRepository);
+
+        FxRateService.Conversion conversion = service.convert(Money.of(new BigDecimal("10.05"), Currency.USD), Currency.EUR);
+
+        // 10.05 * 0.9 = 9.045 -> 9.04 (банковское округление)
+        assertEquals(Money.of(new BigDecimal("9.04"), Currency.EUR), conversion.credited());
+        assertEquals(new BigDecimal("0.90000000"), conversion.rate());
+        verifyNoInteractions(rateRepository);
+    }
+
+    @Test
+    void convert_shouldReturn409_whenPairHasNoRate() {
+        stubRates(List.of(rate(Currency.USD, Currency.EUR, "0.90000000", LocalDateTime.now().minusDays(1))));
+        service.refresh();
+
+        // обратный курс не выводится
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.convert(Money.of(BigDecimal.TEN, Currency.EUR), Currency.USD));
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+    }
+
+    @Test
+    void refresh_shouldKeepPreviousSnapshot_whenReadFails() {
+        stubRates(List.of(rate(Currency.RUB, Currency.USD, "0.01100000", LocalDateTime.now().minusHours(1))));
+        service.refresh();
+        when(rateRepository.findCurrentAndFuture(any())).thenThrow(new IllegalStateException("db down"));
+
+        service.refresh();
+
+        assertEquals(Money.of(new BigDecimal("1.10"), Currency.USD),
+                service.convert(Money.of(new BigDecimal("100"), Currency.RUB), Currency.USD).credited());
+    }
+
+    @Test
+    void load_shouldReturn400_whenPairHasSameCurrency_andSaveNothing() {
+        FxRateRequestDTO dto = new FxRateRequestDTO();
+        dto.setBaseCurrency(Currency.USD);
+        dto.setQuoteCurrency(Currency.USD);
+        dto.setRate(BigDecimal.ONE);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.load(List.of(dto)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        verifyNoInteractions(rateRepository);
+    }
+
+    private void stubRates(List<FxRate> rates) {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(rateRepository.findCurrentAndFuture(any())).thenReturn(rates);
+    }
+
+    private static FxRate rate(Currency base, Currency quote, String rate, LocalDateTime effectiveFrom) {
+        return new FxRate(base, quote, new BigDecimal(rate), effectiveFrom, LocalDateTime.now());
+    }
+}
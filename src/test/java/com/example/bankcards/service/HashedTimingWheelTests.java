@@ -0,0 +1,58 @@
+package com.example.bankcards.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTests {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void advance_shouldFireNotBeforeDeadline_andWithinOneTick() {
+        HashedTimingWheel wheel = new HashedTimingWheel(100, 8, START);
+        wheel.schedule(1, 7, START + 250);
+
+        List<Long> fired = new ArrayList<>();
+        wheel.advance(START + 249, (id, key) -> fired.add(id));
+        assertTrue(fired.isEmpty());
+
+        wheel.advance(START + 300, (id, key) -> fired.add(id));
+        assertEquals(List.of(1L), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_shouldKeepEntriesBeyondOneRevolution_forRemainingRounds() {
+        // оборот — 4 тика по 10 мс: срок через 95 мс ложится в ту же корзину, что и через 15 мс, но на 2 круга позже
+        HashedTimingWheel wheel = new HashedTimingWheel(10, 4, START);
+        wheel.schedule(1, 0, START + 15);
+        wheel.schedule(2, 0, START + 95);
+
+        List<Long> fired = new ArrayList<>();
+        wheel.advance(START + 20, (id, key) -> fired.add(id));
+        assertEquals(List.of(1L), fired);
+
+        wheel.advance(START + 90, (id, key) -> fired.add(id));
+        assertEquals(List.of(1L), fired);
+
+        wheel.advance(START + 100, (id, key) -> fired.add(id));
+        assertEquals(List.of(1L, 2L), fired);
+    }
+
+    @Test
+    void schedule_shouldFireOverdueEntryOnNextTick_withPartitionKey() {
+        HashedTimingWheel wheel = new HashedTimingWheel(100, 8, START);
+        wheel.advance(START + 1_000, (id, key) -> fail("wheel is empty"));
+
+        wheel.schedule(5, 42, START - 10_000);
+
+        // текущий тик уже обработан — просроченная запись уходит на следующем
+        List<Long> keys = new ArrayList<>();
+        assertEquals(1, wheel.advance(START + 1_100, (id, key) -> keys.add(key)));
+        assertEquals(List.of(42L), keys);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.IdempotencyRecord;
+import com.example.bankcards.entity.IdempotencyStatus;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyServiceIT {
+    private static final long OWNER_ID = 42L;
+
+    @Autowired private IdempotencyRecordRepository recordRepository;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanup() {
+        recordRepository.deleteAll();
+    }
+
+    @Test
+    void execute_shouldReplayFromTable_afterKeyEvictedFromLru() {
+        IdempotencyService service = service(1, Duration.ofSeconds(30));
+        AtomicInteger runs = new AtomicInteger();
+
+        assertEquals("first", service.execute(OWNER_ID, "evicted", "deposit:1:10", String.class, () -> {
+            runs.incrementAndGet();
+            return "first";
+        }));
+        // второй ключ вытесняет первый из LRU на одну запись
+        service.execute(OWNER_ID, "other", "deposit:1:20", String.class, () -> "second");
+
+        assertEquals("first", service.execute(OWNER_ID, "evicted", "deposit:1:10", String.class, () -> {
+            runs.incrementAndGet();
+            return "again";
+        }));
+        assertEquals(1, runs.get());
+
+        ResponseStatusException mismatch = assertThrows(ResponseStatusException.class, () ->
+                service(1, Duration.ofSeconds(30))
+                        .execute(OWNER_ID, "evicted", "deposit:1:99", String.class, () -> "other request"));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, mismatch.getStatusCode());
+    }
+
+    @Test
+    void execute_shouldWaitForInFlightRequest_andReplayItsResult() throws Exception {
+        IdempotencyService service = service(100, Duration.ofSeconds(5));
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> original = CompletableFuture.supplyAsync(() ->
+                service.execute(OWNER_ID, "in-flight", "transfer:1:2:10", String.class, () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return "done";
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> retry = CompletableFuture.supplyAsync(() ->
+                service.execute(OWNER_ID, "in-flight", "transfer:1:2:10", String.class, () -> {
+                    runs.incrementAndGet();
+                    return "executed twice";
+                }));
+        Thread.sleep(100);
+        assertFalse(retry.isDone(), "retry must wait for the original request");
+
+        release.countDown();
+        assertEquals("done", original.get(5, TimeUnit.SECONDS));
+        assertEquals("done", retry.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_shouldReturn409_whenInFlightRequestOutlivesTimeout() throws Exception {
+        IdempotencyService service = service(100, Duration.ofMillis(200));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> original = CompletableFuture.supplyAsync(() ->
+                service.execute(OWNER_ID, "slow", "withdraw:1:10", String.class, () -> {
+                    started.countDown();
+                    await(release);
+                    return "done";
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        try {
+            ResponseStatusException conflict = assertThrows(ResponseStatusException.class, () ->
+                    service.execute(OWNER_ID, "slow", "withdraw:1:10", String.class, () -> "executed twice"));
+            assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+        } finally {
+            release.countDown();
+        }
+        assertEquals("done", original.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void purgeExpired_shouldRemoveStaleInProgress_andFreeTheKey() {
+        IdempotencyService service = service(100, Duration.ofSeconds(30));
+        LocalDateTime now = LocalDateTime.now();
+        // строка упавшего узла: IN_PROGRESS дольше in-progress-timeout
+        recordRepository.saveAndFlush(new IdempotencyRecord(OWNER_ID, "crashed", "deposit:1:10",
+                now.minusMinutes(1), now.plusHours(24)));
+        recordRepository.saveAndFlush(new IdempotencyRecord(OWNER_ID, "running", "deposit:1:10",
+                now, now.plusHours(24)));
+
+        ResponseStatusException held = assertThrows(ResponseStatusException.class, () ->
+                service.execute(OWNER_ID, "crashed", "deposit:1:10", String.class, () -> "blocked"));
+        assertEquals(HttpStatus.CONFLICT, held.getStatusCode());
+
+        service.purgeExpired();
+
+        assertTrue(recordRepository.findByOwnerIdAndIdempotencyKey(OWNER_ID, "crashed").isEmpty());
+        assertEquals(IdempotencyStatus.IN_PROGRESS,
+                recordRepository.findByOwnerIdAndIdempotencyKey(OWNER_ID, "running").orElseThrow().getStatus());
+        assertEquals("retried", service.execute(OWNER_ID, "crashed", "deposit:1:10", String.class, () -> "retried"));
+    }
+
+    private IdempotencyService service(int cacheSize, Duration inProgressTimeout) {
+        return new IdempotencyService(recordRepository, objectMapper, transactionManager,
+                cacheSize, Duration.ofHours(24), inProgressTimeout);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardBalanceSnapshot;
+import com.example.bankcards.entity.CardLedgerEntry;
+import com.example.bankcards.entity.LedgerEntryType;
+import com.example.bankcards.entity.Owner;
+import com.example.bankcards.fixture.CardFixtures;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
+import com.example.bankcards.repository.CardBalanceWriter;
+import com.example.bankcards.repository.CardBalanceSnapshotRepository;
+import com.example.bankcards.repository.CardLedgerEntryRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.JobLockRepository;
+import com.example.bankcards.repository.OutboxEventRepository;
+import com.example.bankcards.repository.OwnerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LedgerServiceIT {
+
+    @Autowired private LedgerService ledgerService;
+    @Autowired private CardLedgerEntryRepository ledgerRepository;
+    @Autowired private CardBalanceSnapshotRepository snapshotRepository;
+    @Autowired private JobLockRepository jobLockRepository;
+    @Autowired private OutboxEventRepository outboxEventRepository;
+    @Autowired private CardRepository cardRepository;
+    @Autowired private CardBalanceWriter balanceWriter;
+    @Autowired private CardBalanceSlotRepository slotRepository;
+    @Autowired private StripedBalanceService stripedBalanceService;
+    @Autowired private OwnerRepository ownerRepository;
+    @Autowired private CardFixtures fixtures;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        // журнал общий для всего контекста: снимаем только то, что создал тест
+        snapshotRepository.deleteAll();
+        ledgerRepository.deleteAll();
+    }
+
+    @AfterEach
+    void cleanup() {
+        snapshotRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        ledgerRepository.deleteAll();
+        slotRepository.deleteAll();
+        cardRepository.deleteAll();
+        ownerRepository.deleteAll();
+    }
+
+    @Test
+    void balanceAsOf_shouldCombineSnapshotWithLaterEntries_atAnyMoment() {
+        Card card = fixtures.card(fixtures.owner("ledger-asof@example.com"), "5001");
+        // TIMESTAMP хранит микросекунды
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        entry(card, 0, "10.00", now.minusHours(3));
+        entry(card, 0, "5.00", now.minusHours(2));
+
+        ledgerService.takeSnapshots();
+        // записана после снимка со следующей версией карты, но создана раньше его asOf —
+        // как проводка транзакции, закоммиченной позже
+        tx.executeWithoutResult(s -> cardRepository.incrementVersions(List.of(card.getId())));
+        entry(card, 1, "2.00", now.minusMinutes(150));
+
+        CardBalanceSnapshot snapshot = snapshotRepository.findAll().getFirst();
+        assertEquals(0, new BigDecimal("15.00").compareTo(snapshot.getBalance()));
+        assertEquals(now.minusHours(2), snapshot.getAsOf());
+        assertBalance("17.00", card, now);
+        assertBalance("12.00", card, now.minusMinutes(135));
+        assertBalance("10.00", card, now.minusMinutes(160));
+        assertBalance("0", card, now.minusHours(4));
+
+        ledgerService.takeSnapshots();
+
+        assertEquals(2, snapshotRepository.count());
+        assertBalance("17.00", card, now);
+        assertBalance("12.00", card, now.minusMinutes(135));
+    }
+
+    @Test
+    void takeSnapshots_shouldNotLoseEntryCommittedAfterIt_evenWithSmallerId() throws Exception {
+        Owner owner = fixtures.owner("ledger-late@example.com");
+        Card slow = fixtures.card(owner, "5002");
+        Card fast = fixtures.card(owner, "5003");
+        entry(slow, 0, "5.00", LocalDateTime.now().minusMinutes(1));
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // проводка медленной транзакции получает id из пула раньше, а коммитится после снимка
+        CompletableFuture<Void> slowTx = CompletableFuture.runAsync(() -> tx.executeWithoutResult(s -> {
+            deposit(owner, slow, "7.00");
+            ledgerRepository.flush();
+            written.countDown();
+            await(release);
+        }));
+        assertTrue(written.await(10, TimeUnit.SECONDS));
+        tx.executeWithoutResult(s -> deposit(owner, fast, "3.00"));
+
+        ledgerService.takeSnapshots();
+        release.countDown();
+        slowTx.get(10, TimeUnit.SECONDS);
+
+        assertEquals(0, new BigDecimal("5.00").compareTo(snapshotOf(slow).getBalance()));
+        assertEquals(0L, snapshotOf(slow).getCardVersion());
+        assertBalance("12.00", slow, LocalDateTime.now());
+
+        // следующее движение карты включает опоздавшую проводку в её снимок
+        tx.executeWithoutResult(s -> deposit(owner, slow, "1.00"));
+        ledgerService.takeSnapshots();
+
+        assertEquals(0, new BigDecimal("13.00").compareTo(snapshotOf(slow).getBalance()));
+        assertBalance("13.00", slow, LocalDateTime.now());
+    }
+
+    @Test
+    void takeSnapshots_shouldWaitForStripedDeposit_andCloseCardVersion() throws Exception {
+        Owner owner = fixtures.owner("ledger-striped@example.com");
+        Card card = fixtures.card(owner, "5005");
+        tx.executeWithoutResult(s -> stripedBalanceService.restripe(
+                cardRepository.findByIdForUpdate(card.getId()).orElseThrow(), 2));
+        entry(card, 1, "6.00", LocalDateTime.now().minusMinutes(1));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // пополнение полосы в полёте: держит строку полосы и пишет проводку под текущей версией карты
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> tx.executeWithoutResult(s -> {
+            assertEquals(1, slotRepository.addToSlot(card.getId(), owner.getId(), (short) 0, new BigDecimal("1.00")));
+            Card current = cardRepository.findByIdWithOwner(card.getId()).orElseThrow();
+            locked.countDown();
+            await(release);
+            ledgerService.recordDeposit(current, new BigDecimal("1.00"));
+        }));
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+        CompletableFuture<Void> snapshot = CompletableFuture.runAsync(ledgerService::takeSnapshots);
+        Thread.sleep(300);
+        assertFalse(snapshot.isDone(), "snapshot must wait for the striped deposit");
+
+        release.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+        snapshot.get(10, TimeUnit.SECONDS);
+
+        assertEquals(0, new BigDecimal("7.00").compareTo(snapshotOf(card).getBalance()));
+        assertEquals(1L, snapshotOf(card).getCardVersion());
+        // пополнение после снимка пишется под следующей версией и в снимок уже не входит
+        Card closed = cardRepository.findById(card.getId()).orElseThrow();
+        assertEquals(2L, closed.getVersion());
+        tx.executeWithoutResult(s -> {
+            slotRepository.addToSlot(card.getId(), owner.getId(), (short) 1, new BigDecimal("2.00"));
+            ledgerService.recordDeposit(cardRepository.findByIdWithOwner(card.getId()).orElseThrow(),
+                    new BigDecimal("2.00"));
+        });
+        assertBalance("9.00", card, LocalDateTime.now());
+    }
+
+    @Test
+    void takeSnapshots_shouldSkipRun_whileAnotherNodeHoldsTheJob() throws Exception {
+        Card card = fixtures.card(fixtures.owner("ledger-lock@example.com"), "5004");
+        entry(card, 0, "4.00", LocalDateTime.now().minusMinutes(1));
+        ledgerService.takeSnapshots();
+        snapshotRepository.deleteAll();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> otherNode = CompletableFuture.runAsync(() -> tx.executeWithoutResult(s -> {
+            assertFalse(jobLockRepository.tryLock(LedgerService.SNAPSHOT_JOB).isEmpty());
+            locked.countDown();
+            await(release);
+        }));
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+        ledgerService.takeSnapshots();
+        assertEquals(0, snapshotRepository.count());
+
+        release.countDown();
+        otherNode.get(10, TimeUnit.SECONDS);
+        ledgerService.takeSnapshots();
+        assertEquals(1, snapshotRepository.count());
+    }
+
+    private void entry(Card card, long cardVersion, String amount, LocalDateTime createdAt) {
+        BigDecimal value = new BigDecimal(amount);
+        ledgerRepository.save(new CardLedgerEntry(card.getId(), cardVersion, UUID.randomUUID(),
+                LedgerEntryType.DEPOSIT, value, value, null, createdAt));
+    }
+
+    /** Как CardService.depositMyCard: условный UPDATE поднимает версию карты, проводка пишется под ней. */
+    private void deposit(Owner owner, Card card, String amount) {
+        BigDecimal value = new BigDecimal(amount);
+        ledgerService.recordDeposit(balanceWriter.deposit(card.getId(), owner.getId(), value).orElseThrow(), value);
+    }
+
+    private CardBalanceSnapshot snapshotOf(Card card) {
+        return snapshotRepository.findLatestByCardIds(List.of(card.getId())).getFirst();
+    }
+
+    private void assertBalance(String expected, Card card, LocalDateTime at) {
+        BigDecimal actual = ledgerService.balanceAsOf(card.getId(), at);
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), "as of " + at + ": " + actual);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
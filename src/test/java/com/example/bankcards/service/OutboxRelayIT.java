@@ -0,0 +1,161 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.OutboxEvent;
+import com.example.bankcards.entity.Owner;
+import com.example.bankcards.fixture.CardFixtures;
+import com.example.bankcards.repository.CardLedgerEntryRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.OutboxEventRepository;
+import com.example.bankcards.repository.OwnerRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OutboxRelayIT {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired private OutboxRelay outboxRelay;
+    @Autowired private OutboxService outboxService;
+    @Autowired private LedgerService ledgerService;
+    @Autowired private AdminService adminService;
+    @Autowired private OutboxEventRepository outboxEventRepository;
+    @Autowired private CardLedgerEntryRepository ledgerRepository;
+    @Autowired private CardRepository cardRepository;
+    @Autowired private OwnerRepository ownerRepository;
+    @Autowired private CardFixtures fixtures;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private CardService cardService;
+
+    @Value("${app.outbox.file.dir}")
+    private String outboxDir;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        // релей в тестах выключен: события других тестов копятся в общей базе контекста
+        outboxEventRepository.deleteAll();
+    }
+
+    @AfterEach
+    void cleanup() {
+        outboxEventRepository.deleteAll();
+        ledgerRepository.deleteAll();
+        cardRepository.deleteAll();
+        ownerRepository.deleteAll();
+    }
+
+    @Test
+    void relay_shouldPublishEventsOfCardInCommitOrder_andDrainOutbox() throws IOException {
+        Owner owner = fixtures.owner("outbox@example.com");
+        Card first = fixtures.card(owner, "3001");
+        Card second = fixtures.card(owner, "3002");
+        tx.executeWithoutResult(s -> {
+            ledgerService.recordDeposit(first, new BigDecimal("10.00"));
+            ledgerService.recordDeposit(second, new BigDecimal("5.00"));
+        });
+        adminService.blockCard(first.getId());
+        tx.executeWithoutResult(s -> ledgerService.recordWithdrawal(first, new BigDecimal("1.00")));
+        int before = publishedLines().size();
+
+        assertEquals(4, outboxRelay.relay());
+
+        List<JsonNode> published = new ArrayList<>();
+        for (String line : publishedLines().subList(before, before + 4)) {
+            published.add(objectMapper.readTree(line));
+        }
+        List<String> firstCardTypes = published.stream()
+                .filter(e -> e.get("aggregateId").asLong() == first.getId())
+                .map(e -> e.get("type").asText())
+                .toList();
+        assertEquals(List.of("CARD_BALANCE_CHANGED", "CARD_BLOCKED", "CARD_BALANCE_CHANGED"), firstCardTypes);
+        JsonNode withdrawal = published.stream()
+                .filter(e -> e.get("aggregateId").asLong() == first.getId()).toList().get(2);
+        assertEquals("-1.00", withdrawal.get("payload").get("amount").asText());
+        assertEquals(0, outboxEventRepository.count());
+        assertEquals(0, outboxRelay.relay());
+    }
+
+    @Test
+    void cardEvents_shouldCarryCardVersionAfterChange() throws IOException {
+        Owner owner = fixtures.owner("version@example.com");
+        Card card = fixtures.card(owner, "3005", new BigDecimal("100.00"));
+        Card other = fixtures.card(owner, "3006");
+
+        // перевод и блокировка меняют сущности через dirty checking — версия должна быть уже после UPDATE
+        for (int i = 0; i < 2; i++) {
+            tx.executeWithoutResult(s -> cardService.applyTransfer(owner.getId(), card.getId(), other.getId(),
+                    new BigDecimal("10.00")));
+        }
+        adminService.blockCard(card.getId());
+
+        List<OutboxEvent> events = outboxEventRepository.findAll().stream()
+                .filter(e -> e.getAggregateId().equals(card.getId()))
+                .sorted(Comparator.comparing(OutboxEvent::getCreatedAt).thenComparing(OutboxEvent::getId))
+                .toList();
+        List<Long> versions = new ArrayList<>();
+        for (OutboxEvent e : events) {
+            versions.add(objectMapper.readTree(e.getPayload()).get("version").asLong());
+        }
+        assertEquals(List.of(1L, 2L, 3L), versions);
+        assertEquals(3L, cardRepository.findById(card.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void events_shouldBeRolledBackTogetherWithChange() {
+        Card card = fixtures.card(fixtures.owner("rollback@example.com"), "3003");
+
+        tx.executeWithoutResult(s -> {
+            ledgerService.recordDeposit(card, new BigDecimal("10.00"));
+            s.setRollbackOnly();
+        });
+
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    void outbox_shouldRequireCallersTransaction() {
+        Card card = fixtures.card(fixtures.owner("mandatory@example.com"), "3004");
+
+        assertThrows(IllegalTransactionStateException.class, () -> outboxService.cardStatusChanged(card));
+    }
+
+    private List<String> publishedLines() throws IOException {
+        Path dir = Path.of(outboxDir);
+        if (!Files.exists(dir)) {
+            return List.of();
+        }
+        List<String> lines = new ArrayList<>();
+        try (Stream<Path> segments = Files.list(dir)) {
+            for (Path segment : segments.sorted().toList()) {
+                lines.addAll(Files.readAllLines(segment));
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardLedgerEntry;
+import com.example.bankcards.entity.LedgerEntryType;
+import com.example.bankcards.entity.Owner;
+import com.example.bankcards.entity.ReconciliationDrift;
+import com.example.bankcards.entity.ReconciliationRun;
+import com.example.bankcards.entity.ReconciliationStatus;
+import com.example.bankcards.fixture.CardFixtures;
+import com.example.bankcards.repository.CardLedgerEntryRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.OwnerRepository;
+import com.example.bankcards.repository.ReconciliationDriftRepository;
+import com.example.bankcards.repository.ReconciliationRunRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReconciliationServiceIT {
+
+    @Autowired private ReconciliationService reconciliationService;
+    @Autowired private ReconciliationRunRepository runRepository;
+    @Autowired private ReconciliationDriftRepository driftRepository;
+    @Autowired private CardLedgerEntryRepository ledgerRepository;
+    @Autowired private CardRepository cardRepository;
+    @Autowired private OwnerRepository ownerRepository;
+    @Autowired private CardFixtures fixtures;
+
+    @AfterEach
+    void cleanup() {
+        driftRepository.deleteAll();
+        runRepository.deleteAll();
+        ledgerRepository.deleteAll();
+        cardRepository.deleteAll();
+        ownerRepository.deleteAll();
+    }
+
+    @Test
+    void reconcile_shouldReportOnlyCardsWhoseBalanceDriftedFromLedger() {
+        Owner owner = fixtures.owner("recon@example.com");
+        Card matching = fixtures.card(owner, "1001", new BigDecimal("100.00"));
+        Card drifted = fixtures.card(owner, "1002", new BigDecimal("50.00"));
+        fixtures.card(owner, "1003", BigDecimal.ZERO);   // ни баланса, ни проводок
+        deposit(matching, "100.00");
+        deposit(drifted, "40.00");
+
+        ReconciliationRun run = reconciliationService.reconcile();
+
+        assertEquals(ReconciliationStatus.COMPLETED, run.getStatus());
+        assertEquals(3, run.getCardsChecked());
+        assertEquals(1, run.getDriftCount());
+        List<ReconciliationDrift> drifts = driftRepository.findAllByRunIdOrderByCardId(run.getId());
+        assertEquals(1, drifts.size());
+        assertEquals(drifted.getId(), drifts.get(0).getCardId());
+        assertEquals(0, new BigDecimal("10.00").compareTo(drifts.get(0).getDrift()));
+    }
+
+    @Test
+    void split_shouldCoverIdSpaceWithoutGapsOrOverlaps() {
+        List<long[]> ranges = ReconciliationService.split(0, 10, 4);
+
+        assertEquals(3, ranges.size());
+        assertArrayEquals(new long[]{0, 4}, ranges.get(0));
+        assertArrayEquals(new long[]{4, 8}, ranges.get(1));
+        assertArrayEquals(new long[]{8, 10}, ranges.get(2));
+    }
+
+    private void deposit(Card card, String amount) {
+        BigDecimal value = new BigDecimal(amount);
+        ledgerRepository.save(new CardLedgerEntry(card.getId(), card.getVersion(), UUID.randomUUID(),
+                LedgerEntryType.DEPOSIT, value, value, null, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.ScheduleRecurrence;
+import com.example.bankcards.entity.ScheduleStatus;
+import com.example.bankcards.entity.TransferSchedule;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferScheduleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduledTransferServiceTests {
+
+    private static final String NODE = "node-1";
+
+    @Mock private TransferScheduleRepository scheduleRepository;
+    @Mock private CardRepository cardRepository;
+    @Mock private CardService cardService;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private ScheduledTransferService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        service = new ScheduledTransferService(scheduleRepository, cardRepository, cardService, transactionManager,
+                true, Duration.ofSeconds(1), 64, Duration.ofMinutes(1), Duration.ofMinutes(5), 100, 1, 8, 100, NODE);
+    }
+
+    @Test
+    void runGroup_shouldAdvanceRecurringSchedule_andApplyTransfer() {
+        LocalDateTime due = LocalDateTime.now().minusSeconds(1);
+        TransferSchedule schedule = leased(ScheduleRecurrence.DAILY, due);
+        when(scheduleRepository.findAllById(List.of(5L))).thenReturn(List.of(schedule));
+        when(scheduleRepository.claimRun(any(), eq(NODE), eq(due), eq(due.plusDays(1)), eq(ScheduleStatus.ACTIVE), any()))
+                .thenReturn(1);
+
+        service.runGroup(List.of(5L));
+
+        // карты пачки блокируются до первого перевода
+        InOrder inOrder = inOrder(cardService);
+        inOrder.verify(cardService).lockCardsForGroup(Set.of(10L, 20L));
+        inOrder.verify(cardService).applyTransfer(1L, 10L, 20L, new BigDecimal("15.00"));
+        verify(scheduleRepository, never()).recordFailure(any(), any());
+    }
+
+    @Test
+    void runGroup_shouldSkipTransfer_whenRunAlreadyClaimed() {
+        LocalDateTime due = LocalDateTime.now().minusSeconds(1);
+        when(scheduleRepository.findAllById(List.of(5L))).thenReturn(List.of(leased(ScheduleRecurrence.ONCE, due)));
+        // запуск уже выполнил другой узел или расписание отменили
+        when(scheduleRepository.claimRun(any(), eq(NODE), eq(due), eq(due), eq(ScheduleStatus.COMPLETED), any()))
+                .thenReturn(0);
+
+        service.runGroup(List.of(5L));
+
+        verify(cardService, never()).applyTransfer(any(), any(), any(), any());
+    }
+
+    @Test
+    void runGroup_shouldRecordRejection_withoutFailingGroup() {
+        LocalDateTime due = LocalDateTime.now().minusSeconds(1);
+        when(scheduleRepository.findAllById(List.of(5L))).thenReturn(List.of(leased(ScheduleRecurrence.ONCE, due)));
+        when(scheduleRepository.claimRun(any(), eq(NODE), eq(due), eq(due), eq(ScheduleStatus.COMPLETED), any()))
+                .thenReturn(1);
+        when(cardService.applyTransfer(any(), any(), any(), any()))
+                .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient funds"));
+
+        service.runGroup(List.of(5L));
+
+        verify(scheduleRepository).recordFailure(any(), eq("Insufficient funds"));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void monthlyRecurrence_shouldStayAnchoredToFirstRunDay() {
+        LocalDateTime first = LocalDateTime.of(2025, 1, 31, 9, 0);
+
+        LocalDateTime feb = ScheduleRecurrence.MONTHLY.next(first, first, first.plusMinutes(1));
+        LocalDateTime mar = ScheduleRecurrence.MONTHLY.next(first, feb, feb.plusMinutes(1));
+
+        assertEquals(LocalDateTime.of(2025, 2, 28, 9, 0), feb);
+        assertEquals(LocalDateTime.of(2025, 3, 31, 9, 0), mar);
+        // после простоя — ближайший будущий запуск, пропущенные не догоняются
+        assertEquals(LocalDateTime.of(2025, 6, 30, 9, 0),
+                ScheduleRecurrence.MONTHLY.next(first, mar, LocalDateTime.of(2025, 6, 1, 0, 0)));
+        assertNull(ScheduleRecurrence.ONCE.next(first, first, first));
+    }
+
+    private static TransferSchedule leased(ScheduleRecurrence recurrence, LocalDateTime due) {
+        TransferSchedule s = new TransferSchedule(1L, 10L, 20L, new BigDecimal("15.00"), recurrence, due, due.minusDays(1));
+        s.lease(NODE, due.plusMinutes(5));
+        return s;
+    }
+}
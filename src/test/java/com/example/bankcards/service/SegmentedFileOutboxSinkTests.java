@@ -0,0 +1,73 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.OutboxAggregateType;
+import com.example.bankcards.entity.OutboxEvent;
+import com.example.bankcards.entity.OutboxEventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedFileOutboxSinkTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void publish_shouldAppendBatchesInOrder_andRollFullSegment() throws IOException {
+        int lineBytes = SegmentedFileOutboxSink.encode(List.of(event(1))).length;
+        // в сегмент влезают ровно две строки: третья пачка открывает следующий
+        try (SegmentedFileOutboxSink sink = new SegmentedFileOutboxSink(dir.toString(), DataSize.ofBytes(lineBytes * 2L))) {
+            sink.publish(List.of(event(1)));
+            sink.publish(List.of(event(2)));
+            sink.publish(List.of(event(3), event(4)));
+        }
+
+        List<String> first = Files.readAllLines(SegmentedFileOutboxSink.segmentPath(dir, 0));
+        List<String> second = Files.readAllLines(SegmentedFileOutboxSink.segmentPath(dir, 1));
+        assertEquals(2, first.size());
+        assertTrue(first.get(0).startsWith("{\"id\":1,"));
+        assertTrue(first.get(1).startsWith("{\"id\":2,"));
+        // пачка не делится между сегментами, даже если больше segment-size
+        assertEquals(2, second.size());
+        assertTrue(second.get(1).startsWith("{\"id\":4,"));
+        assertTrue(first.get(0).endsWith(",\"payload\":{\"cardId\":7}}"));
+    }
+
+    @Test
+    void publish_shouldTruncateTornTail_andContinueLastSegment() throws IOException {
+        try (SegmentedFileOutboxSink sink = new SegmentedFileOutboxSink(dir.toString(), DataSize.ofMegabytes(1))) {
+            sink.publish(List.of(event(1)));
+        }
+        // узел упал посреди записи следующей пачки
+        Files.writeString(SegmentedFileOutboxSink.segmentPath(dir, 0), "{\"id\":2,\"partit",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (SegmentedFileOutboxSink sink = new SegmentedFileOutboxSink(dir.toString(), DataSize.ofMegabytes(1))) {
+            sink.publish(List.of(event(2)));
+        }
+
+        List<String> lines = Files.readAllLines(SegmentedFileOutboxSink.segmentPath(dir, 0));
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"id\":1,"));
+        assertTrue(lines.get(1).startsWith("{\"id\":2,\"partition\":"));
+        assertFalse(Files.exists(SegmentedFileOutboxSink.segmentPath(dir, 1)));
+    }
+
+    private static OutboxEvent event(long id) {
+        OutboxEvent e = new OutboxEvent(OutboxAggregateType.CARD, 7L, OutboxEventType.CARD_BLOCKED, (short) 0,
+                "{\"cardId\":7}", LocalDateTime.of(2025, 1, 1, 12, 0));
+        ReflectionTestUtils.setField(e, "id", id);
+        return e;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.LimitScope;
+import com.example.bankcards.repository.CardLedgerEntryRepository;
+import com.example.bankcards.repository.SpendingLimitRepository;
+import com.example.bankcards.repository.SpendingUsageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SpendingLimitServiceTests {
+
+    @Mock private SpendingLimitRepository limitRepository;
+    @Mock private SpendingUsageRepository usageRepository;
+    @Mock private CardLedgerEntryRepository ledgerRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private SpendingLimitService service;
+
+    @BeforeEach
+    void setUp() {
+        // по умолчанию: карта 100.00 в сутки и 150.00 в месяц, владелец — 120.00 в сутки
+        service = new SpendingLimitService(limitRepository, usageRepository, ledgerRepository, transactionManager,
+                new BigDecimal("100.00"), new BigDecimal("150.00"), new BigDecimal("120.00"), null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reserve_shouldAccumulate_andRejectOverDailyLimit_withoutCountingRejected() {
+        service.reserve(1L, 10L, 6_000);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.reserve(1L, 10L, 4_001));
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertEquals("Daily card spending limit exceeded", ex.getReason());
+
+        // отклонённая сумма не осталась в счётчике: ровно до лимита проходит
+        service.reserve(1L, 10L, 4_000);
+        assertEquals(0, new BigDecimal("100.00").compareTo(service.cardSpending(10L).spentToday()));
+    }
+
+    @Test
+    void reserve_shouldReleaseCardReservation_whenOwnerLimitExceeded() {
+        service.reserve(1L, 10L, 9_000);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.reserve(1L, 20L, 5_000));
+        assertEquals("Daily owner spending limit exceeded", ex.getReason());
+        assertEquals(0, BigDecimal.ZERO.compareTo(service.cardSpending(20L).spentToday()));
+    }
+
+    @Test
+    void release_shouldReturnAmount_once() {
+        SpendingLimitService.Reservation reservation = service.reserve(1L, 10L, 7_000);
+
+        service.release(reservation);
+        service.release(reservation);
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(service.cardSpending(10L).spentToday()));
+        service.reserve(1L, 10L, 10_000);
+    }
+
+    @Test
+    void reserve_shouldBeReleased_whenTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.reserve(1L, 10L, 5_000);
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(service.cardSpending(10L).spentToday()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(service.cardSpending(10L).spentThisMonth()));
+    }
+
+    @Test
+    void setLimits_shouldOverrideDefaults_forThatCardOnly() {
+        when(limitRepository.findById(any())).thenReturn(Optional.empty());
+
+        service.setLimits(LimitScope.CARD, 10L, new BigDecimal("20.00"), null);
+
+        SpendingLimitService.CardSpending own = service.cardSpending(10L);
+        assertEquals(0, new BigDecimal("20.00").compareTo(own.dailyLimit()));
+        assertNull(own.monthlyLimit());
+        assertThrows(ResponseStatusException.class, () -> service.reserve(1L, 10L, 2_001));
+
+        SpendingLimitService.CardSpending other = service.cardSpending(11L);
+        assertEquals(0, new BigDecimal("100.00").compareTo(other.dailyLimit()));
+        verify(limitRepository).save(any());
+    }
+}
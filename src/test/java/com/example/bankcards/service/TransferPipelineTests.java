@@ -0,0 +1,136 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransferOperationDTO;
+import com.example.bankcards.dto.TransferOperationStatus;
+import com.example.bankcards.dto.TransferResponseDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferPipelineTests {
+
+    @Mock private CardService cardService;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private TransferPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        pipeline = new TransferPipeline(cardService, transactionManager, true, 2, 16, 8, Duration.ofHours(1));
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+
+    @Test
+    void submit_shouldReturnPendingOperation_andCompleteAfterCommit() throws Exception {
+        TransferResponseDTO result = new TransferResponseDTO();
+        when(cardService.applyTransfer(1L, 10L, 20L, new BigDecimal("5"))).thenReturn(result);
+
+        TransferOperationDTO accepted = pipeline.submit(1L, 10L, 20L, new BigDecimal("5"));
+        assertEquals(TransferOperationStatus.PENDING, accepted.getStatus());
+
+        TransferOperationDTO done = awaitFinished(1L, accepted.getId());
+        assertEquals(TransferOperationStatus.COMPLETED, done.getStatus());
+        assertSame(result, done.getResult());
+        assertNotNull(done.getCompletedAt());
+        verify(transactionManager, atLeastOnce()).commit(any());
+    }
+
+    @Test
+    void submit_shouldReportRejection_withSyncErrorStatus() throws Exception {
+        when(cardService.applyTransfer(1L, 10L, 20L, new BigDecimal("500")))
+                .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient funds"));
+
+        TransferOperationDTO accepted = pipeline.submit(1L, 10L, 20L, new BigDecimal("500"));
+
+        TransferOperationDTO done = awaitFinished(1L, accepted.getId());
+        assertEquals(TransferOperationStatus.REJECTED, done.getStatus());
+        assertEquals(409, done.getErrorStatus());
+        assertEquals("Insufficient funds", done.getMessage());
+    }
+
+    @Test
+    void submit_should400_withoutEnqueueing_whenRequestInvalid() {
+        doThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Source and destination cards must differ"))
+                .when(cardService).validateTransferRequest(10L, 10L, BigDecimal.ONE);
+
+        assertThrows(ResponseStatusException.class, () -> pipeline.submit(1L, 10L, 10L, BigDecimal.ONE));
+        verify(cardService, never()).applyTransfer(anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void find_shouldHideOtherOwnersOperations() {
+        lenient().when(cardService.applyTransfer(anyLong(), anyLong(), anyLong(), any())).thenReturn(new TransferResponseDTO());
+        TransferOperationDTO accepted = pipeline.submit(1L, 10L, 20L, BigDecimal.ONE);
+
+        assertTrue(pipeline.find(2L, accepted.getId()).isEmpty());
+        assertTrue(pipeline.find(1L, UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void group_shouldLockAllItsCardsUpFront_beforeApplyingTransfers() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        when(cardService.applyTransfer(1L, 1L, 2L, BigDecimal.ONE)).thenAnswer(invocation -> {
+            firstStarted.countDown();
+            releaseFirst.await(5, TimeUnit.SECONDS);
+            return new TransferResponseDTO();
+        });
+        when(cardService.applyTransfer(eq(1L), eq(9L), anyLong(), any())).thenReturn(new TransferResponseDTO());
+
+        TransferOperationDTO first = pipeline.submit(1L, 1L, 2L, BigDecimal.ONE);
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        // воркер занят — следующие две операции владельца попадут в одну группу
+        TransferOperationDTO second = pipeline.submit(1L, 9L, 2L, BigDecimal.ONE);
+        TransferOperationDTO third = pipeline.submit(1L, 9L, 5L, BigDecimal.ONE);
+        releaseFirst.countDown();
+
+        awaitFinished(1L, first.getId());
+        awaitFinished(1L, second.getId());
+        awaitFinished(1L, third.getId());
+
+        InOrder inOrder = inOrder(cardService);
+        inOrder.verify(cardService).lockCardsForGroup(Set.of(1L, 2L));
+        inOrder.verify(cardService).applyTransfer(1L, 1L, 2L, BigDecimal.ONE);
+        inOrder.verify(cardService).lockCardsForGroup(Set.of(2L, 5L, 9L));
+        inOrder.verify(cardService).applyTransfer(1L, 9L, 2L, BigDecimal.ONE);
+        inOrder.verify(cardService).applyTransfer(1L, 9L, 5L, BigDecimal.ONE);
+    }
+
+    private TransferOperationDTO awaitFinished(Long ownerId, UUID id) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() < deadline) {
+            TransferOperationDTO op = pipeline.find(ownerId, id).orElseThrow();
+            if (op.getStatus() != TransferOperationStatus.PENDING) {
+                return op;
+            }
+            Thread.sleep(10);
+        }
+        fail("operation " + id + " did not finish in time");
+        return null;
+    }
+}
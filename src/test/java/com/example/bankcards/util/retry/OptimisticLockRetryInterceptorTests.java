@@ -0,0 +1,105 @@
+package com.example.bankcards.util.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OptimisticLockRetryInterceptorTests {
+    private static final String METHOD = "CardOperation.apply";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void invoke_shouldRetryConflict_andReturnResultOfSuccessfulAttempt() {
+        AtomicInteger calls = new AtomicInteger();
+        CardOperation operation = proxy(3, Duration.ZERO, Duration.ZERO, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("version conflict");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", operation.apply());
+        assertEquals(3, calls.get());
+        assertEquals(2.0, registry.get("cards.optimistic_lock.retries").tag("method", METHOD).counter().count());
+        assertNull(registry.find("cards.optimistic_lock.exhausted").counter());
+    }
+
+    @Test
+    void invoke_shouldGiveUp_afterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+        CardOperation operation = proxy(3, Duration.ZERO, Duration.ZERO, () -> {
+            calls.incrementAndGet();
+            throw new OptimisticLockingFailureException("version conflict");
+        });
+
+        assertThrows(OptimisticLockingFailureException.class, operation::apply);
+        assertEquals(3, calls.get());
+        assertEquals(2.0, registry.get("cards.optimistic_lock.retries").tag("method", METHOD).counter().count());
+        assertEquals(1.0, registry.get("cards.optimistic_lock.exhausted").tag("method", METHOD).counter().count());
+    }
+
+    @Test
+    void invoke_shouldNotRetry_otherExceptions() {
+        AtomicInteger calls = new AtomicInteger();
+        CardOperation operation = proxy(3, Duration.ZERO, Duration.ZERO, () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("not a version conflict");
+        });
+
+        assertThrows(IllegalStateException.class, operation::apply);
+        assertEquals(1, calls.get());
+        assertNull(registry.find("cards.optimistic_lock.retries").counter());
+    }
+
+    @Test
+    void invoke_shouldCapBackoff_atMaxBackoff() {
+        // без потолка задержки перед 9-й попыткой доходили бы до 10ms * 2^8 = 2.5s
+        CardOperation operation = proxy(10, Duration.ofMillis(10), Duration.ofMillis(20), () -> {
+            throw new OptimisticLockingFailureException("version conflict");
+        });
+
+        long startedAt = System.nanoTime();
+        assertThrows(OptimisticLockingFailureException.class, operation::apply);
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        assertTrue(elapsedMillis < 1_000, "9 backoffs of at most 20ms took " + elapsedMillis + "ms");
+        assertEquals(9.0, registry.get("cards.optimistic_lock.retries").tag("method", METHOD).counter().count());
+    }
+
+    private CardOperation proxy(int maxAttempts, Duration baseBackoff, Duration maxBackoff, CardOperation target) {
+        ProxyFactory factory = new ProxyFactory(new CardOperation() {
+            @Override
+            public String apply() {
+                return target.apply();
+            }
+        });
+        factory.addInterface(CardOperation.class);
+        factory.addAdvice(new OptimisticLockRetryInterceptor(maxAttempts, baseBackoff, maxBackoff, meterRegistry()));
+        return (CardOperation) factory.getProxy();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ObjectProvider<MeterRegistry> meterRegistry() {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(registry);
+        return provider;
+    }
+
+    interface CardOperation {
+        String apply();
+    }
+}